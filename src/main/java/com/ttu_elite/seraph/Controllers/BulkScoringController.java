@@ -0,0 +1,63 @@
+package com.ttu_elite.seraph.Controllers;
+
+import com.ttu_elite.seraph.Services.BulkScoringService;
+import com.ttu_elite.seraph.Services.BulkScoringService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+// Stateless bulk scoring of research datasets, results stream back as NDJSON:
+//   curl -T corpus.ndjson -H 'Content-Type: application/x-ndjson' localhost:8080/SERAPH/score
+//   curl -F file=@corpus.txt localhost:8080/SERAPH/score
+// Nothing is stored; see BulkScoringService for the line formats.
+@RestController
+@RequestMapping("/SERAPH/score")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class BulkScoringController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BulkScoringService bulkService;
+
+    // Endpoint: POST /SERAPH/score?features=false (body: NDJSON, or text/plain with one text per line)
+    // features=true returns raw model outputs instead of scores (training data for FusionTrainer)
+    // cascade=true/false overrides seraph.cascade.enabled for this request (CascadeBenchmark runs both)
+    @PostMapping(consumes = {"application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<StreamingResponseBody> scoreStream(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean features,
+            @RequestParam(required = false) Boolean cascade
+    ) {
+        Format format = MediaType.TEXT_PLAIN.includes(MediaType.parseMediaType(request.getContentType())) ? Format.TEXT : Format.NDJSON;
+        StreamingResponseBody body = out -> {
+            try (InputStream in = request.getInputStream()) {
+                bulkService.score(in, out, format, features, cascade);
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Endpoint: POST /SERAPH/score (multipart "file"; .ndjson/.jsonl parsed as NDJSON, anything else as lines)
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> scoreUpload(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean features,
+            @RequestParam(required = false) Boolean cascade
+    ) {
+        String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase();
+        Format format = name.endsWith(".ndjson") || name.endsWith(".jsonl") ? Format.NDJSON : Format.TEXT;
+        StreamingResponseBody body = out -> {
+            try (InputStream in = file.getInputStream()) {
+                bulkService.score(in, out, format, features, cascade);
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ttu_elite.seraph.Controllers;
+
+import com.ttu_elite.seraph.Services.ArrowExportService;
+import com.ttu_elite.seraph.Services.ArrowExportService.Watermark;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Arrow IPC downloads for analytics tools, e.g. in DuckDB:
+//   SELECT * FROM read_arrow('posts.arrow');  (or pyarrow.ipc.open_file / polars.read_ipc)
+// Incremental: pass X-Seraph-Watermark and X-Seraph-Watermark-Time of the previous download as
+// ?since= and ?sinceTime=; rows can appear again when their snapshot was rewritten (keep the last per id)
+@RestController
+@RequestMapping("/SERAPH/export")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ArrowExportService exportService;
+
+    // Endpoint: GET /SERAPH/export/posts.arrow?since=0&sinceTime=0&text=false
+    @GetMapping("/posts.arrow")
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "0") long sinceTime,
+            @RequestParam(defaultValue = "false") boolean text
+    ) {
+        Watermark after = new Watermark(since, sinceTime);
+        Watermark upTo = exportService.postsWatermark();
+        StreamingResponseBody body = out -> exportService.exportPosts(out, after, upTo, text);
+        return download("posts-" + since + "-" + upTo.id() + ".arrow", upTo, body);
+    }
+
+    // Endpoint: GET /SERAPH/export/profiles.arrow?since=0&sinceTime=0
+    @GetMapping("/profiles.arrow")
+    public ResponseEntity<StreamingResponseBody> exportProfiles(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "0") long sinceTime
+    ) {
+        Watermark after = new Watermark(since, sinceTime);
+        Watermark upTo = exportService.profilesWatermark();
+        StreamingResponseBody body = out -> exportService.exportProfiles(out, after, upTo);
+        return download("profiles-" + since + "-" + upTo.id() + ".arrow", upTo, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(String filename, Watermark watermark, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ArrowExportService.CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header("X-Seraph-Watermark", Long.toString(watermark.id()))
+                .header("X-Seraph-Watermark-Time", Long.toString(watermark.updatedMs()))
+                .body(body);
+    }
+}
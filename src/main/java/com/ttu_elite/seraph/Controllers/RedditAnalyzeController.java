@@ -1,17 +1,31 @@
 package com.ttu_elite.seraph.Controllers;
 
 import com.ttu_elite.seraph.Entities.ProfileAnalysis;
-import com.ttu_elite.seraph.Entities.RedditPost;
 import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
-import com.ttu_elite.seraph.Repositories.RedditPostRepository;
+import com.ttu_elite.seraph.Services.AnalysisJobService;
+import com.ttu_elite.seraph.Services.CohortRollupService;
+import com.ttu_elite.seraph.Services.PlatformRegistry;
+import com.ttu_elite.seraph.Services.PostStore;
+import com.ttu_elite.seraph.Services.ProfileTrendAggregator;
 import com.ttu_elite.seraph.Services.RedditAnalyzeService;
+import com.ttu_elite.seraph.Services.RiskAlertService;
+import com.ttu_elite.seraph.Services.SnapshotDiffService;
+import com.ttu_elite.seraph.Services.SseAlertSink;
+import com.ttu_elite.seraph.Services.Taxonomy;
+import com.ttu_elite.seraph.Services.TaxonomyService;
+import com.ttu_elite.seraph.dto.CohortReport;
+import com.ttu_elite.seraph.dto.TrendReport;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/SERAPH")
@@ -21,35 +35,55 @@ public class RedditAnalyzeController {
 
     private final RedditAnalyzeService service;
     private final ProfileAnalysisRepository repository;
-    private final RedditPostRepository postRepo;
+    private final PostStore postStore;
+    private final ProfileTrendAggregator trendAggregator;
+    private final RiskAlertService alertService;
+    private final SseAlertSink sseAlertSink;
+    private final AnalysisJobService jobs;
+    private final TaxonomyService taxonomy;
+    private final PlatformRegistry platforms;
+    private final CohortRollupService cohorts;
+    private final SnapshotDiffService diffService;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     // --- ANALYZE (The Eye) ---
+    // profileUrl: a Reddit profile URL or username, or any other registered platform's profile
+    // URL / key (e.g. "https://mastodon.social/@alice", "jsondir:study_042")
     @CrossOrigin(origins = "*")
-    @PostMapping("/reddit")
+    @PostMapping({"/reddit", "/analyze"})
     public ResponseEntity<?> analyzeUser(
             @RequestBody Map<String, String> payload,
-            @RequestParam(required = false) boolean force
+            @RequestParam(required = false) boolean force,
+            @RequestParam(required = false) boolean debug,
+            @RequestParam(required = false) boolean explain
     ) {
         String url = payload.get("profileUrl");
         if (url == null) return ResponseEntity.badRequest().body("Missing profileUrl");
 
         // 1. Force Cleanup Logic
         if (force) {
-            String username = url.contains("/user/") ? url.split("/user/")[1].split("/")[0] : url;
+            String username = platforms.resolve(url).profileKey();
             if (repository.existsByUsername(username)) {
                 // Requires custom method in Repository
                 repository.deleteByUsername(username);
 
-                List<RedditPost> oldPosts = postRepo.findAllByUsernameOrderByCreatedUtcDesc(username);
-                postRepo.deleteAll(oldPosts);
+                postStore.deleteAllByUsername(username);
+
+                // Drop cached copies here and on the other nodes
+                jobs.publishSnapshotChanged(username);
             }
         }
 
         try {
             // Service returns JSON String
-            String jsonResult = service.analyzeProfile(url);
+            String jsonResult = service.analyzeProfile(url, debug, explain);
 
             if (jsonResult.contains("\"error\":")) {
+                // A platform (or the model) is down and no snapshot could answer instead
+                if (jsonResult.contains("UPSTREAM_UNAVAILABLE")) {
+                    return ResponseEntity.status(503).header("Retry-After", "30").body(jsonResult);
+                }
                 return ResponseEntity.badRequest().body(jsonResult);
             }
 
@@ -79,6 +113,129 @@ public class RedditAnalyzeController {
     @GetMapping("/chronicles/{username}") // <--- CHANGED for cleaner routing
     @Transactional(readOnly = true)
     public ResponseEntity<List<ProfileAnalysis>> getUserTestament(@PathVariable String username) {
-        return ResponseEntity.ok(repository.findAllByUsernameOrderByCreatedAtDesc(username));
+        return ResponseEntity.ok(repository.findAllByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username));
+    }
+
+    // 3. THE PULSE: Score trend over time for one target, from the running aggregates
+    // Endpoint: GET /SERAPH/chronicles/{username}/trend?category=Self-Harm&window=day|week
+    @CrossOrigin(origins = "*")
+    @GetMapping("/chronicles/{username}/trend")
+    public ResponseEntity<?> getUserTrend(
+            @PathVariable String username,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "day") String window
+    ) {
+        List<String> categories = category != null
+                ? List.of(category)
+                : List.copyOf(trendAggregator.categories(username));
+
+        List<TrendReport> reports = categories.stream()
+                .map(cat -> trendAggregator.trend(username, cat, window))
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (reports.isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(reports);
+    }
+
+    // 4. THE CROWD: where a target sits in a population, from the cohort rollups
+    // Endpoint: GET /SERAPH/chronicles/{username}/percentiles?cohort=reddit|all (default: the user's platform)
+    @CrossOrigin(origins = "*")
+    @GetMapping("/chronicles/{username}/percentiles")
+    public ResponseEntity<?> getUserPercentiles(
+            @PathVariable String username,
+            @RequestParam(required = false) String cohort
+    ) {
+        CohortReport report = cohorts.compare(username, cohort);
+        if (report == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(report);
+    }
+
+    // 5. THE SHIFT: what changed between two snapshots, from the stored scores (no re-analysis)
+    // Endpoint: GET /SERAPH/chronicles/{username}/diff?from={analysisId}&to={analysisId}&top=20
+    // NDJSON: a header line, one line per added/removed post, then a summary line (see SnapshotDiffService)
+    @CrossOrigin(origins = "*")
+    @GetMapping("/chronicles/{username}/diff")
+    public ResponseEntity<?> getUserDiff(
+            @PathVariable String username,
+            @RequestParam long from,
+            @RequestParam long to,
+            @RequestParam(required = false) Integer top
+    ) {
+        ProfileAnalysis older = repository.findById(from).orElse(null);
+        ProfileAnalysis newer = repository.findById(to).orElse(null);
+        if (older == null || newer == null || older.isIncomplete() || newer.isIncomplete()
+                || !username.equals(older.getUsername()) || !username.equals(newer.getUsername())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int movers = Math.clamp(top != null ? top : diffService.defaultTop(), 0, 1000);
+        StreamingResponseBody body = out -> diffService.diff(older, newer, movers, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Per-category share distribution of a whole cohort
+    // Endpoint: GET /SERAPH/cohorts/{cohort}  (a platform name or "all")
+    @CrossOrigin(origins = "*")
+    @GetMapping("/cohorts/{cohort}")
+    public ResponseEntity<?> getCohort(@PathVariable String cohort) {
+        CohortReport report = cohorts.report(cohort);
+        if (report == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(report);
+    }
+
+    // --- SEARCH (The Echo) ---
+
+    // Nearest stored posts across every user, by free text or by an existing post
+    // Endpoint: GET /SERAPH/search?q=...  or  GET /SERAPH/search?postId=...
+    @CrossOrigin(origins = "*")
+    @GetMapping("/search")
+    public ResponseEntity<?> searchSimilar(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String postId,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        if ((q == null || q.isBlank()) && (postId == null || postId.isBlank())) {
+            return ResponseEntity.badRequest().body("Provide q or postId");
+        }
+        try {
+            return ResponseEntity.ok(service.searchSimilar(q, postId, Math.min(Math.max(k, 1), 100)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    // --- ALERTS (The Watch) ---
+
+    // Live risk alerts for the dashboard (Server-Sent Events)
+    // Endpoint: GET /SERAPH/alerts/stream
+    @CrossOrigin(origins = "*")
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts() {
+        return sseAlertSink.subscribe();
+    }
+
+    // Fetch-to-alert latency and queue depth
+    // Endpoint: GET /SERAPH/alerts/stats
+    @CrossOrigin(origins = "*")
+    @GetMapping("/alerts/stats")
+    public ResponseEntity<Map<String, Object>> alertStats() {
+        return ResponseEntity.ok(alertService.latencyStats());
+    }
+
+    // Live taxonomy version; POST re-reads the file now instead of waiting for the next poll
+    // Endpoint: GET|POST /SERAPH/taxonomy
+    @CrossOrigin(origins = "*")
+    @GetMapping("/taxonomy")
+    public ResponseEntity<Map<String, Object>> taxonomyInfo() {
+        Taxonomy t = taxonomy.current();
+        return ResponseEntity.ok(Map.of("version", t.version(), "hash", t.hash(), "categories", t.displayNames()));
+    }
+
+    @CrossOrigin(origins = "*")
+    @PostMapping("/taxonomy/reload")
+    public ResponseEntity<Map<String, Object>> reloadTaxonomy() {
+        taxonomy.reload();
+        return taxonomyInfo();
     }
-}
\ No newline at end of file
+}
@@ -2,18 +2,23 @@ package com.ttu_elite.seraph.Controllers;
 
 import com.ttu_elite.seraph.Services.RedditAnalyzeService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/test") // Separate namespace
 @RequiredArgsConstructor
 public class SimulationController {
 
     private final RedditAnalyzeService service;
+    private final Deque<List<Map<String, Object>>> receivedAlerts = new ArrayDeque<>();
 
     @PostMapping("/simulate")
     public ResponseEntity<?> runSimulation(@RequestBody Map<String, Object> payload) {
@@ -30,4 +35,23 @@ public class SimulationController {
                 .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
                 .body(result);
     }
-}
\ No newline at end of file
+
+    // Local webhook stub: point seraph.alerts.webhook-url here to test alert delivery
+    // without an external receiver. GET returns the most recent batches.
+    @PostMapping("/webhook")
+    public ResponseEntity<?> receiveWebhook(@RequestBody List<Map<String, Object>> alerts) {
+        log.info("WEBHOOK STUB: received {} alert(s)", alerts.size());
+        synchronized (receivedAlerts) {
+            receivedAlerts.addFirst(alerts);
+            while (receivedAlerts.size() > 20) receivedAlerts.removeLast();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/webhook")
+    public ResponseEntity<?> lastWebhookBatches() {
+        synchronized (receivedAlerts) {
+            return ResponseEntity.ok(List.copyOf(receivedAlerts));
+        }
+    }
+}
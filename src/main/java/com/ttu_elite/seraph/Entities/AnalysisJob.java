@@ -0,0 +1,56 @@
+package com.ttu_elite.seraph.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One row per username: which node (if any) is currently analyzing or refreshing that user.
+ * Nodes claim a row with SELECT ... FOR UPDATE SKIP LOCKED, so when several SERAPH instances
+ * share a database only one of them does the work and the others wait for its snapshot.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_analysis_job_username", columnList = "username", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisJob {
+
+    public static final String IDLE = "IDLE";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String status; // IDLE, RUNNING, DONE or FAILED
+
+    private String ownerNode; // set while RUNNING
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    private Instant claimedAt;
+
+    // Refreshed by the owner while RUNNING; a stale heartbeat means the owner died and the job is claimable again
+    private Instant heartbeatAt;
+
+    private Instant finishedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
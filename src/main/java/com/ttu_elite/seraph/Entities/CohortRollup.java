@@ -0,0 +1,47 @@
+package com.ttu_elite.seraph.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Distribution of one category's profile share (category total / all totals, 0-1) over the
+ * latest snapshot of every profile in a cohort, as a serialized t-digest.
+ * Maintained incrementally by CohortRollupService, rebuilt from ProfileAnalysis when stale.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_cohort_rollup_key", columnList = "cohort, category", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CohortRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String cohort; // platform ("reddit", "mastodon", ...) or "all"
+
+    @Column(nullable = false)
+    private String category; // UI name ("Distress", "Self-Harm", ...)
+
+    // Profiles counted (latest snapshots)
+    @Column(nullable = false)
+    private Long members;
+
+    // Superseded values still inside the digest (t-digest cannot remove); a rebuild clears them
+    @Column(nullable = false)
+    private Long stale;
+
+    // MergingDigest.asSmallBytes; bytea on Postgres
+    @Column(nullable = false)
+    private byte[] digest;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.ttu_elite.seraph.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The text of one post or comment, stored once no matter how many snapshots include it.
+ * Snapshot rows (RedditPost) only carry scores and point here through redditPostId.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_post_content_post_id", columnList = "redditPostId", unique = true),
+        @Index(name = "idx_post_content_username", columnList = "username")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String redditPostId;
+
+    private String username;
+
+    @Column(length = 500)
+    private String permalink;
+
+    @Column(length = 300)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    private Long createdUtc;
+
+    @Column(length = 16)
+    private String kind; // "post" or "comment"
+}
@@ -0,0 +1,39 @@
+package com.ttu_elite.seraph.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stored embedding per redditPostId, shared by every snapshot that contains the post.
+ * The vector is L2-normalized and quantized to int8 (dim bytes instead of dim floats),
+ * which is the same layout the in-memory search index uses.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_post_embedding_post_id", columnList = "redditPostId", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostEmbedding {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String redditPostId;
+
+    private String username;
+
+    private Long createdUtc;
+
+    @Column(nullable = false)
+    private Integer dim;
+
+    // bytea on Postgres; swap for a pgvector column once the extension is available
+    @Column(nullable = false)
+    private byte[] vector;
+}
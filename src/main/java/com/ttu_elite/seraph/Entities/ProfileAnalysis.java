@@ -1,5 +1,6 @@
 package com.ttu_elite.seraph.Entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = @Index(name = "idx_profile_analysis_updated_at", columnList = "updatedAt"))
 @Data                      // <--- Adds Getters, Setters, toString, etc.
 @NoArgsConstructor         // <--- Required by JPA
 @AllArgsConstructor        // <--- Handy for one-line creation
@@ -46,6 +48,28 @@ public class ProfileAnalysis {
         @Column(nullable=false)
         private Instant createdAt = Instant.now();
 
+        // taxonomy.json version the post scores were computed with (null: before versioning)
+        private Integer taxonomyVersion;
+
+        // Posts scored BM25-only because the embedding model was unavailable (null: none / before this existed)
+        private Integer degradedPosts;
+
+        // True while a streamed analysis is still writing pages into this snapshot. Readers only
+        // ever see finished snapshots; a failed stream deletes its header and posts.
+        @JsonIgnore
+        @Column(nullable = false, columnDefinition = "boolean default false")
+        private boolean incomplete;
+
+        // Last write of this row (finalized stream, rescore); the incremental export re-sends
+        // headers changed since its last run. Null on rows written before this existed.
+        private Instant updatedAt;
+
+        @PrePersist
+        @PreUpdate
+        void touch() {
+            updatedAt = Instant.now();
+        }
+
 
 
     public Long getId() {
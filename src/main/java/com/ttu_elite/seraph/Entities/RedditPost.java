@@ -9,7 +9,21 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 
+import java.time.Instant;
+
+/**
+ * One post's scores inside one snapshot. The post itself (title, text, permalink, kind) lives
+ * once per redditPostId in PostContent; those fields are @Transient here and filled in by
+ * PostStore, so API responses keep their shape while snapshots stop copying the text.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_reddit_post_analysis_id", columnList = "analysisId"),
+        // Snapshot diffs merge-join two snapshots on redditPostId in index order (SnapshotDiffService)
+        @Index(name = "idx_reddit_post_analysis_post", columnList = "analysisId, redditPostId"),
+        @Index(name = "idx_reddit_post_username", columnList = "username"),
+        @Index(name = "idx_reddit_post_post_id", columnList = "redditPostId")
+})
 @Data                      // <--- Adds Getters, Setters, toString, etc.
 @NoArgsConstructor         // <--- Required by JPA
 @AllArgsConstructor        // <--- Handy for one-line creation
@@ -26,20 +40,35 @@ public class RedditPost {
     private String username;
     private String redditPostId;
 
-    @Column(length = 500)
+    // --- stored in PostContent ---
+    @Transient
     private String permalink;
 
-    @Column(length = 300)
+    @Transient
     private String title;
 
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String content;
 
+    @Transient
+    private String kind; // "post" or "comment"
+
     private Long createdUtc;
 
+    // When the owning snapshot was written; the range-partition key (db/reddit_post_partitioned.sql).
+    // Nullable only so ddl-auto=update can add it to a table holding legacy rows.
+    private Instant snapshotAt;
+
     @Column(columnDefinition = "TEXT")
     private String tokens;
 
+    // Set when this post (near-)duplicates an earlier one in the same analysis and reused its scores
+    private String duplicateOf;
+
+    // "neural" (full hybrid), "lexical" (the cascade skipped the transformer) or "degraded" (model
+    // unavailable, BM25 only); null before the cascade existed
+    private String scoringPath;
+
 
 
     public String getUsername() {
@@ -90,6 +119,30 @@ public class RedditPost {
         this.createdUtc = createdUtc;
     }
 
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public Instant getSnapshotAt() {
+        return snapshotAt;
+    }
+
+    public void setSnapshotAt(Instant snapshotAt) {
+        this.snapshotAt = snapshotAt;
+    }
+
+    public String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
+
     public String getTokens() {
         return tokens;
     }
@@ -0,0 +1,48 @@
+package com.ttu_elite.seraph.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running per-user, per-category score totals for one time window (a day or a week of createdUtc).
+ * Maintained incrementally by ProfileTrendAggregator, never recomputed from RedditPost.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_trend_bucket_key", columnList = "username, period, bucketStart, category", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String period; // "DAY", "WEEK" or "TOTAL"
+
+    @Column(nullable = false)
+    private Long bucketStart; // epoch seconds (UTC midnight / Monday); TOTAL: newest createdUtc ingested
+
+    @Column(nullable = false)
+    private String category; // UI name ("Distress", "Self-Harm", ...)
+
+    @Column(nullable = false)
+    private Double scoreSum;
+
+    @Column(nullable = false)
+    private Integer postCount;
+
+    @Column(nullable = false)
+    private Double maxScore;
+
+    // TOTAL rows only: exponentially decayed score as of bucketStart
+    private Double decayedScore;
+}
@@ -0,0 +1,36 @@
+package com.ttu_elite.seraph.Repositories;
+
+import com.ttu_elite.seraph.Entities.AnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// Postgres-only native queries (ON CONFLICT, SKIP LOCKED); used when seraph.cluster.enabled=true
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long> {
+    Optional<AnalysisJob> findByUsername(String username);
+
+    @Modifying
+    @Query(value = "INSERT INTO analysis_job (username, status, attempts, updated_at) " +
+            "VALUES (:username, 'IDLE', 0, now()) ON CONFLICT (username) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(String username);
+
+    // Claimable: nobody is running it (or the runner's heartbeat went stale), and no run finished
+    // after finishedBefore. Rows another node is claiming right now are skipped, never waited on.
+    @Query(value = "SELECT * FROM analysis_job WHERE username = :username " +
+            "AND (status <> 'RUNNING' OR heartbeat_at < :staleBefore) " +
+            "AND (status = 'FAILED' OR finished_at IS NULL OR finished_at < :finishedBefore) " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<AnalysisJob> lockClaimable(String username, Instant staleBefore, Instant finishedBefore);
+
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.heartbeatAt = :now WHERE j.ownerNode = :node AND j.status = 'RUNNING'")
+    int heartbeat(String node, Instant now);
+
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = :status, j.ownerNode = NULL, j.finishedAt = :now, j.updatedAt = :now, " +
+            "j.lastError = :error WHERE j.username = :username AND j.ownerNode = :node")
+    int finish(String username, String node, String status, String error, Instant now);
+}
@@ -0,0 +1,7 @@
+package com.ttu_elite.seraph.Repositories;
+
+import com.ttu_elite.seraph.Entities.CohortRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CohortRollupRepository extends JpaRepository<CohortRollup, Long> {
+}
@@ -0,0 +1,27 @@
+package com.ttu_elite.seraph.Repositories;
+
+import com.ttu_elite.seraph.Entities.PostContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PostContentRepository extends JpaRepository<PostContent, Long> {
+    Optional<PostContent> findByRedditPostId(String redditPostId);
+
+    List<PostContent> findAllByRedditPostIdIn(Collection<String> redditPostIds);
+
+    // Held until the caller's snapshot rows commit, so the compactor's orphan sweep (which skips
+    // locked rows) cannot delete text a snapshot is about to point at.
+    @Query(value = "SELECT * FROM post_content WHERE reddit_post_id IN (:redditPostIds) FOR SHARE", nativeQuery = true)
+    List<PostContent> lockAllByRedditPostIdIn(Collection<String> redditPostIds);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PostContent c WHERE c.username = :username")
+    int deleteAllByUsername(String username);
+}
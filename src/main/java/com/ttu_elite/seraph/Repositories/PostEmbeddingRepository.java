@@ -0,0 +1,19 @@
+package com.ttu_elite.seraph.Repositories;
+
+import com.ttu_elite.seraph.Entities.PostEmbedding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PostEmbeddingRepository extends JpaRepository<PostEmbedding, Long> {
+    Optional<PostEmbedding> findByRedditPostId(String redditPostId);
+
+    List<PostEmbedding> findAllByRedditPostIdIn(Collection<String> redditPostIds);
+
+    // Paged scans used to rebuild the in-memory index at startup and to catch up with other nodes
+    Slice<PostEmbedding> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+}
@@ -4,23 +4,34 @@ package com.ttu_elite.seraph.Repositories;
 import com.ttu_elite.seraph.Entities.ProfileAnalysis;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+// Readers go through the IncompleteFalse queries: a streamed snapshot is invisible until finalized
 public interface ProfileAnalysisRepository extends JpaRepository<ProfileAnalysis, Long> {
-    Optional<ProfileAnalysis> findTopByUsernameOrderByCreatedAtDesc(String username);
+    Optional<ProfileAnalysis> findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc(String username);
     Optional<ProfileAnalysis> findByUsername(String username);
-void deleteByUsername(String username);
+    @Transactional
+    void deleteByUsername(String username);
     boolean existsByUsername(String username);
     // Fetch all snapshots for a user, newest first
-    List<ProfileAnalysis> findAllByUsernameOrderByCreatedAtDesc(String username);
+    List<ProfileAnalysis> findAllByUsernameAndIncompleteFalseOrderByCreatedAtDesc(String username);
 
-    @Query("SELECT p FROM ProfileAnalysis p WHERE p.createdAt IN " +
-            "(SELECT MAX(p2.createdAt) FROM ProfileAnalysis p2 GROUP BY p2.username) " +
+    @Query("SELECT p FROM ProfileAnalysis p WHERE p.incomplete = false AND p.createdAt IN " +
+            "(SELECT MAX(p2.createdAt) FROM ProfileAnalysis p2 WHERE p2.incomplete = false GROUP BY p2.username) " +
             "ORDER BY p.createdAt DESC")
     List<ProfileAnalysis> findLatestProfiles();
 
+    // Every username with at least one real (non-simulation) snapshot
+    @Query("SELECT DISTINCT p.username FROM ProfileAnalysis p WHERE p.platform <> 'simulation' AND p.incomplete = false")
+    List<String> findTrackedUsernames();
+
+    // Headers of streams that died without cleaning up (node crash), for the compactor
+    List<ProfileAnalysis> findAllByIncompleteTrueAndCreatedAtBefore(Instant cutoff);
+
     // Fetch all history for a specific user (for the Timeline View)
 
 }
\ No newline at end of file
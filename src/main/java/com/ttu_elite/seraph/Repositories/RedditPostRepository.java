@@ -1,14 +1,52 @@
 package com.ttu_elite.seraph.Repositories;
 
 import com.ttu_elite.seraph.Entities.RedditPost;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RedditPostRepository extends JpaRepository<RedditPost, Long> {
     boolean existsByRedditPostId(String redditPostId);
     List<RedditPost> findAllByUsernameOrderByCreatedUtcDesc(String username);
     List<RedditPost> findAllByAnalysisId(Long analysisId);
-    
+    // Snapshot posts in write order, a page at a time (Slice: no count query)
+    Slice<RedditPost> findByAnalysisIdOrderByIdAsc(Long analysisId, Pageable page);
+    Optional<RedditPost> findFirstByRedditPostIdOrderByIdDesc(String redditPostId);
 
+    @Query("SELECT p.redditPostId FROM RedditPost p WHERE p.analysisId = :analysisId AND p.redditPostId IS NOT NULL")
+    List<String> findRedditPostIdsByAnalysisId(Long analysisId);
+
+    // Size and time range of a snapshot without loading it
+    interface Span {
+        long getCount();
+        Long getOldest();
+        Long getNewest();
+    }
+
+    @Query("SELECT COUNT(p) AS count, MIN(p.createdUtc) AS oldest, MAX(p.createdUtc) AS newest " +
+            "FROM RedditPost p WHERE p.analysisId = :analysisId")
+    Span spanByAnalysisId(Long analysisId);
+
+    // Bulk deletes used by retention and force re-analysis (no entity loading)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RedditPost p WHERE p.analysisId IN :analysisIds")
+    int deleteAllByAnalysisIdIn(Collection<Long> analysisIds);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RedditPost p WHERE p.analysisId = :analysisId")
+    int deleteAllByAnalysisId(Long analysisId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RedditPost p WHERE p.username = :username")
+    int deleteAllByUsername(String username);
 }
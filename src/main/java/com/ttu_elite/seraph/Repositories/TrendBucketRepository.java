@@ -0,0 +1,10 @@
+package com.ttu_elite.seraph.Repositories;
+
+import com.ttu_elite.seraph.Entities.TrendBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface TrendBucketRepository extends JpaRepository<TrendBucket, Long> {
+    List<TrendBucket> findAllByUsername(String username);
+}
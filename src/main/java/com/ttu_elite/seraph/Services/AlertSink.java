@@ -0,0 +1,15 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.RiskAlert;
+
+import java.util.List;
+
+/**
+ * Destination for risk alerts. RiskAlertService hands every enabled sink the same batch;
+ * a sink that throws only loses its own delivery.
+ */
+public interface AlertSink {
+    String name();
+
+    void publish(List<RiskAlert> batch) throws Exception;
+}
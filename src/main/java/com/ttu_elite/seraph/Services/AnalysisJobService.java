@@ -0,0 +1,208 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.AnalysisJob;
+import com.ttu_elite.seraph.Repositories.AnalysisJobRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides which node analyzes a username, so several SERAPH instances behind a load balancer
+ * never score the same user twice at once.
+ *
+ * Every node first tracks its own in-flight usernames (this alone stops duplicate work between
+ * concurrent requests on one node). With seraph.cluster.enabled=true it also claims the user's
+ * analysis_job row in Postgres with FOR UPDATE SKIP LOCKED, keeps the claim alive with a
+ * heartbeat, and announces finished snapshots on the seraph_snapshot NOTIFY channel so other
+ * nodes drop their cached copy and wake up any request waiting for that user.
+ *
+ * Local multi-node check: start two JVMs against one Postgres, e.g.
+ *   --server.port=8080 --seraph.cluster.enabled=true --seraph.cluster.node-id=a
+ *   --server.port=8081 --seraph.cluster.enabled=true --seraph.cluster.node-id=b
+ * and point LoadTestDriver at both with the same --users; each user gets exactly one snapshot.
+ * Both nodes must keep spring.jpa.hibernate.ddl-auto at update (the default) or validate:
+ * with create, the second node to start drops the first one's tables, claims included.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisJobService {
+
+    public static final String CHANNEL = "seraph_snapshot";
+
+    private final AnalysisJobRepository jobRepo;
+    private final TransactionTemplate tx;
+    private final JdbcTemplate jdbc;
+    private final SnapshotCache snapshotCache;
+
+    @Value("${seraph.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${seraph.cluster.node-id:}")
+    private String nodeId;
+
+    // A RUNNING claim whose heartbeat is older than this is treated as abandoned
+    @Value("${seraph.cluster.stale-after-seconds:120}")
+    private long staleAfterSeconds;
+
+    // How long a request waits for another node's analysis before giving up
+    @Value("${seraph.cluster.wait-timeout-seconds:120}")
+    private long waitTimeoutSeconds;
+
+    // Usernames this node is analyzing right now
+    private final Set<String> owned = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "node";
+            }
+            nodeId = host + "-" + ProcessHandle.current().pid();
+        }
+        log.info("Analysis job claiming: node {} ({})", nodeId, enabled ? "cluster, Postgres SKIP LOCKED" : "single node");
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Tries to become the only node working on this user.
+     *
+     * @param finishedBefore fail the claim if any node finished a run for this user after this
+     *                       instant (a request passes the time it saw the snapshot miss; the
+     *                       watchlist passes now minus its minimum poll interval)
+     * @return true when this node now owns the user; call complete() or fail() afterwards
+     */
+    public boolean tryClaim(String username, Instant finishedBefore) {
+        if (!owned.add(username)) return false;
+        if (!enabled) return true;
+
+        try {
+            Instant now = Instant.now();
+            Boolean claimed = tx.execute(status -> {
+                jobRepo.insertIfAbsent(username);
+                return jobRepo.lockClaimable(username, now.minusSeconds(staleAfterSeconds), finishedBefore)
+                        .map(job -> {
+                            job.setStatus(AnalysisJob.RUNNING);
+                            job.setOwnerNode(nodeId);
+                            job.setAttempts(job.getAttempts() + 1);
+                            job.setClaimedAt(now);
+                            job.setHeartbeatAt(now);
+                            job.setUpdatedAt(now);
+                            return true;
+                        })
+                        .orElse(false);
+            });
+            if (Boolean.TRUE.equals(claimed)) return true;
+        } catch (Exception e) {
+            log.warn("CLAIM: could not claim {}: {}", username, e.getMessage());
+        }
+        owned.remove(username);
+        return false;
+    }
+
+    /** Releases a claim after a run that wrote (or deliberately skipped) a snapshot. */
+    public void complete(String username) {
+        release(username, AnalysisJob.DONE, null);
+    }
+
+    public void fail(String username, Exception error) {
+        release(username, AnalysisJob.FAILED, error == null ? null : error.getMessage());
+    }
+
+    private void release(String username, String status, String error) {
+        try {
+            if (enabled) {
+                tx.executeWithoutResult(s -> jobRepo.finish(username, nodeId, status, error, Instant.now()));
+            }
+        } catch (Exception e) {
+            log.warn("CLAIM: could not release {} (will go stale): {}", username, e.getMessage());
+        } finally {
+            owned.remove(username);
+            publishSnapshotChanged(username);
+        }
+    }
+
+    /**
+     * Blocks until whoever owns this user finishes, or the wait times out.
+     *
+     * @return true if the owner finished (the caller should re-read the latest snapshot)
+     */
+    public boolean awaitRelease(String username) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitTimeoutSeconds);
+        CompletableFuture<Void> signal = waiters.computeIfAbsent(username, u -> new CompletableFuture<>());
+
+        while (System.nanoTime() < deadline) {
+            try {
+                signal.get(1, TimeUnit.SECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                // Missed or lost notification: fall back to looking at the claim itself
+                if (!isRunning(username)) return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRunning(String username) {
+        if (owned.contains(username)) return true;
+        if (!enabled) return false;
+        Instant staleBefore = Instant.now().minusSeconds(staleAfterSeconds);
+        return jobRepo.findByUsername(username)
+                .map(j -> AnalysisJob.RUNNING.equals(j.getStatus()) && j.getHeartbeatAt() != null && j.getHeartbeatAt().isAfter(staleBefore))
+                .orElse(false);
+    }
+
+    /** A snapshot for this user changed here: drop cached copies on every node and wake local waiters. */
+    public void publishSnapshotChanged(String username) {
+        onSnapshotChanged(username);
+        if (!enabled) return;
+        try {
+            jdbc.queryForList("SELECT pg_notify(?, ?)", CHANNEL, nodeId + "|" + username);
+        } catch (Exception e) {
+            log.warn("NOTIFY failed for {}: {}", username, e.getMessage());
+        }
+    }
+
+    /** Called for local changes and, via SnapshotChangeListener, for changes made by other nodes. */
+    public void onSnapshotChanged(String username) {
+        snapshotCache.invalidate(username);
+        CompletableFuture<Void> signal = waiters.remove(username);
+        if (signal != null) signal.complete(null);
+    }
+
+    @Scheduled(fixedDelayString = "${seraph.cluster.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!enabled || owned.isEmpty()) return;
+        try {
+            tx.executeWithoutResult(s -> jobRepo.heartbeat(nodeId, Instant.now()));
+        } catch (Exception e) {
+            log.warn("CLAIM: heartbeat failed: {}", e.getMessage());
+        }
+    }
+}
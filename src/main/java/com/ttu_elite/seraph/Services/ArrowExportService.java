@@ -0,0 +1,404 @@
+package com.ttu_elite.seraph.Services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Columnar export of snapshots for offline analytics, as Arrow IPC files (readable directly by
+ * DuckDB, pandas/pyarrow, polars, ...). The JSON score maps are flattened into one float
+ * column per category, so analysts never parse JSON-inside-JSON again.
+ *
+ * Rows are read through a server-side cursor (fetch size, inside a transaction) and
+ * written in fixed-size record batches, so memory stays flat regardless of table size.
+ *
+ * Exports are incremental on a Watermark (row id, header update time): every row with an id
+ * in (after.id, upTo.id], plus every older row whose snapshot header was written in
+ * (after.updatedMs, upTo.updatedMs]; that re-sends snapshots finalized or rescored in place
+ * since the last run, so consumers keep the latest version per id. Callers take upTo up front
+ * (watermark()) and pass it as after next time.
+ *
+ * Ids are allocated before commit, so a transaction still running can commit a lower id than
+ * one already visible. The watermark therefore stays safety-lag-ms behind: only rows written
+ * at least that long ago count. Incomplete (still streaming) snapshots are never exported;
+ * their header update on finalize brings them and their posts into a later run.
+ */
+@Slf4j
+@Service
+public class ArrowExportService {
+
+    public static final String CONTENT_TYPE = "application/vnd.apache.arrow.file";
+
+    private final JdbcTemplate cursorJdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final TaxonomyService taxonomy;
+
+    @Value("${seraph.export.batch-rows:65536}")
+    private int batchRows;
+
+    // Scheduled incremental export target; blank = only the HTTP endpoints
+    @Value("${seraph.export.dir:}")
+    private String exportDir;
+
+    // Off-heap cap per export (Arrow buffers live outside -Xmx); 0 = unbounded
+    @Value("${seraph.export.max-direct-bytes:0}")
+    private long maxDirectBytes;
+
+    // Rows younger than this are left for the next run: longer than any write transaction lasts
+    @Value("${seraph.export.safety-lag-ms:120000}")
+    private long safetyLagMs;
+
+    /** Export position: highest row id exported and the header update time exported up to (epoch ms). */
+    public record Watermark(long id, long updatedMs) {
+        public static final Watermark START = new Watermark(0L, 0L);
+    }
+
+    public ArrowExportService(DataSource dataSource, TransactionTemplate tx, ObjectMapper objectMapper,
+                              TaxonomyService taxonomy, @Value("${seraph.export.fetch-size:10000}") int fetchSize) {
+        // Own template so the fetch size does not leak into the rest of the app
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(fetchSize);
+        this.tx = tx;
+        this.objectMapper = objectMapper;
+        this.taxonomy = taxonomy;
+    }
+
+    // UI category name -> column suffix ("Self-Harm" -> "self_harm"), from the live taxonomy
+    private Map<String, String> categoryColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (String name : taxonomy.current().displayNames()) {
+            columns.put(name, name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_"));
+        }
+        return columns;
+    }
+
+    // --- WATERMARKS ---
+
+    // Newest id written before the lag cutoff; walks the primary key backwards from the end
+    public Watermark postsWatermark() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - safetyLagMs);
+        List<Long> max = cursorJdbc.queryForList("SELECT id FROM reddit_post " +
+                "WHERE snapshot_at IS NULL OR snapshot_at <= ? ORDER BY id DESC LIMIT 1", Long.class, cutoff);
+        return new Watermark(max.isEmpty() ? 0L : max.get(0), cutoff.getTime());
+    }
+
+    public Watermark profilesWatermark() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - safetyLagMs);
+        List<Long> max = cursorJdbc.queryForList("SELECT id FROM profile_analysis " +
+                "WHERE created_at <= ? ORDER BY id DESC LIMIT 1", Long.class, cutoff);
+        return new Watermark(max.isEmpty() ? 0L : max.get(0), cutoff.getTime());
+    }
+
+    // --- EXPORTS ---
+
+    /** One row per (snapshot, post): ids, timestamps, kind, duplicate link and score_* columns. */
+    public long exportPosts(OutputStream out, Watermark after, Watermark upTo, boolean includeText) {
+        List<Column> columns = new ArrayList<>(List.of(
+                longColumn("id", "id"),
+                longColumn("analysis_id", "analysis_id"),
+                textColumn("username", "username"),
+                textColumn("reddit_post_id", "reddit_post_id"),
+                textColumn("kind", "kind"),
+                longColumn("created_utc", "created_utc"),
+                timestampColumn("snapshot_at", "snapshot_at"),
+                textColumn("duplicate_of", "duplicate_of")
+        ));
+        if (includeText) {
+            columns.add(textColumn("title", "title"));
+            columns.add(textColumn("content", "content"));
+        }
+        categoryColumns().forEach((category, col) -> columns.add(scoreColumn("score_" + col, "tokens", category)));
+
+        String select = "SELECT p.id, p.analysis_id, p.username, p.reddit_post_id, p.created_utc, p.snapshot_at, " +
+                "p.duplicate_of, p.tokens, c.kind" + (includeText ? ", c.title, c.content" : "") + " " +
+                "FROM reddit_post p LEFT JOIN profile_analysis a ON a.id = p.analysis_id " +
+                "LEFT JOIN post_content c ON c.reddit_post_id = p.reddit_post_id WHERE (a.id IS NULL OR NOT a.incomplete) AND ";
+        // New rows, then rows exported before whose snapshot was finalized or rescored since
+        String sql = select + "p.id > ? AND p.id <= ? " +
+                "UNION ALL " + select + "p.id <= ? AND " + HEADER_CHANGED + " ORDER BY id";
+        return export(out, columns, sql, after.id(), upTo.id(), after.id(), ts(after), ts(upTo));
+    }
+
+    /**
+     * One row per snapshot summary, with pct_* and total_* columns per category. A snapshot
+     * written again since the last run appears again; the newest updated_at per id wins.
+     */
+    public long exportProfiles(OutputStream out, Watermark after, Watermark upTo) {
+        List<Column> columns = new ArrayList<>(List.of(
+                longColumn("id", "id"),
+                textColumn("username", "username"),
+                textColumn("platform", "platform"),
+                timestampColumn("created_at", "created_at"),
+                timestampColumn("updated_at", "updated_at"),
+                longColumn("post_count", "post_count"),
+                textColumn("top_category", "top_category_overall"),
+                doubleColumn("confidence", "confidence")
+        ));
+        Map<String, String> categories = categoryColumns();
+        categories.forEach((category, col) -> columns.add(scoreColumn("pct_" + col, "profile_percentages_json", category)));
+        categories.forEach((category, col) -> columns.add(scoreColumn("total_" + col, "profile_totals_json", category)));
+
+        String sql = "SELECT a.id, a.username, a.platform, a.created_at, a.updated_at, a.post_count, a.top_category_overall, " +
+                "a.confidence, a.profile_percentages_json, a.profile_totals_json FROM profile_analysis a " +
+                "WHERE NOT a.incomplete AND ((a.id > ? AND a.id <= ?) OR (a.id <= ? AND " + HEADER_CHANGED + ")) ORDER BY a.id";
+        return export(out, columns, sql, after.id(), upTo.id(), after.id(), ts(after), ts(upTo));
+    }
+
+    // Header a written in (after, upTo]; rows from before updated_at existed count as written at creation
+    private static final String HEADER_CHANGED =
+            "COALESCE(a.updated_at, a.created_at) > ? AND COALESCE(a.updated_at, a.created_at) <= ?";
+
+    private static Timestamp ts(Watermark w) {
+        return new Timestamp(w.updatedMs());
+    }
+
+    /**
+     * Writes posts-{from}-{to}.arrow and profiles-{from}-{to}.arrow (row ids) for everything new
+     * or rewritten since the last run into seraph.export.dir. The watermarks live in
+     * export.watermark next to the files and only move after both files are complete.
+     */
+    @Scheduled(fixedDelayString = "${seraph.export.interval-ms:3600000}", initialDelayString = "${seraph.export.initial-delay-ms:120000}")
+    public void exportToDirectory() {
+        if (exportDir == null || exportDir.isBlank()) return;
+        try {
+            Path dir = Files.createDirectories(Path.of(exportDir));
+            Path watermarkFile = dir.resolve("export.watermark");
+            Properties marks = new Properties();
+            if (Files.exists(watermarkFile)) {
+                try (var in = Files.newInputStream(watermarkFile)) {
+                    marks.load(in);
+                }
+            }
+
+            // A file from before update times were tracked: its last write is when that run ended
+            long lastRun = Files.exists(watermarkFile) ? Files.getLastModifiedTime(watermarkFile).toMillis() - safetyLagMs : 0L;
+            Watermark postsFrom = new Watermark(Long.parseLong(marks.getProperty("posts", "0")),
+                    Long.parseLong(marks.getProperty("posts.updated-ms", Long.toString(lastRun))));
+            Watermark profilesFrom = new Watermark(Long.parseLong(marks.getProperty("profiles", "0")),
+                    Long.parseLong(marks.getProperty("profiles.updated-ms", Long.toString(lastRun))));
+            Watermark postsTo = postsWatermark();
+            Watermark profilesTo = profilesWatermark();
+
+            long t = System.nanoTime();
+            long posts = writeFile(dir, "posts", postsFrom.id(), postsTo.id(), out -> exportPosts(out, postsFrom, postsTo, false));
+            long profiles = writeFile(dir, "profiles", profilesFrom.id(), profilesTo.id(), out -> exportProfiles(out, profilesFrom, profilesTo));
+            if (posts + profiles == 0) return; // nothing new; the empty files were not kept
+
+            marks.setProperty("posts", Long.toString(postsTo.id()));
+            marks.setProperty("posts.updated-ms", Long.toString(postsTo.updatedMs()));
+            marks.setProperty("profiles", Long.toString(profilesTo.id()));
+            marks.setProperty("profiles.updated-ms", Long.toString(profilesTo.updatedMs()));
+            Path tmp = dir.resolve("export.watermark.tmp");
+            try (var w = Files.newOutputStream(tmp)) {
+                marks.store(w, "SERAPH export watermarks (last exported row id)");
+            }
+            Files.move(tmp, watermarkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("EXPORT: {} post rows, {} profile rows -> {} in {} ms", posts, profiles, dir, (System.nanoTime() - t) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("EXPORT: scheduled export failed: {}", e.getMessage());
+        }
+    }
+
+    private interface FileBody {
+        long write(OutputStream out) throws Exception;
+    }
+
+    // Written under a temp name and renamed, so readers never see half a file; empty exports are dropped
+    private long writeFile(Path dir, String dataset, long from, long to, FileBody body) throws Exception {
+        Path target = dir.resolve(dataset + "-" + from + "-" + to + ".arrow");
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        long rows;
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            rows = body.write(out);
+        }
+        if (rows == 0) {
+            Files.delete(tmp);
+            return 0;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    // --- WRITER ---
+
+    private long export(OutputStream out, List<Column> columns, String sql, Object... args) {
+        List<Field> fields = new ArrayList<>(columns.size());
+        for (Column c : columns) fields.add(c.field());
+
+        try (BufferAllocator allocator = new RootAllocator(maxDirectBytes > 0 ? maxDirectBytes : Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), allocator);
+             ArrowFileWriter writer = new ArrowFileWriter(root, null, Channels.newChannel(out))) {
+
+            writer.start();
+            List<FieldVector> vectors = root.getFieldVectors();
+            RowScores scores = new RowScores();
+            int[] row = {0};
+            long[] total = {0};
+
+            // Postgres only streams with a cursor inside a transaction (autocommit off)
+            tx.executeWithoutResult(status -> cursorJdbc.query(sql, (RowCallbackHandler) rs -> {
+                scores.reset(rs);
+                for (int c = 0; c < columns.size(); c++) columns.get(c).write(vectors.get(c), row[0], rs, scores);
+                if (++row[0] == batchRows) {
+                    flush(root, writer, row[0]);
+                    total[0] += row[0];
+                    row[0] = 0;
+                }
+            }, args));
+
+            if (row[0] > 0 || total[0] == 0) flush(root, writer, row[0]);
+            total[0] += row[0];
+            writer.end();
+            return total[0];
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Arrow export failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void flush(VectorSchemaRoot root, ArrowFileWriter writer, int rows) {
+        try {
+            root.setRowCount(rows);
+            writer.writeBatch();
+            for (FieldVector v : root.getFieldVectors()) v.reset();
+        } catch (Exception e) {
+            throw new IllegalStateException("Arrow batch write failed: " + e.getMessage(), e);
+        }
+    }
+
+    // --- COLUMNS ---
+
+    private interface Column {
+        Field field();
+
+        void write(FieldVector vector, int row, ResultSet rs, RowScores scores) throws SQLException;
+    }
+
+    // Parses each JSON score column at most once per row
+    private final class RowScores {
+        private ResultSet rs;
+        private final Map<String, Map<String, Object>> parsed = new HashMap<>();
+
+        void reset(ResultSet rs) {
+            this.rs = rs;
+            parsed.clear();
+        }
+
+        Double get(String jsonColumn, String category) throws SQLException {
+            Map<String, Object> map = parsed.get(jsonColumn);
+            if (map == null) {
+                String json = rs.getString(jsonColumn);
+                try {
+                    map = json == null ? Map.of() : objectMapper.readValue(json, Map.class);
+                } catch (Exception e) {
+                    map = Map.of();
+                }
+                parsed.put(jsonColumn, map);
+            }
+            return map.get(category) instanceof Number n ? n.doubleValue() : null;
+        }
+    }
+
+    private static Column longColumn(String name, String sqlColumn) {
+        return new Column() {
+            public Field field() {
+                return Field.nullable(name, new ArrowType.Int(64, true));
+            }
+
+            public void write(FieldVector v, int row, ResultSet rs, RowScores s) throws SQLException {
+                long value = rs.getLong(sqlColumn);
+                if (rs.wasNull()) ((BigIntVector) v).setNull(row);
+                else ((BigIntVector) v).setSafe(row, value);
+            }
+        };
+    }
+
+    private static Column doubleColumn(String name, String sqlColumn) {
+        return new Column() {
+            public Field field() {
+                return Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+            }
+
+            public void write(FieldVector v, int row, ResultSet rs, RowScores s) throws SQLException {
+                double value = rs.getDouble(sqlColumn);
+                if (rs.wasNull()) ((Float8Vector) v).setNull(row);
+                else ((Float8Vector) v).setSafe(row, value);
+            }
+        };
+    }
+
+    private static Column textColumn(String name, String sqlColumn) {
+        return new Column() {
+            public Field field() {
+                return Field.nullable(name, ArrowType.Utf8.INSTANCE);
+            }
+
+            public void write(FieldVector v, int row, ResultSet rs, RowScores s) throws SQLException {
+                String value = rs.getString(sqlColumn);
+                if (value == null) ((VarCharVector) v).setNull(row);
+                else ((VarCharVector) v).setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    private static Column timestampColumn(String name, String sqlColumn) {
+        return new Column() {
+            public Field field() {
+                return Field.nullable(name, new ArrowType.Timestamp(TimeUnit.MICROSECOND, "UTC"));
+            }
+
+            public void write(FieldVector v, int row, ResultSet rs, RowScores s) throws SQLException {
+                Timestamp ts = rs.getTimestamp(sqlColumn);
+                if (ts == null) {
+                    ((TimeStampMicroTZVector) v).setNull(row);
+                } else {
+                    long micros = Math.floorDiv(ts.getTime(), 1000L) * 1_000_000L + ts.getNanos() / 1_000;
+                    ((TimeStampMicroTZVector) v).setSafe(row, micros);
+                }
+            }
+        };
+    }
+
+    private static Column scoreColumn(String name, String jsonColumn, String category) {
+        return new Column() {
+            public Field field() {
+                return Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE));
+            }
+
+            public void write(FieldVector v, int row, ResultSet rs, RowScores s) throws SQLException {
+                Double value = s.get(jsonColumn, category);
+                if (value == null) ((Float4Vector) v).setNull(row);
+                else ((Float4Vector) v).setSafe(row, value.floatValue());
+            }
+        };
+    }
+}
@@ -1,71 +1,108 @@
 package com.ttu_elite.seraph.Services;
 
-import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 public class Bm25Ranker {
 
-    // Define KEYWORDS for each category (Explicit triggers)
-    // These act as the "Documents" we compare against
-    private static final Map<String, List<String>> KEYWORD_CORPUS = Map.of(
-            "SADNESS", List.of("sad", "crying", "grief", "depressed", "lonely", "hopeless", "misery", "pain", "tears", "empty"),
-            "HOSTILITY", List.of("hate", "kill", "angry", "punch", "stupid", "idiot", "fight", "destroy", "enemy", "rage"),
-            "ANXIETY_STRESS", List.of("panic", "anxiety", "scared", "nervous", "breathe", "pressure", "fail", "worry", "stress", "attack"),
-            "SELF_HARM_RISK", List.of("suicide", "end", "die", "kill", "goodbye", "overdose", "cutting", "hang", "rope", "gun"),
-            "FUNCTIONAL_BASELINE", List.of("work", "hobby", "job", "game", "movie", "book", "code", "run", "gym", "cook", "friend", "happy", "cool")
-    );
+    private final PipelineMetrics metrics;
 
     // BM25 Constants (Standard Tuning)
     private static final double k1 = 1.5;
     private static final double b = 0.75;
 
-    public Map<String, List<Double>> scorePosts(List<String> postTexts) {
+    /**
+     * BM25 of each post against each category's keyword list from the taxonomy. Only terms that
+     * occur in the post contribute (tf = 0 adds nothing), so each post walks its own distinct
+     * tokens through the taxonomy's term -> categories index instead of every keyword list.
+     */
+    public Map<String, List<Double>> scorePosts(List<String> postTexts, Taxonomy taxonomy) {
+        List<String> keys = taxonomy.keys();
+        Map<String, int[]> index = taxonomy.keywordIndex();
+
         Map<String, List<Double>> results = new LinkedHashMap<>();
-        for (String cat : KEYWORD_CORPUS.keySet()) results.put(cat, new ArrayList<>());
+        for (String cat : keys) results.put(cat, new ArrayList<>(postTexts.size()));
 
         // Pre-compute average doc length (avgdl) for this batch
-        double avgdl = postTexts.stream().mapToInt(this::countWords).average().orElse(1.0);
+        double avgdl = averageLength(postTexts);
+
+        long tokenizeNanos = 0;
+        long scoreStart = metrics.start();
+        double[] scores = new double[keys.size()];
 
         // 1. Score each post against each Category
         for (String text : postTexts) {
+            long tokenizeStart = System.nanoTime();
             List<String> postTokens = tokenize(text);
+            tokenizeNanos += System.nanoTime() - tokenizeStart;
             int docLen = postTokens.size();
 
-            for (String cat : KEYWORD_CORPUS.keySet()) {
-                double score = 0.0;
-                List<String> keywords = KEYWORD_CORPUS.get(cat);
-
-                // For every keyword in the category, run BM25 formula against the post
-                for (String term : keywords) {
-                    long tf = postTokens.stream().filter(t -> t.equals(term)).count();
+            Map<String, Integer> tf = new HashMap<>();
+            for (String token : postTokens) {
+                if (index.containsKey(token)) tf.merge(token, 1, Integer::sum);
+            }
 
-                    // Inverse Document Frequency (Simplified for single-doc query context)
-                    // We treat the "Keyword List" as the corpus. If the term is rare, it's weighted higher.
-                    // Ideally IDF is computed over a large corpus, but for this 'Sidecar', we assume standard weight 1.0
-                    double idf = 1.0;
+            Arrays.fill(scores, 0.0);
+            for (var e : tf.entrySet()) {
+                double termScore = termScore(e.getValue(), docLen, avgdl);
+                for (int c : index.get(e.getKey())) scores[c] += termScore;
+            }
 
-                    double numerator = tf * (k1 + 1);
-                    double denominator = tf + k1 * (1 - b + b * (docLen / avgdl));
+            // Raw, unbounded BM25: Taxonomy.fuse maps it onto the 0-1 scale of the Neural model
+            for (int c = 0; c < keys.size(); c++) {
+                results.get(keys.get(c)).add(scores[c]);
+            }
+        }
 
-                    score += idf * (numerator / denominator);
-                }
+        metrics.record("bm25.tokenize", tokenizeNanos);
+        metrics.stop("bm25.score", scoreStart);
+        return results;
+    }
 
-                // Normalization: Clamp score to roughly 0.0 - 1.0 range for mixing
-                // BM25 is unbounded, so we use a simple sigmoid-like clamp or min-max if needed.
-                // For simplicity here, we divide by a factor to match the 0-1 scale of the Neural model.
-                double normalizedScore = Math.min(score / 5.0, 1.0);
+    /**
+     * Per-term breakdown of one post's BM25: category key -> keyword -> its contribution, with the
+     * same arithmetic as scorePosts, so each category's contributions sum to its score there.
+     *
+     * @param avgdl averageLength() of the batch the post was scored in
+     */
+    public Map<String, Map<String, Double>> contributions(String text, Taxonomy taxonomy, double avgdl) {
+        List<String> keys = taxonomy.keys();
+        Map<String, int[]> index = taxonomy.keywordIndex();
+        List<String> postTokens = tokenize(text);
+
+        Map<String, Integer> tf = new HashMap<>();
+        for (String token : postTokens) {
+            if (index.containsKey(token)) tf.merge(token, 1, Integer::sum);
+        }
 
-                results.get(cat).add(normalizedScore);
+        Map<String, Map<String, Double>> out = new LinkedHashMap<>();
+        for (var e : tf.entrySet()) {
+            double termScore = termScore(e.getValue(), postTokens.size(), avgdl);
+            for (int c : index.get(e.getKey())) {
+                out.computeIfAbsent(keys.get(c), k -> new HashMap<>()).put(e.getKey(), termScore);
             }
         }
-        return results;
+        return out;
+    }
+
+    public double averageLength(List<String> postTexts) {
+        return postTexts.stream().mapToInt(this::countWords).average().orElse(1.0);
+    }
+
+    // IDF is 1.0: the keyword lists are the "corpus", so no term is weighted above another
+    private static double termScore(int tf, int docLen, double avgdl) {
+        double numerator = tf * (k1 + 1);
+        double denominator = tf + k1 * (1 - b + b * (docLen / avgdl));
+        return numerator / denominator;
     }
 
-    private List<String> tokenize(String text) {
+    /** The tokens scorePosts matches against keywords (lowercase letters only, 3+ chars). */
+    public List<String> tokenize(String text) {
         if (text == null) return Collections.emptyList();
         // Simple tokenizer: Lowercase, remove punctuation, split by space
         return Arrays.stream(text.toLowerCase().replaceAll("[^a-zA-Z ]", "").split("\\s+"))
@@ -0,0 +1,234 @@
+package com.ttu_elite.seraph.Services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stateless bulk scoring for research corpora: reads texts from a stream, runs them through the
+ * full hybrid pipeline in batches and writes one NDJSON result line per input line as soon as
+ * its batch is done. Nothing touches the DB, the vector store or the alerting path.
+ *
+ * Input, one record per line:
+ *   NDJSON  -> "some text"  or  {"id": "abc", "text": "some text"}
+ *   TEXT    -> the raw line is the text
+ * Output:  {"i": 0, "id": "abc", "scores": {"Sentiment": 0.9, ...}, "path": "neural"}
+ *     or   {"i": 7, "error": "..."} for a line that could not be read
+ *
+ * With features=true each line instead carries the raw per-category model outputs keyed by
+ * category key, {"i": 0, "semantic": {...}, "keyword": {...}}: training input for tools.FusionTrainer.
+ *
+ * "path" is "lexical" when the cascade (see LexicalCascade) settled the text without the
+ * transformer; cascade=null follows seraph.cascade.enabled, true/false forces it per request.
+ * It is "degraded" when the embedding model was unavailable (breaker open or timed out) and the
+ * text got BM25-only scores; features=true reports such a text as an error line instead.
+ *
+ * Memory stays flat: at most parallel-batches batches are in flight, and results go out in
+ * input order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkScoringService {
+
+    public enum Format { NDJSON, TEXT }
+
+    private record Line(long index, String id, String text, String error) {}
+
+    private final RedditAnalyzeService analyzer;
+    private final EmbeddingRanker embeddingRanker;
+    private final Bm25Ranker bm25Ranker;
+    private final TaxonomyService taxonomy;
+    private final LexicalCascade cascade;
+    private final TextNormalizer normalizer;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+
+    @Value("${seraph.bulk.max-texts:1000000}")
+    private long maxTexts;
+
+    @Value("${seraph.bulk.batch-size:256}")
+    private int batchSize;
+
+    // Batches scored concurrently; their embeddings meet in the micro-batcher
+    @Value("${seraph.bulk.parallel-batches:2}")
+    private int parallelBatches;
+
+    private final ExecutorService batchExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("seraph-bulk-", 0).factory());
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    /** Scores every line of in and streams the results to out. Returns the number of lines read. */
+    public long score(InputStream in, OutputStream out, Format format) throws IOException {
+        return score(in, out, format, false, null);
+    }
+
+    public long score(InputStream in, OutputStream out, Format format, boolean features, Boolean useCascade) throws IOException {
+        boolean lexicalExit = useCascade != null ? useCascade : cascade.isEnabled();
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        Deque<Future<List<String>>> inFlight = new ArrayDeque<>();
+        List<Line> batch = new ArrayList<>(batchSize);
+        long read = 0;
+        boolean truncated = false;
+
+        try {
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                if (raw.isBlank()) continue;
+                if (read >= maxTexts) {
+                    truncated = true;
+                    break;
+                }
+                batch.add(parse(read++, raw, format));
+
+                if (batch.size() == batchSize) {
+                    inFlight.add(submit(batch, features, lexicalExit));
+                    batch = new ArrayList<>(batchSize);
+                    // Window full: write out the oldest batch before reading further
+                    if (inFlight.size() >= parallelBatches) drain(inFlight.poll(), writer);
+                }
+            }
+            if (!batch.isEmpty()) inFlight.add(submit(batch, features, lexicalExit));
+            while (!inFlight.isEmpty()) drain(inFlight.poll(), writer);
+            if (truncated) {
+                writer.write(toJson(Map.of("error", "limit of " + maxTexts + " texts reached, rest of input ignored")));
+                writer.newLine();
+            }
+            writer.flush();
+        } finally {
+            inFlight.forEach(f -> f.cancel(true)); // client went away mid-stream
+        }
+
+        metrics.stop("bulk", started);
+        log.info("BULK: scored {} texts in {} ms", read, (System.nanoTime() - started) / 1_000_000);
+        return read;
+    }
+
+    private Future<List<String>> submit(List<Line> batch, boolean features, boolean lexicalExit) {
+        return batchExecutor.submit(() -> features ? featureBatch(batch) : scoreBatch(batch, lexicalExit));
+    }
+
+    private List<String> scoreBatch(List<Line> batch, boolean lexicalExit) {
+        List<String> texts = texts(batch);
+        RedditAnalyzeService.ScoredTexts scored = texts.isEmpty() ? null : analyzer.scoreStateless(texts, lexicalExit);
+
+        List<String> out = new ArrayList<>(batch.size());
+        int next = 0;
+        for (Line l : batch) {
+            Map<String, Object> row = row(l);
+            if (l.error() == null) {
+                int i = next++;
+                row.put("scores", scored.scores().get(i));
+                row.put("path", scored.paths().get(i));
+            }
+            out.add(toJson(row));
+        }
+        return out;
+    }
+
+    // Raw semantic cosine and raw BM25 per category key, before any fusion
+    private List<String> featureBatch(List<Line> batch) {
+        List<String> texts = normalizer.normalizeAll(texts(batch)); // same text the scoring path ranks
+        Taxonomy tax = taxonomy.current();
+        List<float[]> vectors = texts.isEmpty() ? List.of() : embeddingRanker.embedPosts(texts);
+        Map<String, List<Double>> semantic = texts.isEmpty() ? Map.of() : embeddingRanker.scoreVectors(vectors, tax);
+        Map<String, List<Double>> keyword = texts.isEmpty() ? Map.of() : bm25Ranker.scorePosts(texts, tax);
+
+        List<String> out = new ArrayList<>(batch.size());
+        int next = 0;
+        for (Line l : batch) {
+            Map<String, Object> row = row(l);
+            if (l.error() == null && vectors.get(next) == null) {
+                // A zero semantic feature would be a wrong training example, not a missing one
+                next++;
+                row.put("error", "embedding model unavailable");
+            } else if (l.error() == null) {
+                int i = next++;
+                Map<String, Double> sem = new LinkedHashMap<>();
+                Map<String, Double> kw = new LinkedHashMap<>();
+                for (String key : tax.keys()) {
+                    sem.put(key, semantic.get(key).get(i));
+                    kw.put(key, keyword.get(key).get(i));
+                }
+                row.put("semantic", sem);
+                row.put("keyword", kw);
+            }
+            out.add(toJson(row));
+        }
+        return out;
+    }
+
+    private static List<String> texts(List<Line> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Line l : batch) {
+            if (l.error() == null) texts.add(l.text());
+        }
+        return texts;
+    }
+
+    private static Map<String, Object> row(Line l) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("i", l.index());
+        if (l.id() != null) row.put("id", l.id());
+        if (l.error() != null) row.put("error", l.error());
+        return row;
+    }
+
+    private void drain(Future<List<String>> done, BufferedWriter writer) throws IOException {
+        List<String> lines;
+        try {
+            lines = done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("bulk scoring interrupted");
+        } catch (Exception e) {
+            throw new IOException("bulk scoring batch failed", e.getCause() != null ? e.getCause() : e);
+        }
+        for (String line : lines) {
+            writer.write(line);
+            writer.newLine();
+        }
+        writer.flush(); // push each finished batch to the client right away
+    }
+
+    private Line parse(long index, String raw, Format format) {
+        if (format == Format.TEXT) return new Line(index, null, raw.trim(), null);
+        try {
+            JsonNode node = objectMapper.readTree(raw);
+            if (node.isString()) return new Line(index, null, node.asString(), null);
+            if (node.isObject() && node.get("text") != null && node.get("text").isString()) {
+                JsonNode id = node.get("id");
+                return new Line(index, id == null || id.isNull() ? null : id.asString(), node.get("text").asString(), null);
+            }
+            return new Line(index, null, null, "expected a JSON string or an object with a \"text\" field");
+        } catch (Exception e) {
+            return new Line(index, null, null, "invalid JSON");
+        }
+    }
+
+    private String toJson(Object o) {
+        try {
+            return objectMapper.writeValueAsString(o);
+        } catch (Exception e) {
+            return "{}";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ttu_elite.seraph.Services;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Access-ordered LRU map capped by entry count and by an estimated byte size, whichever is hit
+ * first. The weigher only has to be roughly right (strings count 2 bytes per char plus object
+ * overhead); it is what keeps a few huge profiles from pushing the heap past its limit. A single
+ * value heavier than the whole budget is not cached at all.
+ */
+class ByteBoundedLru<K, V> {
+
+    private final Map<K, V> map = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<K, Long> weights = new HashMap<>();
+    private final ToLongFunction<V> weigher;
+    private final int maxEntries;
+    private final long maxBytes;
+    private long bytes;
+
+    ByteBoundedLru(int maxEntries, long maxBytes, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        remove(key);
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxBytes) return;
+
+        map.put(key, value);
+        weights.put(key, weight);
+        bytes += weight;
+
+        Iterator<Map.Entry<K, V>> eldest = map.entrySet().iterator();
+        while ((map.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            K k = eldest.next().getKey();
+            eldest.remove();
+            bytes -= weights.remove(k);
+        }
+    }
+
+    /**
+     * Caches value unless key is already present; returns whichever value is cached afterwards
+     * (value itself when it is too heavy to cache).
+     */
+    synchronized V putIfAbsent(K key, V value) {
+        V existing = map.get(key);
+        if (existing != null) return existing;
+        put(key, value);
+        return value;
+    }
+
+    /** Re-weighs a value that grew in place, if it is still the one cached under key. */
+    synchronized void reweigh(K key, V value) {
+        if (map.get(key) == value) put(key, value);
+    }
+
+    synchronized void remove(K key) {
+        if (map.remove(key) != null) bytes -= weights.remove(key);
+    }
+
+    synchronized void clear() {
+        map.clear();
+        weights.clear();
+        bytes = 0;
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+    /** Rough heap size of a string: header + array header + 2 bytes per char (worst case, UTF-16). */
+    static long sizeOf(String s) {
+        return s == null ? 0 : 56 + 2L * s.length();
+    }
+}
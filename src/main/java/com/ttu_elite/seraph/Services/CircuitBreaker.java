@@ -0,0 +1,105 @@
+package com.ttu_elite.seraph.Services;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Consecutive-failure circuit breaker for one dependency. CLOSED lets every call through;
+ * failureThreshold failures in a row open it, and for openMillis every call is rejected
+ * up front instead of waiting on a dependency that is down. After that one trial call is let
+ * through (HALF_OPEN): success closes the breaker, failure opens it again.
+ *
+ * Callers: if (!breaker.tryAcquire()) -> fallback; else call, then onSuccess() / onFailure().
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // A lock rather than synchronized: a virtual thread blocked on a monitor pins its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** True when the call may go ahead; false means use the fallback now. */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (trialInFlight) yield false;
+                    trialInFlight = true;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            failures = 0;
+            state = State.CLOSED;
+            trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            failures++;
+            if (state == State.HALF_OPEN || failures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                trialInFlight = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The acquired call never reached the dependency: frees a half-open trial, says nothing about health. */
+    public void release() {
+        lock.lock();
+        try {
+            trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            // Report HALF_OPEN as soon as a trial would be allowed, not only once one ran
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) return State.HALF_OPEN;
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
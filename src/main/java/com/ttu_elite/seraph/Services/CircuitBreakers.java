@@ -0,0 +1,54 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One CircuitBreaker per external dependency ("embedding", "rerank", and each platform by
+ * name), configured per dependency:
+ *
+ *   seraph.breaker.{name}.failure-threshold  consecutive failures that open it (default 5)
+ *   seraph.breaker.{name}.open-ms            how long it rejects calls before a trial (default 30000)
+ *
+ * Exposes seraph.breaker.state{dependency} (0 closed, 1 half-open, 2 open) and
+ * seraph.breaker.rejected{dependency} (calls sent straight to the fallback).
+ */
+@Component
+public class CircuitBreakers {
+
+    private final Environment env;
+    private final PipelineMetrics metrics;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakers(Environment env, PipelineMetrics metrics) {
+        this.env = env;
+        this.metrics = metrics;
+    }
+
+    public CircuitBreaker get(String dependency) {
+        return breakers.computeIfAbsent(dependency, this::create);
+    }
+
+    /** Counts a call the breaker turned away. */
+    public void rejected(CircuitBreaker breaker) {
+        Counter.builder("seraph.breaker.rejected").tag("dependency", breaker.name())
+                .description("Calls rejected by an open circuit breaker").register(metrics.registry()).increment();
+    }
+
+    private CircuitBreaker create(String dependency) {
+        String prefix = "seraph.breaker." + dependency + ".";
+        CircuitBreaker breaker = new CircuitBreaker(dependency,
+                env.getProperty(prefix + "failure-threshold", Integer.class, 5),
+                env.getProperty(prefix + "open-ms", Long.class, 30000L));
+        Gauge.builder("seraph.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("dependency", dependency)
+                .register(metrics.registry());
+        return breaker;
+    }
+}
@@ -0,0 +1,404 @@
+package com.ttu_elite.seraph.Services;
+
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import com.ttu_elite.seraph.Entities.CohortRollup;
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import com.ttu_elite.seraph.Repositories.CohortRollupRepository;
+import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
+import com.ttu_elite.seraph.dto.CohortReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cohort rollups: for every cohort (each platform, plus "all") and category, a t-digest of the
+ * category's share in the latest snapshot of every profile. Comparing a user against the
+ * population is then one digest lookup per category, independent of how many profiles exist,
+ * instead of a scan of every ProfileAnalysis and its JSON.
+ *
+ * Every snapshot write adds the profile's shares to the digests (O(categories)). A t-digest
+ * cannot remove a value, so a profile's previous snapshot stays inside as "stale" until the
+ * next rebuild from the latest snapshots, which runs when the stale share passes
+ * max-stale-fraction and every rebuild-ms regardless (that also re-converges several nodes,
+ * which each keep their own digests). Digests are upserted into cohort_rollup every flush-ms
+ * and loaded from there at startup.
+ */
+@Slf4j
+@Service
+public class CohortRollupService {
+
+    public static final String ALL = "all";
+    private static final String SIMULATION = "simulation";
+
+    private final CohortRollupRepository rollupRepo;
+    private final ProfileAnalysisRepository profileRepo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate cursorJdbc;
+
+    // Keyed by (cohort, category), so nodes flushing the same rollup never collide on ids
+    private static final String UPSERT = "INSERT INTO cohort_rollup (cohort, category, members, stale, digest, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (cohort, category) DO UPDATE SET " +
+            "members = EXCLUDED.members, stale = EXCLUDED.stale, digest = EXCLUDED.digest, updated_at = EXCLUDED.updated_at";
+
+    // t-digest accuracy/size trade-off (100: ~1% quantile error in the middle, far better at the tails)
+    @Value("${seraph.cohorts.compression:100}")
+    private double compression;
+
+    // Smaller cohorts report no percentile: a rank among a handful of profiles means little
+    @Value("${seraph.cohorts.min-members:20}")
+    private long minMembers;
+
+    @Value("${seraph.cohorts.max-stale-fraction:0.25}")
+    private double maxStaleFraction;
+
+    private static final class Rollup {
+        final TDigest digest;
+        long members;
+        long stale;
+        // Changes made / changes written; a flush that fails leaves the rollup due for the next one
+        long changes;
+        long flushed;
+
+        Rollup(TDigest digest) {
+            this.digest = digest;
+        }
+    }
+
+    // cohort -> category -> rollup; guarded by lock (a virtual thread blocked on a monitor pins its carrier)
+    private Map<String, Map<String, Rollup>> cohorts = new HashMap<>();
+    private Set<String> members = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Snapshots recorded while a rebuild reads the table, re-applied on top of its result
+    private List<ProfileAnalysis> duringRebuild;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // One writer of cohort_rollup at a time, so a flush never merges rows a rebuild just deleted
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CohortRollupService(CohortRollupRepository rollupRepo, ProfileAnalysisRepository profileRepo,
+                               ObjectMapper objectMapper, TransactionTemplate tx, DataSource dataSource) {
+        this.rollupRepo = rollupRepo;
+        this.profileRepo = profileRepo;
+        this.objectMapper = objectMapper;
+        this.tx = tx;
+        this.jdbc = new JdbcTemplate(dataSource);
+        // Own template: the rebuild streams with a server-side cursor
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(1000);
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            List<CohortRollup> rows = rollupRepo.findAll();
+            lock.lock();
+            try {
+                for (CohortRollup row : rows) {
+                    Rollup r = new Rollup(MergingDigest.fromBytes(ByteBuffer.wrap(row.getDigest())));
+                    r.members = row.getMembers();
+                    r.stale = row.getStale();
+                    cohorts.computeIfAbsent(row.getCohort(), c -> new HashMap<>()).put(row.getCategory(), r);
+                }
+                // Usernames only: enough to tell a new profile from a replaced snapshot
+                members.addAll(profileRepo.findTrackedUsernames());
+            } finally {
+                lock.unlock();
+            }
+            log.info("COHORTS: loaded {} rollups over {} profiles", rows.size(), members.size());
+        } catch (Exception e) {
+            log.warn("COHORTS: could not load rollups, rebuilding: {}", e.getMessage());
+            lock.lock();
+            try {
+                cohorts = new HashMap<>();
+                members = new HashSet<>();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // --- WRITE PATH ---
+
+    /** Folds a just-written (or rescored) latest snapshot into its cohorts. */
+    public void record(ProfileAnalysis profile) {
+        if (profile == null || SIMULATION.equals(profile.getPlatform())) return;
+        Map<String, Double> shares = shares(profile.getProfileTotalsJson());
+        if (shares.isEmpty()) return;
+
+        lock.lock();
+        try {
+            if (duringRebuild != null) duringRebuild.add(profile);
+            add(cohorts, members, profile.getUsername(), profile.getPlatform(), shares);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(Map<String, Map<String, Rollup>> target, Set<String> known, String username,
+                     String platform, Map<String, Double> shares) {
+        boolean replaced = !known.add(username);
+        for (String cohort : new String[]{platform, ALL}) {
+            Map<String, Rollup> byCategory = target.computeIfAbsent(cohort, c -> new HashMap<>());
+            for (var e : shares.entrySet()) {
+                Rollup r = byCategory.computeIfAbsent(e.getKey(), c -> new Rollup(TDigest.createMergingDigest(compression)));
+                r.digest.add(e.getValue());
+                if (replaced) r.stale++;
+                else r.members++;
+                r.changes++;
+            }
+        }
+    }
+
+    // category total / sum of all totals; empty when the profile scored nothing
+    private Map<String, Double> shares(String totalsJson) {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        if (totalsJson == null) return shares;
+        try {
+            Map<String, Object> totals = objectMapper.readValue(totalsJson, Map.class);
+            double mass = 0.0;
+            for (Object v : totals.values()) if (v instanceof Number n) mass += n.doubleValue();
+            if (mass <= 0.0) return shares;
+            for (var e : totals.entrySet()) {
+                if (e.getValue() instanceof Number n) shares.put(e.getKey(), n.doubleValue() / mass);
+            }
+        } catch (Exception e) {
+            shares.clear();
+        }
+        return shares;
+    }
+
+    // --- MAINTENANCE ---
+
+    /** Persists changed digests, and rebuilds when too much of them is superseded values. */
+    @Scheduled(fixedDelayString = "${seraph.cohorts.flush-ms:30000}", initialDelayString = "${seraph.cohorts.flush-ms:30000}")
+    public void maintain() {
+        try {
+            if (needsRebuild()) rebuild();
+            else flush();
+        } catch (Exception e) {
+            log.warn("COHORTS: maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${seraph.cohorts.rebuild-ms:21600000}", initialDelayString = "${seraph.cohorts.rebuild-ms:21600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("COHORTS: rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean needsRebuild() {
+        lock.lock();
+        try {
+            if (cohorts.isEmpty()) return !members.isEmpty();
+            for (Rollup r : cohorts.getOrDefault(ALL, Map.of()).values()) {
+                if (r.stale > maxStaleFraction * (r.members + r.stale)) return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every digest from the latest snapshot per profile (one streaming pass, the
+     * only place the JSON of every profile is read) and replaces the stored rollups.
+     */
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) return;
+        try {
+            lock.lock();
+            try {
+                duringRebuild = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            long t = System.currentTimeMillis();
+            Map<String, Map<String, Rollup>> fresh = new HashMap<>();
+            Set<String> known = new HashSet<>();
+            try {
+                tx.execute(status -> {
+                    cursorJdbc.query(
+                            "SELECT DISTINCT ON (username) username, platform, profile_totals_json FROM profile_analysis " +
+                                    "WHERE platform <> 'simulation' AND NOT incomplete ORDER BY username, created_at DESC",
+                            rs -> {
+                                Map<String, Double> shares = shares(rs.getString("profile_totals_json"));
+                                if (!shares.isEmpty()) add(fresh, known, rs.getString("username"), rs.getString("platform"), shares);
+                            });
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    duringRebuild = null;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+
+            flushLock.lock();
+            try {
+                lock.lock();
+                try {
+                    // Anything recorded meanwhile may or may not be in the pass: apply it again (at worst one stale value)
+                    for (ProfileAnalysis p : duringRebuild) add(fresh, known, p.getUsername(), p.getPlatform(), shares(p.getProfileTotalsJson()));
+                    duringRebuild = null;
+                    cohorts = fresh;
+                    members = known;
+                } finally {
+                    lock.unlock();
+                }
+
+                // Rows of categories gone since go with the delete; readers never see the table empty
+                writeDirty(true);
+            } finally {
+                flushLock.unlock();
+            }
+            log.info("COHORTS: rebuilt from {} profiles in {} ms", known.size(), System.currentTimeMillis() - t);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /** Writes every changed digest to cohort_rollup. */
+    public void flush() {
+        flushLock.lock();
+        try {
+            writeDirty(false);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private record Pending(Rollup rollup, long changes, Object[] row) {}
+
+    // replaceAll: delete every stored rollup in the same transaction (after a rebuild)
+    private void writeDirty(boolean replaceAll) {
+        List<Pending> pending = new ArrayList<>();
+        Instant now = Instant.now();
+
+        lock.lock();
+        try {
+            for (var cohort : cohorts.entrySet()) {
+                for (var e : cohort.getValue().entrySet()) {
+                    Rollup r = e.getValue();
+                    if (r.changes == r.flushed) continue;
+                    ByteBuffer buf = ByteBuffer.allocate(r.digest.smallByteSize());
+                    r.digest.asSmallBytes(buf);
+                    pending.add(new Pending(r, r.changes, new Object[]{
+                            cohort.getKey(), e.getKey(), r.members, r.stale, buf.array(), Timestamp.from(now)}));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (pending.isEmpty() && !replaceAll) return;
+
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        for (Pending p : pending) rows.add(p.row());
+        tx.executeWithoutResult(status -> {
+            if (replaceAll) jdbc.update("DELETE FROM cohort_rollup");
+            if (!rows.isEmpty()) jdbc.batchUpdate(UPSERT, rows);
+        });
+
+        // Only now: anything recorded after the copy above stays due for the next flush
+        lock.lock();
+        try {
+            for (Pending p : pending) p.rollup().flushed = Math.max(p.rollup().flushed, p.changes());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- READ PATH ---
+
+    /** Distribution of every category in a cohort; null if the cohort is unknown. */
+    public CohortReport report(String cohort) {
+        lock.lock();
+        try {
+            Map<String, Rollup> byCategory = cohorts.get(cohort);
+            if (byCategory == null) return null;
+
+            List<CohortReport.CategoryStats> stats = new ArrayList<>();
+            long size = 0;
+            for (var e : new TreeMap<>(byCategory).entrySet()) {
+                stats.add(stats(e.getKey(), e.getValue(), null));
+                size = Math.max(size, e.getValue().members);
+            }
+            return new CohortReport(cohort, null, size, stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Where a profile's latest snapshot sits in a cohort (default: its own platform), per
+     * category. One row read plus one digest lookup per category. Null if the user has no snapshot
+     * or the cohort is unknown.
+     */
+    public CohortReport compare(String username, String cohort) {
+        Optional<ProfileAnalysis> latest = profileRepo.findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username);
+        if (latest.isEmpty()) return null;
+        String name = cohort == null || cohort.isBlank() ? latest.get().getPlatform() : cohort;
+        Map<String, Double> shares = shares(latest.get().getProfileTotalsJson());
+
+        lock.lock();
+        try {
+            Map<String, Rollup> byCategory = cohorts.get(name);
+            if (byCategory == null) return null;
+
+            List<CohortReport.CategoryStats> stats = new ArrayList<>();
+            long size = 0;
+            for (var e : new TreeMap<>(byCategory).entrySet()) {
+                stats.add(stats(e.getKey(), e.getValue(), shares.getOrDefault(e.getKey(), 0.0)));
+                size = Math.max(size, e.getValue().members);
+            }
+            return new CohortReport(name, username, size, stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CohortReport.CategoryStats stats(String category, Rollup r, Double share) {
+        TDigest d = r.digest;
+        Double percentile = share == null || r.members < minMembers ? null : round(100.0 * d.cdf(share));
+        return new CohortReport.CategoryStats(
+                category, r.members,
+                share == null ? null : round(share), percentile,
+                round(d.getMin()), q(d, 0.10), q(d, 0.25), q(d, 0.50), q(d, 0.75), q(d, 0.90), q(d, 0.99), round(d.getMax()));
+    }
+
+    private static Double q(TDigest d, double q) {
+        return round(d.quantile(q));
+    }
+
+    private static Double round(double v) {
+        return Double.isFinite(v) ? Math.round(v * 10000.0) / 10000.0 : null;
+    }
+}
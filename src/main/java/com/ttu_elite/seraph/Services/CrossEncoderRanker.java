@@ -1,63 +1,139 @@
 package com.ttu_elite.seraph.Services;
 
+import ai.djl.huggingface.translator.CrossEncoderTranslatorFactory;
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.util.StringPair;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
 
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Second-stage reranker: a local ms-marco MiniLM cross-encoder that reads (category definition, post)
+ * pairs jointly. It is far more precise than the bi-encoder + BM25 hybrid but costs a full forward pass
+ * per pair, so RedditAnalyzeService only sends it the posts the hybrid stage already flags as risky.
+ */
 @Component
+@RequiredArgsConstructor
 public class CrossEncoderRanker {
 
     private static final Logger log = LoggerFactory.getLogger(CrossEncoderRanker.class);
-    private final RestClient restClient = RestClient.create();
 
-    // Specific Cross-Encoder Model hosted on HuggingFace
-    private static final String API_URL = "https://api-inference.huggingface.co/models/cross-encoder/ms-marco-MiniLM-L-6-v2";
+    private static final String MODEL_URL = "djl://ai.djl.huggingface.pytorch/cross-encoder/ms-marco-MiniLM-L-6-v2";
 
-    public void init() {
-        // No heavy loading needed anymore!
-        log.info("Cross-Encoder configured to use HuggingFace Cloud API.");
-    }
+    private final PipelineMetrics metrics;
+    // Only a dependency: thread settings must be in place before the model loads
+    private final InferenceRuntime inferenceRuntime;
+    private final CircuitBreakers breakers;
+
+    @Value("${seraph.rerank.enabled:false}")
+    private boolean enabled;
+
+    // Largest number of pairs sent through the model in one forward pass
+    @Value("${seraph.rerank.max-batch:256}")
+    private int maxBatch;
+
+    // Bulkhead: longest wait for the (single) predictor before the rerank is skipped
+    @Value("${seraph.rerank.max-wait-ms:5000}")
+    private long maxWaitMs;
 
-    public Map<String, Double> rank(String postText, Map<String, String> categoryDefinitions) {
-        Map<String, Double> results = new ConcurrentHashMap<>();
+    private ZooModel<StringPair, float[]> model;
+    private Predictor<StringPair, float[]> predictor;
 
-        if (postText == null || postText.isBlank()) {
-            return results;
+    // A lock rather than synchronized: a virtual thread blocked on a monitor pins its carrier
+    private final ReentrantLock predictorLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!enabled) {
+            log.info("Cross-Encoder reranking disabled (seraph.rerank.enabled=false).");
+            return;
         }
 
-        for (var entry : categoryDefinitions.entrySet()) {
-            String catKey = entry.getKey();
-            String catDef = entry.getValue();
+        Criteria<StringPair, float[]> criteria = Criteria.builder()
+                .setTypes(StringPair.class, float[].class)
+                .optModelUrls(MODEL_URL)
+                .optEngine("PyTorch")
+                .optArgument("sigmoid", true) // relevance logit -> 0..1
+                .optTranslatorFactory(new CrossEncoderTranslatorFactory())
+                .build();
 
-            try {
-                // We construct the input payload expected by HF API
-                // Format: {"inputs": {"source_sentence": "...", "sentences": ["..."]}}
-                // OR for this specific model: {"inputs": {"text": "...", "text_pair": "..."}}
+        this.model = criteria.loadModel();
+        this.predictor = model.newPredictor();
+        log.info("Cross-Encoder loaded locally from {}", MODEL_URL);
+    }
 
-                Map<String, Object> payload = Map.of(
-                        "inputs", Map.of(
-                                "source_sentence", postText,
-                                "sentences", List.of(catDef)
-                        )
-                );
+    @PreDestroy
+    public void close() {
+        if (predictor != null) predictor.close();
+        if (model != null) model.close();
+    }
 
-                // Send Request
+    public boolean isEnabled() {
+        return enabled && predictor != null;
+    }
 
+    /**
+     * Scores every (post, category) pair in as few forward passes as possible.
+     *
+     * @return one map per input post: category key -> relevance probability (0..1)
+     */
+    public List<Map<String, Double>> rank(List<String> postTexts, Map<String, String> categoryDefinitions) throws Exception {
+        List<Map<String, Double>> results = new ArrayList<>(postTexts.size());
+        if (postTexts.isEmpty()) return results;
+
+        // 1. Flatten to pairs: post-major, category-minor
+        List<String> categories = new ArrayList<>(categoryDefinitions.keySet());
+        List<StringPair> pairs = new ArrayList<>(postTexts.size() * categories.size());
+        for (String text : postTexts) {
+            String post = text == null ? "" : text;
+            for (String cat : categories) pairs.add(new StringPair(categoryDefinitions.get(cat), post));
+        }
+
+        // 2. Batched forward passes (one, unless the rerank set is unusually large).
+        // Failing model or busy predictor: throw, the caller keeps the hybrid scores
+        CircuitBreaker breaker = breakers.get("rerank");
+        if (!breaker.tryAcquire()) {
+            breakers.rejected(breaker);
+            throw new DependencyUnavailableException("rerank", "model is failing (circuit open)");
+        }
+        if (!predictorLock.tryLock(maxWaitMs, TimeUnit.MILLISECONDS)) {
+            breaker.release();
+            throw new DependencyUnavailableException("rerank", "predictor still busy after " + maxWaitMs + " ms (bulkhead full)");
+        }
+        List<float[]> outputs = new ArrayList<>(pairs.size());
+        long t = metrics.start();
+        try {
+            for (int from = 0; from < pairs.size(); from += maxBatch) {
+                outputs.addAll(predictor.batchPredict(pairs.subList(from, Math.min(from + maxBatch, pairs.size()))));
+            }
+            breaker.onSuccess();
+        } catch (Exception e) {
+            breaker.onFailure();
+            throw e;
+        } finally {
+            predictorLock.unlock();
+        }
+        metrics.stop("rerank.forward", t);
 
-            } catch (Exception e) {
-                log.error("API Call Failed for category " + catKey + ": " + e.getMessage());
-                // Fallback: If API fails/throttles, assume 0
-                results.put(catKey, 0.0);
+        // 3. Fold back into per-post maps
+        for (int i = 0; i < postTexts.size(); i++) {
+            Map<String, Double> scores = new HashMap<>();
+            for (int c = 0; c < categories.size(); c++) {
+                float[] out = outputs.get(i * categories.size() + c);
+                scores.put(categories.get(c), out.length > 0 ? (double) out[0] : 0.0);
             }
+            results.add(scores);
         }
         return results;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.ttu_elite.seraph.Services;
+
+/**
+ * A dependency (a platform API, the embedding model) was not called: its circuit breaker is
+ * open or its bulkhead stayed full past max-wait. The message starts with UPSTREAM_UNAVAILABLE
+ * so it survives the service's error-string responses and maps to 503.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final String dependency;
+
+    public DependencyUnavailableException(String dependency, String reason) {
+        super("UPSTREAM_UNAVAILABLE: " + dependency + " " + reason + ", try again shortly");
+        this.dependency = dependency;
+    }
+
+    public String dependency() {
+        return dependency;
+    }
+}
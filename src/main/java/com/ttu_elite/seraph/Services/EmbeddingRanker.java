@@ -4,29 +4,64 @@ import ai.djl.huggingface.translator.TextEmbeddingTranslatorFactory;
 import ai.djl.inference.Predictor;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ZooModel;
+import io.micrometer.core.instrument.Gauge;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
+@RequiredArgsConstructor
 public class EmbeddingRanker {
 
-    private Predictor<String, float[]> predictor;
-    private final Map<String, float[]> categoryVectors = new ConcurrentHashMap<>();
+    private final PipelineMetrics metrics;
+    // Only a dependency: thread settings must be in place before the model loads
+    private final InferenceRuntime inferenceRuntime;
+    private final CircuitBreakers breakers;
 
-    // UPDATED ANCHORS: Added FUNCTIONAL_BASELINE to explicitly detect normal content
-    private static final Map<String, String> ANCHORS = Map.of(
-            "FUNCTIONAL_BASELINE", "Content about daily life, hobbies, work, technology, news, or casual conversation without strong emotion.",
-            "SADNESS", "I feel overwhelmed with grief, hopelessness, and deep emotional pain that will not go away.",
-            "HOSTILITY", "I hate everyone and want to violently hurt others or destroy things out of anger.",
-            "ANXIETY_STRESS", "I am having a panic attack and cannot breathe because the pressure is too much.",
-            "SELF_HARM_RISK", "I want to end my life and commit suicide because I cannot take this anymore."
-    );
+    // Predictors are not thread-safe: concurrent requests borrow one from the pool
+    @Value("${seraph.embedding.predictors:2}")
+    private int poolSize;
+
+    @Value("${seraph.embedding.batch-size:32}")
+    private int batchSize;
+
+    // Micro-batching across requests: texts from all callers share forward passes of up to
+    // batch-size, each batch held open at most max-wait-micros for more work to arrive
+    @Value("${seraph.embedding.micro-batch.enabled:true}")
+    private boolean microBatchEnabled;
+
+    @Value("${seraph.embedding.micro-batch.max-wait-micros:2000}")
+    private long maxWaitMicros;
+
+    // Bulkhead: longest wait for a free predictor before the call gives up
+    @Value("${seraph.embedding.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    // Longest one embedPosts call may take; texts not embedded by then come back null
+    @Value("${seraph.embedding.timeout-ms:30000}")
+    private long timeoutMs;
+
+    // Open after repeated model failures or timeouts: embedPosts then returns nulls at once
+    // and the pipeline scores those posts BM25-only ("degraded") instead of waiting
+    private CircuitBreaker breaker;
+
+    private ZooModel<String, float[]> model;
+    private BlockingQueue<Predictor<String, float[]>> predictorPool;
+    private final AtomicInteger waitingForPredictor = new AtomicInteger();
+    private MicroBatcher<String, float[]> batcher;
 
     @PostConstruct
     public void init() throws Exception {
@@ -38,45 +73,213 @@ public class EmbeddingRanker {
                 .optTranslatorFactory(new TextEmbeddingTranslatorFactory())
                 .build();
 
-        ZooModel<String, float[]> model = criteria.loadModel();
-        this.predictor = model.newPredictor();
+        this.model = criteria.loadModel();
+        this.breaker = breakers.get("embedding");
 
-        // Pre-compute Category Vectors (Done once at startup)
-        for (var entry : ANCHORS.entrySet()) {
-            categoryVectors.put(entry.getKey(), predictor.predict(entry.getValue()));
+        // All predictors share the one loaded model's weights
+        this.predictorPool = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) predictorPool.add(model.newPredictor());
+
+        Gauge.builder("seraph.predictor.pool.available", predictorPool, BlockingQueue::size)
+                .description("Idle embedding predictors")
+                .register(metrics.registry());
+        Gauge.builder("seraph.predictor.pool.waiting", waitingForPredictor, AtomicInteger::get)
+                .description("Threads queued for an embedding predictor")
+                .register(metrics.registry());
+
+        if (microBatchEnabled) {
+            // One worker per predictor, so a full batch never waits for a predictor
+            batcher = new MicroBatcher<>("embed", this::forward, poolSize, batchSize, maxWaitMicros, metrics);
+            Gauge.builder("seraph.inference.queue.depth", batcher, MicroBatcher::queued)
+                    .description("Texts waiting for an embedding micro-batch")
+                    .tag("model", "embed")
+                    .register(metrics.registry());
         }
+
+        // Category anchors are embedded by TaxonomyService, which owns the category definitions
     }
 
-    public Map<String, List<Double>> scorePosts(List<String> postTexts) {
-        Map<String, List<Double>> results = new LinkedHashMap<>();
+    @PreDestroy
+    public void close() {
+        if (batcher != null) batcher.shutdown();
+        if (predictorPool != null) predictorPool.forEach(Predictor::close);
+        if (model != null) model.close();
+    }
 
-        // Initialize lists
-        for (String cat : ANCHORS.keySet()) results.put(cat, new ArrayList<>());
+    public Map<String, List<Double>> scorePosts(List<String> postTexts, Taxonomy taxonomy) {
+        return scoreVectors(embedPosts(postTexts), taxonomy);
+    }
+
+    /**
+     * Vectorizes each post in batches of batchSize. A post the model fails on, or does not get
+     * to within timeout-ms, gets a null entry so callers can keep indexes aligned with the input
+     * list; while the breaker is open every entry is null without touching the model.
+     */
+    public List<float[]> embedPosts(List<String> postTexts) {
+        if (postTexts.isEmpty()) return new ArrayList<>();
+        if (!breaker.tryAcquire()) {
+            breakers.rejected(breaker);
+            return nulls(postTexts.size());
+        }
 
-        for (String text : postTexts) {
-            try {
-                float[] postVec = predictor.predict(text); // Vectorize post
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            List<float[]> vectors = new ArrayList<>(postTexts.size());
+
+            if (batcher != null) {
+                boolean timedOut = false;
+                for (CompletableFuture<float[]> f : batcher.submitAll(postTexts)) {
+                    try {
+                        vectors.add(f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                    } catch (TimeoutException e) {
+                        timedOut = true;
+                        f.cancel(false);
+                        vectors.add(null);
+                    } catch (Exception e) {
+                        metrics.error("embedding");
+                        vectors.add(null);
+                    }
+                }
+                if (timedOut) {
+                    metrics.error("embedding.timeout");
+                    breaker.onFailure();
+                }
+                return vectors;
+            }
 
-                for (String cat : ANCHORS.keySet()) {
-                    float[] catVec = categoryVectors.get(cat);
-                    double sim = cosineSimilarity(postVec, catVec);
-                    results.get(cat).add(Math.max(0.0, sim)); // Clamp negative cosine
+            for (int from = 0; from < postTexts.size(); from += batchSize) {
+                List<String> chunk = postTexts.subList(from, Math.min(from + batchSize, postTexts.size()));
+                if (System.nanoTime() > deadline) {
+                    metrics.error("embedding.timeout");
+                    breaker.onFailure();
+                    vectors.addAll(nulls(postTexts.size() - from));
+                    break;
+                }
+                try {
+                    vectors.addAll(forward(chunk));
+                } catch (DependencyUnavailableException e) {
+                    vectors.addAll(nulls(chunk.size()));
                 }
-            } catch (Exception e) {
-                // Handle error (log it, add 0.0)
-                for (String cat : ANCHORS.keySet()) results.get(cat).add(0.0);
             }
+            return vectors;
+        } finally {
+            // Frees a half-open trial that never reached the model
+            breaker.release();
+        }
+    }
+
+    private static List<float[]> nulls(int n) {
+        List<float[]> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(null);
+        return out;
+    }
+
+    public float[] embed(String text) throws Exception {
+        if (!breaker.tryAcquire()) {
+            breakers.rejected(breaker);
+            throw new DependencyUnavailableException("embedding", "model is failing (circuit open)");
+        }
+        breaker.release(); // forward() reports the outcome
+
+        if (batcher != null) {
+            float[] vector = batcher.submit(text).get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (vector == null) throw new IllegalStateException("Embedding failed");
+            return vector;
+        }
+
+        Predictor<String, float[]> predictor = borrow();
+        try {
+            float[] vector = predictor.predict(text);
+            breaker.onSuccess();
+            return vector;
+        } catch (Exception e) {
+            breaker.onFailure();
+            throw e;
+        } finally {
+            release(predictor);
         }
-        return results;
     }
 
-    private double cosineSimilarity(float[] A, float[] B) {
-        double dot = 0.0, normA = 0.0, normB = 0.0;
-        for (int i = 0; i < A.length; i++) {
-            dot += A[i] * B[i];
-            normA += A[i] * A[i];
-            normB += B[i] * B[i];
+    // One forward pass on a pooled predictor; the batch may mix texts from several requests
+    private List<float[]> forward(List<String> batch) {
+        Predictor<String, float[]> predictor = borrow();
+        long t = metrics.start();
+        try {
+            List<float[]> vectors = predictor.batchPredict(batch);
+            breaker.onSuccess();
+            return vectors;
+        } catch (Exception batchFailure) {
+            // One bad post should not zero the whole batch: retry individually
+            List<float[]> vectors = new ArrayList<>(batch.size());
+            boolean anyOk = false;
+            for (String text : batch) {
+                try {
+                    vectors.add(predictor.predict(text));
+                    anyOk = true;
+                } catch (Exception e) {
+                    metrics.error("embedding");
+                    vectors.add(null);
+                }
+            }
+            // Only a model that fails on everything counts against the breaker
+            if (anyOk) breaker.onSuccess();
+            else breaker.onFailure();
+            return vectors;
+        } finally {
+            metrics.stop("embed.forward", t);
+            release(predictor);
+        }
+    }
+
+    private Predictor<String, float[]> borrow() {
+        long t = metrics.start();
+        waitingForPredictor.incrementAndGet();
+        try {
+            Predictor<String, float[]> predictor = predictorPool.poll(maxWaitMs, TimeUnit.MILLISECONDS);
+            if (predictor == null) {
+                throw new DependencyUnavailableException("embedding", "has no free predictor after " + maxWaitMs + " ms (bulkhead full)");
+            }
+            return predictor;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a predictor", e);
+        } finally {
+            waitingForPredictor.decrementAndGet();
+            metrics.stop("embed.predictor-wait", t);
         }
-        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
     }
-}
\ No newline at end of file
+
+    private void release(Predictor<String, float[]> predictor) {
+        predictorPool.offer(predictor);
+    }
+
+    /** Cosine similarity of every post vector to every anchor of the given taxonomy version. */
+    public Map<String, List<Double>> scoreVectors(List<float[]> postVectors, Taxonomy taxonomy) {
+        Map<String, List<Double>> results = new LinkedHashMap<>();
+        List<String> keys = taxonomy.keys();
+        float[][] anchors = taxonomy.anchorMatrix(); // unit length, so cosine = dot / |post|
+
+        // Initialize lists
+        for (String cat : keys) results.put(cat, new ArrayList<>(postVectors.size()));
+
+        for (float[] postVec : postVectors) {
+            double norm = 0.0;
+            if (postVec != null) {
+                for (float x : postVec) norm += x * x;
+                norm = Math.sqrt(norm);
+            }
+            for (int c = 0; c < keys.size(); c++) {
+                if (postVec == null || norm == 0.0) {
+                    // Model failed on this post, add 0.0
+                    results.get(keys.get(c)).add(0.0);
+                    continue;
+                }
+                float[] catVec = anchors[c];
+                double dot = 0.0;
+                for (int i = 0; i < postVec.length; i++) dot += postVec[i] * catVec[i];
+                results.get(keys.get(c)).add(Math.max(0.0, dot / norm)); // Clamp negative cosine
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ttu_elite.seraph.Services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Process-wide PyTorch settings, applied before any model is loaded (the rankers depend on this
+ * bean, and libtorch reads them once when the engine starts).
+ *
+ * Every intra-op thread keeps its own native scratch buffers, so on small containers the
+ * libtorch default (one per core, plus as many inter-op threads) costs hundreds of MB of
+ * native memory for little throughput. 0 keeps the libtorch default.
+ *
+ * Model weights are loaded once per model and shared read-only by every predictor and
+ * micro-batch worker (parameters are frozen at load); adding predictors costs only their
+ * activation buffers, never another copy of the weights.
+ */
+@Slf4j
+@Component
+public class InferenceRuntime {
+
+    @Value("${seraph.inference.intra-op-threads:0}")
+    private int intraOpThreads;
+
+    @Value("${seraph.inference.inter-op-threads:0}")
+    private int interOpThreads;
+
+    @PostConstruct
+    public void apply() {
+        // An explicit -D on the command line wins
+        if (intraOpThreads > 0 && System.getProperty("ai.djl.pytorch.num_threads") == null) {
+            System.setProperty("ai.djl.pytorch.num_threads", String.valueOf(intraOpThreads));
+        }
+        if (interOpThreads > 0 && System.getProperty("ai.djl.pytorch.num_interop_threads") == null) {
+            System.setProperty("ai.djl.pytorch.num_interop_threads", String.valueOf(interOpThreads));
+        }
+        log.info("PyTorch threads: intra-op={}, inter-op={}",
+                System.getProperty("ai.djl.pytorch.num_threads", "default"),
+                System.getProperty("ai.djl.pytorch.num_interop_threads", "default"));
+    }
+}
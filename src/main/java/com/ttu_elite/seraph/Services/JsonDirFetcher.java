@@ -0,0 +1,141 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.Post;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Local JSON exports as a platform ("jsondir:{handle}"), for data-donation studies and
+ * datasets that were collected elsewhere.
+ *
+ * {seraph.platforms.jsondir.dir}/{handle}.json holds a JSON array, {handle}.ndjson one object
+ * per line, each shaped like Post:
+ *   {"id": "42", "kind": "post", "title": "...", "text": "...", "permalink": "...", "createdUtc": 1700000000}
+ * kind defaults to "post", createdUtc to 0, id to "#" + the item's position. Items are served newest first, split into the
+ * same two feeds as Reddit (posts, comments) so the usual ingest caps apply.
+ */
+@Component
+public class JsonDirFetcher implements PlatformFetcher {
+
+    public static final String PLATFORM = "jsondir";
+
+    private static final Feed POSTS = new Feed("posts", Post.KIND_POST);
+    private static final Feed COMMENTS = new Feed("comments", Post.KIND_COMMENT);
+
+    private record Export(FileTime modified, List<Post> posts, List<Post> comments) {}
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${seraph.platforms.jsondir.dir:}")
+    private String dir;
+
+    @Value("${seraph.platforms.jsondir.page-size:100}")
+    private int pageSize;
+
+    // Parsed exports, reloaded when the file changes; capped at cache-bytes
+    private final ByteBoundedLru<Path, Export> parsed;
+
+    public JsonDirFetcher(ObjectMapper objectMapper,
+                          @Value("${seraph.platforms.jsondir.cache-bytes:33554432}") long cacheBytes) {
+        this.objectMapper = objectMapper;
+        this.parsed = new ByteBoundedLru<>(Integer.MAX_VALUE, cacheBytes, JsonDirFetcher::weigh);
+    }
+
+    @Override
+    public String platform() {
+        return PLATFORM;
+    }
+
+    // Only reachable through its profile key (jsondir:{handle}); there are no URLs
+    @Override
+    public String handleOf(String profile) {
+        return null;
+    }
+
+    @Override
+    public List<Feed> feeds() {
+        return List.of(POSTS, COMMENTS);
+    }
+
+    @Override
+    public Page fetch(String handle, Feed feed, String cursor) {
+        Export export = load(handle);
+        List<Post> items = feed == COMMENTS ? export.comments() : export.posts();
+        int from = cursor == null ? 0 : Integer.parseInt(cursor);
+        int to = Math.min(items.size(), from + pageSize);
+        if (from >= to) return new Page(List.of(), null);
+        return new Page(items.subList(from, to), to < items.size() ? String.valueOf(to) : null);
+    }
+
+    private Export load(String handle) {
+        if (dir == null || dir.isBlank()) throw new IllegalStateException("seraph.platforms.jsondir.dir is not set");
+        if (!handle.matches("[\\w.@-]+")) throw new IllegalArgumentException("Invalid export handle: " + handle);
+
+        Path base = Path.of(dir);
+        Path file = Files.exists(base.resolve(handle + ".ndjson")) ? base.resolve(handle + ".ndjson") : base.resolve(handle + ".json");
+        if (!Files.exists(file)) return new Export(null, List.of(), List.of()); // no export -> empty profile
+
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            Export cached = parsed.get(file);
+            if (cached != null && modified.equals(cached.modified())) return cached;
+
+            Export export = parse(handle, file, modified);
+            parsed.put(file, export);
+            return export;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable export " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Export parse(String handle, Path file, FileTime modified) throws Exception {
+        List<JsonNode> nodes = new ArrayList<>();
+        if (file.toString().endsWith(".ndjson")) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) nodes.add(objectMapper.readTree(line));
+            }
+        } else {
+            objectMapper.readTree(file.toFile()).forEach(nodes::add);
+        }
+
+        List<Post> posts = new ArrayList<>();
+        List<Post> comments = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            JsonNode n = nodes.get(i);
+            String kind = n.path("kind").asString(Post.KIND_POST);
+            // Export ids are only unique within one export
+            String id = n.hasNonNull("id") ? n.get("id").asString() : "#" + i;
+            Post post = new Post(
+                    PLATFORM + ":" + handle + ":" + id,
+                    kind,
+                    n.path("title").asString(null),
+                    n.path("text").asString(""),
+                    n.path("permalink").asString(null),
+                    n.path("createdUtc").asLong(0));
+            (Post.KIND_COMMENT.equals(kind) ? comments : posts).add(post);
+        }
+        Comparator<Post> newestFirst = Comparator.comparing(Post::createdUtc).reversed();
+        posts.sort(newestFirst);
+        comments.sort(newestFirst);
+        return new Export(modified, posts, comments);
+    }
+
+    private static long weigh(Export export) {
+        long bytes = 256;
+        for (List<Post> list : List.of(export.posts(), export.comments())) {
+            for (Post p : list) {
+                bytes += 96 + ByteBoundedLru.sizeOf(p.id()) + ByteBoundedLru.sizeOf(p.title())
+                        + ByteBoundedLru.sizeOf(p.text()) + ByteBoundedLru.sizeOf(p.permalink());
+            }
+        }
+        return bytes;
+    }
+}
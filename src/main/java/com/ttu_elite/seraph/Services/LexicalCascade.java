@@ -0,0 +1,93 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Early exit for the hybrid pipeline: decides from the BM25 stage alone which posts are clear
+ * baseline and can skip the transformer. A post skips only when no risk keyword (any keyword
+ * of a non-baseline category) occurs in it and it is either very short (link posts, one-word
+ * replies) or a strong baseline keyword match. Any risk keyword always forces the neural pass.
+ *
+ * Off by default (seraph.cascade.enabled); tools.CascadeBenchmark measures what it saves and
+ * how often it agrees with the full pipeline.
+ */
+@Component
+public class LexicalCascade {
+
+    public static final String PATH_NEURAL = "neural";
+    public static final String PATH_LEXICAL = "lexical";
+    // Not a cascade decision: the embedding model was unavailable, BM25 only (Taxonomy.fuseKeywordOnly)
+    public static final String PATH_DEGRADED = "degraded";
+
+    private static final Pattern URL = Pattern.compile("https?://\\S+|www\\.\\S+");
+
+    @Value("${seraph.cascade.enabled:false}")
+    private boolean enabled;
+
+    // At most this many words once URLs are removed counts as "very short"
+    @Value("${seraph.cascade.max-short-words:3}")
+    private int maxShortWords;
+
+    // Raw BM25 on the baseline category needed for a "strong baseline match" (about two keyword hits)
+    @Value("${seraph.cascade.min-baseline-bm25:2.0}")
+    private double minBaselineBm25;
+
+    private final Counter skipped;
+    private final Counter forced;
+
+    public LexicalCascade(PipelineMetrics metrics) {
+        this.skipped = Counter.builder("seraph.cascade.posts").tag("path", PATH_LEXICAL)
+                .description("Posts scored without the transformer by the lexical cascade").register(metrics.registry());
+        this.forced = Counter.builder("seraph.cascade.posts").tag("path", PATH_NEURAL)
+                .description("Posts the lexical cascade sent to the transformer").register(metrics.registry());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param keyword raw BM25 per category key, as returned by Bm25Ranker
+     * @return per text: true when the post can skip the embedding model
+     */
+    public boolean[] skips(List<String> texts, Map<String, List<Double>> keyword, Taxonomy tax) {
+        boolean[] skip = new boolean[texts.size()];
+        List<Double> baseline = keyword.get(tax.baselineKey());
+        for (int i = 0; i < texts.size(); i++) {
+            if (hasRiskTerm(keyword, tax, i)) continue;
+            boolean shortPost = wordCount(texts.get(i)) <= maxShortWords;
+            boolean strongBaseline = baseline != null && baseline.get(i) >= minBaselineBm25;
+            skip[i] = shortPost || strongBaseline;
+        }
+        return skip;
+    }
+
+    /** Counts one scoring batch's decisions into seraph.cascade.posts. */
+    public void record(boolean[] skip) {
+        int n = 0;
+        for (boolean s : skip) if (s) n++;
+        skipped.increment(n);
+        forced.increment(skip.length - n);
+    }
+
+    private static boolean hasRiskTerm(Map<String, List<Double>> keyword, Taxonomy tax, int i) {
+        for (String key : tax.keys()) {
+            if (key.equals(tax.baselineKey())) continue;
+            List<Double> scores = keyword.get(key);
+            if (scores != null && scores.get(i) > 0.0) return true;
+        }
+        return false;
+    }
+
+    static int wordCount(String text) {
+        if (text == null) return 0;
+        String stripped = URL.matcher(text).replaceAll(" ").trim();
+        return stripped.isEmpty() ? 0 : stripped.split("\\s+").length;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.Post;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal Mastodon-compatible source ("mastodon:{user}@{host}", or a https://host/@user URL):
+ * public statuses through the unauthenticated REST API, boosts excluded. Replies count as
+ * comments, everything else as posts; a content warning becomes the title. Status HTML is
+ * left to TextNormalizer.
+ *
+ * Off unless seraph.platforms.mastodon.enabled=true. No auth, no private or followers-only
+ * posts, and every instance shares the one "mastodon" connection pool.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.platforms.mastodon.enabled", havingValue = "true")
+public class MastodonFetcher implements PlatformFetcher {
+
+    public static final String PLATFORM = "mastodon";
+
+    private static final Feed STATUSES = new Feed("statuses", Post.KIND_POST);
+    private static final Pattern PROFILE_URL = Pattern.compile("^https?://([^/]+)/@([\\w.]+)(?:[/?#].*)?$");
+    private static final Pattern ACCT = Pattern.compile("^@?([\\w.]+)@([\\w.-]+\\.[a-z]{2,})$", Pattern.CASE_INSENSITIVE);
+
+    private final PlatformConnections connections;
+
+    @Value("${seraph.platforms.mastodon.page-size:40}")
+    private int pageSize;
+
+    // user@host -> account id; ids never change
+    private final Map<String, String> accountIds = new ConcurrentHashMap<>();
+
+    @Override
+    public String platform() {
+        return PLATFORM;
+    }
+
+    @Override
+    public String handleOf(String profile) {
+        Matcher url = PROFILE_URL.matcher(profile);
+        if (url.matches()) return url.group(2) + "@" + url.group(1).toLowerCase();
+        Matcher acct = ACCT.matcher(profile);
+        if (acct.matches()) return acct.group(1) + "@" + acct.group(2).toLowerCase();
+        return null;
+    }
+
+    @Override
+    public List<Feed> feeds() {
+        return List.of(STATUSES);
+    }
+
+    @Override
+    public Page fetch(String handle, Feed feed, String cursor) {
+        int at = handle.lastIndexOf('@');
+        if (at <= 0) throw new IllegalArgumentException("Expected user@host, got " + handle);
+        String user = handle.substring(0, at);
+        String host = handle.substring(at + 1);
+        PlatformConnections.Pool pool = connections.pool(PLATFORM);
+
+        String accountId = accountIds.computeIfAbsent(handle, h -> {
+            Map account = pool.call(() -> pool.http().get()
+                    .uri("https://{host}/api/v1/accounts/lookup?acct={user}", host, user)
+                    .retrieve()
+                    .body(Map.class));
+            if (account == null || account.get("id") == null) throw new IllegalStateException("Unknown Mastodon account " + h);
+            return account.get("id").toString();
+        });
+
+        String uri = "https://{host}/api/v1/accounts/{id}/statuses?limit={limit}&exclude_reblogs=true"
+                + (cursor == null ? "" : "&max_id={cursor}");
+        List<Map> statuses = pool.call(() -> pool.http().get()
+                .uri(uri, host, accountId, pageSize, cursor)
+                .retrieve()
+                .body(List.class));
+        if (statuses == null || statuses.isEmpty()) return new Page(List.of(), null);
+
+        List<Post> posts = new ArrayList<>(statuses.size());
+        for (Map s : statuses) {
+            String cw = (String) s.get("spoiler_text");
+            posts.add(new Post(
+                    PLATFORM + ":" + host + ":" + s.get("id"),
+                    s.get("in_reply_to_id") != null ? Post.KIND_COMMENT : Post.KIND_POST,
+                    cw == null || cw.isBlank() ? null : cw,
+                    String.valueOf(s.getOrDefault("content", "")),
+                    (String) s.get("url"),
+                    s.get("created_at") == null ? 0L : Instant.parse((String) s.get("created_at")).getEpochSecond()));
+        }
+        // Mastodon pages backwards by status id
+        String next = statuses.size() < pageSize ? null : String.valueOf(statuses.get(statuses.size() - 1).get("id"));
+        return new Page(posts, next);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ttu_elite.seraph.Services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Dynamic micro-batching across callers: items from every concurrent request go into one queue,
+ * and each worker takes up to maxBatch of them per forward pass. A worker that finds fewer
+ * waiting holds the batch open for at most maxWait (measured from the oldest item), so a lone
+ * small request pays a few milliseconds of queueing while bursts fill whole batches.
+ *
+ * The runner gets a batch and must return one output per input, in order (null allowed).
+ */
+@Slf4j
+final class MicroBatcher<I, O> {
+
+    private record Pending<I, O>(I input, CompletableFuture<O> result, long enqueuedAt) {}
+
+    private final String name;
+    private final Function<List<I>, List<O>> runner;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final PipelineMetrics metrics;
+    private final LinkedBlockingQueue<Pending<I, O>> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    MicroBatcher(String name, Function<List<I>, List<O>> runner, int workers, int maxBatch, long maxWaitMicros, PipelineMetrics metrics) {
+        this.name = name;
+        this.runner = runner;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.metrics = metrics;
+
+        // Platform threads: the forward pass is native, CPU-bound work
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            this.workers.add(Thread.ofPlatform().daemon().name("seraph-" + name + "-batcher-" + i).start(this::loop));
+        }
+    }
+
+    CompletableFuture<O> submit(I input) {
+        Pending<I, O> p = new Pending<>(input, new CompletableFuture<>(), System.nanoTime());
+        if (!running) p.result().completeExceptionally(new IllegalStateException(name + " batcher is shut down"));
+        else queue.add(p);
+        return p.result();
+    }
+
+    /** Enqueues all inputs back to back so they land in as few batches as possible. */
+    List<CompletableFuture<O>> submitAll(List<I> inputs) {
+        List<CompletableFuture<O>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) futures.add(submit(input));
+        return futures;
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        Pending<I, O> p;
+        while ((p = queue.poll()) != null) p.result().completeExceptionally(new IllegalStateException(name + " batcher is shut down"));
+    }
+
+    private void loop() {
+        List<Pending<I, O>> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - batch.size());
+
+                // Not full yet: keep the batch open until the oldest item has waited maxWait
+                long deadline = batch.get(0).enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending<I, O> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+                run(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void run(List<Pending<I, O>> batch) {
+        long started = System.nanoTime();
+        long queueNanos = 0;
+        List<I> inputs = new ArrayList<>(batch.size());
+        for (Pending<I, O> p : batch) {
+            inputs.add(p.input());
+            queueNanos += started - p.enqueuedAt();
+        }
+        metrics.record(name + ".queue", queueNanos / batch.size());
+        metrics.inferenceBatch(name, batch.size());
+
+        try {
+            List<O> outputs = runner.apply(inputs);
+            for (int i = 0; i < batch.size(); i++) batch.get(i).result().complete(outputs.get(i));
+        } catch (Exception e) {
+            log.warn("{} batch of {} failed: {}", name, batch.size(), e.getMessage());
+            for (Pending<I, O> p : batch) p.result().completeExceptionally(e);
+        }
+    }
+}
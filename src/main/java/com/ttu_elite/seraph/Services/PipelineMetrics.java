@@ -0,0 +1,160 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation for the analysis pipeline.
+ *
+ * Every stage is timed into the "seraph.stage" timer (tag: stage) with a percentile histogram.
+ * When a request asks for debug output, a per-thread trace also accumulates the same
+ * stage durations so they can be returned alongside the result. Work the request hands to
+ * another thread (the streaming page producer) joins the same trace via currentTrace/joinTrace.
+ *
+ * Usage: long t = metrics.start(); ...work...; metrics.stop("embed", t);
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, Long>> trace = new ThreadLocal<>();
+
+    private final Counter snapshotHits;
+    private final Counter snapshotMisses;
+    private final Counter postsScored;
+    private final Counter duplicatesSkipped;
+    private final Counter postsDegraded;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.snapshotHits = Counter.builder("seraph.snapshot.hits").description("Analyses served from a stored snapshot").register(registry);
+        this.snapshotMisses = Counter.builder("seraph.snapshot.misses").description("Analyses that had to fetch and score").register(registry);
+        this.postsScored = Counter.builder("seraph.posts.scored").description("Posts run through the scoring pipeline").register(registry);
+        this.duplicatesSkipped = Counter.builder("seraph.posts.duplicates").description("Duplicate posts that reused a cluster's scores").register(registry);
+        this.postsDegraded = Counter.builder("seraph.posts.degraded").description("Posts scored BM25-only because the embedding model was unavailable").register(registry);
+        // Heap + metaspace + direct buffers + libtorch + malloc arenas: what the container limit sees
+        Gauge.builder("seraph.process.rss", PipelineMetrics::residentBytes).baseUnit("bytes")
+                .description("Resident set size of the JVM process (Linux only)").register(registry);
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(String stage, long startNanos) {
+        record(stage, System.nanoTime() - startNanos);
+    }
+
+    /** Records an already-measured duration, e.g. one accumulated across a loop. */
+    public void record(String stage, long elapsed) {
+        stageTimers.computeIfAbsent(stage, s -> Timer.builder("seraph.stage")
+                        .description("Time spent per analysis pipeline stage")
+                        .tag("stage", s)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        Map<String, Long> t = trace.get();
+        if (t != null) t.merge(stage, elapsed, Long::sum);
+    }
+
+    // --- PER-REQUEST DEBUG TRACE ---
+
+    public void beginTrace() {
+        // Synchronized: a streamed analysis records into it from its producer thread too
+        trace.set(Collections.synchronizedMap(new LinkedHashMap<>()));
+    }
+
+    /** The current thread's trace, to hand to joinTrace on a helper thread; null if none. */
+    public Map<String, Long> currentTrace() {
+        return trace.get();
+    }
+
+    /** Records this thread's stages into another thread's trace until leaveTrace (no-op for null). */
+    public void joinTrace(Map<String, Long> shared) {
+        if (shared != null) trace.set(shared);
+    }
+
+    public void leaveTrace() {
+        trace.remove();
+    }
+
+    /** Ends the current thread's trace and returns stage -> milliseconds (null if none was started). */
+    public Map<String, Double> endTrace() {
+        Map<String, Long> t = trace.get();
+        trace.remove();
+        if (t == null) return null;
+
+        Map<String, Double> ms = new LinkedHashMap<>();
+        t.forEach((stage, nanos) -> ms.put(stage, Math.round(nanos / 10_000.0) / 100.0));
+        return ms;
+    }
+
+    // --- COUNTERS ---
+
+    public void snapshotHit() {
+        snapshotHits.increment();
+    }
+
+    public void snapshotMiss() {
+        snapshotMisses.increment();
+    }
+
+    public void postsScored(int n) {
+        postsScored.increment(n);
+    }
+
+    public void duplicatesSkipped(int n) {
+        duplicatesSkipped.increment(n);
+    }
+
+    public void postsDegraded(int n) {
+        if (n > 0) postsDegraded.increment(n);
+    }
+
+    /** Size of one micro-batch formed across requests (see MicroBatcher). */
+    public void inferenceBatch(String model, int size) {
+        DistributionSummary.builder("seraph.inference.batch.size")
+                .description("Items per forward pass formed by the micro-batcher")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(size);
+    }
+
+    public void error(String where) {
+        Counter.builder("seraph.errors").tag("where", where).register(registry).increment();
+    }
+
+    // VmRSS from /proc/self/status, NaN where there is no procfs
+    static double residentBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024.0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // fall through
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ttu_elite.seraph.Services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * One connection pool and rate limiter per platform, shared by every request and background
+ * job that talks to it. Configured per platform name:
+ *
+ *   seraph.platforms.{name}.requests-per-minute  token bucket for calls to that API (default 600)
+ *   seraph.platforms.{name}.max-concurrent        calls in flight at once: the bulkhead (default 8)
+ *   seraph.platforms.{name}.max-wait-ms           how long a call may wait for a permit or a slot (default 10000)
+ *   seraph.platforms.{name}.connect-timeout-ms / read-timeout-ms  (default 5000 / 30000)
+ *
+ * Each platform also has a circuit breaker (seraph.breaker.{name}.*, see CircuitBreakers):
+ * timeouts, I/O errors, 5xx and 429 count as failures, any other answer as success. While it
+ * is open, calls fail at once with DependencyUnavailableException instead of tying up a
+ * thread for read-timeout-ms each.
+ *
+ * The watchlist's own RateBudget still applies on top: it is the background share, this is
+ * the platform's hard limit.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlatformConnections {
+
+    private final Environment env;
+    private final CircuitBreakers breakers;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public Pool pool(String platform) {
+        return pools.computeIfAbsent(platform, this::create);
+    }
+
+    private Pool create(String platform) {
+        String prefix = "seraph.platforms." + platform + ".";
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(env.getProperty(prefix + "connect-timeout-ms", Long.class, 5000L)))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(http);
+        factory.setReadTimeout(Duration.ofMillis(env.getProperty(prefix + "read-timeout-ms", Long.class, 30000L)));
+
+        return new Pool(platform,
+                RestClient.builder().requestFactory(factory).build(),
+                new RateBudget(env.getProperty(prefix + "requests-per-minute", Double.class, 600.0)),
+                new Semaphore(env.getProperty(prefix + "max-concurrent", Integer.class, 8)),
+                env.getProperty(prefix + "max-wait-ms", Long.class, 10000L),
+                breakers);
+    }
+
+    public static final class Pool {
+        private final String platform;
+        private final RestClient http;
+        private final RateBudget budget;
+        private final Semaphore inFlight;
+        private final long maxWaitMs;
+        private final CircuitBreakers breakers;
+        private final CircuitBreaker breaker;
+
+        Pool(String platform, RestClient http, RateBudget budget, Semaphore inFlight, long maxWaitMs, CircuitBreakers breakers) {
+            this.platform = platform;
+            this.http = http;
+            this.budget = budget;
+            this.inFlight = inFlight;
+            this.maxWaitMs = maxWaitMs;
+            this.breakers = breakers;
+            this.breaker = breakers.get(platform);
+        }
+
+        public RestClient http() {
+            return http;
+        }
+
+        /** Runs one API call once the breaker allows it and a rate permit and a connection slot are free. */
+        public <T> T call(Supplier<T> request) {
+            if (!breaker.tryAcquire()) {
+                breakers.rejected(breaker);
+                throw new DependencyUnavailableException(platform, "is failing (circuit open)");
+            }
+            try {
+                if (!budget.acquire(maxWaitMs)) {
+                    breaker.release(); // our own limit, not the platform's health
+                    throw new IllegalStateException("RATE_LIMITED: " + platform + " request budget exhausted, try again shortly");
+                }
+                if (!inFlight.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    breaker.release();
+                    throw new DependencyUnavailableException(platform, "has no free connection after " + maxWaitMs + " ms (bulkhead full)");
+                }
+            } catch (InterruptedException e) {
+                breaker.release();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a " + platform + " connection", e);
+            }
+            try {
+                T result = request.get();
+                breaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                if (isOutage(e)) breaker.onFailure();
+                else breaker.onSuccess(); // the platform answered, e.g. 404 for an unknown user
+                throw e;
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        public CircuitBreaker breaker() {
+            return breaker;
+        }
+
+        private static boolean isOutage(RuntimeException e) {
+            return e instanceof ResourceAccessException
+                    || e instanceof HttpServerErrorException
+                    || e instanceof HttpClientErrorException.TooManyRequests;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.Post;
+
+import java.util.List;
+
+/**
+ * A source of user histories. Every platform plugs into the same pipeline (dedup, batched
+ * scoring, alerts, persistence) by turning its API into pages of Post, newest first.
+ *
+ * Implementations are Spring beans picked up by PlatformRegistry. They should make their
+ * network calls through their PlatformConnections.Pool, which owns the platform's HTTP
+ * client, rate limit and concurrency cap.
+ */
+public interface PlatformFetcher {
+
+    /** One listing of a user; kind decides which ingest cap applies (seraph.ingest.max-posts / max-comments). */
+    record Feed(String name, String kind) {}
+
+    /** next is the cursor for the following page, null on the last one. */
+    record Page(List<Post> posts, String next) {}
+
+    /** Short lowercase name, stored as ProfileAnalysis.platform and used in profile keys. */
+    String platform();
+
+    /** The user handle in a profile URL or name if it belongs to this platform, else null. */
+    String handleOf(String profile);
+
+    List<Feed> feeds();
+
+    /** One page of feed, starting after cursor (null = newest). */
+    Page fetch(String handle, Feed feed, String cursor);
+}
@@ -0,0 +1,68 @@
+package com.ttu_elite.seraph.Services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the PlatformFetcher for a profile URL or profile key.
+ *
+ * Profile keys are what snapshots, claims, caches and the watchlist are keyed by: a bare
+ * username for Reddit (unchanged from before there were other platforms) and
+ * "{platform}:{handle}" for everything else, e.g. "mastodon:alice@mastodon.social".
+ */
+@Component
+public class PlatformRegistry {
+
+    public static final String REDDIT = "reddit";
+
+    public record Target(PlatformFetcher fetcher, String handle) {
+        public String profileKey() {
+            return PlatformRegistry.profileKey(fetcher.platform(), handle);
+        }
+    }
+
+    private final Map<String, PlatformFetcher> fetchers = new LinkedHashMap<>();
+
+    public PlatformRegistry(List<PlatformFetcher> fetchers) {
+        for (PlatformFetcher f : fetchers) this.fetchers.put(f.platform(), f);
+        if (!this.fetchers.containsKey(REDDIT)) throw new IllegalStateException("No Reddit fetcher registered");
+    }
+
+    public Set<String> platforms() {
+        return fetchers.keySet();
+    }
+
+    /**
+     * Resolves a profile key ("mastodon:alice@host"), a profile URL of any registered platform,
+     * or a bare name (Reddit, as always).
+     */
+    public Target resolve(String profile) {
+        String p = profile.trim();
+        int colon = p.indexOf(':');
+        if (colon > 0) {
+            PlatformFetcher byKey = fetchers.get(p.substring(0, colon));
+            if (byKey != null) return new Target(byKey, p.substring(colon + 1));
+        }
+        for (PlatformFetcher f : fetchers.values()) {
+            if (f.platform().equals(REDDIT)) continue; // fallback, it accepts anything
+            String handle = f.handleOf(p);
+            if (handle != null) return new Target(f, handle);
+        }
+        return new Target(fetchers.get(REDDIT), fetchers.get(REDDIT).handleOf(p));
+    }
+
+    public static String profileKey(String platform, String handle) {
+        return REDDIT.equals(platform) ? handle : platform + ":" + handle;
+    }
+
+    /** Platform of a profile key, for keys that are already resolved (see profileKey). */
+    public static String platformOf(String profileKey) {
+        int colon = profileKey.indexOf(':');
+        // Keys never contain '/'; an unparsed URL went to Reddit as-is
+        return colon > 0 && profileKey.indexOf('/') < 0 ? profileKey.substring(0, colon) : REDDIT;
+    }
+}
@@ -0,0 +1,237 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Finds exact and near-duplicate posts before scoring, so a spam account that submits the same
+ * text fifty times costs one model pass instead of fifty.
+ *
+ * Exact duplicates share a 64-bit hash of the raw text with case and whitespace folded. For
+ * near duplicates, a 64-bit SimHash over word 3-shingles is compared by Hamming distance; the
+ * hash is split into 4 bands of 16 bits so any pair within 3 bits shares at least one band and
+ * candidate lookup stays O(1) per post.
+ *
+ * No stopword removal or stemming here (unlike TextPreprocessor): "not" and "no" are English
+ * stopwords, and "I am going to kill myself" must never reuse the scores of "I am not going to
+ * kill myself". Words are kept as written, and near duplicates must also carry the same
+ * negations in the same order, since one inserted "not" may move a long post's SimHash by
+ * only a few bits.
+ */
+@Component
+public class PostDeduplicator {
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+    private static final int SHINGLE = 3;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}']+");
+    private static final Set<String> NEGATIONS = Set.of(
+            "no", "not", "never", "nor", "none", "nobody", "nothing", "nowhere", "neither", "cannot", "without");
+
+    @Value("${seraph.dedup.enabled:true}")
+    private boolean enabled;
+
+    // Up to 3 keeps the banding exact (pigeonhole over 4 bands)
+    @Value("${seraph.dedup.max-hamming:3}")
+    private int maxHamming;
+
+    // Below this many tokens SimHash is too noisy; only exact matches count
+    @Value("${seraph.dedup.min-tokens:6}")
+    private int minTokens;
+
+    // negations: hash of the negation words in order; near duplicates must agree on it
+    public record Fingerprint(long exact, long simhash, long negations, boolean nearEligible) {}
+
+    /**
+     * A cluster's representative, filled in once it has been through the models: only what its
+     * duplicates copy, never its text. The vector is dropped once its page is persisted (see
+     * Session.releaseVectors); later duplicates read it back from the vector store.
+     */
+    public static final class Entry {
+        String postId;
+        String tokens;
+        String scoringPath;
+        float[] vector;
+        int members = 1;
+
+        public String postId() {
+            return postId;
+        }
+
+        public String tokens() {
+            return tokens;
+        }
+
+        public String scoringPath() {
+            return scoringPath;
+        }
+
+        public float[] vector() {
+            return vector;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Session newSession() {
+        return new Session();
+    }
+
+    public Fingerprint fingerprint(String text) {
+        String folded = fold(text);
+        long exact = fnv1a(0xcbf29ce484222325L, folded);
+
+        List<String> tokens = words(folded);
+        long negations = 0xcbf29ce484222325L;
+        for (String token : tokens) {
+            if (isNegation(token)) negations = fnv1a(fnv1a(negations, token), " ");
+        }
+
+        boolean near = tokens.size() >= minTokens;
+        return new Fingerprint(exact, near ? simhash(tokens) : 0L, negations, near);
+    }
+
+    // Case and whitespace folded; curly apostrophes made straight so "don’t" equals "don't"
+    static String fold(String text) {
+        if (text == null) return "";
+        return WHITESPACE.matcher(text.toLowerCase(Locale.ROOT).replace('\u2019', '\'')).replaceAll(" ").trim();
+    }
+
+    static List<String> words(String folded) {
+        List<String> words = new ArrayList<>();
+        for (String w : NON_WORD.split(folded)) {
+            // Quotes around a word are not part of it; the apostrophe in "don't" is
+            int from = 0, to = w.length();
+            while (from < to && w.charAt(from) == '\'') from++;
+            while (to > from && w.charAt(to - 1) == '\'') to--;
+            if (from < to) words.add(w.substring(from, to));
+        }
+        return words;
+    }
+
+    static boolean isNegation(String word) {
+        return NEGATIONS.contains(word) || word.endsWith("n't");
+    }
+
+    /**
+     * Dedup state for one analysis. Spans every page of a streamed analysis, so a copy on page 9
+     * reuses the scores of the original on page 1.
+     */
+    public final class Session {
+        private final Map<Long, Entry> byExact = new HashMap<>();
+        private final List<Map<Integer, List<Banded>>> bands = new ArrayList<>(BANDS);
+        private final List<Entry> holdingVectors = new ArrayList<>();
+        private int duplicates = 0;
+
+        private Session() {
+            for (int b = 0; b < BANDS; b++) bands.add(new HashMap<>());
+        }
+
+        /**
+         * Returns the entry this post belongs to: an existing cluster when it duplicates an
+         * earlier post, otherwise a new cluster with the post as representative (isNew = true).
+         */
+        public Match assign(Fingerprint fp) {
+            if (!enabled) return new Match(new Entry(), true);
+
+            Entry existing = byExact.get(fp.exact());
+            if (existing == null && fp.nearEligible()) existing = nearMatch(fp);
+
+            if (existing != null) {
+                existing.members++;
+                duplicates++;
+                return new Match(existing, false);
+            }
+
+            Entry entry = new Entry();
+            byExact.put(fp.exact(), entry);
+            if (fp.nearEligible()) {
+                for (int b = 0; b < BANDS; b++) {
+                    bands.get(b).computeIfAbsent(band(fp.simhash(), b), k -> new ArrayList<>(1))
+                            .add(new Banded(fp.simhash(), fp.negations(), entry));
+                }
+            }
+            return new Match(entry, true);
+        }
+
+        /** Records the representative's scores (and vector, until releaseVectors) for its duplicates. */
+        public void resolve(Entry entry, RedditPost scored, float[] vector) {
+            entry.postId = scored.getRedditPostId();
+            entry.tokens = scored.getTokens();
+            entry.scoringPath = scored.getScoringPath();
+            entry.vector = vector;
+            if (vector != null && enabled) holdingVectors.add(entry);
+        }
+
+        /** Drops the vectors resolved so far; call once their page is persisted. */
+        public void releaseVectors() {
+            for (Entry e : holdingVectors) e.vector = null;
+            holdingVectors.clear();
+        }
+
+        public int duplicates() {
+            return duplicates;
+        }
+
+        private Entry nearMatch(Fingerprint fp) {
+            for (int b = 0; b < BANDS; b++) {
+                List<Banded> candidates = bands.get(b).get(band(fp.simhash(), b));
+                if (candidates == null) continue;
+                for (Banded c : candidates) {
+                    if (c.negations() == fp.negations() && Long.bitCount(c.simhash() ^ fp.simhash()) <= maxHamming) {
+                        return c.entry();
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    public record Match(Entry entry, boolean isNew) {}
+
+    private record Banded(long simhash, long negations, Entry entry) {}
+
+    // --- HASHING ---
+
+    private static long simhash(List<String> tokens) {
+        int[] weights = new int[64];
+        int shingles = Math.max(1, tokens.size() - SHINGLE + 1);
+
+        for (int i = 0; i < shingles; i++) {
+            long h = 0xcbf29ce484222325L;
+            for (int j = i; j < Math.min(tokens.size(), i + SHINGLE); j++) {
+                h = fnv1a(h, tokens.get(j));
+                h = fnv1a(h, " ");
+            }
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((h >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+
+        long out = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) out |= 1L << bit;
+        }
+        return out;
+    }
+
+    private static long fnv1a(long hash, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int band(long simhash, int b) {
+        return (int) ((simhash >>> (b * BAND_BITS)) & ((1L << BAND_BITS) - 1));
+    }
+}
@@ -0,0 +1,19 @@
+package com.ttu_elite.seraph.Services;
+
+import java.util.Map;
+
+/**
+ * Where raw user listings come from. Responses use Reddit's listing JSON shape
+ * ({"data": {"children": [{"data": {...}}], "after": "..."}}) whatever the backing source.
+ *
+ * Selected with seraph.source: "reddit" (default, live API) or "replay" (offline, for load tests).
+ * The pipeline never calls this directly: RedditFetcher adapts it to the PlatformFetcher SPI.
+ */
+public interface PostSource {
+
+    String getAppToken();
+
+    Map<String, Object> fetchUserSubmitted(String token, String username, String after);
+
+    Map<String, Object> fetchUserComments(String token, String username, String after);
+}
@@ -0,0 +1,154 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.PostContent;
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.Repositories.PostContentRepository;
+import com.ttu_elite.seraph.Repositories.RedditPostRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes snapshot posts in their normalized form: post text goes to PostContent
+ * (one row per redditPostId), each snapshot only adds small score rows to RedditPost.
+ * Callers keep working with fully populated RedditPost objects.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostStore {
+
+    private final RedditPostRepository postRepo;
+    private final PostContentRepository contentRepo;
+
+    /**
+     * Upserts the content of every post, then saves the score rows. Call inside a transaction
+     * so content and scores land together.
+     */
+    public void saveAll(List<RedditPost> posts) {
+        if (posts.isEmpty()) return;
+
+        Set<String> ids = new HashSet<>();
+        for (RedditPost p : posts) {
+            if (p.getRedditPostId() != null) ids.add(p.getRedditPostId());
+        }
+
+        Map<String, PostContent> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (PostContent c : contentRepo.lockAllByRedditPostIdIn(ids)) existing.put(c.getRedditPostId(), c);
+        }
+
+        List<PostContent> toSave = new ArrayList<>();
+        Instant now = Instant.now();
+        for (RedditPost p : posts) {
+            if (p.getSnapshotAt() == null) p.setSnapshotAt(now);
+            if (p.getRedditPostId() == null) continue;
+
+            PostContent c = existing.get(p.getRedditPostId());
+            if (c == null) {
+                c = PostContent.builder()
+                        .redditPostId(p.getRedditPostId())
+                        .username(p.getUsername())
+                        .createdUtc(p.getCreatedUtc())
+                        .build();
+                existing.put(p.getRedditPostId(), c);
+            } else if (!changed(c, p)) {
+                continue;
+            }
+            // New post, or edited on Reddit since we last stored it: keep the latest text
+            c.setPermalink(p.getPermalink());
+            c.setTitle(p.getTitle());
+            c.setContent(p.getContent());
+            c.setKind(p.getKind());
+            toSave.add(c);
+        }
+
+        if (!toSave.isEmpty()) contentRepo.saveAll(toSave);
+        postRepo.saveAll(posts);
+    }
+
+    /** Saves score rows only (e.g. after a rescore); content is left as is. */
+    public void saveScores(List<RedditPost> posts) {
+        postRepo.saveAll(posts);
+    }
+
+    /** The first limit posts of a snapshot, in the order they were written. */
+    public List<RedditPost> findFirstByAnalysisId(Long analysisId, int limit) {
+        return hydrate(new ArrayList<>(postRepo.findByAnalysisIdOrderByIdAsc(analysisId, PageRequest.of(0, limit)).getContent()));
+    }
+
+    /**
+     * Walks a snapshot pageSize posts at a time, so only one page is ever in memory. The callback
+     * may modify and save the page; ordering is by id, so saving does not shift later pages.
+     */
+    public void forEachPage(Long analysisId, int pageSize, Consumer<List<RedditPost>> pageConsumer) {
+        Pageable page = PageRequest.of(0, pageSize);
+        while (true) {
+            Slice<RedditPost> slice = postRepo.findByAnalysisIdOrderByIdAsc(analysisId, page);
+            if (slice.hasContent()) pageConsumer.accept(hydrate(new ArrayList<>(slice.getContent())));
+            if (!slice.hasNext()) return;
+            page = slice.nextPageable();
+        }
+    }
+
+    /** The post ids of a snapshot, without scores or text. */
+    public Set<String> findPostIds(Long analysisId) {
+        return new HashSet<>(postRepo.findRedditPostIdsByAnalysisId(analysisId));
+    }
+
+    public RedditPostRepository.Span span(Long analysisId) {
+        return postRepo.spanByAnalysisId(analysisId);
+    }
+
+    public Optional<PostContent> findContent(String redditPostId) {
+        return contentRepo.findByRedditPostId(redditPostId);
+    }
+
+    /**
+     * Drops one snapshot's score rows; the text in PostContent may be shared and stays (the
+     * compactor removes it once no snapshot points at it).
+     */
+    public void deleteSnapshot(Long analysisId) {
+        postRepo.deleteAllByAnalysisId(analysisId);
+    }
+
+    /** Force re-analysis: drops every snapshot row and stored text for the user. */
+    public void deleteAllByUsername(String username) {
+        postRepo.deleteAllByUsername(username);
+        contentRepo.deleteAllByUsername(username);
+    }
+
+    // Fills the @Transient text fields from PostContent (one IN query per call)
+    private List<RedditPost> hydrate(List<RedditPost> posts) {
+        Set<String> ids = new HashSet<>();
+        for (RedditPost p : posts) {
+            if (p.getRedditPostId() != null) ids.add(p.getRedditPostId());
+        }
+        if (ids.isEmpty()) return posts;
+
+        Map<String, PostContent> byId = new HashMap<>();
+        for (PostContent c : contentRepo.findAllByRedditPostIdIn(ids)) byId.put(c.getRedditPostId(), c);
+
+        for (RedditPost p : posts) {
+            PostContent c = byId.get(p.getRedditPostId());
+            if (c == null) continue;
+            p.setPermalink(c.getPermalink());
+            p.setTitle(c.getTitle());
+            p.setContent(c.getContent());
+            p.setKind(c.getKind());
+        }
+        return posts;
+    }
+
+    private static boolean changed(PostContent c, RedditPost p) {
+        return !Objects.equals(c.getTitle(), p.getTitle())
+                || !Objects.equals(c.getContent(), p.getContent())
+                || !Objects.equals(c.getPermalink(), p.getPermalink())
+                || !Objects.equals(c.getKind(), p.getKind());
+    }
+}
@@ -0,0 +1,232 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.PostEmbedding;
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.Repositories.PostEmbeddingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every post embedding EmbeddingRanker produces so posts can be searched later
+ * without re-running the model.
+ *
+ * The durable copy is the PostEmbedding table (int8 codes, one row per redditPostId).
+ * Queries never touch the DB: they run against an in-memory IVF index rebuilt from that
+ * table at startup. A vector only enters the index once its row is committed, so the index
+ * never holds anything a restart would lose. With seraph.cluster.enabled, every refresh-ms the
+ * index also picks up rows other nodes inserted since, so all nodes answer the same query alike.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostVectorStore {
+
+    private final PostEmbeddingRepository embeddingRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    // Another snapshot or node may store the same post first; its row wins
+    private static final String INSERT = "INSERT INTO post_embedding (reddit_post_id, username, created_utc, dim, vector) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (reddit_post_id) DO NOTHING";
+
+    @Value("${seraph.vectors.nprobe:8}")
+    private int nprobe;
+
+    @Value("${seraph.vectors.load-page-size:10000}")
+    private int loadPageSize;
+
+    @Value("${seraph.cluster.enabled:false}")
+    private boolean clustered;
+
+    // Ids are handed out at insert but rows become visible at commit, so a row can show up
+    // below the newest id already loaded. Each refresh re-reads this many ids back; rows
+    // already indexed are skipped.
+    @Value("${seraph.vectors.refresh-overlap-ids:1000}")
+    private long refreshOverlapIds;
+
+    // Highest post_embedding id loaded from the table so far
+    private volatile long loadedUpTo = 0;
+
+    public record Neighbor(String redditPostId, String username, double similarity) {}
+
+    private volatile VectorIndex index;
+    private final Map<String, Integer> ordinalByPostId = new ConcurrentHashMap<>();
+    private final List<String> postIdByOrdinal = new ArrayList<>();
+    private final List<String> usernameByOrdinal = new ArrayList<>();
+
+    @PostConstruct
+    public void load() {
+        log.info("Vector store loaded {} post embeddings", loadAfter(0));
+    }
+
+    // Catch-up with embeddings other nodes stored since the last load
+    @Scheduled(fixedDelayString = "${seraph.vectors.refresh-ms:30000}", initialDelayString = "${seraph.vectors.refresh-ms:30000}")
+    public void refresh() {
+        if (!clustered) return;
+        try {
+            int added = loadAfter(Math.max(0, loadedUpTo - refreshOverlapIds));
+            if (added > 0) log.info("Vector store picked up {} embeddings from other nodes", added);
+        } catch (Exception e) {
+            log.warn("Vector store refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Indexes every row with an id above afterId, a page at a time; returns how many were new here
+    private int loadAfter(long afterId) {
+        Slice<PostEmbedding> page = embeddingRepo.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, loadPageSize));
+        int added = 0;
+        while (true) {
+            for (PostEmbedding e : page.getContent()) {
+                if (indexQuantized(e.getRedditPostId(), e.getUsername(), e.getVector())) added++;
+                loadedUpTo = Math.max(loadedUpTo, e.getId());
+            }
+            if (!page.hasNext()) return added;
+            page = embeddingRepo.findByIdGreaterThanOrderByIdAsc(afterId, page.nextPageable());
+        }
+    }
+
+    /**
+     * Stores the vectors of freshly scored posts. Posts already in the store (same
+     * redditPostId from an earlier snapshot) are skipped, as are null vectors.
+     *
+     * Rows are inserted first (ON CONFLICT DO NOTHING) and indexed after the commit. A failed
+     * write is logged and dropped: search loses those posts, scoring carries on.
+     */
+    public void addAll(List<RedditPost> posts, List<float[]> vectors) {
+        Map<String, PostEmbedding> toSave = new LinkedHashMap<>();
+
+        for (int i = 0; i < posts.size(); i++) {
+            RedditPost post = posts.get(i);
+            float[] vector = vectors.get(i);
+            if (vector == null || post.getRedditPostId() == null) continue;
+            if (ordinalByPostId.containsKey(post.getRedditPostId())) continue;
+
+            byte[] code = VectorIndex.quantize(vector);
+            // Duplicates within one call share a redditPostId; the first one is kept
+            toSave.putIfAbsent(post.getRedditPostId(), PostEmbedding.builder()
+                    .redditPostId(post.getRedditPostId())
+                    .username(post.getUsername())
+                    .createdUtc(post.getCreatedUtc())
+                    .dim(code.length)
+                    .vector(code)
+                    .build());
+        }
+        if (toSave.isEmpty()) return;
+
+        List<PostEmbedding> rows = new ArrayList<>(toSave.values());
+        try {
+            tx.executeWithoutResult(status -> jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, e) -> {
+                ps.setString(1, e.getRedditPostId());
+                ps.setString(2, e.getUsername());
+                ps.setObject(3, e.getCreatedUtc());
+                ps.setInt(4, e.getDim());
+                ps.setBytes(5, e.getVector());
+            }));
+        } catch (Exception e) {
+            log.warn("Vector store write failed, {} embeddings not stored: {}", rows.size(), e.getMessage());
+            return;
+        }
+
+        // Every post is in the table now, inserted here or (on conflict) by another node, so
+        // the index stays a subset of what a restart would load
+        for (PostEmbedding e : rows) indexQuantized(e.getRedditPostId(), e.getUsername(), e.getVector());
+    }
+
+    public List<Neighbor> nearest(float[] queryVector, int k) {
+        return nearest(queryVector, k, null);
+    }
+
+    /** Nearest stored posts to an existing post, excluding the post itself. */
+    public List<Neighbor> nearestToPost(String redditPostId, int k) {
+        Integer ordinal = ordinalByPostId.get(redditPostId);
+        if (ordinal == null) return List.of();
+
+        return nearest(dequantize(index.get(ordinal)), k, redditPostId);
+    }
+
+    /**
+     * Stored vectors (dequantized, unit length) for the given posts, for rescoring without the
+     * model. Posts this node has not indexed (embedded by another node, or since its startup)
+     * are read from the table and indexed on the way. Posts that were never embedded are
+     * missing from the result.
+     */
+    public Map<String, float[]> storedVectors(Collection<String> redditPostIds) {
+        Map<String, float[]> out = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        VectorIndex idx = index;
+        for (String id : redditPostIds) {
+            Integer ordinal = idx == null ? null : ordinalByPostId.get(id);
+            if (ordinal == null) {
+                missing.add(id);
+                continue;
+            }
+            out.put(id, dequantize(idx.get(ordinal)));
+        }
+        if (missing.isEmpty()) return out;
+
+        for (PostEmbedding e : embeddingRepo.findAllByRedditPostIdIn(missing)) {
+            out.put(e.getRedditPostId(), dequantize(e.getVector()));
+            indexQuantized(e.getRedditPostId(), e.getUsername(), e.getVector());
+        }
+        return out;
+    }
+
+    public boolean contains(String redditPostId) {
+        return ordinalByPostId.containsKey(redditPostId);
+    }
+
+    public int size() {
+        VectorIndex idx = index;
+        return idx == null ? 0 : idx.size();
+    }
+
+    private List<Neighbor> nearest(float[] queryVector, int k, String excludePostId) {
+        VectorIndex idx = index;
+        if (idx == null || k <= 0) return List.of();
+
+        int want = excludePostId == null ? k : k + 1;
+        List<Neighbor> out = new ArrayList<>(k);
+        for (VectorIndex.Hit hit : idx.search(VectorIndex.normalize(queryVector), want, nprobe)) {
+            String postId;
+            String username;
+            synchronized (postIdByOrdinal) {
+                postId = postIdByOrdinal.get(hit.ordinal());
+                username = usernameByOrdinal.get(hit.ordinal());
+            }
+            if (postId.equals(excludePostId)) continue;
+            out.add(new Neighbor(postId, username, Math.round(hit.similarity() * 1000.0) / 1000.0));
+            if (out.size() == k) break;
+        }
+        return out;
+    }
+
+    private static float[] dequantize(byte[] code) {
+        float[] vector = new float[code.length];
+        for (int i = 0; i < code.length; i++) vector[i] = code[i] / (float) VectorIndex.QUANT_SCALE;
+        return vector;
+    }
+
+    private boolean indexQuantized(String redditPostId, String username, byte[] code) {
+        synchronized (postIdByOrdinal) {
+            if (ordinalByPostId.containsKey(redditPostId)) return false;
+            if (index == null) index = new VectorIndex(code.length);
+
+            int ordinal = index.add(code);
+            postIdByOrdinal.add(redditPostId);
+            usernameByOrdinal.add(username);
+            ordinalByPostId.put(redditPostId, ordinal);
+            return true;
+        }
+    }
+}
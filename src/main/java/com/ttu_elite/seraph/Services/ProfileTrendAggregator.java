@@ -0,0 +1,335 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.Entities.TrendBucket;
+import com.ttu_elite.seraph.Repositories.TrendBucketRepository;
+import com.ttu_elite.seraph.dto.TrendReport;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Streaming per-user aggregation of post scores.
+ *
+ * Every scored post updates, per category: its DAY bucket, its WEEK bucket and the user's
+ * TOTAL row (running sum, count and an exponentially decayed score). Each update is O(1);
+ * trend queries read the buckets instead of rescanning RedditPost.
+ *
+ * The TOTAL row's bucketStart is the newest createdUtc ingested so far (the watermark). Posts
+ * at or before it are skipped, so re-analyzing a profile (new snapshot, force refresh) never
+ * double counts. A streamed analysis delivers pages newest-first, so it captures the watermark
+ * once up front and passes it with every page; otherwise the first page would hide the rest.
+ *
+ * Per-user state is a cache of the trend_bucket rows, bounded by users and estimated bytes
+ * (seraph.trends.cache.*); an evicted user is reloaded on next use. Whoever holds the user's
+ * analysis claim calls invalidate() first, so it never builds on what another node wrote
+ * since. Touched rows are written back as upserts on the bucket key, never as plain inserts.
+ */
+@Slf4j
+@Service
+public class ProfileTrendAggregator {
+
+    public static final String DAY = "DAY";
+    public static final String WEEK = "WEEK";
+    public static final String TOTAL = "TOTAL";
+
+    // Absolute values: the in-memory row is the truth while the claim is held
+    private static final String UPSERT = "INSERT INTO trend_bucket " +
+            "(username, period, bucket_start, category, score_sum, post_count, max_score, decayed_score) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (username, period, bucket_start, category) DO UPDATE SET " +
+            "score_sum = EXCLUDED.score_sum, post_count = EXCLUDED.post_count, " +
+            "max_score = EXCLUDED.max_score, decayed_score = EXCLUDED.decayed_score";
+
+    // A TOTAL row's bucketStart moves with the watermark, so its old key has to go
+    private static final String DELETE_OLD_TOTAL =
+            "DELETE FROM trend_bucket WHERE username = ? AND period = 'TOTAL' AND category = ? AND bucket_start <> ?";
+
+    private final TrendBucketRepository bucketRepo;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${seraph.trends.half-life-days:7}")
+    private double halfLifeDays;
+
+    private final ByteBoundedLru<String, UserTrend> users;
+
+    public ProfileTrendAggregator(
+            TrendBucketRepository bucketRepo,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${seraph.trends.cache.max-users:10000}") int maxUsers,
+            @Value("${seraph.trends.cache.max-bytes:67108864}") long maxBytes,
+            PipelineMetrics metrics
+    ) {
+        this.bucketRepo = bucketRepo;
+        this.objectMapper = objectMapper;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.users = new ByteBoundedLru<>(maxUsers, maxBytes, UserTrend::weight);
+        Gauge.builder("seraph.cache.bytes", users, ByteBoundedLru::bytes)
+                .description("Estimated heap held by an in-memory cache")
+                .tag("cache", "trends")
+                .baseUnit("bytes")
+                .register(metrics.registry());
+    }
+
+    private static final class UserTrend {
+        final Map<String, TrendBucket> buckets = new HashMap<>();  // "PERIOD|start|category"
+        final Map<String, TrendBucket> totals = new HashMap<>();   // category -> TOTAL row
+        long watermark = Long.MIN_VALUE;
+
+        // Bucket object, its map entry and key string; username and category strings are shared
+        synchronized long weight() {
+            return 128 + 256L * (buckets.size() + totals.size());
+        }
+    }
+
+    /** Drops the cached state of a user; the next call reloads it from trend_bucket. */
+    public void invalidate(String username) {
+        users.remove(username);
+    }
+
+    /** Drops every cached user (e.g. after missed cross-node notifications). */
+    public void clear() {
+        users.clear();
+    }
+
+    /** Folds newly scored posts into the user's running aggregates and persists the touched rows. */
+    public void ingest(String username, List<RedditPost> posts) {
+        ingest(username, posts, null);
+    }
+
+    /**
+     * Same, but only posts newer than after count as new, whatever this or an earlier page of
+     * the same analysis moved the watermark to.
+     *
+     * @param after the watermark captured before the analysis started (see watermark())
+     */
+    public void ingest(String username, List<RedditPost> posts, long after) {
+        ingest(username, posts, Long.valueOf(after));
+    }
+
+    private void ingest(String username, List<RedditPost> posts, Long after) {
+        UserTrend trend = user(username);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> totals = new ArrayList<>();
+
+        synchronized (trend) {
+            long since = after != null ? after : trend.watermark;
+            // Oldest first so the decayed score only ever moves forward in time
+            List<RedditPost> ordered = new ArrayList<>(posts);
+            ordered.sort(Comparator.comparing(p -> p.getCreatedUtc() == null ? 0L : p.getCreatedUtc()));
+
+            Set<TrendBucket> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (RedditPost post : ordered) {
+                long ts = post.getCreatedUtc() == null ? 0L : post.getCreatedUtc();
+                if (ts <= since) continue;
+
+                Map<String, Double> scores = parseScores(post.getTokens());
+                long day = dayStart(ts);
+                long week = weekStart(ts);
+
+                for (var e : scores.entrySet()) {
+                    String cat = e.getKey();
+                    double score = e.getValue();
+
+                    touched.add(addToBucket(trend, username, DAY, day, cat, score));
+                    touched.add(addToBucket(trend, username, WEEK, week, cat, score));
+                    touched.add(addToTotal(trend, username, cat, score, ts));
+                }
+                trend.watermark = Math.max(trend.watermark, ts);
+            }
+            // Copied under the lock: the rows are written after it is released
+            for (TrendBucket b : touched) {
+                rows.add(new Object[]{b.getUsername(), b.getPeriod(), b.getBucketStart(), b.getCategory(),
+                        b.getScoreSum(), b.getPostCount(), b.getMaxScore(), b.getDecayedScore()});
+                if (TOTAL.equals(b.getPeriod())) totals.add(new Object[]{b.getUsername(), b.getCategory(), b.getBucketStart()});
+            }
+        }
+        if (rows.isEmpty()) return;
+
+        // Grown by the new buckets; re-weighed so the byte cap stays honest
+        users.reweigh(username, trend);
+        tx.executeWithoutResult(status -> {
+            if (!totals.isEmpty()) jdbc.batchUpdate(DELETE_OLD_TOTAL, totals);
+            jdbc.batchUpdate(UPSERT, rows);
+        });
+    }
+
+    /**
+     * Trend for one category (UI name, e.g. "Self-Harm") at day or week granularity.
+     * Returns null if nothing has been ingested for this user/category yet.
+     */
+    public TrendReport trend(String username, String category, String window) {
+        String period = "week".equalsIgnoreCase(window) ? WEEK : DAY;
+        UserTrend trend = user(username);
+
+        synchronized (trend) {
+            TrendBucket total = trend.totals.get(category);
+            if (total == null) return null;
+
+            List<TrendReport.TrendPoint> points = new ArrayList<>();
+            for (TrendBucket b : trend.buckets.values()) {
+                if (!b.getPeriod().equals(period) || !b.getCategory().equals(category)) continue;
+                points.add(new TrendReport.TrendPoint(
+                        b.getBucketStart(),
+                        b.getPostCount(),
+                        round(b.getScoreSum() / Math.max(1, b.getPostCount())),
+                        round(b.getMaxScore())
+                ));
+            }
+            points.sort(Comparator.comparing(TrendReport.TrendPoint::getBucketStart));
+
+            double decayedNow = total.getDecayedScore()
+                    * Math.exp(-lambda() * Math.max(0, Instant.now().getEpochSecond() - total.getBucketStart()));
+
+            return new TrendReport(
+                    username,
+                    category,
+                    period.toLowerCase(),
+                    total.getPostCount(),
+                    round(total.getScoreSum()),
+                    round(decayedNow),
+                    points
+            );
+        }
+    }
+
+    public Set<String> categories(String username) {
+        UserTrend trend = user(username);
+        synchronized (trend) {
+            return new TreeSet<>(trend.totals.keySet());
+        }
+    }
+
+    /** Newest createdUtc already folded in for this user; posts at or before it are not new. */
+    public long watermark(String username) {
+        UserTrend trend = user(username);
+        synchronized (trend) {
+            return trend.watermark;
+        }
+    }
+
+    /** Running average score for one category, or null before the first post. */
+    public Double average(String username, String category) {
+        UserTrend trend = user(username);
+        synchronized (trend) {
+            TrendBucket total = trend.totals.get(category);
+            if (total == null || total.getPostCount() == 0) return null;
+            return total.getScoreSum() / total.getPostCount();
+        }
+    }
+
+    // --- O(1) UPDATES ---
+
+    private TrendBucket addToBucket(UserTrend trend, String username, String period, long start, String cat, double score) {
+        TrendBucket b = trend.buckets.computeIfAbsent(period + "|" + start + "|" + cat, k -> TrendBucket.builder()
+                .username(username)
+                .period(period)
+                .bucketStart(start)
+                .category(cat)
+                .scoreSum(0.0)
+                .postCount(0)
+                .maxScore(0.0)
+                .build());
+        b.setScoreSum(b.getScoreSum() + score);
+        b.setPostCount(b.getPostCount() + 1);
+        b.setMaxScore(Math.max(b.getMaxScore(), score));
+        return b;
+    }
+
+    private TrendBucket addToTotal(UserTrend trend, String username, String cat, double score, long ts) {
+        TrendBucket t = trend.totals.computeIfAbsent(cat, k -> TrendBucket.builder()
+                .username(username)
+                .period(TOTAL)
+                .bucketStart(ts)
+                .category(cat)
+                .scoreSum(0.0)
+                .postCount(0)
+                .maxScore(0.0)
+                .decayedScore(0.0)
+                .build());
+
+        if (ts >= t.getBucketStart()) {
+            // Decay the previous value up to this post, then add the new score
+            double elapsed = ts - t.getBucketStart();
+            t.setDecayedScore(t.getDecayedScore() * Math.exp(-lambda() * elapsed) + score);
+            t.setBucketStart(ts);
+        } else {
+            // Older than what is already in (a later page of a newest-first stream): decay it
+            // forward to the reference time instead of moving the reference back
+            t.setDecayedScore(t.getDecayedScore() + score * Math.exp(-lambda() * (t.getBucketStart() - ts)));
+        }
+        t.setScoreSum(t.getScoreSum() + score);
+        t.setPostCount(t.getPostCount() + 1);
+        t.setMaxScore(Math.max(t.getMaxScore(), score));
+        return t;
+    }
+
+    // --- HELPERS ---
+
+    // Loaded outside any lock; when two callers race, the first one cached wins
+    private UserTrend user(String username) {
+        UserTrend trend = users.get(username);
+        if (trend != null) return trend;
+        return users.putIfAbsent(username, loadUser(username));
+    }
+
+    private UserTrend loadUser(String username) {
+        UserTrend trend = new UserTrend();
+        for (TrendBucket b : bucketRepo.findAllByUsername(username)) {
+            if (TOTAL.equals(b.getPeriod())) {
+                trend.totals.put(b.getCategory(), b);
+                trend.watermark = Math.max(trend.watermark, b.getBucketStart());
+            } else {
+                trend.buckets.put(b.getPeriod() + "|" + b.getBucketStart() + "|" + b.getCategory(), b);
+            }
+        }
+        return trend;
+    }
+
+    private Map<String, Double> parseScores(String tokens) {
+        if (tokens == null) return Map.of();
+        try {
+            Map<String, Object> raw = objectMapper.readValue(tokens, Map.class);
+            Map<String, Double> scores = new HashMap<>();
+            raw.forEach((k, v) -> {
+                if (v instanceof Number n) scores.put(k, n.doubleValue());
+            });
+            return scores;
+        } catch (Exception e) {
+            log.warn("Skipping unparseable scores: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private double lambda() {
+        return Math.log(2) / (halfLifeDays * 86400.0);
+    }
+
+    private static long dayStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, 86400L) * 86400L;
+    }
+
+    private static long weekStart(long epochSecond) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86400L));
+        LocalDate monday = date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+        return monday.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ttu_elite.seraph.Services;
+
+/**
+ * Token bucket shared by everything that calls an external API on a schedule.
+ * Refills continuously at permitsPerMinute and never holds more than one minute of permits.
+ */
+public class RateBudget {
+
+    private final double permitsPerMinute;
+    private double available;
+    private long lastRefillNanos;
+
+    public RateBudget(double permitsPerMinute) {
+        this.permitsPerMinute = permitsPerMinute;
+        this.available = permitsPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (available < 1.0) return false;
+        available -= 1.0;
+        return true;
+    }
+
+    /**
+     * Waits for a permit, at most maxWaitMillis. Sleeps outside the lock, so other callers
+     * (and virtual threads) are not pinned while this one waits.
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitMillis * 1_000_000L;
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (available >= 1.0) {
+                    available -= 1.0;
+                    return true;
+                }
+                waitNanos = (long) ((1.0 - available) / permitsPerMinute * 60_000_000_000.0);
+            }
+            if (System.nanoTime() + waitNanos > deadline) return false;
+            Thread.sleep(Math.max(1, waitNanos / 1_000_000), (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    public synchronized int available() {
+        refill();
+        return (int) available;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double minutes = (now - lastRefillNanos) / 60_000_000_000.0;
+        available = Math.min(permitsPerMinute, available + minutes * permitsPerMinute);
+        lastRefillNanos = now;
+    }
+}
@@ -1,211 +1,563 @@
 package com.ttu_elite.seraph.Services;
 
+import com.ttu_elite.seraph.Entities.PostContent;
 import com.ttu_elite.seraph.Entities.ProfileAnalysis;
 import com.ttu_elite.seraph.Entities.RedditPost;
 import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
 import com.ttu_elite.seraph.Repositories.RedditPostRepository;
 import com.ttu_elite.seraph.dto.AnalysisResult;
+import com.ttu_elite.seraph.dto.Post;
+import com.ttu_elite.seraph.dto.SimilarPost;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tools.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class RedditAnalyzeService {
     private final Bm25Ranker bm25Ranker;
-    private final RedditClient redditClient;
-    private final RedditPostRepository postRepo;
+    private final PlatformRegistry platforms;
+    private final PostStore postStore;
     private final ProfileAnalysisRepository profileRepo;
     private final EmbeddingRanker embeddingRanker;
     private final ObjectMapper objectMapper;
-
-    // Tuning Weights (Must add up to 1.0)
-    private static final double WEIGHT_SEMANTIC = 0.7;
-    private static final double WEIGHT_KEYWORD = 0.3;
-    private static final double SEMANTIC_THRESHOLD = 0.15; // Minimum score to matter
+    private final PostVectorStore vectorStore;
+    private final ProfileTrendAggregator trendAggregator;
+    private final RiskAlertService alertService;
+    private final PipelineMetrics metrics;
+    private final CrossEncoderRanker crossEncoderRanker;
+    // Transactions wrap only the persistence steps; fetching and inference run without a connection
+    private final TransactionTemplate tx;
+    private final PostDeduplicator deduplicator;
+    private final AnalysisJobService jobs;
+    private final SnapshotCache snapshotCache;
+    private final TaxonomyService taxonomy;
+    private final LexicalCascade cascade;
+    private final TextNormalizer normalizer;
+    private final ScoreExplainer explainer;
+    private final CohortRollupService cohorts;
+
+    // Cascade: hybrid risk needed before a post is worth a cross-encoder pass, and the CE blend weight
+    @Value("${seraph.rerank.threshold:0.3}")
+    private double rerankThreshold;
+
+    @Value("${seraph.rerank.weight:0.5}")
+    private double rerankWeight;
+
+    // Another node's watchlist refresh within this window counts as ours (no duplicate refresh)
+    @Value("${seraph.watchlist.min-interval-minutes:15}")
+    private long refreshMinAgeMinutes;
+
+    @Value("${seraph.dedup.duplicate-weight:1.0}")
+    private double duplicateWeight;
+
+    // Ingestion caps and streaming pipeline depth
+    @Value("${seraph.ingest.max-posts:1000}")
+    private int maxPosts;
+
+    @Value("${seraph.ingest.max-comments:2000}")
+    private int maxComments;
+
+    @Value("${seraph.ingest.queue-pages:2}")
+    private int queuePages;
+
+    // Posts echoed back in the analyze response; everything is persisted regardless
+    @Value("${seraph.ingest.response-post-limit:500}")
+    private int responsePostLimit;
+
+    private static final List<Post> END_OF_STREAM = new ArrayList<>();
+    private static final int RESCORE_PAGE_SIZE = 500;
+
+    // Page producers spend nearly all their time waiting on the network
+    private final ExecutorService ingestExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("seraph-ingest-", 0).factory());
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdownNow();
+    }
 
     // CHANGE RETURN TYPE TO String
     public String analyzeProfile(String profileUrl) {
-        try {
-            String username = extractUsername(profileUrl);
-
-            // 1. CACHE HIT (Fetch the LATEST snapshot)
-            // We use the new query: findTop...OrderByCreatedAtDesc
-            Optional<ProfileAnalysis> latestProfile = profileRepo.findTopByUsernameOrderByCreatedAtDesc(username);
-
-            // Logic: If it exists and is recent (e.g., < 24 hours), return it.
-            // If you want "Force" logic, you can check a flag here.
-            if (latestProfile.isPresent()) {
-                ProfileAnalysis profile = latestProfile.get();
-                // Optional: Check if it's too old? if (profile.getCreatedAt()... > 7 days) { ... }
+        return analyzeProfile(profileUrl, false);
+    }
 
-                log.info("SNAPSHOT HIT: Returning latest analysis for {} from {}", username, profile.getCreatedAt());
+    /**
+     * @param debug when true, the response also carries "stageTimingsMs": how long each
+     *              pipeline stage took for this request
+     */
+    public String analyzeProfile(String profileUrl, boolean debug) {
+        return analyzeProfile(profileUrl, debug, false);
+    }
 
-                // FETCH POSTS BY SNAPSHOT ID (Not Username!)
-                List<RedditPost> posts = postRepo.findAllByAnalysisId(profile.getId());
+    /**
+     * @param explain when true, the response also carries "explanations": per returned post,
+     *                the terms and the anchor behind its scores (see ScoreExplainer)
+     */
+    public String analyzeProfile(String profileUrl, boolean debug, boolean explain) {
+        if (debug) metrics.beginTrace();
+        try {
+            // Reddit usernames stay bare, other platforms are keyed "{platform}:{handle}"
+            PlatformRegistry.Target target = platforms.resolve(profileUrl);
+            String username = target.profileKey();
 
-                return objectMapper.writeValueAsString(new AnalysisResult(profile, posts));
+            // 1. CACHE HIT (Fetch the LATEST snapshot)
+            AnalysisResult latest = latestSnapshot(username);
+            if (latest != null) return writeResult(latest, debug, explain);
+            metrics.snapshotMiss();
+            Instant missAt = Instant.now();
+
+            // 2. CLAIM THE USER: only one node (and one request) analyzes a user at a time.
+            // Everyone else waits for that snapshot instead of writing a duplicate.
+            if (!jobs.tryClaim(username, missAt)) {
+                log.info("IN FLIGHT: {} is being analyzed elsewhere, waiting for its snapshot", username);
+                long t = metrics.start();
+                boolean released = jobs.awaitRelease(username);
+                metrics.stop("claim.wait", t);
+
+                latest = released ? latestSnapshot(username) : null;
+                if (latest != null) return writeResult(latest, debug, explain);
+                metrics.endTrace();
+                return released
+                        ? "{\"error\": \"EMPTY_PROFILE: No posts found for user: " + username + "\"}"
+                        : "{\"error\": \"ANALYSIS_IN_PROGRESS: " + username + " is still being analyzed, try again shortly\"}";
             }
+            // Another node may have written this user's trend buckets since we cached them
+            trendAggregator.invalidate(username);
 
-            // 2. FETCH DATA (Same as before)
-            String token = redditClient.getAppToken();
-            List<Map<String, Object>> rawPosts = fetchAllPosts(username, token);
+            AnalysisResult result;
+            try {
+                // 3. STREAM: fetch pages -> score -> persist, overlapped and bounded
+                long fetchStartedAt = System.currentTimeMillis();
+                result = streamAnalysis(username, target, fetchStartedAt);
+            } catch (Exception e) {
+                jobs.fail(username, e);
+                throw e;
+            }
+            jobs.complete(username);
 
-            if (rawPosts.isEmpty()) {
+            if (result == null) {
+                metrics.endTrace();
                 return "{\"error\": \"EMPTY_PROFILE: No posts found for user: " + username + "\"}";
             }
 
-            // 3. ANALYZE (Hybrid)
-            List<RedditPost> analyzedPosts = runHybridAnalysis(username, rawPosts);
+            return writeResult(result, debug, explain);
 
-            // 4. SAVE SNAPSHOT (The New Order of Operations)
+        } catch (Exception e) {
+            log.error("Analysis Failed", e);
+            metrics.error("analyze");
+            metrics.endTrace();
+            return "{\"error\": \"Analysis Failed: " + e.getMessage() + "\"}";
+        }
+    }
+
+    /** Latest snapshot from the local cache, else the database (then cached); null if none exists. */
+    private AnalysisResult latestSnapshot(String username) {
+        AnalysisResult cached = snapshotCache.get(username);
+        if (cached != null) {
+            metrics.snapshotHit();
+            return cached;
+        }
 
-            // A. Create & Save the Profile Summary FIRST
-            ProfileAnalysis summary = saveProfileSummary(username, analyzedPosts); // (Helper method that builds the object)
-            summary = profileRepo.save(summary); // Save to generate the ID
-            Long newAnalysisId = summary.getId(); // <--- GRAB THE ID
+        // We use the new query: findTop...OrderByCreatedAtDesc
+        long t = metrics.start();
+        Optional<ProfileAnalysis> latestProfile = profileRepo.findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username);
+        metrics.stop("db.read", t);
+        if (latestProfile.isEmpty()) return null;
+
+        ProfileAnalysis profile = latestProfile.get();
+        log.info("SNAPSHOT HIT: Returning latest analysis for {} from {}", username, profile.getCreatedAt());
+        metrics.snapshotHit();
+
+        // FETCH POSTS BY SNAPSHOT ID (Not Username!), only as many as a fresh analysis returns:
+        // the summary already covers every post, and the cached result stays small
+        t = metrics.start();
+        List<RedditPost> posts = postStore.findFirstByAnalysisId(profile.getId(), responsePostLimit);
+        metrics.stop("db.read", t);
+
+        AnalysisResult result = new AnalysisResult(profile, posts);
+        snapshotCache.put(username, result);
+        return result;
+    }
 
-            // B. Link Posts to this specific Snapshot ID
-            for (RedditPost post : analyzedPosts) {
-                post.setAnalysisId(newAnalysisId); // <--- STAMP THE ID
-            }
+    private String writeResult(AnalysisResult result, boolean debug, boolean explain) throws Exception {
+        if (explain) {
+            // Copy first: the result may be the shared cached snapshot
+            AnalysisResult explained = new AnalysisResult(result.getSummary(), result.getPosts());
+            explained.setExplanations(explainer.explain(result.getPosts()));
+            result = explained;
+        }
 
-            // C. Save Posts
-            postRepo.saveAll(analyzedPosts);
+        long t = metrics.start();
+        String json = objectMapper.writeValueAsString(result);
+        metrics.stop("json", t);
 
-            return objectMapper.writeValueAsString(new AnalysisResult(summary, analyzedPosts));
+        if (!debug) return json;
 
+        // Re-serialize once more with the finished trace attached (debug only).
+        // Copy first: the result may be the shared cached snapshot.
+        AnalysisResult traced = new AnalysisResult(result.getSummary(), result.getPosts());
+        traced.setExplanations(result.getExplanations());
+        traced.setStageTimingsMs(metrics.endTrace());
+        return objectMapper.writeValueAsString(traced);
+    }
+
+    /** What a background refresh found; the watchlist uses it to pick the next poll interval. */
+    public record RefreshOutcome(int newPosts, double postsPerDay, double riskShare) {
+        // Another node owns (or just refreshed) the user; nothing was fetched here
+        public static final RefreshOutcome SKIPPED = new RefreshOutcome(0, 0.0, 0.0);
+    }
+
+    /**
+     * Incremental refresh for the watchlist: fetches only posts newer than the latest snapshot,
+     * scores them, and streams a new snapshot holding the new posts plus as many previous ones
+     * as the per-feed caps (seraph.ingest.max-posts / max-comments) leave room for.
+     *
+     * Users without any snapshot take the same path with nothing known yet, so their first
+     * analysis also pays one budget permit per page. If the budget runs dry part way, the
+     * snapshot holds the newest pages fetched so far; later refreshes add newer posts on top.
+     */
+    public RefreshOutcome refreshProfile(String username, RateBudget budget) {
+        Optional<ProfileAnalysis> latestProfile = profileRepo.findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username);
+
+        Instant claimIfIdleSince = latestProfile.isEmpty() ? Instant.now() : Instant.now().minusSeconds(refreshMinAgeMinutes * 60);
+        if (!jobs.tryClaim(username, claimIfIdleSince)) {
+            return RefreshOutcome.SKIPPED;
+        }
+        trendAggregator.invalidate(username);
+        try {
+            RefreshOutcome outcome = refreshClaimed(username, latestProfile.orElse(null), budget);
+            jobs.complete(username);
+            return outcome;
         } catch (Exception e) {
-            log.error("Analysis Failed", e);
-            return "{\"error\": \"Analysis Failed: " + e.getMessage() + "\"}";
+            jobs.fail(username, e);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            throw e instanceof RuntimeException re ? re : new IllegalStateException(e.getMessage(), e);
         }
     }
 
-    private List<RedditPost> runHybridAnalysis(String username, List<Map<String, Object>> rawPosts) {
-        List<RedditPost> results = new ArrayList<>();
+    // previous is null for a user analyzed for the first time
+    private RefreshOutcome refreshClaimed(String username, ProfileAnalysis previous, RateBudget budget) throws Exception {
+        // Only the ids are needed to know where to stop; the old posts are carried over page by page
+        Set<String> knownIds = previous == null ? Set.of() : postStore.findPostIds(previous.getId());
+
+        long fetchStartedAt = System.currentTimeMillis();
+        PlatformRegistry.Target target = platforms.resolve(username);
+        SnapshotStream stream = streamSnapshot(username, pages -> producePages(target, knownIds, budget, pages),
+                fetchStartedAt, previous);
+        if (stream == null) {
+            if (previous == null) return new RefreshOutcome(0, 0.0, 0.0);
+            RedditPostRepository.Span span = postStore.span(previous.getId());
+            return new RefreshOutcome(0, postsPerDay(span.getCount(), span.getOldest(), span.getNewest()), riskShare(previous));
+        }
 
-        // Extract just the text for batch processing
-        List<String> texts = rawPosts.stream().map(p -> (String) p.get("fullText")).toList();
+        ProfileAnalysis summary = stream.result.getSummary();
+        log.info("WATCHLIST: {} new posts for {} -> snapshot {}", stream.newPosts, username, summary.getId());
+        return new RefreshOutcome(stream.newPosts, postsPerDay(stream.postCount, stream.oldest, stream.newest), riskShare(summary));
+    }
 
-        // --- STEP A: RUN BOTH MODELS ---
-        // 1. Neural Model (Context/Vibe)
-        Map<String, List<Double>> semanticScores = embeddingRanker.scorePosts(texts);
+    private static double postsPerDay(long count, Long oldest, Long newest) {
+        if (count < 2 || oldest == null || newest == null) return 0.0;
+        double days = Math.max(1.0, (newest - oldest) / 86400.0);
+        return count / days;
+    }
 
-        // 2. Lexical Model (Keywords)
-        Map<String, List<Double>> keywordScores = bm25Ranker.scorePosts(texts);
+    // Share of the profile's score mass that sits in risk categories (everything but the baseline)
+    private double riskShare(ProfileAnalysis profile) {
+        try {
+            Map<String, Object> pct = objectMapper.readValue(profile.getProfilePercentagesJson(), Map.class);
+            String baseline = taxonomy.current().baselineDisplayName();
+            double risk = 0.0;
+            for (var e : pct.entrySet()) {
+                if (!baseline.equals(e.getKey()) && e.getValue() instanceof Number n) risk += n.doubleValue();
+            }
+            return Math.min(1.0, risk);
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
 
-        Set<String> categories = semanticScores.keySet();
+    private List<RedditPost> runHybridAnalysis(String username, List<Post> rawPosts) {
+        return runHybridAnalysis(username, rawPosts, deduplicator.newSession());
+    }
 
-        // --- STEP B: MERGE SCORES ---
+    /**
+     * Dedup, then score. Only the first post of each exact/near-duplicate cluster goes through
+     * the models; later members copy its scores (and vector) and point at it via duplicateOf.
+     */
+    private List<RedditPost> runHybridAnalysis(String username, List<Post> rawPosts, PostDeduplicator.Session dedup) {
+        // --- STEP 0: DEDUP ---
+        long t = metrics.start();
+        List<PostDeduplicator.Match> matches = new ArrayList<>(rawPosts.size());
+        List<Post> uniquePosts = new ArrayList<>();
+        for (Post raw : rawPosts) {
+            PostDeduplicator.Match match = deduplicator.isEnabled()
+                    ? dedup.assign(deduplicator.fingerprint(raw.fullText()))
+                    : new PostDeduplicator.Match(null, true);
+            matches.add(match);
+            if (match.isNew()) uniquePosts.add(raw);
+        }
+        metrics.stop("dedup", t);
+
+        ScoredBatch batch = scoreHybrid(username, uniquePosts);
+
+        // --- FAN OUT: representatives keep their own scores, duplicates copy them ---
+        List<RedditPost> results = new ArrayList<>(rawPosts.size());
+        List<float[]> vectors = new ArrayList<>(rawPosts.size());
+        int u = 0;
         for (int i = 0; i < rawPosts.size(); i++) {
-            Map<String, Object> raw = rawPosts.get(i);
-            Map<String, Double> finalPostScores = new HashMap<>();
+            PostDeduplicator.Match match = matches.get(i);
+            if (match.isNew()) {
+                RedditPost scored = batch.posts().get(u);
+                float[] vector = batch.vectors().get(u);
+                u++;
+                if (match.entry() != null) dedup.resolve(match.entry(), scored, vector);
+                results.add(scored);
+                vectors.add(vector);
+                continue;
+            }
 
-            for (String cat : categories) {
-                // Get Semantic Score (Default 0.0)
-                List<Double> semList = semanticScores.get(cat);
-                double sScore = (semList != null && i < semList.size()) ? semList.get(i) : 0.0;
+            Post raw = rawPosts.get(i);
+            PostDeduplicator.Entry original = match.entry();
+            results.add(RedditPost.builder()
+                    .username(username)
+                    .redditPostId(raw.id())
+                    .permalink(raw.permalink())
+                    .title(raw.title())
+                    .content(raw.text())
+                    .createdUtc(raw.createdUtc())
+                    .kind(raw.kind() != null ? raw.kind() : Post.KIND_POST)
+                    .tokens(original.tokens())
+                    .scoringPath(original.scoringPath())
+                    .duplicateOf(original.postId())
+                    .build());
+            vectors.add(original.vector());
+        }
+        fillReleasedVectors(results, vectors);
+        if (results.size() > uniquePosts.size()) {
+            metrics.duplicatesSkipped(results.size() - uniquePosts.size());
+        }
 
-                // Get BM25 Score (Default 0.0)
-                List<Double> kwList = keywordScores.get(cat);
-                double kScore = (kwList != null && i < kwList.size()) ? kwList.get(i) : 0.0;
+        // --- KEEP THE VECTORS FOR SEARCH ---
+        t = metrics.start();
+        vectorStore.addAll(results, vectors);
+        metrics.stop("db.vectors", t);
+        return results;
+    }
 
-                // HYBRID FORMULA: Weighted Average
-                // If Neural says 0.8 (high risk) and Keyword says 0.0 (no explicit words) -> Result 0.56
-                // If Both say high -> Result is very high.
-                double hybridScore = (sScore * WEIGHT_SEMANTIC) + (kScore * WEIGHT_KEYWORD);
+    // Duplicates of a representative on an earlier, already persisted page: its vector was
+    // released from the dedup session and is read back from the vector store
+    private void fillReleasedVectors(List<RedditPost> results, List<float[]> vectors) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            String original = results.get(i).getDuplicateOf();
+            if (vectors.get(i) == null && original != null) ids.add(original);
+        }
+        if (ids.isEmpty()) return;
 
-                // Filter Noise
-                if (hybridScore < SEMANTIC_THRESHOLD) hybridScore = 0.0;
+        Map<String, float[]> stored = vectorStore.storedVectors(ids);
+        for (int i = 0; i < results.size(); i++) {
+            String original = results.get(i).getDuplicateOf();
+            if (vectors.get(i) == null && original != null) vectors.set(i, stored.get(original));
+        }
+    }
 
-                finalPostScores.put(cat, hybridScore);
-            }
+    private record ScoredBatch(List<RedditPost> posts, List<float[]> vectors) {}
 
-            // --- STEP C: BASELINE LOGIC ---
-            // Calculate max risk to see if this is a "normal" post
-            double maxRisk = finalPostScores.entrySet().stream()
-                    .filter(e -> !e.getKey().equals("FUNCTIONAL_BASELINE"))
-                    .mapToDouble(Map.Entry::getValue)
-                    .max().orElse(0.0);
+    private ScoredBatch scoreHybrid(String username, List<Post> rawPosts) {
+        List<RedditPost> results = new ArrayList<>();
 
-            // If no risk categories were triggered, boost Functional Baseline
-            if (maxRisk == 0.0) {
-                finalPostScores.put("FUNCTIONAL_BASELINE", 0.9);
-            }
+        // Extract just the text for batch processing
+        List<String> texts = rawPosts.stream().map(Post::fullText).toList();
+        ScoredTexts scored = scoreTexts(texts, cascade.isEnabled());
 
-            // --- STEP D: RENAME & FORMAT FOR UI ---
-            Map<String, Double> uiScores = new HashMap<>();
-            finalPostScores.forEach((k, v) -> {
-                String uiName = getDisplayName(k);
-                double rounded = Math.round(v * 100.0) / 100.0;
-                uiScores.put(uiName, rounded);
-            });
+        long t = metrics.start();
+        for (int i = 0; i < rawPosts.size(); i++) {
+            Post raw = rawPosts.get(i);
 
             RedditPost post = RedditPost.builder()
                     .username(username)
-                    .redditPostId((String) raw.get("postId"))
-                    .permalink((String) raw.get("permalink"))
-                    .title((String) raw.get("title"))
-                    .content((String) raw.get("text"))
-                    .createdUtc((Long) raw.get("createdUtc"))
-                    .tokens(toJson(uiScores))
+                    .redditPostId(raw.id())
+                    .permalink(raw.permalink())
+                    .title(raw.title())
+                    .content(raw.text())
+                    .createdUtc(raw.createdUtc())
+                    .kind(raw.kind() != null ? raw.kind() : Post.KIND_POST)
+                    .tokens(toJson(scored.scores().get(i)))
+                    .scoringPath(scored.paths().get(i))
                     .build();
             results.add(post);
         }
-        return results;
+        metrics.stop("merge", t);
+        return new ScoredBatch(results, scored.vectors());
+    }
+
+    /** Per text: UI category name -> score, the embedding (null if none) and the scoring path. */
+    public record ScoredTexts(List<Map<String, Double>> scores, List<float[]> vectors, List<String> paths) {}
+
+    /**
+     * Stateless hybrid scoring, in input order. Nothing is stored (no snapshot, no vectors,
+     * no alerts); used by bulk scoring.
+     *
+     * @param useCascade whether the lexical cascade may skip the transformer for clear baseline posts
+     */
+    public ScoredTexts scoreStateless(List<String> texts, boolean useCascade) {
+        return scoreTexts(texts, useCascade);
+    }
+
+    // The hybrid pipeline proper: normalize, BM25, (cascade), embed, fuse, cross-encoder cascade, label
+    private ScoredTexts scoreTexts(List<String> rawTexts, boolean useCascade) {
+        // One taxonomy version for the whole batch, even if a reload lands meanwhile
+        Taxonomy tax = taxonomy.current();
+
+        // Markdown, URLs, quotes and entities out once, so every ranker sees the same plain text
+        long t = metrics.start();
+        List<String> texts = normalizer.normalizeAll(rawTexts);
+        metrics.stop("normalize", t);
+
+        // --- STEP A: RUN BOTH MODELS ---
+        // 1. Lexical Model (Keywords) first: it is cheap and decides the cascade
+        t = metrics.start();
+        Map<String, List<Double>> keywordScores = bm25Ranker.scorePosts(texts, tax);
+        metrics.stop("bm25", t);
+
+        boolean[] lexicalOnly = useCascade ? cascade.skips(texts, keywordScores, tax) : new boolean[texts.size()];
+        if (useCascade) cascade.record(lexicalOnly);
+
+        // 2. Neural Model (Context/Vibe), only for posts the cascade did not settle
+        t = metrics.start();
+        List<float[]> vectors = embedUnless(texts, lexicalOnly);
+        Map<String, List<Double>> semanticScores = embeddingRanker.scoreVectors(vectors, tax);
+        metrics.stop("embed", t);
+
+        // --- STEP B: MERGE SCORES ---
+        // Fixed blend or learned fusion per category (both defined in taxonomy.json)
+        // If Neural says 0.8 (high risk) and Keyword says 0.0 (no explicit words) -> Result 0.56
+        // A post that should have been embedded but was not (model failing, timed out, breaker
+        // open) is scored BM25-only and marked degraded, never fused with a fake 0.0 similarity.
+        t = metrics.start();
+        List<Map<String, Double>> fused = new ArrayList<>(texts.size());
+        List<String> paths = new ArrayList<>(texts.size());
+        int degraded = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            if (lexicalOnly[i]) {
+                fused.add(tax.zeros());
+                paths.add(LexicalCascade.PATH_LEXICAL);
+            } else if (vectors.get(i) == null) {
+                fused.add(tax.fuseKeywordOnly(keywordScores, i));
+                paths.add(LexicalCascade.PATH_DEGRADED);
+                degraded++;
+            } else {
+                fused.add(tax.fuse(semanticScores, keywordScores, i));
+                paths.add(LexicalCascade.PATH_NEURAL);
+            }
+        }
+        metrics.postsDegraded(degraded);
+        metrics.stop("merge", t);
+
+        // --- STEP B2: CROSS-ENCODER CASCADE (risky posts only) ---
+        rerankRiskyPosts(texts, fused, tax);
+
+        // --- STEP C/D: BASELINE BOOST, RENAME & ROUND FOR UI ---
+        List<Map<String, Double>> labeled = new ArrayList<>(fused.size());
+        for (Map<String, Double> f : fused) labeled.add(tax.label(f));
+
+        metrics.postsScored(texts.size());
+        return new ScoredTexts(labeled, vectors, paths);
     }
 
-    private List<RedditPost> runSemanticAnalysis(String username, List<Map<String, Object>> rawPosts) {
+    // Embeds texts[i] for every i not skipped; skipped positions get null
+    private List<float[]> embedUnless(List<String> texts, boolean[] skip) {
+        List<String> toEmbed = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            if (!skip[i]) toEmbed.add(texts.get(i));
+        }
+        if (toEmbed.size() == texts.size()) return embeddingRanker.embedPosts(texts);
+
+        List<float[]> embedded = toEmbed.isEmpty() ? List.of() : embeddingRanker.embedPosts(toEmbed);
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        int next = 0;
+        for (int i = 0; i < texts.size(); i++) vectors.add(skip[i] ? null : embedded.get(next++));
+        return vectors;
+    }
+
+    /**
+     * Sends only the posts whose hybrid risk is at least RERANK_THRESHOLD to the cross-encoder, all
+     * (post, category) pairs in one batch, and blends its probabilities into their scores in place.
+     * The baseline majority never pays for the cross-encoder.
+     */
+    private void rerankRiskyPosts(List<String> texts, List<Map<String, Double>> fused, Taxonomy tax) {
+        if (!crossEncoderRanker.isEnabled()) return;
+
+        List<Integer> risky = new ArrayList<>();
+        for (int i = 0; i < fused.size(); i++) {
+            if (tax.maxRisk(fused.get(i)) >= rerankThreshold) risky.add(i);
+        }
+        if (risky.isEmpty()) return;
+
+        long t = metrics.start();
+        try {
+            List<String> riskyTexts = risky.stream().map(texts::get).toList();
+            List<Map<String, Double>> ce = crossEncoderRanker.rank(riskyTexts, tax.anchors());
+
+            for (int r = 0; r < risky.size(); r++) {
+                Map<String, Double> scores = fused.get(risky.get(r));
+                for (var e : ce.get(r).entrySet()) {
+                    double blended = (1 - rerankWeight) * scores.getOrDefault(e.getKey(), 0.0) + rerankWeight * e.getValue();
+                    scores.put(e.getKey(), blended < tax.floor(e.getKey()) ? 0.0 : blended);
+                }
+            }
+            log.info("RERANK: cross-encoded {}/{} posts", risky.size(), fused.size());
+        } catch (Exception e) {
+            // Keep the hybrid scores if the reranker fails
+            log.warn("Cross-encoder rerank failed, keeping hybrid scores: {}", e.getMessage());
+            metrics.error("rerank");
+        } finally {
+            metrics.stop("rerank", t);
+        }
+    }
+
+    private List<RedditPost> runSemanticAnalysis(String username, List<Post> rawPosts) {
         List<RedditPost> results = new ArrayList<>();
-        List<String> texts = rawPosts.stream().map(p -> (String) p.get("fullText")).toList();
+        // Simulated posts are scored on their text alone, without the placeholder title
+        List<String> texts = normalizer.normalizeAll(rawPosts.stream().map(Post::text).toList());
 
-        Map<String, List<Double>> scoresMap = embeddingRanker.scorePosts(texts);
-        Set<String> categories = scoresMap.keySet();
+        Taxonomy tax = taxonomy.current();
+        Map<String, List<Double>> scoresMap = embeddingRanker.scorePosts(texts, tax);
 
         for (int i = 0; i < rawPosts.size(); i++) {
-            Map<String, Object> raw = rawPosts.get(i);
+            Post raw = rawPosts.get(i);
             Map<String, Double> postScores = new HashMap<>();
 
             // 1. Fill Raw Scores (0.0 to 1.0)
-            for (String cat : categories) {
+            for (String cat : tax.keys()) {
                 List<Double> catScores = scoresMap.get(cat);
                 double score = (catScores != null && i < catScores.size()) ? catScores.get(i) : 0.0;
-                if (score < SEMANTIC_THRESHOLD) score = 0.0;
+                if (score < tax.minScore(cat)) score = 0.0;
                 postScores.put(cat, score);
             }
 
-            // 2. Logic: "Normal" Injection
-            double maxRisk = postScores.entrySet().stream()
-                    .filter(e -> !e.getKey().equals("FUNCTIONAL_BASELINE"))
-                    .mapToDouble(Map.Entry::getValue)
-                    .max().orElse(0.0);
-
-            if (maxRisk == 0.0) {
-                postScores.put("FUNCTIONAL_BASELINE", 0.9);
-            }
-
-            // 3. RENAME AND ROUND (0.288 -> 0.29)
-            Map<String, Double> cleanScores = new HashMap<>();
-            postScores.forEach((k, v) -> {
-                String uiName = getDisplayName(k); // <--- Rename to UI Label
-                double rounded = Math.round(v * 100.0) / 100.0; // <--- Round to 2 decimals
-                cleanScores.put(uiName, rounded);
-            });
+            // 2. "Normal" injection, rename and round (0.288 -> 0.29)
+            Map<String, Double> cleanScores = tax.label(postScores);
 
             RedditPost post = RedditPost.builder()
                     .username(username)
-                    .redditPostId((String) raw.get("postId"))
-                    .permalink((String) raw.get("permalink"))
-                    .title((String) raw.get("title"))
-                    .content((String) raw.get("text"))
-                    .createdUtc((Long) raw.get("createdUtc"))
+                    .redditPostId(raw.id())
+                    .permalink(raw.permalink())
+                    .title(raw.title())
+                    .content(raw.text())
+                    .createdUtc(raw.createdUtc())
                     .tokens(toJson(cleanScores)) // Save the clean version
                     .build();
             results.add(post);
@@ -213,18 +565,20 @@ public class RedditAnalyzeService {
         return results;
     }
 
-    // 2. UPDATED: Summary with Renaming and Rounding
-    private ProfileAnalysis saveProfileSummary(String username, List<RedditPost> posts) {
-        Map<String, Double> totals = new HashMap<>();
-
-        // Sum up the CLEAN scores (already renamed)
+    // Sum up the CLEAN scores (already renamed); called once per page when streaming.
+    // Duplicates count with seraph.dedup.duplicate-weight (1.0 = same as an original post).
+    private void addToTotals(Map<String, Double> totals, List<RedditPost> posts) {
         for (RedditPost p : posts) {
+            double weight = p.getDuplicateOf() == null ? 1.0 : duplicateWeight;
+            if (weight == 0.0) continue;
             try {
                 Map<String, Double> scores = objectMapper.readValue(p.getTokens(), Map.class);
-                scores.forEach((cat, score) -> totals.merge(cat, score, Double::sum));
+                scores.forEach((cat, score) -> totals.merge(cat, score * weight, Double::sum));
             } catch (Exception ignored) {}
         }
+    }
 
+    private ProfileAnalysis buildSummary(String username, Map<String, Double> totals, int postCount) {
         double totalMass = totals.values().stream().mapToDouble(d -> d).sum();
         Map<String, Double> percentages = new HashMap<>();
 
@@ -236,71 +590,311 @@ public class RedditAnalyzeService {
         });
 
         // Determine Top Category (Using UI Names now)
-        String topOverall = totals.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(e -> e.getValue() > 0 ? e.getKey() : "Sentiment") // Default to Sentiment
-                .orElse("Sentiment");
+        Taxonomy tax = taxonomy.current();
+        String topOverall = topCategory(totals, tax);
 
         ProfileAnalysis profile = ProfileAnalysis.builder()
-                .platform("reddit")
+                .platform(PlatformRegistry.platformOf(username))
                 .username(username)
-                .postCount(posts.size())
+                .postCount(postCount)
                 .topCategoryOverall(topOverall)
                 .confidence(totalMass > 0 ? 1.0 : 0.0)
                 .profileTotalsJson(toJson(totals))
                 .profilePercentagesJson(toJson(percentages))
                 .createdAt(Instant.now())
+                .taxonomyVersion(tax.version())
                 .build();
 
-        return profileRepo.save(profile);
+        return profile;
+    }
+
+    // Largest total wins; the baseline when nothing scored at all
+    private static String topCategory(Map<String, Double> totals, Taxonomy tax) {
+        return totals.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(e -> e.getValue() > 0 ? e.getKey() : tax.baselineDisplayName())
+                .orElse(tax.baselineDisplayName());
     }
 
-    // 3. HELPER: The Dictionary (Copy this to bottom of class)
-    private String getDisplayName(String internalKey) {
-        return switch (internalKey) {
-            case "FUNCTIONAL_BASELINE" -> "Sentiment";
-            case "ANXIETY_STRESS" -> "Distress";
-            case "HOSTILITY" -> "Hostility";
-            case "SADNESS" -> "Sadness";
-            case "SELF_HARM_RISK" -> "Self-Harm";
-            default -> internalKey;
-        };
+    @FunctionalInterface
+    private interface PageProducer {
+        void produce(BlockingQueue<List<Post>> pages) throws InterruptedException;
     }
 
-    private List<Map<String, Object>> fetchAllPosts(String username, String token) {
-        // ... (This helper remains unchanged) ...
-        List<Map<String, Object>> allPosts = new ArrayList<>();
+    /**
+     * Producer side of the streaming pipeline: pages through each of the platform's feeds in
+     * turn (Reddit: submissions, then comments), handing each page to the bounded queue as soon
+     * as it arrives. put() blocks while the consumer is still scoring earlier pages, which is
+     * what keeps memory flat.
+     *
+     * A feed stops at its cap or at the first item already in knownIds, so a refresh only pays
+     * for pages holding new items. With a budget, each page costs one permit; when it runs dry
+     * the pages produced so far are all the snapshot gets.
+     */
+    private void producePages(
+            PlatformRegistry.Target target,
+            Set<String> knownIds,
+            RateBudget budget,
+            BlockingQueue<List<Post>> pages
+    ) throws InterruptedException {
+        for (PlatformFetcher.Feed feed : target.fetcher().feeds()) {
+            producePages(pages, knownIds, budget, cap(feed.kind()), after -> target.fetcher().fetch(target.handle(), feed, after));
+        }
+    }
+
+    private void producePages(
+            BlockingQueue<List<Post>> pages,
+            Set<String> knownIds,
+            RateBudget budget,
+            int cap,
+            Function<String, PlatformFetcher.Page> fetchPage
+    ) throws InterruptedException {
         String after = null;
-        int maxPosts = 50;
-
-        while (allPosts.size() < maxPosts) {
-            Map<String, Object> response = redditClient.fetchUserSubmitted(token, username, after);
-            if (response == null || !response.containsKey("data")) break;
-
-            Map data = (Map) response.get("data");
-            List<Map> children = (List<Map>) data.get("children");
-            if (children == null || children.isEmpty()) break;
-
-            for (Map child : children) {
-                Map d = (Map) child.get("data");
-                Map<String, Object> clean = new HashMap<>();
-                clean.put("postId", d.get("id"));
-                clean.put("title", d.get("title"));
-                clean.put("text", d.getOrDefault("selftext", ""));
-                clean.put("permalink", "https://www.reddit.com" + d.get("permalink"));
-                clean.put("createdUtc", ((Number) d.getOrDefault("created_utc", 0)).longValue());
-                clean.put("fullText", (clean.get("title") + " " + clean.get("text")).trim());
-                allPosts.add(clean);
+        int produced = 0;
+
+        while (produced < cap) {
+            if (budget != null && !budget.tryAcquire()) return;
+
+            long t = metrics.start();
+            PlatformFetcher.Page response = fetchPage.apply(after);
+            metrics.stop("fetch", t);
+            if (response == null || response.posts().isEmpty()) return;
+
+            List<Post> page = new ArrayList<>();
+            boolean caughtUp = false;
+            for (Post post : response.posts()) {
+                if (produced + page.size() >= cap) break;
+                if (knownIds.contains(post.id())) {
+                    caughtUp = true;
+                    break;
+                }
+                page.add(post);
+            }
+            produced += page.size();
+            if (!page.isEmpty()) pages.put(page);
+
+            after = response.next();
+            if (caughtUp || after == null) return;
+        }
+    }
+
+    private int cap(String kind) {
+        return Post.KIND_COMMENT.equals(kind) ? maxComments : maxPosts;
+    }
+
+    private AnalysisResult streamAnalysis(String username, PlatformRegistry.Target target, long fetchStartedAt) throws Exception {
+        SnapshotStream stream = streamSnapshot(username, pages -> producePages(target, Set.of(), null, pages), fetchStartedAt, null);
+        return stream == null ? null : stream.result;
+    }
+
+    /**
+     * Consumer side: score, alert, persist and aggregate one page at a time. Only the running
+     * totals and the first responsePostLimit posts outlive a page; each page commits in its own
+     * transaction, so no connection is held while the next page is fetched or scored.
+     *
+     * With carryFrom set (a watchlist refresh), that snapshot's posts follow the new ones, page
+     * by page and within the same per-feed caps, so a watched user's snapshot never outgrows
+     * what a fresh analysis would hold.
+     *
+     * The header stays incomplete (invisible to every reader) until the totals are written at
+     * the end; if the stream fails, the header and the pages written so far are deleted.
+     *
+     * @return null when no page arrived (no posts at all, or nothing new since carryFrom)
+     */
+    private SnapshotStream streamSnapshot(
+            String username,
+            PageProducer producePages,
+            long fetchStartedAt,
+            ProfileAnalysis carryFrom
+    ) throws Exception {
+        BlockingQueue<List<Post>> pages = new ArrayBlockingQueue<>(queuePages);
+        AtomicReference<Exception> producerError = new AtomicReference<>();
+        Map<String, Long> trace = metrics.currentTrace(); // ?debug=true: fetch time belongs to this request
+
+        Future<?> producer = ingestExecutor.submit(() -> {
+            metrics.joinTrace(trace);
+            try {
+                producePages.produce(pages);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                producerError.set(e);
+            } finally {
+                metrics.leaveTrace();
+                try {
+                    pages.put(END_OF_STREAM);
+                } catch (InterruptedException ignored) {}
+            }
+        });
+
+        int startVersion = taxonomy.current().version(); // a reload mid-stream leaves the snapshot due for a rescore
+        PostDeduplicator.Session dedup = deduplicator.newSession(); // spans every page
+        // Pages arrive newest-first and each one moves the trend watermark: "new" is decided
+        // against the watermark from before the stream, or only the first page would count
+        long watermark = trendAggregator.watermark(username);
+        SnapshotStream stream = new SnapshotStream(username);
+
+        try {
+            while (true) {
+                long t = metrics.start();
+                List<Post> page = pages.take();
+                metrics.stop("fetch.wait", t);
+                if (page == END_OF_STREAM) break;
+
+                List<RedditPost> scored = runHybridAnalysis(username, page, dedup);
+
+                t = metrics.start();
+                alertService.evaluate(username, scored, fetchStartedAt, watermark);
+                metrics.stop("alerts", t);
+
+                stream.write(scored, true);
+                dedup.releaseVectors(); // persisted and in the vector store; later duplicates read it from there
+
+                t = metrics.start();
+                trendAggregator.ingest(username, scored, watermark);
+                metrics.stop("trends", t);
+            }
+            if (producerError.get() != null) throw producerError.get();
+            if (carryFrom != null && stream.header != null) carryOver(stream, carryFrom);
+        } catch (Exception e) {
+            if (stream.header != null) discardIncomplete(stream.header.getId());
+            throw e;
+        } finally {
+            producer.cancel(true); // no-op when the producer already finished
+        }
+
+        if (stream.header == null) return null;
+
+        // Finalize the header with the streamed totals; from here on readers see it
+        ProfileAnalysis finished = buildSummary(username, stream.totals, stream.postCount);
+        finished.setId(stream.header.getId());
+        finished.setCreatedAt(stream.header.getCreatedAt());
+        finished.setTaxonomyVersion(startVersion);
+        finished.setDegradedPosts(stream.degradedPosts);
+        try {
+            finished = profileRepo.save(finished);
+        } catch (RuntimeException e) {
+            discardIncomplete(stream.header.getId());
+            throw e;
+        }
+        cohorts.record(finished);
+
+        log.info("STREAMED: {} posts/comments for {} -> snapshot {}", stream.postCount, username, finished.getId());
+        stream.result = new AnalysisResult(finished, stream.responsePosts);
+        return stream;
+    }
+
+    // Old posts follow the new ones until each feed's cap is full. Their text and vectors are
+    // already stored; scored under an older taxonomy, they are brought to the current one first.
+    private void carryOver(SnapshotStream stream, ProfileAnalysis previous) {
+        Taxonomy tax = taxonomy.current();
+        boolean rescore = !Objects.equals(previous.getTaxonomyVersion(), tax.version());
+
+        postStore.forEachPage(previous.getId(), RESCORE_PAGE_SIZE, oldPosts -> {
+            List<RedditPost> kept = new ArrayList<>(oldPosts.size());
+            for (RedditPost old : oldPosts) {
+                if (stream.admit(old.getKind())) kept.add(old);
+            }
+            if (kept.isEmpty()) return;
+            if (rescore) rescorePosts(kept, tax);
+
+            List<RedditPost> carried = new ArrayList<>(kept.size());
+            for (RedditPost old : kept) {
+                carried.add(RedditPost.builder()
+                        .username(old.getUsername())
+                        .redditPostId(old.getRedditPostId())
+                        .permalink(old.getPermalink())
+                        .title(old.getTitle())
+                        .content(old.getContent())
+                        .createdUtc(old.getCreatedUtc())
+                        .kind(old.getKind())
+                        .tokens(old.getTokens())
+                        .scoringPath(old.getScoringPath())
+                        .duplicateOf(old.getDuplicateOf())
+                        .build());
+            }
+            stream.write(carried, false);
+        });
+    }
+
+    /**
+     * A snapshot being written page by page: the header (created with the first page, incomplete
+     * until the stream finishes), running totals, and the first responsePostLimit posts.
+     */
+    private final class SnapshotStream {
+        private final String username;
+        private final Map<String, Double> totals = new HashMap<>();
+        private final List<RedditPost> responsePosts = new ArrayList<>();
+        private final Map<String, Integer> perKind = new HashMap<>();
+        private ProfileAnalysis header;
+        private AnalysisResult result;
+        private int postCount;
+        private int newPosts;
+        private int degradedPosts;
+        private Long oldest;
+        private Long newest;
+
+        private SnapshotStream(String username) {
+            this.username = username;
+        }
+
+        // Carried posts only: true while this post's feed is under its cap
+        private boolean admit(String kind) {
+            String feed = Post.KIND_COMMENT.equals(kind) ? Post.KIND_COMMENT : Post.KIND_POST;
+            int n = perKind.getOrDefault(feed, 0);
+            if (n >= cap(feed)) return false;
+            perKind.put(feed, n + 1);
+            return true;
+        }
+
+        // One short transaction per page. The header is created with the first page so posts can carry its id.
+        private void write(List<RedditPost> posts, boolean fresh) {
+            long t = metrics.start();
+            ProfileAnalysis existing = header;
+            header = tx.execute(status -> {
+                ProfileAnalysis h = existing != null ? existing : profileRepo.save(incompleteHeader(username));
+                for (RedditPost post : posts) post.setAnalysisId(h.getId());
+                postStore.saveAll(posts);
+                return h;
+            });
+            metrics.stop("db.write", t);
+
+            addToTotals(totals, posts);
+            postCount += posts.size();
+            degradedPosts += countDegraded(posts);
+            for (RedditPost p : posts) {
+                if (fresh) {
+                    newPosts++;
+                    perKind.merge(Post.KIND_COMMENT.equals(p.getKind()) ? Post.KIND_COMMENT : Post.KIND_POST, 1, Integer::sum);
+                }
+                if (p.getCreatedUtc() == null) continue;
+                oldest = oldest == null ? p.getCreatedUtc() : Math.min(oldest, p.getCreatedUtc());
+                newest = newest == null ? p.getCreatedUtc() : Math.max(newest, p.getCreatedUtc());
+            }
+            if (responsePosts.size() < responsePostLimit) {
+                responsePosts.addAll(posts.subList(0, Math.min(posts.size(), responsePostLimit - responsePosts.size())));
             }
-            after = (String) data.get("after");
-            if (after == null) break;
         }
-        return allPosts;
     }
 
-    private String extractUsername(String url) {
-        if (url.contains("/user/")) return url.split("/user/")[1].split("/")[0].split("\\?")[0];
-        return url;
+    private ProfileAnalysis incompleteHeader(String username) {
+        ProfileAnalysis header = buildSummary(username, Map.of(), 0);
+        header.setIncomplete(true);
+        return header;
+    }
+
+    // A failed stream leaves nothing behind; should this fail too, the compactor sweeps the header later
+    private void discardIncomplete(Long analysisId) {
+        try {
+            tx.execute(status -> {
+                postStore.deleteSnapshot(analysisId);
+                profileRepo.deleteById(analysisId);
+                return null;
+            });
+            log.info("STREAM FAILED: discarded incomplete snapshot {}", analysisId);
+        } catch (RuntimeException e) {
+            log.warn("Could not discard incomplete snapshot {}: {}", analysisId, e.getMessage());
+        }
     }
 
     private String toJson(Object o) {
@@ -326,19 +920,18 @@ public class RedditAnalyzeService {
     // NEW SIMULATION METHOD
     public String simulateAnalysis(String mockUsername, List<String> texts) {
         try {
-            // 1. Convert simple strings to the Map structure the pipeline expects
-            List<Map<String, Object>> mockPosts = new ArrayList<>();
+            // 1. Convert simple strings to the Post records the pipeline expects
+            List<Post> mockPosts = new ArrayList<>();
             long fakeTime = Instant.now().getEpochSecond();
 
             for (int i = 0; i < texts.size(); i++) {
-                Map<String, Object> p = new HashMap<>();
-                p.put("postId", "sim_" + i);
-                p.put("title", "Simulation Post " + (i + 1));
-                p.put("text", texts.get(i));
-                p.put("fullText", texts.get(i)); // The text you sent
-                p.put("permalink", "https://localhost/simulation");
-                p.put("createdUtc", fakeTime - (i * 86400)); // Each post 1 day apart
-                mockPosts.add(p);
+                mockPosts.add(new Post(
+                        "sim_" + i,
+                        null,
+                        "Simulation Post " + (i + 1),
+                        texts.get(i), // The text you sent
+                        "https://localhost/simulation",
+                        fakeTime - (i * 86400))); // Each post 1 day apart
             }
 
             // 2. RUN THE EXACT SAME AI PIPELINE
@@ -352,6 +945,7 @@ public class RedditAnalyzeService {
 
         } catch (Exception e) {
             log.error("Simulation Failed", e);
+            metrics.error("simulate");
             return "{\"error\": \"" + e.getMessage() + "\"}";
         }
     }
@@ -373,10 +967,7 @@ public class RedditAnalyzeService {
             percentages.put(k, Math.round(ratio * 100.0) / 100.0);
         });
 
-        String topOverall = totals.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(e -> e.getValue() > 0 ? e.getKey() : "Sentiment")
-                .orElse("Sentiment");
+        String topOverall = topCategory(totals, taxonomy.current());
 
         return ProfileAnalysis.builder()
                 .platform("simulation")
@@ -391,8 +982,158 @@ public class RedditAnalyzeService {
     }
 
 
+    /**
+     * Re-scores a stored snapshot against the given taxonomy from the persisted embeddings (no
+     * model call) and rewrites its post scores and totals in place. The cross-encoder rerank is
+     * not replayed, so rescored posts carry the plain hybrid score. Degraded posts (no stored
+     * embedding) are embedded now. Returns false when the snapshot is already at that version
+     * and has no degraded posts, when the user is being analyzed (here or on another node), or
+     * when a newer snapshot replaced it meanwhile; the next tick picks those up again.
+     */
+    public boolean rescoreSnapshot(ProfileAnalysis profile, Taxonomy tax) {
+        if (Objects.equals(profile.getTaxonomyVersion(), tax.version()) && !isDegraded(profile)) return false;
+
+        // Same claim as an analysis: a rescore must not interleave with a run writing this user
+        String username = profile.getUsername();
+        if (!jobs.tryClaim(username, Instant.now())) return false;
+        try {
+            boolean rescored = profileRepo.findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username)
+                    .filter(latest -> latest.getId().equals(profile.getId()))
+                    .map(latest -> rescoreClaimed(latest, tax))
+                    .orElse(false);
+            jobs.complete(username);
+            return rescored;
+        } catch (RuntimeException e) {
+            jobs.fail(username, e);
+            throw e;
+        }
+    }
+
+    // Caller holds the user's claim; releasing it publishes the snapshot change
+    private boolean rescoreClaimed(ProfileAnalysis profile, Taxonomy tax) {
+        if (Objects.equals(profile.getTaxonomyVersion(), tax.version()) && !isDegraded(profile)) return false;
+
+        long t = metrics.start();
+        Map<String, Double> totals = new HashMap<>();
+        int[] postCount = {0};
+        int[] degradedPosts = {0};
+
+        // A page at a time; only score rows change, the text in PostContent is untouched.
+        // The header moves to the new version last, so an interrupted rescore simply runs again.
+        postStore.forEachPage(profile.getId(), RESCORE_PAGE_SIZE, posts -> {
+            rescorePosts(posts, tax);
+            tx.execute(status -> {
+                postStore.saveScores(posts);
+                return null;
+            });
+            addToTotals(totals, posts);
+            postCount[0] += posts.size();
+            degradedPosts[0] += countDegraded(posts);
+        });
+
+        ProfileAnalysis rescored = buildSummary(profile.getUsername(), totals, postCount[0]);
+        rescored.setId(profile.getId());
+        rescored.setPlatform(profile.getPlatform());
+        rescored.setCreatedAt(profile.getCreatedAt());
+        rescored.setTaxonomyVersion(tax.version());
+        rescored.setDegradedPosts(degradedPosts[0]);
+        cohorts.record(profileRepo.save(rescored));
+        metrics.stop("rescore", t);
+
+        log.info("RESCORE: snapshot {} of {} ({} posts) v{} -> v{}", profile.getId(), profile.getUsername(),
+                postCount[0], profile.getTaxonomyVersion(), tax.version());
+        return true;
+    }
+
+    // Rewrites tokens in place from stored vectors; only posts that never got a vector hit the model.
+    // Posts the cascade settled lexically stay lexical unless the new taxonomy gives them a risk term.
+    private void rescorePosts(List<RedditPost> posts, Taxonomy tax) {
+        if (posts.isEmpty()) return;
+
+        Set<String> ids = new HashSet<>();
+        for (RedditPost p : posts) {
+            if (p.getRedditPostId() != null) ids.add(p.getRedditPostId());
+            if (p.getDuplicateOf() != null) ids.add(p.getDuplicateOf());
+        }
+        Map<String, float[]> stored = vectorStore.storedVectors(ids);
+
+        List<String> texts = new ArrayList<>(posts.size());
+        for (RedditPost p : posts) {
+            // Same text the pipeline scored: title + body for submissions, the body alone for comments
+            texts.add(normalizer.normalize(Post.fullText(p.getKind(), p.getTitle(), p.getContent())));
+        }
+        Map<String, List<Double>> keywordScores = bm25Ranker.scorePosts(texts, tax);
+        boolean[] stillLexical = cascade.skips(texts, keywordScores, tax);
+
+        List<float[]> vectors = new ArrayList<>(posts.size());
+        boolean[] lexical = new boolean[posts.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < posts.size(); i++) {
+            RedditPost p = posts.get(i);
+            float[] v = stored.get(p.getRedditPostId());
+            if (v == null && p.getDuplicateOf() != null) v = stored.get(p.getDuplicateOf());
+            lexical[i] = v == null && LexicalCascade.PATH_LEXICAL.equals(p.getScoringPath()) && stillLexical[i];
+            if (v == null && !lexical[i]) missing.add(i);
+            vectors.add(v);
+        }
+        if (!missing.isEmpty()) {
+            List<float[]> embedded = embeddingRanker.embedPosts(missing.stream().map(texts::get).toList());
+            for (int m = 0; m < missing.size(); m++) vectors.set(missing.get(m), embedded.get(m));
+            log.info("RESCORE: {} posts had no stored embedding and were re-embedded", missing.size());
+        }
+
+        Map<String, List<Double>> semanticScores = embeddingRanker.scoreVectors(vectors, tax);
+        int degraded = 0;
+        for (int i = 0; i < posts.size(); i++) {
+            RedditPost p = posts.get(i);
+            if (lexical[i]) {
+                p.setTokens(toJson(tax.label(tax.zeros())));
+                p.setScoringPath(LexicalCascade.PATH_LEXICAL);
+            } else if (vectors.get(i) == null) {
+                // Still no embedding (model unavailable): stays degraded until a later rescore
+                p.setTokens(toJson(tax.label(tax.fuseKeywordOnly(keywordScores, i))));
+                p.setScoringPath(LexicalCascade.PATH_DEGRADED);
+                degraded++;
+            } else {
+                p.setTokens(toJson(tax.label(tax.fuse(semanticScores, keywordScores, i))));
+                p.setScoringPath(LexicalCascade.PATH_NEURAL);
+            }
+        }
+        metrics.postsDegraded(degraded);
+    }
+
+    static boolean isDegraded(ProfileAnalysis profile) {
+        return profile.getDegradedPosts() != null && profile.getDegradedPosts() > 0;
+    }
+
+    private static int countDegraded(List<RedditPost> posts) {
+        int n = 0;
+        for (RedditPost p : posts) if (LexicalCascade.PATH_DEGRADED.equals(p.getScoringPath())) n++;
+        return n;
+    }
+
+    // SEMANTIC SEARCH: nearest stored posts to a free-text query or to an existing post
+    public List<SimilarPost> searchSimilar(String query, String postId, int k) throws Exception {
+        List<PostVectorStore.Neighbor> neighbors = (postId != null && !postId.isBlank())
+                ? vectorStore.nearestToPost(postId, k)
+                : vectorStore.nearest(embeddingRanker.embed(query), k);
+
+        List<SimilarPost> out = new ArrayList<>(neighbors.size());
+        for (PostVectorStore.Neighbor n : neighbors) {
+            Optional<PostContent> post = postStore.findContent(n.redditPostId());
+            out.add(new SimilarPost(
+                    n.redditPostId(),
+                    n.username(),
+                    n.similarity(),
+                    post.map(PostContent::getTitle).orElse(null),
+                    post.map(PostContent::getPermalink).orElse(null)
+            ));
+        }
+        return out;
+    }
+
     public List<ProfileAnalysis> getProfileHistory(String username) {
         // Returns the lightweight headers (stats + timestamps) without the heavy post text
-        return profileRepo.findAllByUsernameOrderByCreatedAtDesc(username);
+        return profileRepo.findAllByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.ttu_elite.seraph.Services;
 
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -14,9 +15,14 @@ import java.util.Base64;
 import java.util.Map;
 
 @Component
-public class RedditClient {
-    ;
-    private final RestClient restClient = RestClient.create();
+@ConditionalOnProperty(name = "seraph.source", havingValue = "reddit", matchIfMissing = true)
+public class RedditClient implements PostSource {
+    // Reddit's pooled client (see PlatformConnections); RedditFetcher applies the rate limit
+    private final RestClient restClient;
+
+    public RedditClient(PlatformConnections connections) {
+        this.restClient = connections.pool(PlatformRegistry.REDDIT).http();
+    }
 
     @Value("${reddit.clientId}")
     private String clientId;
@@ -26,10 +32,20 @@ public class RedditClient {
 
     @Value("${reddit.userAgent}")
     private String userAgent;
+
+    // App tokens live ~24h; reuse one until shortly before it expires
+    private volatile String cachedToken;
+    private volatile long cachedTokenExpiresAt = 0L;
+
     /**
      * Exchanges Client ID/Secret for a temporary Access Token.
      */
+    @Override
     public String getAppToken() {
+        if (cachedToken != null && System.currentTimeMillis() < cachedTokenExpiresAt) {
+            return cachedToken;
+        }
+
         String authString = clientId + ":" + clientSecret;
         String basicAuth = Base64.getEncoder().encodeToString(authString.getBytes(StandardCharsets.UTF_8));
 
@@ -49,14 +65,18 @@ public class RedditClient {
             throw new RuntimeException("Failed to retrieve Reddit access token");
         }
 
-        return response.get("access_token").toString();
+        long expiresIn = response.get("expires_in") instanceof Number n ? n.longValue() : 3600L;
+        cachedToken = response.get("access_token").toString();
+        cachedTokenExpiresAt = System.currentTimeMillis() + Math.max(0L, expiresIn - 60L) * 1000L;
+        return cachedToken;
     }
 
     /**
-     * Fetches a page of posts submitted by a specific user.
+     * Fetches a page of posts submitted by a specific user, newest first.
      */
+    @Override
     public Map<String, Object> fetchUserSubmitted(String token, String username, String after) {
-        String url = "https://oauth.reddit.com/user/" + username + "/submitted?limit=100";
+        String url = "https://oauth.reddit.com/user/" + username + "/submitted?sort=new&limit=100";
         if (after != null && !after.isBlank()) {
             url += "&after=" + after;
         }
@@ -67,4 +87,23 @@ public class RedditClient {
                 .header(HttpHeaders.USER_AGENT, userAgent)
                 .retrieve()
                 .body(Map.class);
-    }}
+    }
+
+    /**
+     * Fetches a page of comments written by a specific user, newest first.
+     */
+    @Override
+    public Map<String, Object> fetchUserComments(String token, String username, String after) {
+        String url = "https://oauth.reddit.com/user/" + username + "/comments?sort=new&limit=100";
+        if (after != null && !after.isBlank()) {
+            url += "&after=" + after;
+        }
+
+        return restClient.get()
+                .uri(url)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.USER_AGENT, userAgent)
+                .retrieve()
+                .body(Map.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.Post;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reddit behind the PlatformFetcher SPI: submissions, then comments, from whichever PostSource
+ * is active (live API or replay). Listing JSON is mapped to Post here and nowhere else.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedditFetcher implements PlatformFetcher {
+
+    private static final Feed SUBMITTED = new Feed("submitted", Post.KIND_POST);
+    private static final Feed COMMENTS = new Feed("comments", Post.KIND_COMMENT);
+
+    private final PostSource postSource;
+    private final PlatformConnections connections;
+
+    @Override
+    public String platform() {
+        return PlatformRegistry.REDDIT;
+    }
+
+    // https://www.reddit.com/user/spez/ -> spez; anything else is taken as the username itself
+    @Override
+    public String handleOf(String url) {
+        if (url.contains("/user/")) return url.split("/user/")[1].split("/")[0].split("\\?")[0];
+        if (url.contains("/u/")) return url.split("/u/")[1].split("/")[0].split("\\?")[0];
+        return url;
+    }
+
+    @Override
+    public List<Feed> feeds() {
+        return List.of(SUBMITTED, COMMENTS);
+    }
+
+    @Override
+    public Page fetch(String username, Feed feed, String cursor) {
+        PlatformConnections.Pool pool = connections.pool(platform());
+        String token = postSource.getAppToken(); // cached by the source
+        Map<String, Object> response = pool.call(() -> feed == COMMENTS
+                ? postSource.fetchUserComments(token, username, cursor)
+                : postSource.fetchUserSubmitted(token, username, cursor));
+        if (response == null || !response.containsKey("data")) return new Page(List.of(), null);
+
+        Map data = (Map) response.get("data");
+        List<Map> children = (List<Map>) data.get("children");
+        if (children == null || children.isEmpty()) return new Page(List.of(), null);
+
+        List<Post> posts = new ArrayList<>(children.size());
+        for (Map child : children) {
+            Map d = (Map) child.get("data");
+            posts.add(feed == COMMENTS ? toComment(d) : toPost(d));
+        }
+        return new Page(posts, (String) data.get("after"));
+    }
+
+    private static Post toPost(Map d) {
+        return new Post(
+                (String) d.get("id"),
+                Post.KIND_POST,
+                (String) d.get("title"),
+                (String) d.getOrDefault("selftext", ""),
+                "https://www.reddit.com" + d.get("permalink"),
+                ((Number) d.getOrDefault("created_utc", 0)).longValue());
+    }
+
+    // Comments use their fullname (t1_...) so ids can never collide with submission ids
+    private static Post toComment(Map d) {
+        return new Post(
+                (String) d.get("name"),
+                Post.KIND_COMMENT,
+                (String) d.get("link_title"),
+                String.valueOf(d.getOrDefault("body", "")),
+                "https://www.reddit.com" + d.get("permalink"),
+                ((Number) d.getOrDefault("created_utc", 0)).longValue());
+    }
+}
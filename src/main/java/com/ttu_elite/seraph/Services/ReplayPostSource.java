@@ -0,0 +1,185 @@
+package com.ttu_elite.seraph.Services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline stand-in for the Reddit API (seraph.source=replay), for load tests and local runs.
+ *
+ * Recorded users: {seraph.replay.dir}/{username}/submitted-0.json, submitted-1.json, ... and
+ * comments-0.json, ... each holding one raw Reddit listing page (e.g. saved with curl).
+ * Pages are served in order; the "after" cursor is rewritten to walk the files.
+ *
+ * Any other username gets a synthetic, deterministic history (same name -> same posts, same
+ * timestamps), mostly everyday content with a configurable share of risk-flavoured posts.
+ * Timestamps count back from seraph.replay.epoch-seconds, never from the clock, so the trend
+ * watermark treats a re-analysis of the same user exactly the same on every run.
+ *
+ * Every page fetch sleeps seraph.replay.latency-ms (+ jitter) to mimic network time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.source", havingValue = "replay")
+public class ReplayPostSource implements PostSource {
+
+    private static final int PAGE_SIZE = 100;
+    private static final String CURSOR_PREFIX = "replay_";
+
+    private static final List<String> BASELINE_LINES = List.of(
+            "Finally beat the last boss in the game after three weeks of trying.",
+            "Anyone have a good recipe for a quick weeknight dinner? I cook most nights.",
+            "Started a new job today, the team seems great and the code base is clean.",
+            "Went to the gym early this morning and hit a new personal best.",
+            "Just finished this book, the ending was a lot better than the movie.",
+            "Check out this cool hobby project I built over the weekend.",
+            "Weather has been great for running lately, did 10k along the river.",
+            "What are you all watching this weekend? Need a new movie recommendation."
+    );
+
+    private static final List<String> RISK_LINES = List.of(
+            "I feel so empty and lonely lately, crying every night and nothing helps.",
+            "I am so angry I could punch a wall, I hate every idiot at this place.",
+            "Having another panic attack, I cannot breathe and the pressure keeps building.",
+            "I don't see the point anymore, I just want it all to end. Goodbye.",
+            "Everything feels hopeless and the grief will not go away."
+    );
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${seraph.replay.dir:}")
+    private String replayDir;
+
+    @Value("${seraph.replay.latency-ms:150}")
+    private long latencyMs;
+
+    @Value("${seraph.replay.jitter-ms:50}")
+    private long jitterMs;
+
+    @Value("${seraph.replay.synthetic-posts:200}")
+    private int syntheticPosts;
+
+    @Value("${seraph.replay.synthetic-comments:300}")
+    private int syntheticComments;
+
+    // Fraction of synthetic posts drawn from RISK_LINES
+    @Value("${seraph.replay.risk-share:0.15}")
+    private double riskShare;
+
+    // Newest synthetic post is at most a day before this (2024-01-01T00:00:00Z)
+    @Value("${seraph.replay.epoch-seconds:1704067200}")
+    private long epochSeconds;
+
+    private volatile boolean tokenIssued;
+
+    // Like RedditClient, the token is fetched once and then reused
+    @Override
+    public String getAppToken() {
+        if (!tokenIssued) {
+            simulateLatency();
+            tokenIssued = true;
+        }
+        return "replay-token";
+    }
+
+    @Override
+    public Map<String, Object> fetchUserSubmitted(String token, String username, String after) {
+        return page(username, "submitted", after, syntheticPosts);
+    }
+
+    @Override
+    public Map<String, Object> fetchUserComments(String token, String username, String after) {
+        return page(username, "comments", after, syntheticComments);
+    }
+
+    private Map<String, Object> page(String username, String listing, String after, int syntheticCount) {
+        simulateLatency();
+        int pageNo = after != null && after.startsWith(CURSOR_PREFIX) ? Integer.parseInt(after.substring(CURSOR_PREFIX.length())) : 0;
+
+        Path recorded = recordedPage(username, listing, pageNo);
+        if (recorded != null) return replay(username, listing, recorded, pageNo);
+        return synthesize(username, listing, pageNo, syntheticCount);
+    }
+
+    // --- RECORDED PAGES ---
+
+    private Path recordedPage(String username, String listing, int pageNo) {
+        if (replayDir == null || replayDir.isBlank()) return null;
+        Path userDir = Path.of(replayDir, username);
+        if (!Files.isDirectory(userDir)) return null;
+        Path page = userDir.resolve(listing + "-" + pageNo + ".json");
+        // A recorded user with fewer pages just runs out; never fall through to synthetic data
+        return Files.exists(page) ? page : userDir.resolve(listing + "-missing.json");
+    }
+
+    private Map<String, Object> replay(String username, String listing, Path file, int pageNo) {
+        if (!Files.exists(file)) return Map.of("data", Map.of("children", List.of()));
+        try {
+            Map<String, Object> response = objectMapper.readValue(Files.readString(file), Map.class);
+            Map<String, Object> data = new HashMap<>((Map<String, Object>) response.get("data"));
+            boolean hasNext = Files.exists(file.resolveSibling(listing + "-" + (pageNo + 1) + ".json"));
+            data.put("after", hasNext ? CURSOR_PREFIX + (pageNo + 1) : null);
+            return Map.of("data", data);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable replay page " + file + " for " + username, e);
+        }
+    }
+
+    // --- SYNTHETIC USERS ---
+
+    private Map<String, Object> synthesize(String username, String listing, int pageNo, int total) {
+        // Same username + listing -> same history, so repeated runs are comparable
+        Random rnd = new Random(Objects.hash(username, listing));
+        int count = Math.max(1, total / 2 + rnd.nextInt(Math.max(1, total)));
+        long newest = epochSeconds - rnd.nextInt(86400);
+
+        List<Map<String, Object>> children = new ArrayList<>();
+        long createdUtc = newest;
+        for (int i = 0; i < Math.min(count, (pageNo + 1) * PAGE_SIZE); i++) {
+            createdUtc -= 600 + rnd.nextInt(3 * 86400);
+            boolean risky = rnd.nextDouble() < riskShare;
+            String text = risky ? RISK_LINES.get(rnd.nextInt(RISK_LINES.size())) : BASELINE_LINES.get(rnd.nextInt(BASELINE_LINES.size()));
+            if (i < pageNo * PAGE_SIZE) continue; // earlier page: keep the RNG stream aligned
+
+            String id = Integer.toString(Math.abs(Objects.hash(username, listing, i)), 36);
+            Map<String, Object> d = new HashMap<>();
+            d.put("created_utc", createdUtc);
+            if (listing.equals("comments")) {
+                d.put("name", "t1_" + id);
+                d.put("body", text);
+                d.put("link_title", "Synthetic thread " + (i % 17));
+                d.put("permalink", "/r/replay/comments/" + id + "/");
+            } else {
+                d.put("id", id);
+                d.put("title", "Post " + (i + 1) + " by " + username);
+                d.put("selftext", text);
+                d.put("permalink", "/r/replay/comments/" + id + "/");
+            }
+            children.add(Map.of("kind", listing.equals("comments") ? "t1" : "t3", "data", d));
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("children", children);
+        data.put("after", (pageNo + 1) * PAGE_SIZE < count ? CURSOR_PREFIX + (pageNo + 1) : null);
+        return Map.of("data", data);
+    }
+
+    private void simulateLatency() {
+        long sleep = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (sleep <= 0) return;
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
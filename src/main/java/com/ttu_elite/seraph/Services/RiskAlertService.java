@@ -0,0 +1,220 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.dto.RiskAlert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event stage that runs right after scoring: checks every newly scored post against
+ * per-category thresholds and a rate-of-change rule, then hands alerts to the sinks.
+ *
+ * Alerts are deduplicated on (username, post, category) and delivered in batches by a
+ * short fixed-delay flusher, so a burst of risky posts costs one call per sink. Delivery never
+ * runs on the analysing thread: a slow sink delays alerts, not analyses.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RiskAlertService {
+
+    private static final int DEDUP_CAPACITY = 50_000;
+
+    private final List<AlertSink> sinks;
+    private final ProfileTrendAggregator trendAggregator;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+    private final TaxonomyService taxonomy;
+
+    @Value("${seraph.alerts.enabled:true}")
+    private boolean enabled;
+
+    // UI category name -> minimum score that always alerts. Defaults come from taxonomy.json
+    // (alertThreshold); entries here override them per category.
+    @Value("#{${seraph.alerts.thresholds:{:}}}")
+    private Map<String, Double> thresholdOverrides;
+
+    // Rate-of-change rule: score at least riseFactor x the user's running average ...
+    @Value("${seraph.alerts.rise-factor:2.0}")
+    private double riseFactor;
+
+    // ... and at least this high, so a jump from 0.01 to 0.03 stays quiet
+    @Value("${seraph.alerts.rise-min-score:0.3}")
+    private double riseMinScore;
+
+    @Value("${seraph.alerts.batch-size:100}")
+    private int batchSize;
+
+    private final LinkedBlockingQueue<RiskAlert> pending = new LinkedBlockingQueue<>();
+
+    private final Map<String, Boolean> recentlyAlerted = new LinkedHashMap<>(1024, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > DEDUP_CAPACITY;
+        }
+    };
+
+    // Fetch-to-alert latency, from the start of the Reddit fetch to sink delivery
+    private Timer alertLatency;
+
+    // Alerts a sink failed to take; they are dropped, and never counted as delivered
+    private final Map<String, Counter> failedBySink = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        alertLatency = Timer.builder("seraph.alerts.latency")
+                .description("Time from fetch start to alert delivery")
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(metrics.registry());
+        Gauge.builder("seraph.alerts.pending", pending, LinkedBlockingQueue::size)
+                .description("Alerts waiting for the next flush")
+                .register(metrics.registry());
+        for (AlertSink sink : sinks) {
+            failedBySink.put(sink.name(), Counter.builder("seraph.alerts.failed")
+                    .description("Alerts a sink failed to deliver")
+                    .tag("sink", sink.name())
+                    .register(metrics.registry()));
+        }
+    }
+
+    /**
+     * Evaluates posts scored by the current analysis. Must run before the trend aggregator
+     * ingests them, so "new" and "baseline" refer to the user's history without these posts.
+     */
+    public void evaluate(String username, List<RedditPost> scoredPosts, long fetchStartedAtMs) {
+        if (!enabled || scoredPosts.isEmpty()) return;
+        evaluate(username, scoredPosts, fetchStartedAtMs, trendAggregator.watermark(username));
+    }
+
+    /**
+     * @param watermark newest createdUtc known before this analysis began; a streamed analysis
+     *                  captures it once, since every page it ingests moves the live one
+     */
+    public void evaluate(String username, List<RedditPost> scoredPosts, long fetchStartedAtMs, long watermark) {
+        if (!enabled || scoredPosts.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        int queued = 0;
+        Map<String, Double> thresholds = thresholds();
+
+        for (RedditPost post : scoredPosts) {
+            if (post.getCreatedUtc() != null && post.getCreatedUtc() <= watermark) continue; // not new
+
+            Map<String, Double> scores = parseScores(post.getTokens());
+            for (var e : scores.entrySet()) {
+                String category = e.getKey();
+                double score = e.getValue();
+                Double baseline = trendAggregator.average(username, category);
+
+                String rule = null;
+                Double threshold = thresholds.get(category);
+                if (threshold != null && score >= threshold) {
+                    rule = "THRESHOLD";
+                } else if (threshold != null && baseline != null && score >= riseMinScore && score >= baseline * riseFactor) {
+                    rule = "RATE_OF_CHANGE";
+                }
+                if (rule == null) continue;
+
+                if (!markAlerted(username + "|" + post.getRedditPostId() + "|" + category)) continue;
+
+                pending.add(RiskAlert.builder()
+                        .username(username)
+                        .redditPostId(post.getRedditPostId())
+                        .permalink(post.getPermalink())
+                        .category(category)
+                        .rule(rule)
+                        .score(score)
+                        .baseline(baseline == null ? null : Math.round(baseline * 1000.0) / 1000.0)
+                        .createdUtc(post.getCreatedUtc())
+                        .detectedAtMs(now)
+                        .fetchStartedAtMs(fetchStartedAtMs)
+                        .build());
+                queued++;
+            }
+        }
+
+        if (queued > 0) log.info("ALERTS: {} alert(s) queued for {}", queued, username);
+    }
+
+    @Scheduled(fixedDelayString = "${seraph.alerts.flush-ms:250}")
+    public void flush() {
+        while (!pending.isEmpty()) {
+            List<RiskAlert> batch = new ArrayList<>(batchSize);
+            pending.drainTo(batch, batchSize);
+            if (batch.isEmpty()) return;
+
+            boolean delivered = false;
+            for (AlertSink sink : sinks) {
+                try {
+                    sink.publish(batch);
+                    delivered = true;
+                } catch (Exception e) {
+                    failedBySink.get(sink.name()).increment(batch.size());
+                    log.warn("ALERTS: sink {} failed for batch of {}: {}", sink.name(), batch.size(), e.getMessage());
+                }
+            }
+            if (!delivered) continue;
+
+            // Delivered by at least one sink; failures per sink are in seraph.alerts.failed
+            long now = System.currentTimeMillis();
+            for (RiskAlert alert : batch) {
+                alertLatency.record(now - alert.getFetchStartedAtMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Fetch-to-alert latency summary (the same numbers are scraped from seraph.alerts.latency). */
+    public Map<String, Object> latencyStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("delivered", alertLatency.count());
+        double failed = 0;
+        for (Counter c : failedBySink.values()) failed += c.count();
+        stats.put("failed", Math.round(failed));
+        stats.put("pending", pending.size());
+        stats.put("meanMs", Math.round(alertLatency.mean(TimeUnit.MILLISECONDS)));
+        stats.put("maxMs", Math.round(alertLatency.max(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile p : alertLatency.takeSnapshot().percentileValues()) {
+            stats.put("p" + Math.round(p.percentile() * 100) + "Ms", Math.round(p.value(TimeUnit.MILLISECONDS)));
+        }
+        return stats;
+    }
+
+    private boolean markAlerted(String key) {
+        synchronized (recentlyAlerted) {
+            return recentlyAlerted.put(key, Boolean.TRUE) == null;
+        }
+    }
+
+    private Map<String, Double> parseScores(String tokens) {
+        Map<String, Double> scores = new HashMap<>();
+        if (tokens == null) return scores;
+        try {
+            Map<String, Object> raw = objectMapper.readValue(tokens, Map.class);
+            raw.forEach((k, v) -> {
+                if (v instanceof Number n) scores.put(k, n.doubleValue());
+            });
+        } catch (Exception ignored) {}
+        return scores;
+    }
+
+    private Map<String, Double> thresholds() {
+        if (thresholdOverrides.isEmpty()) return taxonomy.current().alertThresholds();
+        Map<String, Double> merged = new HashMap<>(taxonomy.current().alertThresholds());
+        merged.putAll(thresholdOverrides);
+        return merged;
+    }
+}
@@ -0,0 +1,133 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.dto.Post;
+import com.ttu_elite.seraph.dto.PostExplanation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Explanation mode (?explain=true): per post, the keywords behind its BM25 score, the terms it
+ * shares with each category's keyword list weighted by TF-IDF, and the category anchor its
+ * embedding sits closest to.
+ *
+ * Nothing here runs a model. Embeddings come from PostVectorStore (the vectors the pipeline
+ * stored when it scored the post), BM25 and TF-IDF are the rankers' own arithmetic on the
+ * normalized text, so a snapshot hit is explained exactly like a fresh analysis. The cost is
+ * tokenizing each post once more plus a dot product per category: microseconds per post,
+ * visible as the "explain" stage.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScoreExplainer {
+
+    private final Bm25Ranker bm25Ranker;
+    private final TfidfRanker tfidfRanker;
+    private final EmbeddingRanker embeddingRanker;
+    private final PostVectorStore vectorStore;
+    private final TextNormalizer normalizer;
+    private final TaxonomyService taxonomy;
+    private final PipelineMetrics metrics;
+
+    // Terms listed per ranker and category
+    @Value("${seraph.explain.top-terms:5}")
+    private int topTerms;
+
+    /** redditPostId -> explanation, in the order of posts. */
+    public Map<String, PostExplanation> explain(List<RedditPost> posts) {
+        Map<String, PostExplanation> out = new LinkedHashMap<>();
+        if (posts == null || posts.isEmpty()) return out;
+
+        long t = metrics.start();
+        Taxonomy tax = taxonomy.current();
+        List<String> keys = tax.keys();
+
+        // The same text the pipeline scored
+        List<String> texts = new ArrayList<>(posts.size());
+        for (RedditPost p : posts) texts.add(normalizer.normalize(Post.fullText(p.getKind(), p.getTitle(), p.getContent())));
+
+        // Stored vectors; a duplicate was scored with its cluster's vector
+        Set<String> ids = new HashSet<>();
+        for (RedditPost p : posts) {
+            if (p.getRedditPostId() != null) ids.add(p.getRedditPostId());
+            if (p.getDuplicateOf() != null) ids.add(p.getDuplicateOf());
+        }
+        Map<String, float[]> stored = vectorStore.storedVectors(ids);
+        List<float[]> vectors = new ArrayList<>(posts.size());
+        for (RedditPost p : posts) {
+            float[] v = stored.get(p.getRedditPostId());
+            if (v == null && p.getDuplicateOf() != null) v = stored.get(p.getDuplicateOf());
+            vectors.add(v);
+        }
+        Map<String, List<Double>> semantic = embeddingRanker.scoreVectors(vectors, tax);
+
+        // TF-IDF over this batch, on the tokens BM25 matches (keywords are whole lowercase words)
+        List<List<String>> tokens = new ArrayList<>(texts.size());
+        for (String text : texts) tokens.add(bm25Ranker.tokenize(text));
+        Map<String, List<String>> categoryTokens = new LinkedHashMap<>();
+        for (String key : keys) categoryTokens.put(key, tax.keywords(key));
+        List<Map<String, Map<String, Double>>> overlap = tfidfRanker.overlapTerms(tokens, categoryTokens);
+
+        double avgdl = bm25Ranker.averageLength(texts);
+        Map<String, String> anchors = tax.anchors();
+
+        for (int i = 0; i < posts.size(); i++) {
+            RedditPost p = posts.get(i);
+            Map<String, Map<String, Double>> bm25 = bm25Ranker.contributions(texts.get(i), tax, avgdl);
+            boolean embedded = vectors.get(i) != null;
+
+            List<PostExplanation.CategoryExplanation> categories = new ArrayList<>();
+            String nearest = null;
+            double nearestSimilarity = -1.0;
+            for (int c = 0; c < keys.size(); c++) {
+                String key = keys.get(c);
+                double sem = embedded ? semantic.get(key).get(i) : 0.0;
+                if (embedded && sem > nearestSimilarity) {
+                    nearestSimilarity = sem;
+                    nearest = key;
+                }
+
+                Map<String, Double> terms = bm25.getOrDefault(key, Map.of());
+                double keyword = 0.0;
+                for (double v : terms.values()) keyword += v;
+                double fused = embedded ? tax.fuse(c, sem, keyword) : 0.0;
+
+                // Only what moved the score: above the noise floor, or at least one keyword hit
+                if (fused < tax.floor(c) && terms.isEmpty()) continue;
+                categories.add(new PostExplanation.CategoryExplanation(
+                        tax.displayName(key), round(fused), round(sem), round(keyword),
+                        top(terms), top(overlap.get(i).getOrDefault(key, Map.of()))));
+            }
+            categories.sort(Comparator.comparingDouble(PostExplanation.CategoryExplanation::getFused).reversed());
+
+            String path = p.getScoringPath() != null ? p.getScoringPath()
+                    : embedded ? LexicalCascade.PATH_NEURAL : LexicalCascade.PATH_LEXICAL;
+            out.put(p.getRedditPostId(), new PostExplanation(
+                    path,
+                    nearest == null ? null : tax.displayName(nearest),
+                    nearest == null ? null : anchors.get(nearest),
+                    nearest == null ? null : round(nearestSimilarity),
+                    categories));
+        }
+        metrics.stop("explain", t);
+        return out;
+    }
+
+    private List<PostExplanation.Term> top(Map<String, Double> weights) {
+        if (weights.isEmpty()) return List.of();
+        List<Map.Entry<String, Double>> sorted = new ArrayList<>(weights.entrySet());
+        sorted.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        List<PostExplanation.Term> terms = new ArrayList<>(Math.min(topTerms, sorted.size()));
+        for (var e : sorted.subList(0, Math.min(topTerms, sorted.size()))) {
+            terms.add(new PostExplanation.Term(e.getKey(), round(e.getValue())));
+        }
+        return terms;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.dto.AnalysisResult;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latest snapshot per username, kept in memory so repeat lookups skip two DB queries.
+ * Entries are dropped whenever any node writes a new snapshot for the user
+ * (AnalysisJobService.publishSnapshotChanged, fanned out over LISTEN/NOTIFY).
+ *
+ * Bounded by entry count and by estimated bytes (seraph.cache.snapshots.max-bytes), so the
+ * cache cannot outgrow the heap whatever the profile sizes; usage is the seraph.cache.bytes gauge.
+ */
+@Component
+public class SnapshotCache {
+
+    private final ByteBoundedLru<String, AnalysisResult> latest;
+
+    public SnapshotCache(
+            @Value("${seraph.cache.snapshots.max-entries:256}") int maxEntries,
+            @Value("${seraph.cache.snapshots.max-bytes:67108864}") long maxBytes,
+            PipelineMetrics metrics
+    ) {
+        this.latest = new ByteBoundedLru<>(maxEntries, maxBytes, SnapshotCache::weigh);
+        Gauge.builder("seraph.cache.bytes", latest, ByteBoundedLru::bytes)
+                .description("Estimated heap held by an in-memory cache")
+                .tag("cache", "snapshots")
+                .baseUnit("bytes")
+                .register(metrics.registry());
+    }
+
+    public AnalysisResult get(String username) {
+        return latest.get(username);
+    }
+
+    public void put(String username, AnalysisResult result) {
+        latest.put(username, result);
+    }
+
+    public void invalidate(String username) {
+        latest.remove(username);
+    }
+
+    // After a lost LISTEN connection we may have missed invalidations
+    public void clear() {
+        latest.clear();
+    }
+
+    // Summary row + per post: object overhead, its strings and boxed fields
+    private static long weigh(AnalysisResult result) {
+        long bytes = 1024;
+        if (result.getPosts() == null) return bytes;
+        for (RedditPost p : result.getPosts()) {
+            bytes += 160
+                    + ByteBoundedLru.sizeOf(p.getUsername())
+                    + ByteBoundedLru.sizeOf(p.getRedditPostId())
+                    + ByteBoundedLru.sizeOf(p.getPermalink())
+                    + ByteBoundedLru.sizeOf(p.getTitle())
+                    + ByteBoundedLru.sizeOf(p.getContent())
+                    + ByteBoundedLru.sizeOf(p.getKind())
+                    + ByteBoundedLru.sizeOf(p.getTokens())
+                    + ByteBoundedLru.sizeOf(p.getDuplicateOf())
+                    + ByteBoundedLru.sizeOf(p.getScoringPath());
+        }
+        return bytes;
+    }
+}
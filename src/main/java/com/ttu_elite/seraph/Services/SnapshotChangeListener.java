@@ -0,0 +1,91 @@
+package com.ttu_elite.seraph.Services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * LISTENs on the seraph_snapshot channel and forwards other nodes' snapshot changes to
+ * AnalysisJobService (cache invalidation + waking waiting requests) and drops the user's
+ * cached trend state.
+ *
+ * Holds one pooled connection for as long as the node runs. If the connection drops, the
+ * snapshot and trend caches are cleared (notifications may have been missed) and the listener reconnects.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.cluster.enabled", havingValue = "true")
+public class SnapshotChangeListener {
+
+    private static final int POLL_MS = 5_000;
+
+    private final DataSource dataSource;
+    private final AnalysisJobService jobService;
+    private final SnapshotCache snapshotCache;
+    private final ProfileTrendAggregator trendAggregator;
+
+    private volatile boolean running = true;
+    private Thread listener;
+
+    @PostConstruct
+    public void start() {
+        listener = Thread.ofVirtual().name("seraph-listen").start(this::listenLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1_000;
+        while (running) {
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                conn.setAutoCommit(true);
+                stmt.execute("LISTEN " + AnalysisJobService.CHANNEL);
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                log.info("LISTEN {} as node {}", AnalysisJobService.CHANNEL, jobService.nodeId());
+                backoffMs = 1_000;
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) handle(n.getParameter());
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                log.warn("LISTEN connection lost, reconnecting in {} ms: {}", backoffMs, e.getMessage());
+                snapshotCache.clear();
+                trendAggregator.clear();
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    // Payload: "<origin node>|<username>"; our own changes were already applied locally
+    private void handle(String payload) {
+        int sep = payload == null ? -1 : payload.indexOf('|');
+        if (sep < 0) return;
+        String origin = payload.substring(0, sep);
+        if (origin.equals(jobService.nodeId())) return;
+        String username = payload.substring(sep + 1);
+        trendAggregator.invalidate(username);
+        jobService.onSnapshotChanged(username);
+    }
+}
@@ -0,0 +1,228 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
+import com.ttu_elite.seraph.Repositories.RedditPostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Background housekeeping for snapshot storage. Each run:
+ *
+ * 1. Migrates legacy reddit_post rows (text copied into every snapshot) into post_content,
+ *    one id range per batch, and blanks the copied columns.
+ * 2. Applies retention per user: the newest keep-snapshots snapshots stay, older ones are
+ *    downsampled to the newest snapshot per UTC day for downsample-days, everything older goes.
+ *    Snapshots still marked incomplete after abandoned-minutes (a node died mid-stream) go too.
+ * 3. Deletes post_content rows no snapshot points at any more, batch-size rows per transaction.
+ *    Rows a writer has locked (PostStore.saveAll) are skipped until the next run.
+ * 4. If reddit_post is range-partitioned (db/reddit_post_partitioned.sql), makes sure this
+ *    month's and next month's partitions exist.
+ *
+ * Every step is idempotent, so it is safe for several nodes to run it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class SnapshotCompactor {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final ProfileAnalysisRepository profileRepo;
+    private final RedditPostRepository postRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${seraph.retention.keep-snapshots:10}")
+    private int keepSnapshots;
+
+    // Beyond the newest keep-snapshots, one snapshot per day survives for this many days
+    @Value("${seraph.retention.downsample-days:30}")
+    private int downsampleDays;
+
+    // An incomplete (streaming) snapshot this old was abandoned; a live stream finishes in minutes
+    @Value("${seraph.retention.abandoned-minutes:60}")
+    private long abandonedMinutes;
+
+    // Legacy rows migrated per transaction
+    @Value("${seraph.retention.batch-size:5000}")
+    private int batchSize;
+
+    private volatile boolean legacyMigrated = false;
+
+    @Scheduled(fixedDelayString = "${seraph.retention.compact-ms:3600000}", initialDelayString = "${seraph.retention.initial-delay-ms:60000}")
+    public void compact() {
+        try {
+            migrateLegacyRows();
+        } catch (Exception e) {
+            log.warn("COMPACT: legacy migration failed: {}", e.getMessage());
+        }
+        try {
+            applyRetention();
+        } catch (Exception e) {
+            log.warn("COMPACT: retention failed: {}", e.getMessage());
+        }
+        try {
+            removeAbandoned();
+        } catch (Exception e) {
+            log.warn("COMPACT: abandoned snapshot cleanup failed: {}", e.getMessage());
+        }
+        try {
+            removeOrphanContent();
+        } catch (Exception e) {
+            log.warn("COMPACT: orphan content sweep failed: {}", e.getMessage());
+        }
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            log.warn("COMPACT: partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    // --- 1. LEGACY MIGRATION ---
+
+    private void migrateLegacyRows() {
+        if (legacyMigrated) return;
+
+        Set<String> columns = new HashSet<>(jdbc.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = 'reddit_post'", String.class));
+        if (!columns.contains("content")) {
+            legacyMigrated = true; // schema was created with the normalized layout
+            return;
+        }
+
+        String kind = columns.contains("kind") ? "COALESCE(kind, 'post')" : "'post'";
+        String copy = "INSERT INTO post_content (reddit_post_id, username, permalink, title, content, created_utc, kind) " +
+                "SELECT DISTINCT ON (reddit_post_id) reddit_post_id, username, permalink, title, content, created_utc, " + kind + " " +
+                "FROM reddit_post WHERE id > ? AND id <= ? AND reddit_post_id IS NOT NULL " +
+                "AND (content IS NOT NULL OR title IS NOT NULL OR permalink IS NOT NULL) " +
+                "ORDER BY reddit_post_id, id DESC " +
+                "ON CONFLICT (reddit_post_id) DO NOTHING";
+        String blank = "UPDATE reddit_post SET permalink = NULL, title = NULL, content = NULL " +
+                "WHERE id > ? AND id <= ? AND (content IS NOT NULL OR title IS NOT NULL OR permalink IS NOT NULL)";
+
+        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM reddit_post " +
+                "WHERE content IS NOT NULL OR title IS NOT NULL OR permalink IS NOT NULL", Long.class);
+        if (maxId == null) {
+            legacyMigrated = true;
+            return;
+        }
+        Long minId = jdbc.queryForObject("SELECT MIN(id) FROM reddit_post " +
+                "WHERE content IS NOT NULL OR title IS NOT NULL OR permalink IS NOT NULL", Long.class);
+
+        int blanked = 0;
+        for (long from = minId - 1; from < maxId; from += batchSize) {
+            long lo = from;
+            long hi = from + batchSize;
+            Integer n = tx.execute(status -> {
+                jdbc.update(copy, lo, hi);
+                return jdbc.update(blank, lo, hi);
+            });
+            blanked += n == null ? 0 : n;
+        }
+        log.info("COMPACT: moved text of {} legacy snapshot rows into post_content", blanked);
+    }
+
+    // --- 2. RETENTION ---
+
+    private void applyRetention() {
+        Instant dailyCutoff = Instant.now().minus(Duration.ofDays(downsampleDays));
+        int deletedSnapshots = 0;
+        int deletedRows = 0;
+
+        for (String username : profileRepo.findTrackedUsernames()) {
+            List<ProfileAnalysis> history = profileRepo.findAllByUsernameAndIncompleteFalseOrderByCreatedAtDesc(username);
+            if (history.size() <= keepSnapshots) continue;
+
+            List<Long> doomed = new ArrayList<>();
+            Set<LocalDate> keptDays = new HashSet<>();
+            for (int i = keepSnapshots; i < history.size(); i++) {
+                ProfileAnalysis p = history.get(i);
+                Instant at = p.getCreatedAt();
+                // Newest first, so the first snapshot seen for a day is the one that survives
+                boolean keep = at != null && at.isAfter(dailyCutoff) && keptDays.add(at.atZone(ZoneOffset.UTC).toLocalDate());
+                if (!keep) doomed.add(p.getId());
+            }
+            if (doomed.isEmpty()) continue;
+
+            Integer rows = tx.execute(status -> {
+                int n = postRepo.deleteAllByAnalysisIdIn(doomed);
+                profileRepo.deleteAllByIdInBatch(doomed);
+                return n;
+            });
+            deletedSnapshots += doomed.size();
+            deletedRows += rows == null ? 0 : rows;
+        }
+
+        if (deletedSnapshots > 0) {
+            log.info("COMPACT: retention removed {} snapshots ({} post score rows)", deletedSnapshots, deletedRows);
+        }
+    }
+
+    private void removeAbandoned() {
+        List<Long> doomed = new ArrayList<>();
+        for (ProfileAnalysis p : profileRepo.findAllByIncompleteTrueAndCreatedAtBefore(
+                Instant.now().minus(Duration.ofMinutes(abandonedMinutes)))) {
+            doomed.add(p.getId());
+        }
+        if (doomed.isEmpty()) return;
+
+        Integer rows = tx.execute(status -> {
+            int n = postRepo.deleteAllByAnalysisIdIn(doomed);
+            profileRepo.deleteAllByIdInBatch(doomed);
+            return n;
+        });
+        log.info("COMPACT: removed {} abandoned incomplete snapshots ({} post score rows)", doomed.size(), rows);
+    }
+
+    // --- 3. ORPHAN CONTENT ---
+
+    private void removeOrphanContent() {
+        String sweep = "DELETE FROM post_content WHERE id IN (" +
+                "SELECT c.id FROM post_content c WHERE NOT EXISTS " +
+                "(SELECT 1 FROM reddit_post p WHERE p.reddit_post_id = c.reddit_post_id) " +
+                "LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+        int deleted = 0;
+        while (true) {
+            Integer n = tx.execute(status -> jdbc.update(sweep, batchSize));
+            if (n == null || n == 0) break;
+            deleted += n;
+            if (n < batchSize) break;
+        }
+        if (deleted > 0) log.info("COMPACT: removed text of {} posts no snapshot references", deleted);
+    }
+
+    // --- 4. PARTITIONS ---
+
+    private void ensurePartitions() {
+        Integer partitioned = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('reddit_post')", Integer.class);
+        if (partitioned == null || partitioned == 0) return;
+
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        for (YearMonth m : List.of(month, month.plusMonths(1))) {
+            String name = "reddit_post_" + m.format(PARTITION_SUFFIX);
+            String from = m.atDay(1).toString();
+            String to = m.plusMonths(1).atDay(1).toString();
+            try {
+                jdbc.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF reddit_post " +
+                        "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            } catch (Exception e) {
+                // Usually: rows for that month already sit in the default partition
+                log.warn("COMPACT: could not create partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * What changed between two snapshots of one profile, from the stored per-post scores only:
+ * no fetch, no model. Both snapshots' rows are read in redditPostId order off the
+ * (analysisId, redditPostId) index and merge-joined by Postgres (FULL OUTER JOIN with hash
+ * joins disabled for the query), then streamed through a server-side cursor, so however large
+ * the snapshots, a diff holds only the top-movers heap and per-category sums in memory.
+ *
+ * Output is NDJSON, one object per line, in this order:
+ *   {"type": "header", "username": ..., "from": {...}, "to": {...}, "taxonomyChanged": false}
+ *   {"type": "added",   "redditPostId": ..., "createdUtc": ..., "topCategory": ..., "scores": {...}}
+ *   {"type": "removed", "redditPostId": ..., "createdUtc": ..., "topCategory": ..., "scores": {...}}
+ *   {"type": "summary", "added": n, "removed": n, "common": n, "changed": n,
+ *    "categoryShifts": [...], "topMovers": [...]}
+ * A post's movement is its largest per-category score change; "changed" counts the common
+ * posts that moved at least min-change. Category shifts compare the snapshot shares (from the
+ * stored totals) and the mean per-post score, plus the mean change over the common posts only,
+ * which separates "the scores moved" from "different posts were scored".
+ */
+@Service
+public class SnapshotDiffService {
+
+    // Full outer join of the two snapshots on the post id. No ORDER BY: the merge already emits
+    // rows in key order, and sorting on an expression would make Postgres buffer the whole result
+    private static final String MERGE_SQL =
+            "SELECT a.reddit_post_id AS from_id, b.reddit_post_id AS to_id, " +
+                    "a.tokens AS from_scores, b.tokens AS to_scores, " +
+                    "COALESCE(b.created_utc, a.created_utc) AS created_utc " +
+                    "FROM (SELECT reddit_post_id, tokens, created_utc FROM reddit_post " +
+                    "      WHERE analysis_id = ? AND reddit_post_id IS NOT NULL) a " +
+                    "FULL OUTER JOIN (SELECT reddit_post_id, tokens, created_utc FROM reddit_post " +
+                    "      WHERE analysis_id = ? AND reddit_post_id IS NOT NULL) b " +
+                    "ON a.reddit_post_id = b.reddit_post_id";
+
+    private final JdbcTemplate cursorJdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics metrics;
+
+    // Default size of the topMovers list; ?top= overrides per request
+    @Value("${seraph.diff.top-movers:20}")
+    private int defaultTop;
+
+    // Smallest per-category change that counts a common post as "changed"
+    @Value("${seraph.diff.min-change:0.01}")
+    private double minChange;
+
+    public SnapshotDiffService(DataSource dataSource, TransactionTemplate tx, ObjectMapper objectMapper,
+                               PipelineMetrics metrics, @Value("${seraph.diff.fetch-size:1000}") int fetchSize) {
+        // Own template so the fetch size does not leak into the rest of the app
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(fetchSize);
+        this.tx = tx;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    public int defaultTop() {
+        return defaultTop;
+    }
+
+    private record Mover(String redditPostId, double delta, String category,
+                         Map<String, Double> from, Map<String, Double> to) {}
+
+    /** Per category: sums over each side's posts and over the change of the common ones. */
+    private static final class Sums {
+        double from, to, commonDelta;
+    }
+
+    /** Streams the diff of two snapshots of the same profile to out. Returns the number of posts compared. */
+    public long diff(ProfileAnalysis from, ProfileAnalysis to, int top, OutputStream out) throws IOException {
+        long started = metrics.start();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("type", "header");
+        header.put("username", to.getUsername());
+        header.put("from", snapshot(from));
+        header.put("to", snapshot(to));
+        header.put("taxonomyChanged", !Objects.equals(from.getTaxonomyVersion(), to.getTaxonomyVersion()));
+        writeLine(writer, header);
+
+        Map<String, Sums> sums = new LinkedHashMap<>();
+        PriorityQueue<Mover> movers = new PriorityQueue<>(Comparator.comparingDouble(Mover::delta));
+        long[] counts = new long[4]; // added, removed, common, changed
+
+        // Postgres only streams with a cursor inside a transaction (autocommit off)
+        tx.executeWithoutResult(status -> {
+            // A FULL JOIN can only be hashed or merged; with the index in join-key order the merge
+            // needs no sort and no hash table of either snapshot. SET LOCAL ends with the transaction.
+            cursorJdbc.execute("SET LOCAL enable_hashjoin = off");
+            cursorJdbc.query(MERGE_SQL, (RowCallbackHandler) rs -> {
+                String fromId = rs.getString("from_id");
+                String toId = rs.getString("to_id");
+                Long createdUtc = rs.getObject("created_utc") == null ? null : rs.getLong("created_utc");
+                Map<String, Double> fromScores = scores(rs.getString("from_scores"));
+                Map<String, Double> toScores = scores(rs.getString("to_scores"));
+
+                fromScores.forEach((c, v) -> sums.computeIfAbsent(c, k -> new Sums()).from += v);
+                toScores.forEach((c, v) -> sums.computeIfAbsent(c, k -> new Sums()).to += v);
+
+                if (fromId == null) {
+                    counts[0]++;
+                    writeLine(writer, post("added", toId, createdUtc, toScores));
+                } else if (toId == null) {
+                    counts[1]++;
+                    writeLine(writer, post("removed", fromId, createdUtc, fromScores));
+                } else {
+                    counts[2]++;
+                    Mover m = movement(toId, fromScores, toScores, sums);
+                    if (m.delta() >= minChange) counts[3]++;
+                    if (top > 0 && m.delta() > 0.0) {
+                        movers.add(m);
+                        if (movers.size() > top) movers.poll();
+                    }
+                }
+            }, from.getId(), to.getId());
+        });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("added", counts[0]);
+        summary.put("removed", counts[1]);
+        summary.put("common", counts[2]);
+        summary.put("changed", counts[3]);
+        summary.put("categoryShifts", categoryShifts(from, to, sums, counts));
+        summary.put("topMovers", topMovers(movers));
+        writeLine(writer, summary);
+        writer.flush();
+
+        metrics.stop("diff", started);
+        return counts[0] + counts[1] + counts[2];
+    }
+
+    private Mover movement(String postId, Map<String, Double> from, Map<String, Double> to, Map<String, Sums> sums) {
+        double largest = 0.0;
+        String category = null;
+        Set<String> categories = new LinkedHashSet<>(from.keySet());
+        categories.addAll(to.keySet());
+        for (String c : categories) {
+            double delta = to.getOrDefault(c, 0.0) - from.getOrDefault(c, 0.0);
+            sums.computeIfAbsent(c, k -> new Sums()).commonDelta += delta;
+            if (Math.abs(delta) > largest) {
+                largest = Math.abs(delta);
+                category = c;
+            }
+        }
+        return new Mover(postId, largest, category, from, to);
+    }
+
+    private List<Map<String, Object>> categoryShifts(ProfileAnalysis from, ProfileAnalysis to,
+                                                     Map<String, Sums> sums, long[] counts) {
+        Map<String, Double> fromShares = shares(from.getProfileTotalsJson());
+        Map<String, Double> toShares = shares(to.getProfileTotalsJson());
+        Set<String> categories = new LinkedHashSet<>(toShares.keySet());
+        categories.addAll(fromShares.keySet());
+        categories.addAll(sums.keySet());
+
+        long fromPosts = counts[1] + counts[2];
+        long toPosts = counts[0] + counts[2];
+        List<Map<String, Object>> shifts = new ArrayList<>(categories.size());
+        for (String c : categories) {
+            Sums s = sums.getOrDefault(c, new Sums());
+            double fromShare = fromShares.getOrDefault(c, 0.0);
+            double toShare = toShares.getOrDefault(c, 0.0);
+            double fromMean = fromPosts == 0 ? 0.0 : s.from / fromPosts;
+            double toMean = toPosts == 0 ? 0.0 : s.to / toPosts;
+
+            Map<String, Object> shift = new LinkedHashMap<>();
+            shift.put("category", c);
+            shift.put("fromShare", round(fromShare));
+            shift.put("toShare", round(toShare));
+            shift.put("shareDelta", round(toShare - fromShare));
+            shift.put("fromMean", round(fromMean));
+            shift.put("toMean", round(toMean));
+            shift.put("meanDelta", round(toMean - fromMean));
+            shift.put("commonMeanDelta", round(counts[2] == 0 ? 0.0 : s.commonDelta / counts[2]));
+            shifts.add(shift);
+        }
+        // Biggest movers first
+        shifts.sort(Comparator.comparingDouble((Map<String, Object> m) -> -Math.abs((Double) m.get("shareDelta"))));
+        return shifts;
+    }
+
+    private static List<Map<String, Object>> topMovers(PriorityQueue<Mover> heap) {
+        List<Mover> sorted = new ArrayList<>(heap);
+        sorted.sort(Comparator.comparingDouble(Mover::delta).reversed());
+        List<Map<String, Object>> out = new ArrayList<>(sorted.size());
+        for (Mover m : sorted) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("redditPostId", m.redditPostId());
+            row.put("delta", round(m.delta()));
+            row.put("category", m.category());
+            row.put("fromTopCategory", topCategory(m.from()));
+            row.put("toTopCategory", topCategory(m.to()));
+            row.put("fromScores", m.from());
+            row.put("toScores", m.to());
+            out.add(row);
+        }
+        return out;
+    }
+
+    private static Map<String, Object> snapshot(ProfileAnalysis p) {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("analysisId", p.getId());
+        s.put("createdAt", p.getCreatedAt().toString());
+        s.put("postCount", p.getPostCount());
+        s.put("topCategory", p.getTopCategoryOverall());
+        s.put("taxonomyVersion", p.getTaxonomyVersion());
+        return s;
+    }
+
+    private static Map<String, Object> post(String type, String postId, Long createdUtc, Map<String, Double> scores) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("type", type);
+        row.put("redditPostId", postId);
+        row.put("createdUtc", createdUtc);
+        row.put("topCategory", topCategory(scores));
+        row.put("scores", scores);
+        return row;
+    }
+
+    private static String topCategory(Map<String, Double> scores) {
+        return scores.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+    }
+
+    // Stored score maps are keyed by UI name; unreadable JSON counts as no scores
+    private Map<String, Double> scores(String json) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        if (json == null) return scores;
+        try {
+            Map<String, Object> raw = objectMapper.readValue(json, Map.class);
+            raw.forEach((k, v) -> {
+                if (v instanceof Number n) scores.put(k, n.doubleValue());
+            });
+        } catch (Exception e) {
+            scores.clear();
+        }
+        return scores;
+    }
+
+    private Map<String, Double> shares(String totalsJson) {
+        Map<String, Double> totals = scores(totalsJson);
+        double mass = 0.0;
+        for (double v : totals.values()) mass += v;
+        Map<String, Double> shares = new LinkedHashMap<>();
+        if (mass <= 0.0) return shares;
+        for (var e : totals.entrySet()) shares.put(e.getKey(), e.getValue() / mass);
+        return shares;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10000.0) / 10000.0;
+    }
+
+    private void writeLine(BufferedWriter writer, Object row) {
+        try {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // client went away mid-stream
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.RiskAlert;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes alert batches to every dashboard connected to GET /SERAPH/alerts/stream.
+ */
+@Component
+public class SseAlertSink implements AlertSink {
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L); // no timeout, the dashboard keeps it open
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    @Override
+    public String name() {
+        return "sse";
+    }
+
+    @Override
+    public void publish(List<RiskAlert> batch) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("risk-alert").data(batch));
+            } catch (Exception e) {
+                emitters.remove(emitter); // client went away
+            }
+        }
+    }
+}
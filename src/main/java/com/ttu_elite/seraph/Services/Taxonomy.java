@@ -0,0 +1,315 @@
+package com.ttu_elite.seraph.Services;
+
+import java.util.*;
+
+/**
+ * One loaded version of taxonomy.json, compiled for scoring: anchor vectors as a unit-length
+ * matrix, keywords as a term -> categories index, plus display names and thresholds.
+ *
+ * Immutable. TaxonomyService swaps whole instances, and callers take one instance per batch,
+ * so a batch is always scored against a single consistent version.
+ *
+ * Fusion per category is either the fixed blend from "scoring" (semantic * w + min(bm25 / scale, 1) * w)
+ * or, when the category has a "fusion" block (written by tools.FusionTrainer), a logistic model
+ * p = sigmoid(a * semantic + b * ln(1 + bm25) + c) that outputs a calibrated probability.
+ */
+public final class Taxonomy {
+
+    // --- taxonomy.json shape ---
+
+    public record Definition(int version, Scoring scoring, List<Category> categories) {}
+
+    public record Scoring(Double semanticWeight, Double keywordWeight, Double keywordScale, Double minScore, Double baselineBoost) {}
+
+    public record Category(String key, String displayName, Boolean baseline, String anchor,
+                           List<String> keywords, Double minScore, Double alertThreshold, Fusion fusion) {}
+
+    /** Learned logistic fusion for one category; threshold replaces minScore as its noise floor. */
+    public record Fusion(double semantic, double keyword, double bias, Double threshold) {}
+
+    private final int version;
+    private final String hash;
+    private final List<String> keys;
+    private final Map<String, Category> byKey = new LinkedHashMap<>();
+    private final Map<String, String> anchors = new LinkedHashMap<>();
+    private final float[][] anchorMatrix;
+    private final Map<String, int[]> keywordIndex = new HashMap<>();
+    private final Map<String, Double> alertThresholds = new LinkedHashMap<>();
+    private final String baselineKey;
+
+    private final double semanticWeight;
+    private final double keywordWeight;
+    private final double keywordScale;
+    private final double defaultMinScore;
+    private final double baselineBoost;
+
+    // Per-category fusion, flattened into arrays indexed like keys() for the merge loop
+    private final boolean[] learned;
+    private final double[] fusionSemantic;
+    private final double[] fusionKeyword;
+    private final double[] fusionBias;
+    private final double[] floor;
+
+    private Taxonomy(Definition def, String hash, Map<String, float[]> anchorVectors) {
+        this.version = def.version();
+        this.hash = hash;
+
+        Scoring s = def.scoring() == null ? new Scoring(null, null, null, null, null) : def.scoring();
+        this.semanticWeight = s.semanticWeight() == null ? 0.7 : s.semanticWeight();
+        this.keywordWeight = s.keywordWeight() == null ? 0.3 : s.keywordWeight();
+        this.keywordScale = s.keywordScale() == null ? 5.0 : s.keywordScale();
+        this.defaultMinScore = s.minScore() == null ? 0.15 : s.minScore();
+        this.baselineBoost = s.baselineBoost() == null ? 0.9 : s.baselineBoost();
+
+        List<String> keyList = new ArrayList<>();
+        String baseline = null;
+        for (Category c : def.categories()) {
+            keyList.add(c.key());
+            byKey.put(c.key(), c);
+            anchors.put(c.key(), c.anchor());
+            if (Boolean.TRUE.equals(c.baseline())) baseline = c.key();
+            if (c.alertThreshold() != null) alertThresholds.put(displayName(c.key()), c.alertThreshold());
+        }
+        this.keys = List.copyOf(keyList);
+        this.baselineKey = baseline;
+
+        int n = keys.size();
+        this.learned = new boolean[n];
+        this.fusionSemantic = new double[n];
+        this.fusionKeyword = new double[n];
+        this.fusionBias = new double[n];
+        this.floor = new double[n];
+        for (int i = 0; i < n; i++) {
+            Category c = byKey.get(keys.get(i));
+            Fusion f = c.fusion();
+            learned[i] = f != null;
+            if (f != null) {
+                fusionSemantic[i] = f.semantic();
+                fusionKeyword[i] = f.keyword();
+                fusionBias[i] = f.bias();
+            }
+            floor[i] = f != null && f.threshold() != null ? f.threshold() : minScore(c.key());
+        }
+
+        this.anchorMatrix = new float[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) anchorMatrix[i] = unit(anchorVectors.get(keys.get(i)));
+
+        // term -> every category listing it ("kill" is both HOSTILITY and SELF_HARM_RISK)
+        Map<String, List<Integer>> index = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<String> words = byKey.get(keys.get(i)).keywords();
+            if (words == null) continue;
+            for (String w : new LinkedHashSet<>(words)) {
+                index.computeIfAbsent(w.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(i);
+            }
+        }
+        index.forEach((term, cats) -> keywordIndex.put(term, cats.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Validates a parsed definition and builds the compiled form.
+     *
+     * @param anchorVectors category key -> embedded anchor sentence, for every category
+     * @throws IllegalArgumentException when the definition is unusable
+     */
+    public static Taxonomy compile(Definition def, String hash, Map<String, float[]> anchorVectors) {
+        validate(def);
+        for (Category c : def.categories()) {
+            if (anchorVectors.get(c.key()) == null) throw new IllegalArgumentException("No anchor vector for " + c.key());
+        }
+        return new Taxonomy(def, hash, anchorVectors);
+    }
+
+    public static void validate(Definition def) {
+        if (def == null || def.categories() == null || def.categories().isEmpty()) {
+            throw new IllegalArgumentException("taxonomy has no categories");
+        }
+        Set<String> keys = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        int baselines = 0;
+        for (Category c : def.categories()) {
+            if (c.key() == null || c.key().isBlank()) throw new IllegalArgumentException("category without key");
+            if (!keys.add(c.key())) throw new IllegalArgumentException("duplicate category key " + c.key());
+            String name = c.displayName() == null ? c.key() : c.displayName();
+            if (!names.add(name)) throw new IllegalArgumentException("duplicate display name " + name);
+            if (c.anchor() == null || c.anchor().isBlank()) throw new IllegalArgumentException("category " + c.key() + " has no anchor");
+            if (Boolean.TRUE.equals(c.baseline())) baselines++;
+            Fusion f = c.fusion();
+            if (f != null && !(Double.isFinite(f.semantic()) && Double.isFinite(f.keyword()) && Double.isFinite(f.bias()))) {
+                throw new IllegalArgumentException("category " + c.key() + " has a non-finite fusion coefficient");
+            }
+            if (f != null && f.threshold() != null && (f.threshold() < 0 || f.threshold() >= 1)) {
+                throw new IllegalArgumentException("category " + c.key() + " fusion threshold must be in [0, 1)");
+            }
+        }
+        if (baselines != 1) throw new IllegalArgumentException("exactly one category must be the baseline, found " + baselines);
+    }
+
+    // --- ACCESSORS ---
+
+    public int version() {
+        return version;
+    }
+
+    public String hash() {
+        return hash;
+    }
+
+    /** Internal category keys in file order. */
+    public List<String> keys() {
+        return keys;
+    }
+
+    public String baselineKey() {
+        return baselineKey;
+    }
+
+    public String displayName(String key) {
+        Category c = byKey.get(key);
+        return c == null || c.displayName() == null ? key : c.displayName();
+    }
+
+    public String baselineDisplayName() {
+        return displayName(baselineKey);
+    }
+
+    /** Display names in file order (the keys of every stored score map). */
+    public List<String> displayNames() {
+        List<String> names = new ArrayList<>(keys.size());
+        for (String k : keys) names.add(displayName(k));
+        return names;
+    }
+
+    /** Category key -> anchor sentence. */
+    public Map<String, String> anchors() {
+        return Collections.unmodifiableMap(anchors);
+    }
+
+    /** Unit-length anchor vectors, one row per key in keys() order. */
+    public float[][] anchorMatrix() {
+        return anchorMatrix;
+    }
+
+    /** Lowercased keyword -> indexes into keys() of the categories that list it. */
+    public Map<String, int[]> keywordIndex() {
+        return keywordIndex;
+    }
+
+    /** Lowercased keywords of one category, as matched by BM25 (empty if it has none). */
+    public List<String> keywords(String key) {
+        Category c = byKey.get(key);
+        if (c == null || c.keywords() == null) return List.of();
+        List<String> words = new ArrayList<>(c.keywords().size());
+        for (String w : c.keywords()) words.add(w.toLowerCase(Locale.ROOT));
+        return words;
+    }
+
+    /** Display name -> score that always raises an alert. */
+    public Map<String, Double> alertThresholds() {
+        return Collections.unmodifiableMap(alertThresholds);
+    }
+
+    public double minScore(String key) {
+        Category c = byKey.get(key);
+        return c == null || c.minScore() == null ? defaultMinScore : c.minScore();
+    }
+
+    // --- SCORING ---
+
+    /**
+     * Fused score per category for post i from the raw semantic (cosine) and keyword (BM25)
+     * scores, with per-category noise floors applied.
+     */
+    public Map<String, Double> fuse(Map<String, List<Double>> semantic, Map<String, List<Double>> keyword, int i) {
+        Map<String, Double> fused = new HashMap<>();
+        for (int c = 0; c < keys.size(); c++) {
+            String key = keys.get(c);
+            List<Double> sem = semantic.get(key);
+            List<Double> kw = keyword.get(key);
+            double s = sem != null && i < sem.size() ? sem.get(i) : 0.0;
+            double k = kw != null && i < kw.size() ? kw.get(i) : 0.0;
+            double score = fuse(c, s, k);
+            fused.put(key, score < floor[c] ? 0.0 : score);
+        }
+        return fused;
+    }
+
+    /**
+     * Degraded-mode score per category for post i when the embedding model was unavailable:
+     * the keyword term alone at full weight, min(bm25 / keywordScale, 1), for fixed and learned
+     * categories alike (a learned model has no meaning without its semantic input). Coarser than
+     * fuse(); callers flag posts scored this way.
+     */
+    public Map<String, Double> fuseKeywordOnly(Map<String, List<Double>> keyword, int i) {
+        Map<String, Double> fused = new HashMap<>();
+        for (int c = 0; c < keys.size(); c++) {
+            String key = keys.get(c);
+            List<Double> kw = keyword.get(key);
+            double score = Math.min((kw != null && i < kw.size() ? kw.get(i) : 0.0) / keywordScale, 1.0);
+            fused.put(key, score < floor[c] ? 0.0 : score);
+        }
+        return fused;
+    }
+
+    /** Fused score of category index c before the noise floor. */
+    public double fuse(int c, double semantic, double bm25) {
+        if (learned[c]) {
+            double z = fusionSemantic[c] * semantic + fusionKeyword[c] * Math.log1p(bm25) + fusionBias[c];
+            return 1.0 / (1.0 + Math.exp(-z));
+        }
+        return semantic * semanticWeight + Math.min(bm25 / keywordScale, 1.0) * keywordWeight;
+    }
+
+    /** Noise floor of category index c: the learned threshold, else minScore. */
+    public double floor(int c) {
+        return floor[c];
+    }
+
+    public double floor(String key) {
+        int c = keys.indexOf(key);
+        return c < 0 ? defaultMinScore : floor[c];
+    }
+
+    public boolean isLearned(String key) {
+        int c = keys.indexOf(key);
+        return c >= 0 && learned[c];
+    }
+
+    /** All-zero scores, for posts no model looked at; label() turns them into a baseline post. */
+    public Map<String, Double> zeros() {
+        Map<String, Double> zeros = new HashMap<>();
+        for (String key : keys) zeros.put(key, 0.0);
+        return zeros;
+    }
+
+    /** Highest score outside the baseline category. */
+    public double maxRisk(Map<String, Double> scores) {
+        double max = 0.0;
+        for (var e : scores.entrySet()) {
+            if (!e.getKey().equals(baselineKey)) max = Math.max(max, e.getValue());
+        }
+        return max;
+    }
+
+    /**
+     * Final UI form of a post's scores: boosts the baseline when nothing else fired, renames
+     * keys to display names and rounds to 2 decimals. Mutates the baseline entry of raw.
+     */
+    public Map<String, Double> label(Map<String, Double> raw) {
+        if (maxRisk(raw) == 0.0) raw.put(baselineKey, baselineBoost);
+
+        Map<String, Double> ui = new HashMap<>();
+        raw.forEach((k, v) -> ui.put(displayName(k), Math.round(v * 100.0) / 100.0));
+        return ui;
+    }
+
+    static float[] unit(float[] v) {
+        double norm = 0.0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0.0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+}
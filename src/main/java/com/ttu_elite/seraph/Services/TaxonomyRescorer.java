@@ -0,0 +1,61 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Brings each user's latest snapshot up to the live taxonomy version after a reload, a few
+ * snapshots per tick, from the stored embeddings. Older history keeps the scores it was
+ * created with (its taxonomyVersion says which).
+ *
+ * Latest snapshots with degraded posts (scored BM25-only while the embedding model was
+ * unavailable) are rescored the same way once the model's circuit breaker is closed again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.taxonomy.rescore-enabled", havingValue = "true", matchIfMissing = true)
+public class TaxonomyRescorer {
+
+    private final TaxonomyService taxonomy;
+    private final RedditAnalyzeService service;
+    private final ProfileAnalysisRepository profileRepo;
+    private final CircuitBreakers breakers;
+
+    // Snapshots rescored per tick, so a reload never turns into one long burst
+    @Value("${seraph.taxonomy.rescore-batch:50}")
+    private int batch;
+
+    @Scheduled(fixedDelayString = "${seraph.taxonomy.rescore-ms:30000}", initialDelayString = "${seraph.taxonomy.rescore-initial-delay-ms:60000}")
+    public void tick() {
+        Taxonomy tax = taxonomy.current();
+        int done = 0;
+        int pending = 0;
+
+        boolean modelHealthy = breakers.get("embedding").state() == CircuitBreaker.State.CLOSED;
+
+        for (ProfileAnalysis profile : profileRepo.findLatestProfiles()) {
+            boolean heal = modelHealthy && RedditAnalyzeService.isDegraded(profile);
+            if (Objects.equals(profile.getTaxonomyVersion(), tax.version()) && !heal) continue;
+            if (done >= batch) {
+                pending++;
+                continue;
+            }
+            try {
+                if (service.rescoreSnapshot(profile, tax)) done++;
+            } catch (Exception e) {
+                log.warn("RESCORE: snapshot {} of {} failed: {}", profile.getId(), profile.getUsername(), e.getMessage());
+            }
+        }
+
+        if (done > 0) log.info("RESCORE: {} snapshots moved to taxonomy v{} or healed, {} still pending", done, tax.version(), pending);
+    }
+}
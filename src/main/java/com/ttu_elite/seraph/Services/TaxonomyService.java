@@ -0,0 +1,138 @@
+package com.ttu_elite.seraph.Services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the live category taxonomy (anchors, keywords, display names, thresholds), loaded from
+ * seraph.taxonomy.location instead of being compiled into the rankers.
+ *
+ * When the location is a file, it is polled for changes. A changed file must carry a higher
+ * "version"; only anchors whose sentence changed are re-embedded, everything else is reused from
+ * the running version, and the compiled result replaces the old one in a single atomic swap.
+ * A file that fails to parse or validate is logged and ignored; the running version stays.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaxonomyService {
+
+    private final EmbeddingRanker embeddingRanker;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+
+    @Value("${seraph.taxonomy.location:classpath:taxonomy.json}")
+    private String location;
+
+    private final AtomicReference<Taxonomy> current = new AtomicReference<>();
+    private long lastModified = -1;
+
+    @PostConstruct
+    public void init() throws Exception {
+        Taxonomy loaded = load(readBytes());
+        if (loaded == null) throw new IllegalStateException("Could not load taxonomy from " + location);
+        current.set(loaded);
+        lastModified = lastModified();
+        log.info("Taxonomy v{} loaded from {} ({} categories)", loaded.version(), location, loaded.keys().size());
+    }
+
+    public Taxonomy current() {
+        return current.get();
+    }
+
+    @Scheduled(fixedDelayString = "${seraph.taxonomy.reload-ms:10000}")
+    public void poll() {
+        long modified = lastModified();
+        if (modified <= 0 || modified == lastModified) return;
+        lastModified = modified;
+        reload();
+    }
+
+    /** Re-reads the taxonomy now. Returns the version that is live afterwards. */
+    public synchronized int reload() {
+        Taxonomy running = current.get();
+        try {
+            Taxonomy next = load(readBytes());
+            if (next == null) return running.version();
+            current.set(next);
+            log.info("Taxonomy v{} -> v{} swapped in", running.version(), next.version());
+            return next.version();
+        } catch (Exception e) {
+            log.warn("Taxonomy reload from {} failed, keeping v{}: {}", location, running.version(), e.getMessage());
+            return running.version();
+        }
+    }
+
+    // Null when the content is unchanged or the version was not bumped
+    private Taxonomy load(byte[] bytes) throws Exception {
+        String hash = sha256(bytes);
+        Taxonomy running = current.get();
+        if (running != null && running.hash().equals(hash)) return null;
+
+        Taxonomy.Definition def = objectMapper.readValue(bytes, Taxonomy.Definition.class);
+        Taxonomy.validate(def);
+        if (running != null && def.version() <= running.version()) {
+            log.warn("Taxonomy at {} changed but version {} is not above the running v{}; ignoring until it is bumped",
+                    location, def.version(), running.version());
+            return null;
+        }
+
+        // Re-embed only anchors whose sentence is new or changed
+        Map<String, float[]> vectors = new HashMap<>();
+        List<String> changedKeys = new ArrayList<>();
+        List<String> changedTexts = new ArrayList<>();
+        for (Taxonomy.Category c : def.categories()) {
+            String previous = running == null ? null : running.anchors().get(c.key());
+            if (c.anchor().equals(previous)) {
+                vectors.put(c.key(), running.anchorMatrix()[running.keys().indexOf(c.key())]);
+            } else {
+                changedKeys.add(c.key());
+                changedTexts.add(c.anchor());
+            }
+        }
+        if (!changedTexts.isEmpty()) {
+            List<float[]> embedded = embeddingRanker.embedPosts(changedTexts);
+            for (int i = 0; i < changedKeys.size(); i++) {
+                // Null while the embedding breaker is open: fail the reload, the running taxonomy stays
+                if (embedded.get(i) == null) throw new IllegalStateException("Embedding model unavailable for anchor " + changedKeys.get(i));
+                vectors.put(changedKeys.get(i), embedded.get(i));
+            }
+            log.info("Taxonomy v{}: re-embedded {} anchor(s) {}", def.version(), changedKeys.size(), changedKeys);
+        }
+
+        return Taxonomy.compile(def, hash, vectors);
+    }
+
+    private byte[] readBytes() throws Exception {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Only plain files can change at runtime; classpath resources inside the jar cannot
+    private long lastModified() {
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            return resource.isFile() ? resource.getFile().lastModified() : 0L;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,143 @@
+package com.ttu_elite.seraph.Services;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns raw Reddit text (markdown selftext, HTML entities, the odd inline HTML) into the plain
+ * words the rankers should see. Runs once per post before BM25, the embedding model and the
+ * cross-encoder, so every ranker scores the same text:
+ *
+ *   - entities unescaped (&amp;gt; -> >), inline HTML stripped by a shared jsoup Cleaner
+ *   - fenced/indented code blocks -> "[code]", quoted lines ("> ...") dropped: not the author's words
+ *   - markdown links -> their label, bare URLs -> their host (youtube.com), images/emphasis/
+ *     superscript/headings/list bullets/table pipes/spoilers unwrapped
+ *   - whitespace collapsed, then capped at max-chars on a word boundary
+ *
+ * All patterns are compiled once; the cleaner has no per-call state, so one instance serves
+ * every thread. jsoup is only invoked when the text actually contains a tag.
+ * tools.NormalizerBenchmark reports throughput and the model sequence length saved.
+ */
+@Component
+public class TextNormalizer {
+
+    private static final Pattern FENCED_CODE = Pattern.compile("(?s)```.*?(```|$)|~~~.*?(~~~|$)");
+    // Markdown only treats indented lines as code after a blank line (otherwise: list continuation)
+    private static final Pattern INDENTED_CODE = Pattern.compile("(?:\\A|\\n[ \\t]*\\n)(?:(?: {4}|\\t).*(?:\\n|$))+");
+    private static final Pattern INLINE_CODE = Pattern.compile("`([^`\\n]*)`");
+    private static final Pattern QUOTE_LINES = Pattern.compile("(?m)^[ \\t]*>(?!!).*(?:\\n|$)");
+    private static final Pattern IMAGE = Pattern.compile("!\\[([^\\]]*)]\\([^)]*\\)");
+    private static final Pattern MD_LINK = Pattern.compile("\\[([^\\]]*)]\\(\\s*<?[^)\\s>]*>?(?:\\s+\"[^\"]*\")?\\s*\\)");
+    private static final Pattern URL = Pattern.compile("\\b(?:https?://|www\\.)[^\\s<>()\\[\\]]+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HEADING = Pattern.compile("(?m)^[ \\t]*#{1,6}[ \\t]*");
+    private static final Pattern LIST_BULLET = Pattern.compile("(?m)^[ \\t]*(?:[*+-]|\\d+[.)])[ \\t]+");
+    private static final Pattern RULE = Pattern.compile("(?m)^[ \\t]*(?:[-*_][ \\t]*){3,}$");
+    private static final Pattern TABLE = Pattern.compile("(?m)^[ \\t|:-]+$|\\|");
+    private static final Pattern SPOILER = Pattern.compile(">!(.*?)!<");
+    // Not inside words (snake_case, 2*3*4) and not backslash-escaped
+    private static final Pattern EMPHASIS = Pattern.compile("(?<![\\w\\\\])(\\*{1,3}|_{1,3}|~~)(?=\\S)(.+?)(?<=[^\\s\\\\])\\1(?!\\w)");
+    private static final Pattern SUPERSCRIPT = Pattern.compile("\\^\\(([^)]*)\\)|\\^(?=\\S)");
+    private static final Pattern ESCAPED = Pattern.compile("\\\\([\\\\`*_{}\\[\\]()#+\\-.!>~^|])");
+    private static final Pattern TAG = Pattern.compile("<[a-zA-Z/!][^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Cleaner CLEANER = new Cleaner(Safelist.none());
+
+    private final int maxChars;
+
+    public TextNormalizer(@Value("${seraph.normalize.max-chars:2000}") int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public List<String> normalizeAll(List<String> texts) {
+        List<String> out = new ArrayList<>(texts.size());
+        for (String t : texts) out.add(normalize(t));
+        return out;
+    }
+
+    public String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String s = text;
+
+        // Reddit escapes &, < and > in selftext; undo that first so "&gt;" quotes look like quotes
+        if (s.indexOf('&') >= 0) s = Parser.unescapeEntities(s, false);
+        if (s.indexOf('\r') >= 0) s = s.replace("\r\n", "\n").replace('\r', '\n');
+
+        // Blocks before inline markup: code may contain anything
+        if (s.contains("```") || s.contains("~~~")) s = FENCED_CODE.matcher(s).replaceAll(" [code]\n");
+        if (s.contains("    ") || s.indexOf('\t') >= 0) s = INDENTED_CODE.matcher(s).replaceAll("\n [code]\n");
+        if (s.indexOf('`') >= 0) s = INLINE_CODE.matcher(s).replaceAll("$1");
+        if (s.indexOf('>') >= 0) {
+            s = QUOTE_LINES.matcher(s).replaceAll("\n");
+            s = SPOILER.matcher(s).replaceAll("$1");
+        }
+
+        // Links: keep what a reader sees, never the raw URL
+        if (s.indexOf('[') >= 0) {
+            s = IMAGE.matcher(s).replaceAll("$1");
+            s = MD_LINK.matcher(s).replaceAll("$1");
+        }
+        s = collapseUrls(s);
+
+        // Line-level markdown
+        if (s.indexOf('#') >= 0) s = HEADING.matcher(s).replaceAll("");
+        s = RULE.matcher(s).replaceAll("");
+        s = LIST_BULLET.matcher(s).replaceAll("");
+        if (s.indexOf('|') >= 0) s = TABLE.matcher(s).replaceAll(" ");
+        s = EMPHASIS.matcher(s).replaceAll("$2");
+        if (s.indexOf('^') >= 0) s = SUPERSCRIPT.matcher(s).replaceAll("$1");
+        if (s.indexOf('\\') >= 0) s = ESCAPED.matcher(s).replaceAll("$1");
+
+        // Inline HTML (rare on Reddit, common in scraped or imported corpora)
+        if (s.indexOf('<') >= 0 && TAG.matcher(s).find()) s = stripHtml(s);
+
+        s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+        return cap(s);
+    }
+
+    private static String collapseUrls(String s) {
+        if (!s.contains("://") && !s.contains("www.")) return s;
+        Matcher m = URL.matcher(s);
+        StringBuilder sb = new StringBuilder(s.length());
+        while (m.find()) m.appendReplacement(sb, Matcher.quoteReplacement(host(m.group())));
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // "https://www.youtube.com/watch?v=x" -> "youtube.com"; unparsable URLs disappear
+    static String host(String url) {
+        try {
+            String u = url.regionMatches(true, 0, "www.", 0, 4) ? "http://" + url : url;
+            String host = URI.create(u.replace(" ", "%20")).getHost();
+            if (host == null) return " ";
+            host = host.toLowerCase(Locale.ROOT);
+            return " " + (host.startsWith("www.") ? host.substring(4) : host) + " ";
+        } catch (IllegalArgumentException e) {
+            return " ";
+        }
+    }
+
+    private static String stripHtml(String s) {
+        Document clean = CLEANER.clean(Jsoup.parseBodyFragment(s));
+        clean.outputSettings().prettyPrint(false);
+        return clean.body().wholeText();
+    }
+
+    private String cap(String s) {
+        if (maxChars <= 0 || s.length() <= maxChars) return s;
+        int cut = s.lastIndexOf(' ', maxChars);
+        return s.substring(0, cut > maxChars / 2 ? cut : maxChars);
+    }
+}
@@ -19,20 +19,7 @@ public class TfidfRanker {
         int N = postTokens.size();
         if (N == 0) return Map.of();
 
-        // Document frequency (DF)
-        Map<String, Integer> df = new HashMap<>();
-        for (List<String> doc : postTokens) {
-            Set<String> uniq = new HashSet<>(doc);
-            for (String t : uniq) df.merge(t, 1, Integer::sum);
-        }
-
-        // IDF
-        Map<String, Double> idf = new HashMap<>();
-        for (var e : df.entrySet()) {
-            // smooth IDF
-            double idfi = Math.log((N + 1.0) / (e.getValue() + 1.0)) + 1.0;
-            idf.put(e.getKey(), idfi);
-        }
+        Map<String, Double> idf = idf(postTokens);
 
         // Doc vectors
         List<Map<String, Double>> docVecs = new ArrayList<>(N);
@@ -62,6 +49,71 @@ public class TfidfRanker {
         return out;
     }
 
+    /**
+     * Why each post matched each category: the terms shared by post and category, each with its
+     * share of the TF-IDF cosine above (a_t * b_t / (|a| |b|)), so a category's shares sum to
+     * its score. Returns per post (same order): category -> term -> share, only categories
+     * with at least one shared term.
+     */
+    public List<Map<String, Map<String, Double>>> overlapTerms(
+            List<List<String>> postTokens,
+            Map<String, List<String>> categoryTokens
+    ) {
+        Map<String, Double> idf = idf(postTokens);
+
+        Map<String, Map<String, Double>> catVecs = new LinkedHashMap<>();
+        Map<String, Double> catNorms = new HashMap<>();
+        for (var e : categoryTokens.entrySet()) {
+            Map<String, Double> vec = tfidf(e.getValue(), idf);
+            catVecs.put(e.getKey(), vec);
+            catNorms.put(e.getKey(), norm(vec));
+        }
+
+        List<Map<String, Map<String, Double>>> out = new ArrayList<>(postTokens.size());
+        for (List<String> tokens : postTokens) {
+            Map<String, Double> dVec = tfidf(tokens, idf);
+            double dNorm = norm(dVec);
+            Map<String, Map<String, Double>> shares = new LinkedHashMap<>();
+            for (var cat : catVecs.entrySet()) {
+                double denominator = dNorm * catNorms.get(cat.getKey());
+                if (denominator == 0.0) continue;
+                for (var e : dVec.entrySet()) {
+                    Double qv = cat.getValue().get(e.getKey());
+                    if (qv == null) continue;
+                    shares.computeIfAbsent(cat.getKey(), k -> new HashMap<>()).put(e.getKey(), e.getValue() * qv / denominator);
+                }
+            }
+            out.add(shares);
+        }
+        return out;
+    }
+
+    private Map<String, Double> idf(List<List<String>> postTokens) {
+        int N = postTokens.size();
+
+        // Document frequency (DF)
+        Map<String, Integer> df = new HashMap<>();
+        for (List<String> doc : postTokens) {
+            Set<String> uniq = new HashSet<>(doc);
+            for (String t : uniq) df.merge(t, 1, Integer::sum);
+        }
+
+        // IDF
+        Map<String, Double> idf = new HashMap<>();
+        for (var e : df.entrySet()) {
+            // smooth IDF
+            double idfi = Math.log((N + 1.0) / (e.getValue() + 1.0)) + 1.0;
+            idf.put(e.getKey(), idfi);
+        }
+        return idf;
+    }
+
+    private static double norm(Map<String, Double> vec) {
+        double n = 0.0;
+        for (double v : vec.values()) n += v * v;
+        return Math.sqrt(n);
+    }
+
     private Map<String, Double> tfidf(List<String> tokens, Map<String, Double> idf) {
         Map<String, Integer> tf = new HashMap<>();
         for (String t : tokens) tf.merge(t, 1, Integer::sum);
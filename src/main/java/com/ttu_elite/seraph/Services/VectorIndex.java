@@ -0,0 +1,328 @@
+package com.ttu_elite.seraph.Services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbour index over int8-quantized, L2-normalized vectors (IVF-flat).
+ *
+ * Vectors live in fixed-size byte chunks so millions of them do not need one giant array.
+ * Below TRAIN_MIN vectors the index is a plain brute-force scan; past that, k-means centroids
+ * split the space into inverted lists and a query only scans the nprobe closest lists.
+ * The index retrains itself whenever it has grown 4x since the last training run. Training
+ * runs on a background platform thread without the lock, over the vectors present when it started;
+ * adds and searches keep using the previous lists until the new ones are swapped in.
+ */
+class VectorIndex {
+
+    static final int QUANT_SCALE = 127;
+
+    private static final int CHUNK_VECTORS = 16_384;
+    private static final int TRAIN_MIN = 4_096;
+    private static final int TRAIN_SAMPLE = 20_000;
+    private static final int KMEANS_ITERATIONS = 8;
+
+    public record Hit(int ordinal, double similarity) {}
+
+    private final int dim;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int size = 0;
+
+    // IVF state (null until trained)
+    private float[][] centroids;
+    private int[][] lists;
+    private int[] listSizes;
+    private int trainedAt = 0;
+    private Thread training; // non-null while a training run is in progress
+
+    VectorIndex(int dim) {
+        this.dim = dim;
+    }
+
+    int dim() {
+        return dim;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Quantizes a raw model vector: normalize to unit length, then scale into [-127, 127]. */
+    static byte[] quantize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) norm += v * v;
+        norm = Math.sqrt(norm);
+
+        byte[] out = new byte[vector.length];
+        if (norm == 0.0) return out;
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = (byte) Math.round(vector[i] / norm * QUANT_SCALE);
+        }
+        return out;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) norm += v * v;
+        norm = Math.sqrt(norm);
+
+        float[] out = new float[vector.length];
+        if (norm == 0.0) return out;
+        for (int i = 0; i < vector.length; i++) out[i] = (float) (vector[i] / norm);
+        return out;
+    }
+
+    /** Appends a quantized vector and returns its ordinal. */
+    int add(byte[] quantized) {
+        if (quantized.length != dim) {
+            throw new IllegalArgumentException("Expected dim " + dim + " but got " + quantized.length);
+        }
+        int ordinal;
+        Thread trainer = null;
+        lock.writeLock().lock();
+        try {
+            ordinal = size;
+            int chunk = ordinal / CHUNK_VECTORS;
+            if (chunk == chunks.size()) chunks.add(new byte[CHUNK_VECTORS * dim]);
+            System.arraycopy(quantized, 0, chunks.get(chunk), (ordinal % CHUNK_VECTORS) * dim, dim);
+            size++;
+
+            if (centroids != null) {
+                assign(centroids, lists, listSizes, ordinal);
+            }
+            if (training == null && size >= TRAIN_MIN && size >= trainedAt * 4) {
+                // Platform thread: k-means is seconds of pure CPU and would hold a virtual thread's carrier
+                trainer = training = Thread.ofPlatform().daemon().name("vector-index-train").unstarted(this::retrain);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (trainer != null) trainer.start();
+        return ordinal;
+    }
+
+    /** Waits for a running training run, if any, to swap in its lists. */
+    void awaitTraining() throws InterruptedException {
+        Thread t;
+        lock.readLock().lock();
+        try {
+            t = training;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (t != null) t.join();
+    }
+
+    boolean isTrained() {
+        lock.readLock().lock();
+        try {
+            return centroids != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    byte[] get(int ordinal) {
+        lock.readLock().lock();
+        try {
+            byte[] out = new byte[dim];
+            System.arraycopy(chunks.get(ordinal / CHUNK_VECTORS), (ordinal % CHUNK_VECTORS) * dim, out, 0, dim);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the k nearest vectors to a unit-length query, best first.
+     * Similarity is cosine, approximated through the int8 codes.
+     */
+    List<Hit> search(float[] unitQuery, int k, int nprobe) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.similarity(), b.similarity()));
+
+            if (centroids == null) {
+                for (int i = 0; i < size; i++) offer(top, k, i, dot(unitQuery, i));
+            } else {
+                for (int list : nearestCentroids(unitQuery, Math.min(nprobe, centroids.length))) {
+                    int[] members = lists[list];
+                    for (int j = 0; j < listSizes[list]; j++) {
+                        offer(top, k, members[j], dot(unitQuery, members[j]));
+                    }
+                }
+            }
+
+            List<Hit> out = new ArrayList<>(top);
+            out.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int k, int ordinal, double sim) {
+        if (top.size() < k) {
+            top.add(new Hit(ordinal, sim));
+        } else if (sim > top.peek().similarity()) {
+            top.poll();
+            top.add(new Hit(ordinal, sim));
+        }
+    }
+
+    private double dot(float[] query, int ordinal) {
+        byte[] chunk = chunks.get(ordinal / CHUNK_VECTORS);
+        int base = (ordinal % CHUNK_VECTORS) * dim;
+        double sum = 0.0;
+        for (int i = 0; i < dim; i++) sum += query[i] * chunk[base + i];
+        return sum / QUANT_SCALE;
+    }
+
+    // --- IVF TRAINING ---
+
+    private void retrain() {
+        try {
+            // Vectors below n are never written again and chunks only grow, so a copy of the
+            // chunk list taken under the lock can be read without it
+            List<byte[]> snapshot;
+            int n;
+            lock.readLock().lock();
+            try {
+                snapshot = new ArrayList<>(chunks);
+                n = size;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            float[][] cents = train(snapshot, n);
+            int[][] newLists = new int[cents.length][8];
+            int[] newSizes = new int[cents.length];
+            for (int i = 0; i < n; i++) assign(snapshot, cents, newLists, newSizes, i);
+
+            // Swap in, after catching up on whatever was added meanwhile
+            lock.writeLock().lock();
+            try {
+                for (int i = n; i < size; i++) assign(cents, newLists, newSizes, i);
+                centroids = cents;
+                lists = newLists;
+                listSizes = newSizes;
+                trainedAt = n;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                training = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private float[][] train(List<byte[]> chunks, int size) {
+        int nlist = (int) Math.max(16, Math.min(1_024, Math.sqrt(size)));
+        Random rnd = new Random(42);
+
+        // 1. Sample the training set
+        int sampleSize = Math.min(size, TRAIN_SAMPLE);
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = sampleSize == size ? i : rnd.nextInt(size);
+        }
+
+        // 2. Seed centroids from random sample members
+        float[][] cents = new float[nlist][];
+        for (int c = 0; c < nlist; c++) cents[c] = dequantize(chunks, sample[rnd.nextInt(sampleSize)]);
+
+        // 3. Spherical k-means (vectors are unit length, so max dot == nearest)
+        int[] assignment = new int[sampleSize];
+        for (int iter = 0; iter < KMEANS_ITERATIONS; iter++) {
+            for (int s = 0; s < sampleSize; s++) assignment[s] = nearestCentroid(chunks, cents, sample[s]);
+
+            float[][] sums = new float[nlist][dim];
+            for (int s = 0; s < sampleSize; s++) {
+                byte[] chunk = chunks.get(sample[s] / CHUNK_VECTORS);
+                int base = (sample[s] % CHUNK_VECTORS) * dim;
+                float[] acc = sums[assignment[s]];
+                for (int i = 0; i < dim; i++) acc[i] += chunk[base + i];
+            }
+            for (int c = 0; c < nlist; c++) {
+                float[] n = normalize(sums[c]);
+                // Empty cluster: keep the previous centroid
+                if (!allZero(n)) cents[c] = n;
+            }
+        }
+
+        return cents;
+    }
+
+    // Caller holds the write lock
+    private void assign(float[][] cents, int[][] lists, int[] listSizes, int ordinal) {
+        assign(chunks, cents, lists, listSizes, ordinal);
+    }
+
+    private void assign(List<byte[]> chunks, float[][] cents, int[][] lists, int[] listSizes, int ordinal) {
+        int list = nearestCentroid(chunks, cents, ordinal);
+        if (listSizes[list] == lists[list].length) {
+            lists[list] = Arrays.copyOf(lists[list], lists[list].length * 2);
+        }
+        lists[list][listSizes[list]++] = ordinal;
+    }
+
+    private int nearestCentroid(List<byte[]> chunks, float[][] cents, int ordinal) {
+        byte[] chunk = chunks.get(ordinal / CHUNK_VECTORS);
+        int base = (ordinal % CHUNK_VECTORS) * dim;
+        int best = 0;
+        double bestDot = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < cents.length; c++) {
+            double d = 0.0;
+            float[] cent = cents[c];
+            for (int i = 0; i < dim; i++) d += cent[i] * chunk[base + i];
+            if (d > bestDot) {
+                bestDot = d;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private int[] nearestCentroids(float[] query, int n) {
+        double[] scores = new double[centroids.length];
+        Integer[] order = new Integer[centroids.length];
+        for (int c = 0; c < centroids.length; c++) {
+            double d = 0.0;
+            for (int i = 0; i < dim; i++) d += centroids[c][i] * query[i];
+            scores[c] = d;
+            order[c] = c;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = order[i];
+        return out;
+    }
+
+    private float[] dequantize(List<byte[]> chunks, int ordinal) {
+        byte[] chunk = chunks.get(ordinal / CHUNK_VECTORS);
+        int base = (ordinal % CHUNK_VECTORS) * dim;
+        float[] out = new float[dim];
+        for (int i = 0; i < dim; i++) out[i] = chunk[base + i] / (float) QUANT_SCALE;
+        return out;
+    }
+
+    private static boolean allZero(float[] v) {
+        for (float f : v) if (f != 0.0f) return false;
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background refresher for tracked profiles, so /chronicles stays current without
+ * someone hitting POST /SERAPH/reddit?force=true by hand.
+ *
+ * Each tick polls the users whose next poll time has passed, most overdue first, until the
+ * shared Reddit rate budget runs out. After a poll the user's interval is recomputed from
+ * how often they post and how much of their profile sits in risk categories.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seraph.watchlist.enabled", havingValue = "true")
+public class WatchlistMonitor {
+
+    private final RedditAnalyzeService service;
+    private final ProfileAnalysisRepository profileRepo;
+
+    @Value("${seraph.watchlist.usernames:}")
+    private List<String> configuredUsernames;
+
+    @Value("${seraph.watchlist.include-tracked:true}")
+    private boolean includeTracked;
+
+    @Value("${seraph.watchlist.min-interval-minutes:15}")
+    private long minIntervalMinutes;
+
+    @Value("${seraph.watchlist.max-interval-minutes:1440}")
+    private long maxIntervalMinutes;
+
+    @Value("${seraph.watchlist.requests-per-minute:30}")
+    private double requestsPerMinute;
+
+    private RateBudget budget;
+    private final Map<String, Instant> nextPollAt = new ConcurrentHashMap<>();
+    private final Map<String, Duration> currentInterval = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        budget = new RateBudget(requestsPerMinute);
+        log.info("Watchlist monitor enabled ({} req/min, interval {}-{} min)", requestsPerMinute, minIntervalMinutes, maxIntervalMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${seraph.watchlist.tick-ms:60000}", initialDelayString = "${seraph.watchlist.initial-delay-ms:30000}")
+    public void tick() {
+        Instant now = Instant.now();
+
+        // 1. Who is due?
+        List<String> due = new ArrayList<>();
+        for (String username : watchedUsernames()) {
+            Instant next = nextPollAt.putIfAbsent(username, now);
+            if (next == null || !next.isAfter(now)) due.add(username);
+        }
+        due.sort(Comparator.comparing(nextPollAt::get)); // most overdue first
+
+        // 2. Poll while the budget allows (each refresh costs at least one page)
+        int polled = 0;
+        for (String username : due) {
+            if (budget.available() < 1) break;
+            try {
+                RedditAnalyzeService.RefreshOutcome outcome = service.refreshProfile(username, budget);
+                if (outcome == RedditAnalyzeService.RefreshOutcome.SKIPPED) {
+                    // Another node has it; check back after the current interval
+                    nextPollAt.put(username, Instant.now().plus(currentInterval.getOrDefault(username, Duration.ofMinutes(minIntervalMinutes))));
+                    continue;
+                }
+                schedule(username, outcome);
+                polled++;
+            } catch (Exception e) {
+                log.warn("WATCHLIST: refresh failed for {}: {}", username, e.getMessage());
+                schedule(username, null);
+            }
+        }
+
+        if (!due.isEmpty()) log.info("WATCHLIST: polled {}/{} due profiles", polled, due.size());
+    }
+
+    private Set<String> watchedUsernames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (String u : configuredUsernames) {
+            if (u != null && !u.isBlank()) names.add(u.trim());
+        }
+        if (includeTracked) names.addAll(profileRepo.findTrackedUsernames());
+        return names;
+    }
+
+    /**
+     * Adaptive interval: aim to poll about twice per expected new post, shorten further for
+     * risky profiles, and back off by 1.5x when a poll finds nothing.
+     */
+    private void schedule(String username, RedditAnalyzeService.RefreshOutcome outcome) {
+        Duration min = Duration.ofMinutes(minIntervalMinutes);
+        Duration max = Duration.ofMinutes(maxIntervalMinutes);
+        Duration previous = currentInterval.getOrDefault(username, min);
+
+        Duration next;
+        if (outcome == null) {
+            next = previous.multipliedBy(2);
+        } else if (outcome.newPosts() == 0) {
+            next = Duration.ofSeconds((long) (previous.getSeconds() * 1.5));
+        } else {
+            double expectedGapMinutes = outcome.postsPerDay() > 0 ? 1440.0 / outcome.postsPerDay() : maxIntervalMinutes;
+            double riskFactor = 1.0 + 4.0 * outcome.riskShare(); // up to 5x faster for risky profiles
+            next = Duration.ofSeconds((long) (expectedGapMinutes / 2.0 / riskFactor * 60));
+        }
+
+        if (next.compareTo(min) < 0) next = min;
+        if (next.compareTo(max) > 0) next = max;
+
+        currentInterval.put(username, next);
+        nextPollAt.put(username, Instant.now().plus(next));
+    }
+}
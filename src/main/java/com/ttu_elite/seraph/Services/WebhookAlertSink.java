@@ -0,0 +1,57 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.dto.RiskAlert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each alert batch as a JSON array to seraph.alerts.webhook-url.
+ * Point it at /api/test/webhook to exercise the pipeline locally.
+ *
+ * Bounded by seraph.alerts.webhook-connect-timeout-ms / webhook-read-timeout-ms, so a slow
+ * receiver costs the flusher at most that long per batch.
+ */
+@Component
+@ConditionalOnProperty(name = "seraph.alerts.webhook-url")
+public class WebhookAlertSink implements AlertSink {
+
+    private final RestClient restClient;
+    private final String webhookUrl;
+
+    public WebhookAlertSink(
+            @Value("${seraph.alerts.webhook-url}") String webhookUrl,
+            @Value("${seraph.alerts.webhook-connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${seraph.alerts.webhook-read-timeout-ms:5000}") long readTimeoutMs
+    ) {
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(http);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restClient = RestClient.builder().requestFactory(factory).build();
+        this.webhookUrl = webhookUrl;
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<RiskAlert> batch) {
+        restClient.post()
+                .uri(webhookUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(batch)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
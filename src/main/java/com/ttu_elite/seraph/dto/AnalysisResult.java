@@ -1,5 +1,6 @@
 package com.ttu_elite.seraph.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.ttu_elite.seraph.Entities.ProfileAnalysis;
 import com.ttu_elite.seraph.Entities.RedditPost;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -14,4 +16,26 @@ import java.util.List;
 public class AnalysisResult {
     private ProfileAnalysis summary;
     private List<RedditPost> posts;
+
+    // Only present when the request asked for ?debug=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> stageTimingsMs;
+
+    // Only present when the request asked for ?explain=true: redditPostId -> explanation
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, PostExplanation> explanations;
+
+    /**
+     * True when some posts were scored BM25-only (embedding model unavailable, see
+     * summary.degradedPosts and each post's scoringPath): treat those scores as coarser.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isDegraded() {
+        return summary != null && summary.getDegradedPosts() != null && summary.getDegradedPosts() > 0;
+    }
+
+    public AnalysisResult(ProfileAnalysis summary, List<RedditPost> posts) {
+        this.summary = summary;
+        this.posts = posts;
+    }
 }
\ No newline at end of file
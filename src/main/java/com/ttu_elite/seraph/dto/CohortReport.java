@@ -0,0 +1,42 @@
+package com.ttu_elite.seraph.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-category distribution of profile shares in a cohort; with a username, also where that
+ * profile sits in it. Shares are category total / all totals of a profile's latest snapshot.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CohortReport {
+    private String cohort;          // platform or "all"
+    private String username;        // only for a profile comparison
+    private Long members;
+    private List<CategoryStats> categories;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CategoryStats {
+        private String category;
+        private Long members;
+        private Double share;       // the profile's share (comparison only)
+        private Double percentile;  // 0-100, share of the cohort below it, ties counted half; null under min-members
+        private Double min;
+        private Double p10;
+        private Double p25;
+        private Double p50;
+        private Double p75;
+        private Double p90;
+        private Double p99;
+        private Double max;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ttu_elite.seraph.dto;
+
+/**
+ * One item from any platform, the way the scoring pipeline sees it (see PlatformFetcher).
+ *
+ * kind is "post" (title + body) or "comment" (the user's own words only). ids must be unique
+ * across platforms: Reddit ids are used as-is, every other platform prefixes its own
+ * ("jsondir:...", "mastodon:...").
+ */
+public record Post(String id, String kind, String title, String text, String permalink, Long createdUtc) {
+
+    public static final String KIND_POST = "post";
+    public static final String KIND_COMMENT = "comment";
+
+    /** The text that gets scored. */
+    public String fullText() {
+        return fullText(kind, title, text);
+    }
+
+    // Shared with rescoring, which rebuilds the text from stored posts
+    public static String fullText(String kind, String title, String text) {
+        String body = text == null ? "" : text;
+        if (KIND_COMMENT.equals(kind) || title == null || title.isBlank()) return body.trim();
+        return (title + "\n" + body).trim(); // own line, so a leading "> quote" stays a quote
+    }
+}
@@ -0,0 +1,44 @@
+package com.ttu_elite.seraph.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Why a post scored what it did (?explain=true), built from the rankers' own intermediates.
+ * The cross-encoder rerank, when enabled, is not broken down: "fused" is the hybrid score before it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostExplanation {
+    private String scoringPath;          // "neural", "lexical" or "degraded"
+    private String nearestCategory;      // null when the post has no embedding (lexical path)
+    private String nearestAnchor;        // that category's anchor sentence
+    private Double anchorSimilarity;     // cosine to it
+    private List<CategoryExplanation> categories; // highest fused score first
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CategoryExplanation {
+        private String category;
+        private Double fused;            // hybrid score before the noise floor
+        private Double semantic;         // cosine to the category anchor
+        private Double bm25;             // raw BM25 (sum of bm25Terms)
+        private List<Term> bm25Terms;    // top keywords by BM25 contribution
+        private List<Term> tfidfTerms;   // top shared terms by share of the TF-IDF cosine
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Term {
+        private String term;
+        private Double weight;
+    }
+}
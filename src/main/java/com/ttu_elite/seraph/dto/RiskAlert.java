@@ -0,0 +1,23 @@
+package com.ttu_elite.seraph.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RiskAlert {
+    private String username;
+    private String redditPostId;
+    private String permalink;
+    private String category;      // UI name ("Self-Harm", "Hostility", ...)
+    private String rule;          // "THRESHOLD" or "RATE_OF_CHANGE"
+    private Double score;
+    private Double baseline;      // user's average for this category before the post
+    private Long createdUtc;
+    private Long detectedAtMs;
+    private Long fetchStartedAtMs;
+}
@@ -0,0 +1,16 @@
+package com.ttu_elite.seraph.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimilarPost {
+    private String redditPostId;
+    private String username;
+    private Double similarity;
+    private String title;
+    private String permalink;
+}
@@ -0,0 +1,30 @@
+package com.ttu_elite.seraph.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrendReport {
+    private String username;
+    private String category;
+    private String window;          // "day" or "week"
+    private Integer postCount;      // all posts ever ingested for this user
+    private Double totalScore;      // running sum for this category
+    private Double decayedScore;    // exponentially decayed score as of now
+    private List<TrendPoint> points;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TrendPoint {
+        private Long bucketStart;
+        private Integer postCount;
+        private Double averageScore;
+        private Double maxScore;
+    }
+}
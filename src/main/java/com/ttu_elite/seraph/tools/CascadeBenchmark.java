@@ -0,0 +1,167 @@
+package com.ttu_elite.seraph.tools;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Measures the lexical early-exit cascade on a corpus: scores it through a running instance
+ * twice, once with the full hybrid pipeline (cascade=false) and once with the cascade
+ * (cascade=true), then reports how many transformer passes the cascade saved, the wall-clock
+ * time of both runs and how often the two agree.
+ *
+ *   java -cp target/SERAPH-0.0.1-SNAPSHOT.jar -Dloader.main=com.ttu_elite.seraph.tools.CascadeBenchmark \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher \
+ *        --url=http://localhost:8080 --corpus=data/corpus.txt
+ *
+ * The corpus is one text per line (.ndjson/.jsonl: a JSON string or {"text": ...} per line).
+ * Agreement is counted per text: same top category, same risk flag (highest non-baseline score
+ * at or above --risk-threshold, default the rerank threshold 0.3), and the largest per-category
+ * score difference. Only texts the cascade sent down the lexical path can differ; the report
+ * lists the worst of those so the cascade thresholds can be tuned.
+ */
+public class CascadeBenchmark {
+
+    record Scored(Map<String, Double> scores, String path) {}
+
+    record Run(List<Scored> rows, long millis) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadTestDriver.parseArgs(args);
+        String baseUrl = opts.getOrDefault("url", "http://localhost:8080");
+        Path corpus = Path.of(opts.getOrDefault("corpus", "data/corpus.txt"));
+        String baseline = opts.getOrDefault("baseline", "Sentiment");
+        double riskThreshold = Double.parseDouble(opts.getOrDefault("risk-threshold", "0.3"));
+        double tolerance = Double.parseDouble(opts.getOrDefault("tolerance", "0.1"));
+        int worst = Integer.parseInt(opts.getOrDefault("worst", "10"));
+
+        JsonMapper mapper = JsonMapper.builder().build();
+        String name = corpus.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean ndjson = name.endsWith(".ndjson") || name.endsWith(".jsonl");
+        List<String> texts = new ArrayList<>();
+        for (String line : Files.readAllLines(corpus, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            if (!ndjson) {
+                texts.add(line.trim());
+                continue;
+            }
+            JsonNode node = mapper.readTree(line);
+            texts.add(node.isString() ? node.asString() : node.path("text").asString());
+        }
+        if (texts.isEmpty()) throw new IllegalArgumentException("No texts in " + corpus);
+
+        StringBuilder body = new StringBuilder();
+        for (String text : texts) body.append(mapper.writeValueAsString(text)).append('\n');
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        // Warm-up so neither run pays for model loading / JIT alone
+        score(client, mapper, baseUrl, body.substring(0, body.indexOf("\n") + 1), false, 1);
+
+        Run full = score(client, mapper, baseUrl, body.toString(), false, texts.size());
+        Run cascade = score(client, mapper, baseUrl, body.toString(), true, texts.size());
+
+        int lexical = 0, sameTop = 0, sameFlag = 0, withinTolerance = 0;
+        int flaggedFull = 0, missedFlags = 0;
+        double sumDiff = 0.0;
+        List<double[]> diffs = new ArrayList<>(); // {index, maxDiff}
+        for (int i = 0; i < texts.size(); i++) {
+            Scored f = full.rows().get(i);
+            Scored c = cascade.rows().get(i);
+            if ("lexical".equals(c.path())) lexical++;
+
+            if (Objects.equals(top(f.scores()), top(c.scores()))) sameTop++;
+            boolean fFlag = maxRisk(f.scores(), baseline) >= riskThreshold;
+            boolean cFlag = maxRisk(c.scores(), baseline) >= riskThreshold;
+            if (fFlag == cFlag) sameFlag++;
+            if (fFlag) flaggedFull++;
+            if (fFlag && !cFlag) missedFlags++;
+
+            double maxDiff = 0.0;
+            for (String category : f.scores().keySet()) {
+                maxDiff = Math.max(maxDiff, Math.abs(f.scores().get(category) - c.scores().getOrDefault(category, 0.0)));
+            }
+            sumDiff += maxDiff;
+            if (maxDiff <= tolerance) withinTolerance++;
+            if ("lexical".equals(c.path())) diffs.add(new double[]{i, maxDiff});
+        }
+
+        int n = texts.size();
+        System.out.printf(Locale.ROOT, "texts=%d lexical=%d (%.1f%% of transformer passes saved)%n", n, lexical, pct(lexical, n));
+        System.out.printf(Locale.ROOT, "full    %d ms (%.1f texts/s)%n", full.millis(), n * 1000.0 / Math.max(1, full.millis()));
+        System.out.printf(Locale.ROOT, "cascade %d ms (%.1f texts/s)%n", cascade.millis(), n * 1000.0 / Math.max(1, cascade.millis()));
+        System.out.printf(Locale.ROOT, "agreement: top category %.2f%%, risk flag %.2f%%, all scores within %.2f %.2f%%, mean max diff %.4f%n",
+                pct(sameTop, n), pct(sameFlag, n), tolerance, pct(withinTolerance, n), sumDiff / n);
+        System.out.printf(Locale.ROOT, "risk flags lost by the cascade: %d of %d%n", missedFlags, flaggedFull);
+
+        diffs.sort((a, b) -> Double.compare(b[1], a[1]));
+        if (!diffs.isEmpty() && diffs.get(0)[1] > 0.0) {
+            System.out.println("largest differences on the lexical path:");
+            for (double[] d : diffs.subList(0, Math.min(worst, diffs.size()))) {
+                if (d[1] == 0.0) break;
+                int i = (int) d[0];
+                String text = texts.get(i).length() > 80 ? texts.get(i).substring(0, 80) + "..." : texts.get(i);
+                System.out.printf(Locale.ROOT, "  #%d diff=%.3f full=%s  %s%n", i, d[1], full.rows().get(i).scores(), text);
+            }
+        }
+    }
+
+    private static Run score(HttpClient client, JsonMapper mapper, String baseUrl, String body,
+                             boolean cascade, int expected) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/SERAPH/score?cascade=" + cascade))
+                .timeout(Duration.ofHours(1))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<java.io.InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) throw new IllegalStateException("Scoring failed: HTTP " + response.statusCode());
+
+        Scored[] rows = new Scored[expected];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode row = mapper.readTree(line);
+                if (!row.has("i")) throw new IllegalStateException("Server: " + row.path("error").asString());
+                if (row.has("error")) throw new IllegalStateException("Text " + row.get("i").asInt() + ": " + row.get("error").asString());
+
+                Map<String, Double> scores = new LinkedHashMap<>();
+                for (Map.Entry<String, JsonNode> e : row.get("scores").properties()) scores.put(e.getKey(), e.getValue().asDouble());
+                rows[row.get("i").asInt()] = new Scored(scores, row.path("path").asString("neural"));
+            }
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        for (int i = 0; i < expected; i++) {
+            if (rows[i] == null) throw new IllegalStateException("No result for text " + i + " (cascade=" + cascade + ")");
+        }
+        return new Run(Arrays.asList(rows), millis);
+    }
+
+    private static String top(Map<String, Double> scores) {
+        return scores.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+    }
+
+    private static double maxRisk(Map<String, Double> scores, String baseline) {
+        double max = 0.0;
+        for (Map.Entry<String, Double> e : scores.entrySet()) {
+            if (!e.getKey().equals(baseline)) max = Math.max(max, e.getValue());
+        }
+        return max;
+    }
+
+    private static double pct(int part, int whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+}
@@ -0,0 +1,416 @@
+package com.ttu_elite.seraph.tools;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Offline training for the learned score fusion. Fits one logistic model per category,
+ * p = sigmoid(a * semantic + b * ln(1 + bm25) + c), on locally stored labeled examples, picks
+ * the F1-optimal threshold, compares it with the fixed blend on a held-out split, and writes
+ * the coefficients into taxonomy.json as "fusion" blocks (version bumped, so running nodes
+ * hot-reload it and rescore in the background).
+ *
+ * Features come from a running instance (POST /SERAPH/score?features=true), so training sees
+ * exactly the anchors, keywords and model the service uses. Run it from the boot jar:
+ *
+ *   java -cp target/SERAPH-0.0.1-SNAPSHOT.jar -Dloader.main=com.ttu_elite.seraph.tools.FusionTrainer \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher \
+ *        --url=http://localhost:8080 --labels=data/labels.jsonl \
+ *        --taxonomy=src/main/resources/taxonomy.json --report=fusion-report.md
+ *
+ * labels.jsonl holds one {"text": "...", "labels": ["HOSTILITY", ...]} per line; labels are
+ * category keys or display names, every category not listed counts as a negative. --dry-run
+ * only writes the report. Categories with fewer than --min-positives positives keep the fixed blend.
+ */
+public class FusionTrainer {
+
+    record Example(String text, Set<String> positives) {}
+
+    record Logistic(double semantic, double keyword, double bias) {
+        double p(double s, double bm25) {
+            double z = semantic * s + keyword * Math.log1p(bm25) + bias;
+            return 1.0 / (1.0 + Math.exp(-z));
+        }
+    }
+
+    record Eval(double brier, double logLoss, double ece, double auc, double precision, double recall, double f1) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadTestDriver.parseArgs(args);
+        String baseUrl = opts.getOrDefault("url", "http://localhost:8080");
+        Path labelsPath = Path.of(opts.getOrDefault("labels", "data/labels.jsonl"));
+        Path taxonomyPath = Path.of(opts.getOrDefault("taxonomy", "src/main/resources/taxonomy.json"));
+        Path outPath = Path.of(opts.getOrDefault("out", taxonomyPath.toString()));
+        Path reportPath = Path.of(opts.getOrDefault("report", "fusion-report.md"));
+        double holdout = Double.parseDouble(opts.getOrDefault("holdout", "0.2"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        double l2 = Double.parseDouble(opts.getOrDefault("l2", "0.001"));
+        int minPositives = Integer.parseInt(opts.getOrDefault("min-positives", "10"));
+        double rerankThreshold = Double.parseDouble(opts.getOrDefault("rerank-threshold", "0.3"));
+        boolean dryRun = Boolean.parseBoolean(opts.getOrDefault("dry-run", "false"));
+
+        JsonMapper mapper = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+
+        // --- TAXONOMY ---
+        ObjectNode taxonomy = (ObjectNode) mapper.readTree(taxonomyPath.toFile());
+        List<String> keys = new ArrayList<>();
+        Map<String, String> keyByLabel = new HashMap<>();
+        String baselineKey = null;
+        for (JsonNode c : taxonomy.get("categories")) {
+            String key = c.get("key").asString();
+            keys.add(key);
+            keyByLabel.put(key.toLowerCase(Locale.ROOT), key);
+            if (c.hasNonNull("displayName")) keyByLabel.put(c.get("displayName").asString().toLowerCase(Locale.ROOT), key);
+            if (c.path("baseline").asBoolean(false)) baselineKey = key;
+        }
+        JsonNode scoring = taxonomy.path("scoring");
+        double semanticWeight = scoring.path("semanticWeight").asDouble(0.7);
+        double keywordWeight = scoring.path("keywordWeight").asDouble(0.3);
+        double keywordScale = scoring.path("keywordScale").asDouble(5.0);
+        double defaultMinScore = scoring.path("minScore").asDouble(0.15);
+
+        // --- LABELED EXAMPLES ---
+        List<Example> examples = new ArrayList<>();
+        for (String line : Files.readAllLines(labelsPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            JsonNode node = mapper.readTree(line);
+            Set<String> positives = new HashSet<>();
+            for (JsonNode l : node.path("labels")) {
+                String key = keyByLabel.get(l.asString().toLowerCase(Locale.ROOT));
+                if (key == null) throw new IllegalArgumentException("Unknown label '" + l.asString() + "' in " + labelsPath);
+                positives.add(key);
+            }
+            examples.add(new Example(node.get("text").asString(), positives));
+        }
+        if (examples.isEmpty()) throw new IllegalArgumentException("No examples in " + labelsPath);
+        System.out.println("Loaded " + examples.size() + " labeled examples for " + keys.size() + " categories");
+
+        // --- FEATURES FROM THE RUNNING SERVICE ---
+        double[][] semantic = new double[examples.size()][keys.size()];
+        double[][] keyword = new double[examples.size()][keys.size()];
+        fetchFeatures(baseUrl, mapper, examples, keys, semantic, keyword);
+
+        // --- SPLIT ---
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < examples.size(); i++) order.add(i);
+        Collections.shuffle(order, new Random(seed));
+        int testSize = (int) Math.round(examples.size() * holdout);
+        int[] test = order.subList(0, testSize).stream().mapToInt(Integer::intValue).toArray();
+        int[] train = order.subList(testSize, order.size()).stream().mapToInt(Integer::intValue).toArray();
+        int[] all = order.stream().mapToInt(Integer::intValue).toArray();
+
+        // --- TRAIN + EVALUATE PER CATEGORY ---
+        StringBuilder report = new StringBuilder();
+        report.append("# Fusion training report\n\n")
+                .append("- generated: ").append(Instant.now()).append('\n')
+                .append("- examples: ").append(examples.size()).append(" (train ").append(train.length)
+                .append(", holdout ").append(test.length).append(", seed ").append(seed).append(")\n")
+                .append("- fixed blend: ").append(semanticWeight).append(" * semantic + ").append(keywordWeight)
+                .append(" * min(bm25 / ").append(keywordScale).append(", 1)\n\n")
+                .append("| category | pos (train/holdout) | model | Brier | log loss | ECE | AUC | threshold | P | R | F1 |\n")
+                .append("|---|---|---|---|---|---|---|---|---|---|---|\n");
+
+        Map<String, Logistic> finalModels = new LinkedHashMap<>();
+        Map<String, Double> finalThresholds = new LinkedHashMap<>();
+        double[][] fixedTest = new double[test.length][keys.size()];
+        double[][] learnedTest = new double[test.length][keys.size()];
+
+        for (int c = 0; c < keys.size(); c++) {
+            String key = keys.get(c);
+            JsonNode category = taxonomy.get("categories").get(c);
+            double fixedFloor = category.path("minScore").asDouble(defaultMinScore);
+
+            boolean[] y = new boolean[examples.size()];
+            for (int i = 0; i < examples.size(); i++) y[i] = examples.get(i).positives().contains(key);
+            int trainPos = count(y, train);
+            int testPos = count(y, test);
+
+            double[] fixed = new double[examples.size()];
+            for (int i = 0; i < examples.size(); i++) {
+                fixed[i] = semantic[i][c] * semanticWeight + Math.min(keyword[i][c] / keywordScale, 1.0) * keywordWeight;
+            }
+            for (int t = 0; t < test.length; t++) fixedTest[t][c] = learnedTest[t][c] = fixed[test[t]];
+
+            String pos = trainPos + "/" + testPos;
+            report.append(row(key, pos, "fixed", evaluate(fixed, y, test, fixedFloor), fixedFloor));
+
+            if (trainPos < minPositives || trainPos == train.length) {
+                report.append("| ").append(key).append(" | ").append(pos)
+                        .append(" | learned | skipped: needs at least ").append(minPositives)
+                        .append(" positives and some negatives | | | | | | | |\n");
+                continue;
+            }
+
+            Logistic model = fit(semantic, keyword, y, train, c, l2);
+            double[] learned = predict(model, semantic, keyword, c);
+            double threshold = bestF1Threshold(learned, y, train);
+            for (int t = 0; t < test.length; t++) learnedTest[t][c] = learned[test[t]];
+            report.append(row(key, pos, "learned", evaluate(learned, y, test, threshold), threshold));
+
+            // Final coefficients use every labeled example
+            Logistic full = fit(semantic, keyword, y, all, c, l2);
+            finalModels.put(key, full);
+            finalThresholds.put(key, bestF1Threshold(predict(full, semantic, keyword, c), y, all));
+        }
+
+        // Share of holdout posts whose top risk score would reach the cross-encoder
+        report.append("\nHoldout posts at or above the rerank threshold (").append(rerankThreshold).append("): fixed ")
+                .append(pct(rerankShare(fixedTest, keys, baselineKey, rerankThreshold)))
+                .append(", learned ").append(pct(rerankShare(learnedTest, keys, baselineKey, rerankThreshold)))
+                .append(". With calibrated scores the threshold can be set as a probability.\n");
+
+        report.append("\n## Coefficients (fit on all examples)\n\n| category | semantic | ln(1+bm25) | bias | threshold |\n|---|---|---|---|---|\n");
+        finalModels.forEach((key, m) -> report.append(String.format(Locale.ROOT, "| %s | %.4f | %.4f | %.4f | %.3f |\n",
+                key, m.semantic(), m.keyword(), m.bias(), finalThresholds.get(key))));
+
+        Files.writeString(reportPath, report.toString(), StandardCharsets.UTF_8);
+        System.out.println("Report written to " + reportPath);
+
+        if (dryRun || finalModels.isEmpty()) {
+            System.out.println(finalModels.isEmpty() ? "No category could be trained; taxonomy unchanged" : "Dry run; taxonomy unchanged");
+            return;
+        }
+
+        // --- WRITE COEFFICIENTS INTO THE TAXONOMY ---
+        for (JsonNode node : taxonomy.get("categories")) {
+            ObjectNode category = (ObjectNode) node;
+            Logistic m = finalModels.get(category.get("key").asString());
+            if (m == null) {
+                category.remove("fusion");
+                continue;
+            }
+            ObjectNode fusion = category.putObject("fusion");
+            fusion.put("semantic", round(m.semantic()));
+            fusion.put("keyword", round(m.keyword()));
+            fusion.put("bias", round(m.bias()));
+            fusion.put("threshold", round(finalThresholds.get(category.get("key").asString())));
+        }
+        int version = taxonomy.path("version").asInt(0) + 1;
+        taxonomy.put("version", version);
+        Files.writeString(outPath, mapper.writeValueAsString(taxonomy) + "\n", StandardCharsets.UTF_8);
+        System.out.println("Wrote " + finalModels.size() + " fusion models to " + outPath + " as taxonomy v" + version);
+    }
+
+    // --- FEATURES ---
+
+    private static void fetchFeatures(String baseUrl, JsonMapper mapper, List<Example> examples, List<String> keys,
+                                      double[][] semantic, double[][] keyword) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (Example e : examples) body.append(mapper.writeValueAsString(e.text())).append('\n');
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/SERAPH/score?features=true"))
+                .timeout(Duration.ofHours(1))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<java.io.InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) throw new IllegalStateException("Feature request failed: HTTP " + response.statusCode());
+
+        int received = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode row = mapper.readTree(line);
+                if (!row.has("i")) throw new IllegalStateException("Server: " + row.path("error").asString());
+                if (row.has("error")) throw new IllegalStateException("Example " + row.get("i").asInt() + ": " + row.get("error").asString());
+                int i = row.get("i").asInt();
+                for (int c = 0; c < keys.size(); c++) {
+                    JsonNode s = row.path("semantic").get(keys.get(c));
+                    JsonNode k = row.path("keyword").get(keys.get(c));
+                    if (s == null || k == null) {
+                        throw new IllegalStateException("Server has no category " + keys.get(c) + "; is it running this taxonomy?");
+                    }
+                    semantic[i][c] = s.asDouble();
+                    keyword[i][c] = k.asDouble();
+                }
+                received++;
+            }
+        }
+        if (received != examples.size()) throw new IllegalStateException("Got features for " + received + " of " + examples.size() + " examples");
+    }
+
+    // --- LOGISTIC REGRESSION (Newton / IRLS, 3 parameters, L2 on the weights only) ---
+
+    static Logistic fit(double[][] semantic, double[][] keyword, boolean[] y, int[] rows, int c, double l2) {
+        double[] w = new double[3];
+        for (int iter = 0; iter < 100; iter++) {
+            double[] grad = new double[3];
+            double[][] hess = new double[3][3];
+            for (int r : rows) {
+                double[] x = {semantic[r][c], Math.log1p(keyword[r][c]), 1.0};
+                double p = 1.0 / (1.0 + Math.exp(-(w[0] * x[0] + w[1] * x[1] + w[2])));
+                double err = p - (y[r] ? 1.0 : 0.0);
+                double v = Math.max(p * (1 - p), 1e-9);
+                for (int a = 0; a < 3; a++) {
+                    grad[a] += err * x[a];
+                    for (int b = 0; b < 3; b++) hess[a][b] += v * x[a] * x[b];
+                }
+            }
+            for (int a = 0; a < 2; a++) {
+                grad[a] += l2 * rows.length * w[a];
+                hess[a][a] += l2 * rows.length;
+            }
+            hess[2][2] += 1e-9; // keeps a single-feature-degenerate system solvable
+
+            double[] step = solve3(hess, grad);
+            double change = 0.0;
+            for (int a = 0; a < 3; a++) {
+                w[a] -= step[a];
+                change = Math.max(change, Math.abs(step[a]));
+            }
+            if (change < 1e-8) break;
+        }
+        return new Logistic(w[0], w[1], w[2]);
+    }
+
+    private static double[] solve3(double[][] m, double[] v) {
+        double[][] a = new double[3][4];
+        for (int i = 0; i < 3; i++) {
+            System.arraycopy(m[i], 0, a[i], 0, 3);
+            a[i][3] = v[i];
+        }
+        for (int col = 0; col < 3; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < 3; r++) if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) pivot = r;
+            double[] tmp = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmp;
+            if (Math.abs(a[col][col]) < 1e-15) return new double[3];
+            for (int r = 0; r < 3; r++) {
+                if (r == col) continue;
+                double f = a[r][col] / a[col][col];
+                for (int k = col; k < 4; k++) a[r][k] -= f * a[col][k];
+            }
+        }
+        return new double[]{a[0][3] / a[0][0], a[1][3] / a[1][1], a[2][3] / a[2][2]};
+    }
+
+    private static double[] predict(Logistic m, double[][] semantic, double[][] keyword, int c) {
+        double[] p = new double[semantic.length];
+        for (int i = 0; i < p.length; i++) p[i] = m.p(semantic[i][c], keyword[i][c]);
+        return p;
+    }
+
+    // --- METRICS ---
+
+    static double bestF1Threshold(double[] score, boolean[] y, int[] rows) {
+        Integer[] sorted = Arrays.stream(rows).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, (a, b) -> Double.compare(score[b], score[a]));
+        int positives = count(y, rows);
+        int tp = 0;
+        double bestF1 = -1;
+        double best = 0.5;
+        for (int k = 0; k < sorted.length; k++) {
+            if (y[sorted[k]]) tp++;
+            if (k + 1 < sorted.length && score[sorted[k + 1]] == score[sorted[k]]) continue; // cut between distinct scores only
+            double f1 = 2.0 * tp / (k + 1 + positives);
+            if (f1 > bestF1) {
+                bestF1 = f1;
+                best = score[sorted[k]];
+            }
+        }
+        return Math.min(best, 0.999);
+    }
+
+    static Eval evaluate(double[] score, boolean[] y, int[] rows, double threshold) {
+        if (rows.length == 0) return new Eval(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        double brier = 0, logLoss = 0;
+        int tp = 0, fp = 0, fn = 0;
+        double[] binSum = new double[10];
+        double[] binPos = new double[10];
+        int[] binCount = new int[10];
+        for (int r : rows) {
+            double p = Math.min(Math.max(score[r], 1e-6), 1 - 1e-6);
+            double t = y[r] ? 1.0 : 0.0;
+            brier += (p - t) * (p - t);
+            logLoss -= t * Math.log(p) + (1 - t) * Math.log(1 - p);
+            int bin = Math.min(9, (int) (p * 10));
+            binSum[bin] += p;
+            binPos[bin] += t;
+            binCount[bin]++;
+            boolean flagged = score[r] >= threshold;
+            if (flagged && y[r]) tp++;
+            else if (flagged) fp++;
+            else if (y[r]) fn++;
+        }
+        double ece = 0;
+        for (int b = 0; b < 10; b++) {
+            if (binCount[b] > 0) ece += binCount[b] / (double) rows.length * Math.abs(binSum[b] / binCount[b] - binPos[b] / binCount[b]);
+        }
+        double precision = tp + fp == 0 ? Double.NaN : tp / (double) (tp + fp);
+        double recall = tp + fn == 0 ? Double.NaN : tp / (double) (tp + fn);
+        double f1 = tp == 0 ? 0.0 : 2.0 * tp / (2.0 * tp + fp + fn);
+        return new Eval(brier / rows.length, logLoss / rows.length, ece, auc(score, y, rows), precision, recall, f1);
+    }
+
+    // Mann-Whitney U with average ranks for ties
+    private static double auc(double[] score, boolean[] y, int[] rows) {
+        Integer[] sorted = Arrays.stream(rows).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.comparingDouble(r -> score[r]));
+        double rankSum = 0;
+        int positives = 0;
+        for (int i = 0; i < sorted.length; ) {
+            int j = i;
+            while (j + 1 < sorted.length && score[sorted[j + 1]] == score[sorted[i]]) j++;
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                if (y[sorted[k]]) {
+                    rankSum += rank;
+                    positives++;
+                }
+            }
+            i = j + 1;
+        }
+        int negatives = sorted.length - positives;
+        if (positives == 0 || negatives == 0) return Double.NaN;
+        return (rankSum - positives * (positives + 1) / 2.0) / ((double) positives * negatives);
+    }
+
+    private static double rerankShare(double[][] scores, List<String> keys, String baselineKey, double threshold) {
+        if (scores.length == 0) return Double.NaN;
+        int flagged = 0;
+        for (double[] row : scores) {
+            double max = 0;
+            for (int c = 0; c < keys.size(); c++) if (!keys.get(c).equals(baselineKey)) max = Math.max(max, row[c]);
+            if (max >= threshold) flagged++;
+        }
+        return flagged / (double) scores.length;
+    }
+
+    // --- HELPERS ---
+
+    private static int count(boolean[] y, int[] rows) {
+        int n = 0;
+        for (int r : rows) if (y[r]) n++;
+        return n;
+    }
+
+    private static String row(String key, String pos, String model, Eval e, double threshold) {
+        return String.format(Locale.ROOT, "| %s | %s | %s | %.4f | %.4f | %.4f | %.3f | %.3f | %.3f | %.3f | %.3f |\n",
+                key, pos, model, e.brier(), e.logLoss(), e.ece(), e.auc(), threshold, e.precision(), e.recall(), e.f1());
+    }
+
+    private static String pct(double share) {
+        return String.format(Locale.ROOT, "%.1f%%", share * 100);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1e6) / 1e6;
+    }
+}
@@ -0,0 +1,164 @@
+package com.ttu_elite.seraph.tools;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fires concurrent POST /SERAPH/reddit requests at a running SERAPH instance and reports
+ * throughput, p50/p99 latency and error rate. Uses only the JDK, so it runs straight from
+ * target/classes:
+ *
+ *   java -cp target/classes com.ttu_elite.seraph.tools.LoadTestDriver \
+ *        --url=http://localhost:8080 --concurrency=16 --requests=400 --users=200 --force=false
+ *
+ * Start the server with --spring.profiles.active=loadtest (replay post source) to keep
+ * everything offline. --users bounds the distinct usernames (load_user_0 ... load_user_{n-1});
+ * requests beyond that hit stored snapshots unless --force=true.
+ *
+ * --sweep=1,4,16,64 runs the same load at each concurrency level in turn (fresh usernames per
+ * level so nothing is served from a snapshot) and prints one line per level, including the
+ * server's worst connection-pool acquire time from /actuator/metrics. Use it to size
+ * spring.datasource.hikari.maximum-pool-size: the pool is too small when acquire time climbs
+ * with concurrency while throughput is still rising.
+ */
+public class LoadTestDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String baseUrl = opts.getOrDefault("url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "8"));
+        int requests = Integer.parseInt(opts.getOrDefault("requests", "100"));
+        int users = Integer.parseInt(opts.getOrDefault("users", String.valueOf(requests)));
+        boolean force = Boolean.parseBoolean(opts.getOrDefault("force", "false"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("timeout-seconds", "300")));
+
+        if (opts.containsKey("sweep")) {
+            int errors = 0;
+            int level = 0;
+            for (String c : opts.get("sweep").split(",")) {
+                int n = Integer.parseInt(c.trim());
+                Report report = run(baseUrl, n, requests, users, force, timeout, "sweep" + (level++) + "_user_");
+                Double acquireMaxMs = poolAcquireMaxMs(baseUrl);
+                System.out.println(report + (acquireMaxMs == null ? "" : String.format(Locale.ROOT, " poolAcquireMax=%.1fms", acquireMaxMs)));
+                errors += report.errors();
+            }
+            System.exit(errors > 0 ? 1 : 0);
+        }
+
+        Report report = run(baseUrl, concurrency, requests, users, force, timeout);
+        System.out.println(report);
+        System.exit(report.errors() > 0 ? 1 : 0);
+    }
+
+    public record Report(int concurrency, int requests, int errors, double seconds, long p50Ms, long p99Ms, long maxMs) {
+        public double throughput() {
+            return seconds > 0 ? requests / seconds : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "concurrency=%d requests=%d errors=%d (%.2f%%) elapsed=%.1fs throughput=%.2f req/s p50=%dms p99=%dms max=%dms",
+                    concurrency, requests, errors, 100.0 * errors / Math.max(1, requests), seconds, throughput(), p50Ms, p99Ms, maxMs);
+        }
+    }
+
+    public static Report run(String baseUrl, int concurrency, int requests, int users, boolean force, Duration timeout) throws Exception {
+        return run(baseUrl, concurrency, requests, users, force, timeout, "load_user_");
+    }
+
+    public static Report run(String baseUrl, int concurrency, int requests, int users, boolean force, Duration timeout, String userPrefix) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        double seconds;
+
+        // All three own threads; a sweep runs several of these in one JVM, so close them every time
+        try (ExecutorService clientPool = Executors.newFixedThreadPool(concurrency);
+             HttpClient client = HttpClient.newBuilder()
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(clientPool)
+                     .build();
+             ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                futures.add(workers.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        String body = "{\"profileUrl\": \"https://www.reddit.com/user/" + userPrefix + (i % users) + "/\"}";
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/SERAPH/reddit?force=" + force))
+                                .timeout(timeout)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+
+                        long t = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = (System.nanoTime() - t) / 1_000_000;
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            seconds = (System.nanoTime() - start) / 1e9;
+        }
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return new Report(
+                concurrency,
+                requests,
+                errors.get(),
+                seconds,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1]
+        );
+    }
+
+    // Worst Hikari connection acquire time since the last scrape window, or null if actuator is unreachable
+    static Double poolAcquireMaxMs(String baseUrl) {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/hikaricp.connections.acquire"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher m = Pattern.compile("\"statistic\"\\s*:\\s*\"MAX\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.eE+-]+)")
+                    .matcher(body);
+            return m.find() ? Double.parseDouble(m.group(1)) * 1000.0 : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) opts.put(arg.substring(2), "true");
+            else opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+}
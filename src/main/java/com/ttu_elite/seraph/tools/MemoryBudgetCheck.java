@@ -0,0 +1,102 @@
+package com.ttu_elite.seraph.tools;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Allocation budget check: analyzes --profiles distinct users concurrently (default 100, all
+ * fresh so every one fetches and scores) against a running instance while polling its
+ * seraph.process.rss gauge, and fails when the peak RSS exceeds --max-rss-mb. JDK only:
+ *
+ *   java -cp target/classes com.ttu_elite.seraph.tools.MemoryBudgetCheck \
+ *        --url=http://localhost:8080 --profiles=100 --max-rss-mb=1536
+ *
+ * Meant for a server started with --spring.profiles.active=lowmem,loadtest inside the
+ * container limit it has to fit (see application-lowmem.properties). Exit code 1 = over
+ * budget or failed requests, so it can gate a deploy pipeline. The same check runs as a test
+ * (MemoryBudgetCheckTest) when -Dseraph.membudget.url is given:
+ *
+ *   mvn test -Dtest=MemoryBudgetCheckTest -Dseraph.membudget.url=http://localhost:8080
+ */
+public class MemoryBudgetCheck {
+
+    private static final Pattern VALUE = Pattern.compile("\"statistic\"\\s*:\\s*\"VALUE\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.eE+-]+)");
+
+    public record Result(LoadTestDriver.Report report, double baselineMb, double peakMb, Double afterMb) {
+
+        public boolean withinBudget(long maxRssMb) {
+            return peakMb <= maxRssMb && report.errors() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return report + String.format(Locale.ROOT, "%nrss: baseline=%.0fMB peak=%.0fMB after=%s",
+                    baselineMb, peakMb, afterMb == null ? "?" : String.format(Locale.ROOT, "%.0fMB", afterMb));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadTestDriver.parseArgs(args);
+        String baseUrl = opts.getOrDefault("url", "http://localhost:8080");
+        int profiles = Integer.parseInt(opts.getOrDefault("profiles", "100"));
+        long maxRssMb = Long.parseLong(opts.getOrDefault("max-rss-mb", "1536"));
+        long pollMillis = Long.parseLong(opts.getOrDefault("poll-ms", "200"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("timeout-seconds", "600")));
+
+        Result result = measure(baseUrl, profiles, timeout, pollMillis);
+        System.out.println(result);
+        System.out.printf(Locale.ROOT, "budget=%dMB%n", maxRssMb);
+
+        if (result.peakMb() > maxRssMb) System.out.printf(Locale.ROOT, "OVER BUDGET by %.0fMB%n", result.peakMb() - maxRssMb);
+        System.exit(result.withinBudget(maxRssMb) ? 0 : 1);
+    }
+
+    /** Runs the concurrent analyses and returns the RSS seen before, at peak and after. */
+    public static Result measure(String baseUrl, int profiles, Duration timeout, long pollMillis) throws Exception {
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()) {
+            Double baseline = rssMb(client, baseUrl);
+            if (baseline == null) throw new IllegalStateException("No seraph.process.rss at " + baseUrl + " (actuator down, or not Linux)");
+
+            // Unique prefix per run: nothing may come from an existing snapshot
+            String prefix = "membudget_" + System.currentTimeMillis() + "_user_";
+            CompletableFuture<LoadTestDriver.Report> load = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return LoadTestDriver.run(baseUrl, profiles, profiles, profiles, true, timeout, prefix);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            double peak = baseline;
+            while (!load.isDone()) {
+                Double rss = rssMb(client, baseUrl);
+                if (rss != null) peak = Math.max(peak, rss);
+                Thread.sleep(pollMillis);
+            }
+            return new Result(load.get(), baseline, peak, rssMb(client, baseUrl));
+        }
+    }
+
+    private static Double rssMb(HttpClient client, String baseUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/seraph.process.rss"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            Matcher m = VALUE.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            if (!m.find()) return null;
+            double bytes = Double.parseDouble(m.group(1));
+            return Double.isNaN(bytes) ? null : bytes / (1024.0 * 1024.0);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
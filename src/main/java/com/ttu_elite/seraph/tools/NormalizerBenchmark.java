@@ -0,0 +1,127 @@
+package com.ttu_elite.seraph.tools;
+
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import com.ttu_elite.seraph.Services.TextNormalizer;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of TextNormalizer and what it saves the embedding model, on a local corpus:
+ *
+ *   java -cp target/SERAPH-0.0.1-SNAPSHOT.jar -Dloader.main=com.ttu_elite.seraph.tools.NormalizerBenchmark \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher --corpus=replay-data
+ *
+ * --corpus is a text file (one text per line), an .ndjson/.jsonl file (a JSON string or
+ * {"text": ...} per line) or a directory of raw Reddit listing pages (the replay layout), where
+ * each child becomes title + selftext / comment body exactly as ingestion builds it. Listing
+ * pages are the interesting input: only they keep multi-line markdown.
+ *
+ * Sequence length is counted with the model's word-piece tokenizer (--tokenizer, a hub id or a
+ * tokenizer.json path), both raw and as the model sees it (cut at --max-length, default 256).
+ * Without a tokenizer it falls back to whitespace words and says so.
+ */
+public class NormalizerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadTestDriver.parseArgs(args);
+        Path corpus = Path.of(opts.getOrDefault("corpus", "data/corpus.txt"));
+        int maxChars = Integer.parseInt(opts.getOrDefault("max-chars", "2000"));
+        int maxLength = Integer.parseInt(opts.getOrDefault("max-length", "256"));
+        int rounds = Integer.parseInt(opts.getOrDefault("rounds", "5"));
+        String tokenizerId = opts.getOrDefault("tokenizer", "sentence-transformers/all-MiniLM-L6-v2");
+
+        List<String> texts = load(corpus, JsonMapper.builder().build());
+        if (texts.isEmpty()) throw new IllegalArgumentException("No texts in " + corpus);
+        TextNormalizer normalizer = new TextNormalizer(maxChars);
+
+        // --- THROUGHPUT (first round is warm-up) ---
+        long chars = 0;
+        for (String t : texts) chars += t.length();
+        double bestSeconds = Double.MAX_VALUE;
+        List<String> normalized = null;
+        for (int r = 0; r <= rounds; r++) {
+            long started = System.nanoTime();
+            normalized = normalizer.normalizeAll(texts);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            if (r > 0) bestSeconds = Math.min(bestSeconds, seconds);
+        }
+        System.out.printf(Locale.ROOT, "texts=%d, %.1f MB raw%n", texts.size(), chars / 1e6);
+        System.out.printf(Locale.ROOT, "normalize: %.0f texts/s, %.1f MB/s (best of %d rounds, single thread)%n",
+                texts.size() / bestSeconds, chars / 1e6 / bestSeconds, rounds);
+
+        // --- SEQUENCE LENGTH ---
+        HuggingFaceTokenizer tokenizer = null;
+        try {
+            tokenizer = Files.exists(Path.of(tokenizerId))
+                    ? HuggingFaceTokenizer.newInstance(Path.of(tokenizerId))
+                    : HuggingFaceTokenizer.newInstance(tokenizerId);
+        } catch (Exception | UnsatisfiedLinkError e) {
+            System.out.println("tokenizer " + tokenizerId + " unavailable (" + e.getMessage() + "), counting whitespace words instead");
+        }
+
+        long rawLen = 0, cleanLen = 0, rawSeen = 0, cleanSeen = 0;
+        int truncatedRaw = 0, truncatedClean = 0, emptied = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            int before = length(tokenizer, texts.get(i));
+            int after = length(tokenizer, normalized.get(i));
+            rawLen += before;
+            cleanLen += after;
+            rawSeen += Math.min(before, maxLength);
+            cleanSeen += Math.min(after, maxLength);
+            if (before > maxLength) truncatedRaw++;
+            if (after > maxLength) truncatedClean++;
+            if (after == 0 && before > 0) emptied++;
+        }
+        if (tokenizer != null) tokenizer.close();
+
+        int n = texts.size();
+        String unit = tokenizer != null ? "tokens" : "words";
+        System.out.printf(Locale.ROOT, "mean length: %.1f -> %.1f %s (%.1f%% shorter)%n",
+                (double) rawLen / n, (double) cleanLen / n, unit, 100.0 * (rawLen - cleanLen) / Math.max(1, rawLen));
+        System.out.printf(Locale.ROOT, "mean length the model reads (max %d): %.1f -> %.1f %s (%.1f%% shorter)%n",
+                maxLength, (double) rawSeen / n, (double) cleanSeen / n, unit, 100.0 * (rawSeen - cleanSeen) / Math.max(1, rawSeen));
+        System.out.printf(Locale.ROOT, "truncated by the model: %d -> %d texts; emptied by normalization: %d%n",
+                truncatedRaw, truncatedClean, emptied);
+    }
+
+    private static int length(HuggingFaceTokenizer tokenizer, String text) {
+        if (text.isBlank()) return 0;
+        if (tokenizer == null) return text.trim().split("\\s+").length;
+        return tokenizer.encode(text).getIds().length;
+    }
+
+    private static List<String> load(Path corpus, JsonMapper mapper) throws Exception {
+        List<String> texts = new ArrayList<>();
+        if (Files.isDirectory(corpus)) {
+            try (Stream<Path> files = Files.walk(corpus)) {
+                for (Path f : files.filter(p -> p.toString().endsWith(".json")).sorted().toList()) {
+                    for (JsonNode child : mapper.readTree(f.toFile()).path("data").path("children")) {
+                        JsonNode d = child.path("data");
+                        if (d.has("body")) texts.add(d.path("body").asString("").trim());
+                        else texts.add((d.path("title").asString("") + "\n" + d.path("selftext").asString("")).trim());
+                    }
+                }
+            }
+            return texts;
+        }
+
+        String name = corpus.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean ndjson = name.endsWith(".ndjson") || name.endsWith(".jsonl");
+        for (String line : Files.readAllLines(corpus, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            if (!ndjson) {
+                texts.add(line);
+                continue;
+            }
+            JsonNode node = mapper.readTree(line);
+            texts.add(node.isString() ? node.asString() : node.path("text").asString(""));
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,35 @@
+-- Opt-in: range-partition reddit_post (per-snapshot score rows) by snapshot time.
+--
+-- Run once against an empty schema, then start SERAPH with
+-- spring.jpa.hibernate.ddl-auto=none (or validate); ddl-auto=create would replace this
+-- table with a plain one. SnapshotCompactor creates this month's and next month's
+-- partitions on every run; rows outside them land in reddit_post_default.
+--
+-- Old months can be removed in O(1) instead of row-by-row deletes:
+--   ALTER TABLE reddit_post DETACH PARTITION reddit_post_2025_01;
+--   DROP TABLE reddit_post_2025_01;
+--
+-- Schemas created from an older copy of this file lack columns added since; with ddl-auto=none
+-- nothing adds them, so run:
+--   ALTER TABLE reddit_post ADD COLUMN IF NOT EXISTS scoring_path varchar(255);
+--   CREATE INDEX IF NOT EXISTS idx_reddit_post_post_id ON reddit_post (reddit_post_id);
+
+CREATE TABLE reddit_post (
+    id             bigserial,
+    analysis_id    bigint                      NOT NULL,
+    username       varchar(255),
+    reddit_post_id varchar(255),
+    created_utc    bigint,
+    snapshot_at    timestamp(6) with time zone NOT NULL,
+    tokens         text,
+    duplicate_of   varchar(255),
+    scoring_path   varchar(255),
+    PRIMARY KEY (id, snapshot_at)
+) PARTITION BY RANGE (snapshot_at);
+
+CREATE INDEX idx_reddit_post_analysis_id ON reddit_post (analysis_id);
+CREATE INDEX idx_reddit_post_analysis_post ON reddit_post (analysis_id, reddit_post_id);
+CREATE INDEX idx_reddit_post_username ON reddit_post (username);
+CREATE INDEX idx_reddit_post_post_id ON reddit_post (reddit_post_id);
+
+CREATE TABLE reddit_post_default PARTITION OF reddit_post DEFAULT;
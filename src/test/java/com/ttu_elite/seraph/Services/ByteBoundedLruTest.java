@@ -0,0 +1,53 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBoundedLruTest {
+
+    @Test
+    void neverHoldsMoreThanItsByteBudget() {
+        ByteBoundedLru<Integer, String> lru = new ByteBoundedLru<>(1_000, 10_000, ByteBoundedLru::sizeOf);
+
+        for (int i = 0; i < 500; i++) {
+            lru.put(i, "x".repeat(100 + (i * 37) % 900));
+            assertThat(lru.bytes()).isLessThanOrEqualTo(10_000);
+        }
+        assertThat(lru.size()).isLessThan(500);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFirst() {
+        ByteBoundedLru<String, String> lru = new ByteBoundedLru<>(2, Long.MAX_VALUE, ByteBoundedLru::sizeOf);
+        lru.put("a", "1");
+        lru.put("b", "2");
+        lru.get("a");
+        lru.put("c", "3");
+
+        assertThat(lru.get("a")).isEqualTo("1");
+        assertThat(lru.get("b")).isNull();
+        assertThat(lru.get("c")).isEqualTo("3");
+    }
+
+    @Test
+    void valueHeavierThanTheBudgetIsNotCached() {
+        ByteBoundedLru<String, String> lru = new ByteBoundedLru<>(10, 1_000, ByteBoundedLru::sizeOf);
+        lru.put("small", "ok");
+        lru.put("huge", "x".repeat(1_000));
+
+        assertThat(lru.get("huge")).isNull();
+        assertThat(lru.get("small")).isEqualTo("ok");
+    }
+
+    @Test
+    void replacingAKeyReleasesItsOldWeight() {
+        ByteBoundedLru<String, String> lru = new ByteBoundedLru<>(10, 10_000, ByteBoundedLru::sizeOf);
+        lru.put("k", "x".repeat(1_000));
+        lru.put("k", "y");
+        assertThat(lru.bytes()).isEqualTo(ByteBoundedLru.sizeOf("y"));
+
+        lru.remove("k");
+        assertThat(lru.bytes()).isZero();
+    }
+}
@@ -0,0 +1,166 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import com.ttu_elite.seraph.Repositories.CohortRollupRepository;
+import com.ttu_elite.seraph.Repositories.ProfileAnalysisRepository;
+import com.ttu_elite.seraph.dto.CohortReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CohortRollupServiceTest {
+
+    private final ProfileAnalysisRepository profileRepo = mock(ProfileAnalysisRepository.class);
+    private final TransactionTemplate tx = mock(TransactionTemplate.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final JdbcTemplate cursorJdbc = mock(JdbcTemplate.class);
+    private final List<List<Object[]>> written = new ArrayList<>();
+    private boolean dbDown;
+
+    private final CohortRollupService service = new CohortRollupService(mock(CohortRollupRepository.class), profileRepo,
+            new ObjectMapper(), tx, mock(DataSource.class));
+
+    CohortRollupServiceTest() {
+        ReflectionTestUtils.setField(service, "jdbc", jdbc);
+        ReflectionTestUtils.setField(service, "cursorJdbc", cursorJdbc);
+        ReflectionTestUtils.setField(service, "compression", 100.0);
+        ReflectionTestUtils.setField(service, "minMembers", 2L);
+        ReflectionTestUtils.setField(service, "maxStaleFraction", 0.25);
+
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        doAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null)).when(tx).execute(any());
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            if (dbDown) throw new IllegalStateException("db down");
+            written.add(inv.getArgument(1));
+            return new int[0];
+        });
+    }
+
+    @Test
+    void newProfilesAreMembersAndReplacedSnapshotsAreNot() {
+        service.record(profile("alice", "reddit", "{\"Hostility\": 1, \"Baseline\": 3}"));
+        service.record(profile("bob", "reddit", "{\"Hostility\": 3, \"Baseline\": 1}"));
+        service.record(profile("alice", "reddit", "{\"Hostility\": 2, \"Baseline\": 2}"));
+        service.record(profile("sim", "simulation", "{\"Hostility\": 1}"));
+        service.record(profile("carol", "reddit", "{\"Hostility\": 0}"));
+
+        CohortReport reddit = service.report("reddit");
+        assertThat(reddit.getMembers()).isEqualTo(2);
+        assertThat(reddit.getCategories()).extracting(CohortReport.CategoryStats::getCategory)
+                .containsExactly("Baseline", "Hostility");
+        // Three values went in (alice's old share is stale until the next rebuild)
+        assertThat(reddit.getCategories().get(1).getMin()).isEqualTo(0.25);
+        assertThat(reddit.getCategories().get(1).getMax()).isEqualTo(0.75);
+        assertThat(service.report(CohortRollupService.ALL).getMembers()).isEqualTo(2);
+        assertThat(service.report("simulation")).isNull();
+    }
+
+    @Test
+    void flushWritesChangedRollupsOnceAndRetriesAfterAFailure() {
+        service.record(profile("alice", "reddit", "{\"Hostility\": 1, \"Baseline\": 3}"));
+
+        dbDown = true;
+        assertThatThrownBy(service::flush).hasMessage("db down");
+
+        dbDown = false;
+        service.flush();
+        service.flush();
+
+        // Two cohorts (reddit, all) x two categories, written by the retry only
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).extracting(row -> row[0] + "/" + row[1])
+                .containsExactlyInAnyOrder("reddit/Hostility", "reddit/Baseline", "all/Hostility", "all/Baseline");
+
+        service.record(profile("bob", "reddit", "{\"Hostility\": 2}"));
+        service.flush();
+        assertThat(written.get(1)).extracting(row -> row[0] + "/" + row[1])
+                .containsExactlyInAnyOrder("reddit/Hostility", "all/Hostility");
+    }
+
+    @Test
+    void maintainRebuildsOnceTooManyValuesAreStale() throws Exception {
+        service.record(profile("alice", "reddit", "{\"Hostility\": 1, \"Baseline\": 3}"));
+        service.record(profile("bob", "reddit", "{\"Hostility\": 3, \"Baseline\": 1}"));
+        service.maintain();
+        verify(cursorJdbc, never()).query(anyString(), any(RowCallbackHandler.class));
+
+        // One stale value of three is over 25%
+        service.record(profile("alice", "reddit", "{\"Hostility\": 2, \"Baseline\": 2}"));
+        ResultSet alice = row("alice", "reddit", "{\"Hostility\": 2, \"Baseline\": 2}");
+        ResultSet bob = row("bob", "reddit", "{\"Hostility\": 3, \"Baseline\": 1}");
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            handler.processRow(alice);
+            handler.processRow(bob);
+            return null;
+        }).when(cursorJdbc).query(anyString(), any(RowCallbackHandler.class));
+        service.maintain();
+
+        verify(jdbc).update("DELETE FROM cohort_rollup");
+        assertThat(written).hasSize(2);
+        CohortReport reddit = service.report("reddit");
+        assertThat(reddit.getMembers()).isEqualTo(2);
+        assertThat(reddit.getCategories().get(1).getMin()).isEqualTo(0.5); // alice's old 0.25 is gone
+
+        // Rebuilt digests are stored: nothing left to write, and no second rebuild
+        service.maintain();
+        assertThat(written).hasSize(2);
+    }
+
+    @Test
+    void comparePlacesTheProfileInItsPlatformCohort() {
+        service.record(profile("alice", "reddit", "{\"Hostility\": 1, \"Baseline\": 3}"));
+        when(profileRepo.findTopByUsernameAndIncompleteFalseOrderByCreatedAtDesc("alice"))
+                .thenReturn(Optional.of(profile("alice", "reddit", "{\"Hostility\": 1, \"Baseline\": 3}")));
+
+        // Under min-members: no percentile
+        CohortReport alone = service.compare("alice", null);
+        assertThat(alone.getCohort()).isEqualTo("reddit");
+        assertThat(alone.getCategories().get(1).getShare()).isEqualTo(0.25);
+        assertThat(alone.getCategories().get(1).getPercentile()).isNull();
+
+        service.record(profile("bob", "reddit", "{\"Hostility\": 3, \"Baseline\": 1}"));
+        CohortReport two = service.compare("alice", CohortRollupService.ALL);
+        assertThat(two.getCategories().get(1).getPercentile()).isBetween(0.0, 50.0);
+        assertThat(service.compare("alice", "mastodon")).isNull();
+        assertThat(service.compare("nobody", null)).isNull();
+    }
+
+    private static ProfileAnalysis profile(String username, String platform, String totals) {
+        return ProfileAnalysis.builder().username(username).platform(platform).profileTotalsJson(totals).build();
+    }
+
+    private static ResultSet row(String username, String platform, String totals) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("username")).thenReturn(username);
+        when(rs.getString("platform")).thenReturn(platform);
+        when(rs.getString("profile_totals_json")).thenReturn(totals);
+        return rs;
+    }
+}
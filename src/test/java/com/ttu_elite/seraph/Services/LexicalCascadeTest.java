@@ -0,0 +1,71 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LexicalCascadeTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LexicalCascade cascade = new LexicalCascade(new PipelineMetrics(registry));
+
+    private final Taxonomy tax = Taxonomy.compile(new Taxonomy.Definition(1, null, List.of(
+            new Taxonomy.Category("BASELINE", "Baseline", true, "everyday life", List.of("game"), null, null, null),
+            new Taxonomy.Category("HOSTILITY", "Hostility", false, "hostility", List.of("hate"), null, null, null))),
+            "hash", Map.of("BASELINE", new float[]{1f, 0f}, "HOSTILITY", new float[]{0f, 1f}));
+
+    LexicalCascadeTest() {
+        ReflectionTestUtils.setField(cascade, "maxShortWords", 3);
+        ReflectionTestUtils.setField(cascade, "minBaselineBm25", 2.0);
+    }
+
+    @Test
+    void shortOrStrongBaselinePostsSkipTheModel() {
+        List<String> texts = List.of(
+                "nice https://example.com/some/long/path",
+                "played the new game all night with friends again",
+                "played something all night with friends again");
+        boolean[] skip = cascade.skips(texts, Map.of(
+                "BASELINE", List.of(0.0, 2.5, 1.0),
+                "HOSTILITY", List.of(0.0, 0.0, 0.0)), tax);
+
+        assertThat(skip).containsExactly(true, true, false);
+    }
+
+    @Test
+    void anyRiskKeywordForcesTheNeuralPass() {
+        boolean[] skip = cascade.skips(List.of("hate it", "hate this game so much"), Map.of(
+                "BASELINE", List.of(0.0, 5.0),
+                "HOSTILITY", List.of(0.3, 1.2)), tax);
+
+        assertThat(skip).containsExactly(false, false);
+    }
+
+    @Test
+    void missingBaselineScoresFallBackToLength() {
+        boolean[] skip = cascade.skips(List.of("ok", "this one has more than three words"),
+                Map.of("HOSTILITY", List.of(0.0, 0.0)), tax);
+
+        assertThat(skip).containsExactly(true, false);
+    }
+
+    @Test
+    void wordCountIgnoresUrls() {
+        assertThat(LexicalCascade.wordCount(null)).isZero();
+        assertThat(LexicalCascade.wordCount("https://a.b/c www.d.e")).isZero();
+        assertThat(LexicalCascade.wordCount("  see  https://a.b/c  here ")).isEqualTo(2);
+    }
+
+    @Test
+    void recordCountsBothPaths() {
+        cascade.record(new boolean[]{true, false, true});
+
+        assertThat(registry.get("seraph.cascade.posts").tag("path", LexicalCascade.PATH_LEXICAL).counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("seraph.cascade.posts").tag("path", LexicalCascade.PATH_NEURAL).counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicroBatcherTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final List<MicroBatcher<?, ?>> batchers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        batchers.forEach(MicroBatcher::shutdown);
+    }
+
+    @Test
+    void concurrentSubmitsShareABatch() throws Exception {
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        MicroBatcher<String, Integer> batcher = batcher(inputs -> {
+            sizes.add(inputs.size());
+            return inputs.stream().map(String::length).toList();
+        }, 8, 200_000);
+
+        List<CompletableFuture<Integer>> futures = batcher.submitAll(List.of("a", "bb", "ccc", "dddd"));
+        for (int i = 0; i < futures.size(); i++) assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i + 1);
+        assertThat(sizes).containsExactly(4);
+    }
+
+    @Test
+    void runnerFailureFailsTheWholeBatchButNotTheWorker() throws Exception {
+        MicroBatcher<String, String> batcher = batcher(inputs -> {
+            if (inputs.contains("boom")) throw new IllegalStateException("model down");
+            return inputs;
+        }, 8, 0);
+
+        CompletableFuture<String> failed = batcher.submit("boom");
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(batcher.submit("ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void cancelledCallerDoesNotStallTheWorker() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MicroBatcher<String, String> batcher = batcher(inputs -> {
+            entered.countDown();
+            await(release);
+            return inputs;
+        }, 1, 0);
+
+        CompletableFuture<String> abandoned = batcher.submit("slow");
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        // e.g. the caller's deadline passed; the batch still runs to completion
+        abandoned.cancel(true);
+        release.countDown();
+
+        assertThat(batcher.submit("next").get(5, TimeUnit.SECONDS)).isEqualTo("next");
+        assertThat(abandoned.isCancelled()).isTrue();
+    }
+
+    @Test
+    void shutdownInterruptsWorkersAndFailsQueuedItems() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        MicroBatcher<String, String> batcher = batcher(inputs -> {
+            entered.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+            return inputs;
+        }, 1, 0);
+
+        CompletableFuture<String> running = batcher.submit("running");
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = batcher.submit("queued");
+
+        batcher.shutdown();
+
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(batcher.queued()).isZero();
+        assertThat(batcher.submit("late")).isCompletedExceptionally();
+    }
+
+    private <I, O> MicroBatcher<I, O> batcher(Function<List<I>, List<O>> runner, int maxBatch, long maxWaitMicros) {
+        MicroBatcher<I, O> batcher = new MicroBatcher<>("test", runner, 1, maxBatch, maxWaitMicros, metrics);
+        batchers.add(batcher);
+        return batcher;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ttu_elite.seraph.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void stagesOfAJoinedThreadLandInTheRequestTrace() throws Exception {
+        metrics.beginTrace();
+        metrics.record("embed", 2_000_000);
+
+        Map<String, Long> trace = metrics.currentTrace();
+        Thread producer = Thread.ofVirtual().start(() -> {
+            metrics.joinTrace(trace);
+            try {
+                metrics.record("fetch", 5_000_000);
+            } finally {
+                metrics.leaveTrace();
+            }
+        });
+        producer.join();
+
+        Map<String, Double> ms = metrics.endTrace();
+        assertThat(ms).containsEntry("embed", 2.0).containsEntry("fetch", 5.0);
+    }
+
+    @Test
+    void noTraceWithoutDebug() {
+        metrics.joinTrace(metrics.currentTrace());
+        metrics.record("fetch", 1_000_000);
+        assertThat(metrics.endTrace()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostDeduplicatorTest {
+
+    private PostDeduplicator dedup;
+
+    @BeforeEach
+    void setUp() {
+        dedup = new PostDeduplicator();
+        ReflectionTestUtils.setField(dedup, "enabled", true);
+        ReflectionTestUtils.setField(dedup, "maxHamming", 3);
+        ReflectionTestUtils.setField(dedup, "minTokens", 6);
+    }
+
+    @Test
+    void exactDuplicateIgnoresCaseAndWhitespace() {
+        PostDeduplicator.Session session = dedup.newSession();
+        PostDeduplicator.Match first = session.assign(dedup.fingerprint("Buy cheap followers now at my site"));
+        PostDeduplicator.Match copy = session.assign(dedup.fingerprint("  buy CHEAP followers\n now at   my site "));
+
+        assertThat(first.isNew()).isTrue();
+        assertThat(copy.isNew()).isFalse();
+        assertThat(copy.entry()).isSameAs(first.entry());
+        assertThat(session.duplicates()).isEqualTo(1);
+    }
+
+    @Test
+    void negatedPostNeverReusesItsOpposite() {
+        PostDeduplicator.Session session = dedup.newSession();
+        PostDeduplicator.Match plain = session.assign(dedup.fingerprint("I am going to kill myself tonight"));
+        PostDeduplicator.Match negated = session.assign(dedup.fingerprint("I am not going to kill myself tonight"));
+        PostDeduplicator.Match contracted = session.assign(dedup.fingerprint("I'm not going to kill myself tonight"));
+        PostDeduplicator.Match dont = session.assign(dedup.fingerprint("I don't want to kill myself tonight"));
+        PostDeduplicator.Match doWant = session.assign(dedup.fingerprint("I do want to kill myself tonight"));
+
+        assertThat(plain.isNew()).isTrue();
+        assertThat(negated.isNew()).isTrue();
+        assertThat(negated.entry()).isNotSameAs(plain.entry());
+        assertThat(contracted.entry()).isNotSameAs(plain.entry());
+        assertThat(dont.isNew()).isTrue();
+        assertThat(doWant.entry()).isNotSameAs(dont.entry());
+    }
+
+    @Test
+    void negationsAreFingerprinted() {
+        PostDeduplicator.Fingerprint yes = dedup.fingerprint("this is fine and I am okay with it");
+        PostDeduplicator.Fingerprint no = dedup.fingerprint("this is not fine and I am okay with it");
+        PostDeduplicator.Fingerprint curly = dedup.fingerprint("this isn’t fine and I am okay with it");
+        PostDeduplicator.Fingerprint straight = dedup.fingerprint("this isn't fine and I am okay with it");
+
+        assertThat(yes.exact()).isNotEqualTo(no.exact());
+        assertThat(yes.negations()).isNotEqualTo(no.negations());
+        assertThat(curly.exact()).isEqualTo(straight.exact());
+        assertThat(PostDeduplicator.isNegation("isn't")).isTrue();
+        assertThat(PostDeduplicator.isNegation("never")).isTrue();
+        assertThat(PostDeduplicator.isNegation("known")).isFalse();
+    }
+
+    @Test
+    void nearDuplicateWithinHammingDistance() {
+        String base = "Check out my new mixtape on soundcloud, it has twelve tracks of lofi beats for studying "
+                + "and relaxing, recorded over the summer in my bedroom studio with a cheap microphone. "
+                + "Every track was mixed by ear on borrowed headphones because the monitors broke in June, "
+                + "so some of the bass lines are louder than they should be. Let me know which songs you "
+                + "like best and whether the vocals on the fourth one are too quiet compared to the rest. "
+                + "Physical copies on cassette are coming next month for anyone who still owns a player";
+        PostDeduplicator.Session session = dedup.newSession();
+        PostDeduplicator.Match first = session.assign(dedup.fingerprint(base));
+        PostDeduplicator.Match edited = session.assign(dedup.fingerprint(base + " lol"));
+
+        assertThat(first.isNew()).isTrue();
+        assertThat(edited.isNew()).isFalse();
+        assertThat(edited.entry()).isSameAs(first.entry());
+    }
+
+    @Test
+    void entryKeepsScoresButNotTextAndReleasesItsVector() {
+        PostDeduplicator.Session session = dedup.newSession();
+        PostDeduplicator.Match first = session.assign(dedup.fingerprint("Buy cheap followers now at my site"));
+        session.resolve(first.entry(), RedditPost.builder()
+                .redditPostId("p1")
+                .title("Buy cheap followers")
+                .content("now at my site")
+                .tokens("{\"Spam\": 0.9}")
+                .scoringPath("model")
+                .build(), new float[]{1f, 0f});
+
+        PostDeduplicator.Entry entry = session.assign(dedup.fingerprint("buy cheap followers now at my site")).entry();
+        assertThat(entry.postId()).isEqualTo("p1");
+        assertThat(entry.tokens()).isEqualTo("{\"Spam\": 0.9}");
+        assertThat(entry.scoringPath()).isEqualTo("model");
+        assertThat(entry.vector()).containsExactly(1f, 0f);
+
+        session.releaseVectors();
+        assertThat(entry.vector()).isNull();
+        assertThat(entry.tokens()).isNotNull();
+    }
+
+    @Test
+    void shortPostsOnlyMatchExactly() {
+        PostDeduplicator.Fingerprint fp = dedup.fingerprint("thanks so much");
+        assertThat(fp.nearEligible()).isFalse();
+
+        PostDeduplicator.Session session = dedup.newSession();
+        session.assign(fp);
+        assertThat(session.assign(dedup.fingerprint("thanks so much!!")).isNew()).isTrue();
+    }
+
+    @Test
+    void disabledNeverMatches() {
+        ReflectionTestUtils.setField(dedup, "enabled", false);
+        PostDeduplicator.Session session = dedup.newSession();
+        session.assign(dedup.fingerprint("same text"));
+        assertThat(session.assign(dedup.fingerprint("same text")).isNew()).isTrue();
+        assertThat(session.duplicates()).isZero();
+    }
+
+    @Test
+    void wordsKeepContractionsAndDropQuotes() {
+        assertThat(PostDeduplicator.words(PostDeduplicator.fold("'Don't'  STOP,\tnow"))).containsExactly("don't", "stop", "now");
+    }
+}
@@ -0,0 +1,115 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.Repositories.TrendBucketRepository;
+import com.ttu_elite.seraph.dto.TrendReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProfileTrendAggregatorTest {
+
+    private static final long DAY = 86_400L;
+    private static final long T0 = 1_704_067_200L; // 2024-01-01, a Monday
+
+    private ProfileTrendAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        TrendBucketRepository repo = mock(TrendBucketRepository.class);
+        when(repo.findAllByUsername("alice")).thenReturn(List.of());
+        aggregator = newAggregator(repo);
+        ReflectionTestUtils.setField(aggregator, "halfLifeDays", 7.0);
+    }
+
+    @Test
+    void streamedPagesShareTheWatermarkCapturedUpFront() {
+        long before = aggregator.watermark("alice");
+
+        // Newest first, like a streamed analysis
+        aggregator.ingest("alice", List.of(post(T0 + 3 * DAY, 0.8), post(T0 + 2 * DAY, 0.6)), before);
+        aggregator.ingest("alice", List.of(post(T0 + DAY, 0.4), post(T0, 0.2)), before);
+
+        TrendReport report = aggregator.trend("alice", "Distress", "day");
+        assertThat(report.getPostCount()).isEqualTo(4);
+        assertThat(report.getPoints()).hasSize(4);
+        assertThat(aggregator.watermark("alice")).isEqualTo(T0 + 3 * DAY);
+    }
+
+    @Test
+    void withoutTheCapturedWatermarkOlderPagesAreSkipped() {
+        aggregator.ingest("alice", List.of(post(T0 + 3 * DAY, 0.8)));
+        aggregator.ingest("alice", List.of(post(T0 + DAY, 0.4)));
+
+        assertThat(aggregator.trend("alice", "Distress", "day").getPostCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reanalysisNeverDoubleCounts() {
+        List<RedditPost> page = List.of(post(T0 + DAY, 0.5), post(T0, 0.5));
+        aggregator.ingest("alice", page, aggregator.watermark("alice"));
+        aggregator.ingest("alice", page, aggregator.watermark("alice"));
+
+        assertThat(aggregator.trend("alice", "Distress", "week").getPostCount()).isEqualTo(2);
+        assertThat(aggregator.average("alice", "Distress")).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void decayedScoreDoesNotDependOnPageOrder() {
+        ProfileTrendAggregator inOrder = aggregator;
+        inOrder.ingest("alice", List.of(post(T0, 1.0), post(T0 + 7 * DAY, 1.0)), Long.MIN_VALUE);
+
+        TrendBucketRepository repo = mock(TrendBucketRepository.class);
+        when(repo.findAllByUsername("alice")).thenReturn(List.of());
+        ProfileTrendAggregator reversed = newAggregator(repo);
+        ReflectionTestUtils.setField(reversed, "halfLifeDays", 7.0);
+        reversed.ingest("alice", List.of(post(T0 + 7 * DAY, 1.0)), Long.MIN_VALUE);
+        reversed.ingest("alice", List.of(post(T0, 1.0)), Long.MIN_VALUE);
+
+        // One half-life apart: 1 + 0.5 at the newer post, whichever page came first
+        double a = inOrder.trend("alice", "Distress", "day").getDecayedScore();
+        double b = reversed.trend("alice", "Distress", "day").getDecayedScore();
+        assertThat(a).isCloseTo(b, within(1e-3));
+    }
+
+    @Test
+    void invalidatedUserIsReloadedFromTheDatabase() {
+        TrendBucketRepository repo = mock(TrendBucketRepository.class);
+        when(repo.findAllByUsername("alice")).thenReturn(List.of());
+        ProfileTrendAggregator agg = newAggregator(repo);
+        agg.ingest("alice", List.of(post(T0, 0.5)), Long.MIN_VALUE);
+        assertThat(agg.trend("alice", "Distress", "day").getPostCount()).isEqualTo(1);
+
+        // Rows written by another node are not in this node's cache until it reloads
+        agg.invalidate("alice");
+        assertThat(agg.trend("alice", "Distress", "day")).isNull();
+        verify(repo, times(2)).findAllByUsername("alice");
+    }
+
+    private static ProfileTrendAggregator newAggregator(TrendBucketRepository repo) {
+        return new ProfileTrendAggregator(repo, new ObjectMapper(), mock(JdbcTemplate.class),
+                mock(TransactionTemplate.class), 100, 1 << 20, new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static RedditPost post(long createdUtc, double distress) {
+        return RedditPost.builder()
+                .username("alice")
+                .redditPostId("p" + createdUtc)
+                .createdUtc(createdUtc)
+                .tokens("{\"Distress\": " + distress + "}")
+                .build();
+    }
+}
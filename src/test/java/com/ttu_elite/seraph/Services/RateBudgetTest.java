@@ -0,0 +1,50 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateBudgetTest {
+
+    @Test
+    void startsFullAndRunsDry() {
+        RateBudget budget = new RateBudget(3);
+
+        assertThat(budget.available()).isEqualTo(3);
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    void acquireGivesUpWhenTheNextPermitIsPastTheDeadline() throws Exception {
+        RateBudget budget = new RateBudget(1); // next permit in a minute
+        assertThat(budget.tryAcquire()).isTrue();
+
+        long t = System.nanoTime();
+        assertThat(budget.acquire(50)).isFalse();
+        // Gives up up front instead of sleeping out the wait
+        assertThat((System.nanoTime() - t) / 1_000_000).isLessThan(1_000);
+    }
+
+    @Test
+    void acquireWaitsForTheRefill() throws Exception {
+        RateBudget budget = new RateBudget(6_000); // one permit every 10 ms
+        while (budget.tryAcquire()) {
+            // drain
+        }
+
+        long t = System.nanoTime();
+        assertThat(budget.acquire(2_000)).isTrue();
+        assertThat((System.nanoTime() - t) / 1_000_000).isLessThan(2_000);
+    }
+
+    @Test
+    void neverHoldsMoreThanOneMinuteOfPermits() throws Exception {
+        RateBudget budget = new RateBudget(60_000);
+        Thread.sleep(20);
+        assertThat(budget.available()).isLessThanOrEqualTo(60_000);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayPostSourceTest {
+
+    private static final long EPOCH = 1_704_067_200L;
+
+    private ReplayPostSource source;
+
+    @BeforeEach
+    void setUp() {
+        source = newSource();
+    }
+
+    @Test
+    void syntheticHistoryIsDeterministic() {
+        List<Map<String, Object>> first = walk(source, "submitted", "someone");
+        List<Map<String, Object>> second = walk(newSource(), "submitted", "someone");
+
+        assertThat(first).isNotEmpty();
+        assertThat(second).isEqualTo(first);
+        assertThat(walk(source, "submitted", "someone_else")).isNotEqualTo(first);
+    }
+
+    @Test
+    void timestampsCountBackFromTheFixedEpoch() {
+        List<Map<String, Object>> posts = walk(source, "comments", "someone");
+
+        long previous = Long.MAX_VALUE;
+        for (Map<String, Object> p : posts) {
+            long created = ((Number) p.get("created_utc")).longValue();
+            assertThat(created).isLessThan(EPOCH).isLessThan(previous);
+            previous = created;
+        }
+    }
+
+    @Test
+    void pagesWalkTheWholeHistoryWithoutRepeats() {
+        List<Map<String, Object>> posts = walk(source, "submitted", "pager");
+
+        // synthetic-posts=200: between 100 and 299 posts, so at least two pages
+        assertThat(posts.size()).isBetween(100, 299);
+        assertThat(posts.stream().map(p -> p.get("id")).distinct().count()).isEqualTo(posts.size());
+    }
+
+    @Test
+    void recordedUserIsReplayedAndNeverFallsBackToSynthetic(@TempDir Path dir) throws Exception {
+        Path user = Files.createDirectories(dir.resolve("recorded"));
+        Files.writeString(user.resolve("submitted-0.json"),
+                "{\"data\": {\"after\": \"t3_real\", \"children\": [{\"kind\": \"t3\", \"data\": {\"id\": \"a1\", \"title\": \"hi\"}}]}}");
+        ReflectionTestUtils.setField(source, "replayDir", dir.toString());
+
+        Map<String, Object> data = data(source.fetchUserSubmitted("t", "recorded", null));
+        assertThat(children(data)).hasSize(1);
+        assertThat(data.get("after")).isNull(); // only one page recorded
+
+        assertThat(children(data(source.fetchUserComments("t", "recorded", null)))).isEmpty();
+    }
+
+    private static ReplayPostSource newSource() {
+        ReplayPostSource s = new ReplayPostSource(new ObjectMapper());
+        ReflectionTestUtils.setField(s, "replayDir", "");
+        ReflectionTestUtils.setField(s, "latencyMs", 0L);
+        ReflectionTestUtils.setField(s, "jitterMs", 0L);
+        ReflectionTestUtils.setField(s, "syntheticPosts", 200);
+        ReflectionTestUtils.setField(s, "syntheticComments", 300);
+        ReflectionTestUtils.setField(s, "riskShare", 0.15);
+        ReflectionTestUtils.setField(s, "epochSeconds", EPOCH);
+        return s;
+    }
+
+    private static List<Map<String, Object>> walk(ReplayPostSource source, String listing, String username) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        String after = null;
+        do {
+            Map<String, Object> page = listing.equals("comments")
+                    ? source.fetchUserComments("t", username, after)
+                    : source.fetchUserSubmitted("t", username, after);
+            Map<String, Object> data = data(page);
+            for (Map<String, Object> child : children(data)) out.add((Map<String, Object>) child.get("data"));
+            after = (String) data.get("after");
+        } while (after != null);
+        return out;
+    }
+
+    private static Map<String, Object> data(Map<String, Object> page) {
+        return (Map<String, Object>) page.get("data");
+    }
+
+    private static List<Map<String, Object>> children(Map<String, Object> data) {
+        return (List<Map<String, Object>>) data.get("children");
+    }
+}
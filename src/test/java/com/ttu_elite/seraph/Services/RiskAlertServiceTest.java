@@ -0,0 +1,133 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.dto.RiskAlert;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RiskAlertServiceTest {
+
+    private static final long WATERMARK = 1_000L;
+
+    private final ProfileTrendAggregator trend = mock(ProfileTrendAggregator.class);
+    private final TaxonomyService taxonomy = mock(TaxonomyService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RecordingSink good = new RecordingSink("good", false);
+    private final RecordingSink bad = new RecordingSink("bad", true);
+
+    private final RiskAlertService service = new RiskAlertService(List.of(good, bad), trend, new ObjectMapper(),
+            new PipelineMetrics(registry), taxonomy);
+
+    RiskAlertServiceTest() {
+        when(taxonomy.current()).thenReturn(Taxonomy.compile(new Taxonomy.Definition(1, null, List.of(
+                new Taxonomy.Category("BASELINE", "Baseline", true, "everyday life", null, null, null, null),
+                new Taxonomy.Category("HOSTILITY", "Hostility", false, "hostility", null, null, 0.5, null))),
+                "hash", Map.of("BASELINE", new float[]{1f, 0f}, "HOSTILITY", new float[]{0f, 1f})));
+        when(trend.average(anyString(), anyString())).thenReturn(null);
+
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "thresholdOverrides", Map.of());
+        ReflectionTestUtils.setField(service, "riseFactor", 2.0);
+        ReflectionTestUtils.setField(service, "riseMinScore", 0.3);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        service.init();
+    }
+
+    @Test
+    void thresholdAlertsOnlyNewPostsOnce() {
+        List<RedditPost> posts = List.of(
+                post("old", WATERMARK, 0.9, 0.1),
+                post("new", WATERMARK + 1, 0.6, 0.4),
+                post("quiet", WATERMARK + 2, 0.49, 0.51));
+
+        service.evaluate("someone", posts, 0L, WATERMARK);
+        service.evaluate("someone", posts, 0L, WATERMARK); // same posts again: deduplicated
+        service.flush();
+
+        assertThat(good.alerts()).extracting(RiskAlert::getRedditPostId, RiskAlert::getCategory, RiskAlert::getRule)
+                .containsExactly(tuple("new", "Hostility", "THRESHOLD"));
+    }
+
+    @Test
+    void riseRuleNeedsFactorMinimumScoreAndAThreshold() {
+        when(trend.average("someone", "Hostility")).thenReturn(0.15);
+        when(trend.average("someone", "Baseline")).thenReturn(0.1);
+
+        service.evaluate("someone", List.of(
+                post("doubled", WATERMARK + 1, 0.4, 0.9),   // 0.4 >= 2 x 0.15; Baseline has no threshold
+                post("too-low", WATERMARK + 2, 0.29, 0.0),  // below rise-min-score
+                post("nothing", WATERMARK + 3, 0.0, 0.0)), 0L, WATERMARK);
+        // 0.45 is under 2 x 0.25
+        when(trend.average("someone", "Hostility")).thenReturn(0.25);
+        service.evaluate("someone", List.of(post("slower", WATERMARK + 4, 0.45, 0.0)), 0L, WATERMARK);
+        service.flush();
+
+        assertThat(good.alerts()).hasSize(1);
+        RiskAlert alert = good.alerts().get(0);
+        assertThat(alert.getRedditPostId()).isEqualTo("doubled");
+        assertThat(alert.getRule()).isEqualTo("RATE_OF_CHANGE");
+        assertThat(alert.getBaseline()).isEqualTo(0.15);
+    }
+
+    @Test
+    void overridesReplaceTaxonomyThresholds() {
+        ReflectionTestUtils.setField(service, "thresholdOverrides", Map.of("Hostility", 0.8));
+
+        service.evaluate("someone", List.of(post("a", WATERMARK + 1, 0.6, 0.0), post("b", WATERMARK + 2, 0.85, 0.0)),
+                0L, WATERMARK);
+        service.flush();
+
+        assertThat(good.alerts()).extracting(RiskAlert::getRedditPostId).containsExactly("b");
+    }
+
+    @Test
+    void failuresAreCountedPerSinkAndNotAsDelivered() {
+        service.evaluate("someone", List.of(post("a", WATERMARK + 1, 0.7, 0.0)), System.currentTimeMillis(), WATERMARK);
+        service.flush();
+
+        assertThat(registry.get("seraph.alerts.failed").tag("sink", "bad").counter().count()).isEqualTo(1.0);
+        assertThat(service.latencyStats()).containsEntry("delivered", 1L).containsEntry("failed", 1L);
+
+        // Nobody takes the batch: nothing is recorded as delivered
+        RiskAlertService allBad = new RiskAlertService(List.of(bad), trend, new ObjectMapper(),
+                new PipelineMetrics(new SimpleMeterRegistry()), taxonomy);
+        ReflectionTestUtils.setField(allBad, "enabled", true);
+        ReflectionTestUtils.setField(allBad, "thresholdOverrides", Map.of());
+        ReflectionTestUtils.setField(allBad, "batchSize", 100);
+        allBad.init();
+        allBad.evaluate("someone", List.of(post("b", WATERMARK + 1, 0.7, 0.0)), 0L, WATERMARK);
+        allBad.flush();
+
+        assertThat(allBad.latencyStats()).containsEntry("delivered", 0L).containsEntry("failed", 1L)
+                .containsEntry("pending", 0);
+    }
+
+    private static RedditPost post(String id, long createdUtc, double hostility, double baseline) {
+        return RedditPost.builder().redditPostId(id).createdUtc(createdUtc)
+                .tokens("{\"Hostility\": " + hostility + ", \"Baseline\": " + baseline + "}").build();
+    }
+
+    private record RecordingSink(String name, boolean fail, List<RiskAlert> alerts) implements AlertSink {
+        RecordingSink(String name, boolean fail) {
+            this(name, fail, new ArrayList<>());
+        }
+
+        @Override
+        public void publish(List<RiskAlert> batch) {
+            if (fail) throw new IllegalStateException("sink down");
+            alerts.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.RedditPost;
+import com.ttu_elite.seraph.dto.PostExplanation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScoreExplainerTest {
+
+    private final PostVectorStore vectorStore = mock(PostVectorStore.class);
+    private final TaxonomyService taxonomy = mock(TaxonomyService.class);
+    private final ScoreExplainer explainer;
+
+    ScoreExplainerTest() {
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        explainer = new ScoreExplainer(new Bm25Ranker(metrics), new TfidfRanker(), new EmbeddingRanker(metrics, null, null),
+                vectorStore, new TextNormalizer(2000), taxonomy, metrics);
+        ReflectionTestUtils.setField(explainer, "topTerms", 1);
+
+        when(taxonomy.current()).thenReturn(Taxonomy.compile(new Taxonomy.Definition(1, null, List.of(
+                new Taxonomy.Category("BASELINE", "Baseline", true, "everyday life", List.of("game"), null, null, null),
+                new Taxonomy.Category("HOSTILITY", "Hostility", false, "open hostility", List.of("hate", "angry"), null, null, null))),
+                "hash", Map.of("BASELINE", new float[]{1f, 0f}, "HOSTILITY", new float[]{0f, 1f})));
+        when(vectorStore.storedVectors(any())).thenReturn(Map.of("p1", new float[]{0.6f, 0.8f}));
+    }
+
+    @Test
+    void embeddedPostIsExplainedByItsNearestAnchorAndKeywords() {
+        Map<String, PostExplanation> out = explainer.explain(List.of(
+                post("p1", null, null, "I hate losing, hate it, so angry at this game")));
+
+        PostExplanation p1 = out.get("p1");
+        assertThat(p1.getScoringPath()).isEqualTo(LexicalCascade.PATH_NEURAL);
+        assertThat(p1.getNearestCategory()).isEqualTo("Hostility");
+        assertThat(p1.getNearestAnchor()).isEqualTo("open hostility");
+        assertThat(p1.getAnchorSimilarity()).isEqualTo(0.8);
+
+        PostExplanation.CategoryExplanation top = p1.getCategories().get(0);
+        assertThat(top.getCategory()).isEqualTo("Hostility");
+        assertThat(top.getSemantic()).isEqualTo(0.8);
+        // top-terms = 1: the repeated keyword outweighs the single one
+        assertThat(top.getBm25Terms()).extracting(PostExplanation.Term::getTerm).containsExactly("hate");
+        assertThat(top.getTfidfTerms()).hasSize(1);
+        assertThat(p1.getCategories()).extracting(PostExplanation.CategoryExplanation::getFused)
+                .isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    void duplicateUsesItsClusterVector() {
+        Map<String, PostExplanation> out = explainer.explain(List.of(
+                post("p1", null, null, "so angry"),
+                post("p2", "p1", null, "so angry!!")));
+
+        assertThat(out.get("p2").getNearestCategory()).isEqualTo("Hostility");
+        assertThat(out.get("p2").getAnchorSimilarity()).isEqualTo(out.get("p1").getAnchorSimilarity());
+    }
+
+    @Test
+    void postWithoutVectorHasOnlyKeywordEvidence() {
+        Map<String, PostExplanation> out = explainer.explain(List.of(
+                post("p3", null, null, "what a game"),
+                post("p4", null, LexicalCascade.PATH_DEGRADED, "nothing to see")));
+
+        PostExplanation p3 = out.get("p3");
+        assertThat(p3.getScoringPath()).isEqualTo(LexicalCascade.PATH_LEXICAL);
+        assertThat(p3.getNearestCategory()).isNull();
+        assertThat(p3.getAnchorSimilarity()).isNull();
+        assertThat(p3.getCategories()).singleElement().satisfies(c -> {
+            assertThat(c.getCategory()).isEqualTo("Baseline");
+            assertThat(c.getFused()).isZero();
+            assertThat(c.getBm25()).isPositive();
+        });
+
+        // Stored path wins; no keyword hit and no embedding leaves nothing to list
+        assertThat(out.get("p4").getScoringPath()).isEqualTo(LexicalCascade.PATH_DEGRADED);
+        assertThat(out.get("p4").getCategories()).isEmpty();
+    }
+
+    @Test
+    void emptyInputSkipsTheStores() {
+        assertThat(explainer.explain(List.of())).isEmpty();
+        assertThat(explainer.explain(null)).isEmpty();
+    }
+
+    private static RedditPost post(String id, String duplicateOf, String path, String text) {
+        return RedditPost.builder().redditPostId(id).duplicateOf(duplicateOf).scoringPath(path)
+                .kind("comment").content(text).build();
+    }
+}
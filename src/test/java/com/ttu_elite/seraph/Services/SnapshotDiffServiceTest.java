@@ -0,0 +1,141 @@
+package com.ttu_elite.seraph.Services;
+
+import com.ttu_elite.seraph.Entities.ProfileAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnapshotDiffServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final TransactionTemplate tx = mock(TransactionTemplate.class);
+
+    private final ProfileAnalysis from = snapshot(1L, "{\"Hostility\": 1.0, \"Baseline\": 3.0}");
+    private final ProfileAnalysis to = snapshot(2L, "{\"Hostility\": 3.0, \"Baseline\": 1.0}");
+
+    // from_id, to_id, from_scores, to_scores
+    private final List<String[]> rows = List.of(
+            new String[]{"p1", "p1", "{\"Hostility\": 0.2, \"Baseline\": 0.8}", "{\"Hostility\": 0.7, \"Baseline\": 0.4}"},
+            new String[]{"p2", "p2", "{\"Hostility\": 0.1, \"Baseline\": 0.9}", "{\"Hostility\": 0.105, \"Baseline\": 0.9}"},
+            new String[]{"p3", null, "{\"Hostility\": 0.3, \"Baseline\": 0.7}", null},
+            new String[]{null, "p4", null, "{\"Hostility\": 0.9, \"Baseline\": 0.1}"});
+
+    @Test
+    void countsMovementAndKeepsOnlyTheTopMovers() throws Exception {
+        List<Map<String, Object>> out = run(1);
+
+        assertThat(out).extracting(m -> m.get("type")).containsExactly("header", "removed", "added", "summary");
+        assertThat(out.get(1)).containsEntry("redditPostId", "p3").containsEntry("topCategory", "Baseline");
+        assertThat(out.get(2)).containsEntry("redditPostId", "p4").containsEntry("topCategory", "Hostility");
+
+        Map<String, Object> summary = out.get(3);
+        assertThat(summary).containsEntry("added", 1).containsEntry("removed", 1)
+                .containsEntry("common", 2)
+                // p2 moved, but by less than min-change
+                .containsEntry("changed", 1);
+
+        List<Map<String, Object>> movers = list(summary.get("topMovers"));
+        assertThat(movers).hasSize(1);
+        assertThat(movers.get(0)).containsEntry("redditPostId", "p1").containsEntry("delta", 0.5)
+                .containsEntry("category", "Hostility")
+                .containsEntry("fromTopCategory", "Baseline").containsEntry("toTopCategory", "Hostility");
+    }
+
+    @Test
+    void categoryShiftsSeparateSharesMeansAndCommonChange() throws Exception {
+        Map<String, Object> summary = run(5).get(3);
+        assertThat(list(summary.get("topMovers"))).extracting(m -> m.get("redditPostId")).containsExactly("p1", "p2");
+
+        Map<String, Map<String, Object>> shifts = new HashMap<>();
+        for (Map<String, Object> s : list(summary.get("categoryShifts"))) shifts.put((String) s.get("category"), s);
+
+        assertThat(shifts.get("Hostility"))
+                .containsEntry("fromShare", 0.25).containsEntry("toShare", 0.75).containsEntry("shareDelta", 0.5)
+                .containsEntry("fromMean", 0.2).containsEntry("toMean", 0.5683).containsEntry("meanDelta", 0.3683)
+                .containsEntry("commonMeanDelta", 0.2525);
+        assertThat(shifts.get("Baseline"))
+                .containsEntry("shareDelta", -0.5)
+                .containsEntry("fromMean", 0.8).containsEntry("toMean", 0.4667)
+                .containsEntry("commonMeanDelta", -0.2);
+    }
+
+    @Test
+    void headerFlagsATaxonomyChange() throws Exception {
+        to.setTaxonomyVersion(2);
+        Map<String, Object> header = run(0).get(0);
+
+        assertThat(header).containsEntry("username", "someone").containsEntry("taxonomyChanged", true);
+    }
+
+    private List<Map<String, Object>> run(int top) throws Exception {
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (String[] row : rows) handler.processRow(resultSet(row));
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(), any());
+
+        SnapshotDiffService service = new SnapshotDiffService(mock(DataSource.class), tx, mapper,
+                new PipelineMetrics(new SimpleMeterRegistry()), 100);
+        ReflectionTestUtils.setField(service, "cursorJdbc", jdbc);
+        ReflectionTestUtils.setField(service, "minChange", 0.01);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long compared = service.diff(from, to, top, bytes);
+        assertThat(compared).isEqualTo(4);
+
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : bytes.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(mapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+
+    private static ResultSet resultSet(String[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("from_id")).thenReturn(row[0]);
+        when(rs.getString("to_id")).thenReturn(row[1]);
+        when(rs.getString("from_scores")).thenReturn(row[2]);
+        when(rs.getString("to_scores")).thenReturn(row[3]);
+        when(rs.getObject("created_utc")).thenReturn(1_700_000_000L);
+        when(rs.getLong("created_utc")).thenReturn(1_700_000_000L);
+        return rs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> list(Object o) {
+        return (List<Map<String, Object>>) o;
+    }
+
+    private static ProfileAnalysis snapshot(long id, String totals) {
+        return ProfileAnalysis.builder().id(id).platform("reddit").username("someone").postCount(3)
+                .profileTotalsJson(totals).createdAt(Instant.parse("2026-01-01T00:00:00Z")).taxonomyVersion(1).build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TaxonomyTest {
+
+    private static Taxonomy.Category baseline() {
+        return new Taxonomy.Category("BASELINE", "Baseline", true, "everyday life", List.of("game"), null, null, null);
+    }
+
+    private static Taxonomy.Category risk(String key, String name, Double minScore, Taxonomy.Fusion fusion) {
+        return new Taxonomy.Category(key, name, false, "anchor for " + key, List.of("Hate", "angry"), minScore, 0.5, fusion);
+    }
+
+    private static Taxonomy compile(Taxonomy.Definition def) {
+        return Taxonomy.compile(def, "hash", Map.of(
+                "BASELINE", new float[]{1f, 0f},
+                "HOSTILITY", new float[]{0f, 2f},
+                "DISTRESS", new float[]{3f, 4f}));
+    }
+
+    @Test
+    void validateRejectsBrokenDefinitions() {
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null, List.of())))
+                .hasMessageContaining("no categories");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null,
+                List.of(baseline(), risk("BASELINE", "Other", null, null)))))
+                .hasMessageContaining("duplicate category key");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null,
+                List.of(baseline(), risk("HOSTILITY", "Baseline", null, null)))))
+                .hasMessageContaining("duplicate display name");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null,
+                List.of(risk("HOSTILITY", "Hostility", null, null)))))
+                .hasMessageContaining("exactly one category must be the baseline");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null, List.of(baseline(),
+                new Taxonomy.Category("HOSTILITY", "Hostility", false, " ", null, null, null, null)))))
+                .hasMessageContaining("has no anchor");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null, List.of(baseline(),
+                risk("HOSTILITY", "Hostility", null, new Taxonomy.Fusion(Double.NaN, 1, 0, null))))))
+                .hasMessageContaining("non-finite");
+        assertThatThrownBy(() -> Taxonomy.validate(new Taxonomy.Definition(1, null, List.of(baseline(),
+                risk("HOSTILITY", "Hostility", null, new Taxonomy.Fusion(1, 1, 0, 1.0))))))
+                .hasMessageContaining("threshold");
+    }
+
+    @Test
+    void compileNeedsEveryAnchorVector() {
+        Taxonomy.Definition def = new Taxonomy.Definition(1, null, List.of(baseline(), risk("HOSTILITY", "Hostility", null, null)));
+        assertThatThrownBy(() -> Taxonomy.compile(def, "hash", Map.of("BASELINE", new float[]{1f})))
+                .hasMessageContaining("No anchor vector for HOSTILITY");
+    }
+
+    @Test
+    void compiledFormIndexesKeywordsAndNormalizesAnchors() {
+        Taxonomy tax = compile(new Taxonomy.Definition(3, null, List.of(
+                baseline(), risk("HOSTILITY", "Hostility", null, null), risk("DISTRESS", "Distress", null, null))));
+
+        assertThat(tax.version()).isEqualTo(3);
+        assertThat(tax.keys()).containsExactly("BASELINE", "HOSTILITY", "DISTRESS");
+        assertThat(tax.baselineKey()).isEqualTo("BASELINE");
+        assertThat(tax.displayNames()).containsExactly("Baseline", "Hostility", "Distress");
+        assertThat(tax.keywordIndex().get("hate")).containsExactly(1, 2);
+        assertThat(tax.anchorMatrix()[2][0]).isCloseTo(0.6f, within(1e-6f));
+        assertThat(tax.anchorMatrix()[2][1]).isCloseTo(0.8f, within(1e-6f));
+        assertThat(tax.alertThresholds()).containsEntry("Hostility", 0.5);
+    }
+
+    @Test
+    void fixedBlendAppliesWeightsAndNoiseFloor() {
+        Taxonomy tax = compile(new Taxonomy.Definition(1,
+                new Taxonomy.Scoring(0.7, 0.3, 5.0, 0.15, 0.9),
+                List.of(baseline(), risk("HOSTILITY", "Hostility", 0.4, null), risk("DISTRESS", "Distress", null, null))));
+
+        // 0.5 * 0.7 + min(10 / 5, 1) * 0.3
+        assertThat(tax.fuse(1, 0.5, 10.0)).isCloseTo(0.65, within(1e-9));
+
+        Map<String, Double> fused = tax.fuse(
+                Map.of("HOSTILITY", List.of(0.5, 0.3), "DISTRESS", List.of(0.3, 0.1)),
+                Map.of("HOSTILITY", List.of(0.0, 0.0)),
+                1);
+        // 0.21 is under HOSTILITY's own 0.4 floor; 0.07 under the default 0.15
+        assertThat(fused).containsEntry("HOSTILITY", 0.0).containsEntry("DISTRESS", 0.0).containsEntry("BASELINE", 0.0);
+
+        Map<String, Double> first = tax.fuse(Map.of("HOSTILITY", List.of(0.9)), Map.of(), 0);
+        assertThat(first.get("HOSTILITY")).isCloseTo(0.63, within(1e-9));
+    }
+
+    @Test
+    void learnedFusionIsALogisticModel() {
+        Taxonomy tax = compile(new Taxonomy.Definition(1, null, List.of(
+                baseline(), risk("HOSTILITY", "Hostility", null, new Taxonomy.Fusion(4.0, 1.0, -2.0, 0.3)),
+                risk("DISTRESS", "Distress", null, null))));
+
+        double z = 4.0 * 0.5 + Math.log1p(3.0) - 2.0;
+        assertThat(tax.fuse(1, 0.5, 3.0)).isCloseTo(1.0 / (1.0 + Math.exp(-z)), within(1e-12));
+        assertThat(tax.isLearned("HOSTILITY")).isTrue();
+        assertThat(tax.floor("HOSTILITY")).isEqualTo(0.3);
+        assertThat(tax.floor("DISTRESS")).isEqualTo(0.15);
+    }
+
+    @Test
+    void keywordOnlyScoresAtFullWeight() {
+        Taxonomy tax = compile(new Taxonomy.Definition(1, null, List.of(
+                baseline(), risk("HOSTILITY", "Hostility", null, null), risk("DISTRESS", "Distress", null, null))));
+
+        Map<String, Double> fused = tax.fuseKeywordOnly(Map.of("HOSTILITY", List.of(2.5), "DISTRESS", List.of(0.5)), 0);
+        assertThat(fused.get("HOSTILITY")).isCloseTo(0.5, within(1e-9));
+        assertThat(fused.get("DISTRESS")).isEqualTo(0.0); // 0.1 is under the floor
+    }
+
+    @Test
+    void labelBoostsBaselineWhenNothingFired() {
+        Taxonomy tax = compile(new Taxonomy.Definition(1, null, List.of(
+                baseline(), risk("HOSTILITY", "Hostility", null, null), risk("DISTRESS", "Distress", null, null))));
+
+        assertThat(tax.label(tax.zeros())).containsEntry("Baseline", 0.9).containsEntry("Hostility", 0.0);
+
+        Map<String, Double> raw = new java.util.HashMap<>(tax.zeros());
+        raw.put("DISTRESS", 0.456);
+        assertThat(tax.label(raw)).containsEntry("Baseline", 0.0).containsEntry("Distress", 0.46);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    private final TextNormalizer normalizer = new TextNormalizer(2000);
+
+    @Test
+    void emptyAndNull() {
+        assertThat(normalizer.normalize(null)).isEmpty();
+        assertThat(normalizer.normalize("")).isEmpty();
+    }
+
+    @Test
+    void linksKeepTheirLabelAndUrlsTheirHost() {
+        assertThat(normalizer.normalize("see [this thread](https://reddit.com/r/x/comments/1) please"))
+                .isEqualTo("see this thread please");
+        assertThat(normalizer.normalize("watch https://www.youtube.com/watch?v=abc now"))
+                .isEqualTo("watch youtube.com now");
+        assertThat(normalizer.normalize("![a cat](https://i.imgur.com/cat.png)")).isEqualTo("a cat");
+    }
+
+    @Test
+    void quotesAreDroppedAfterUnescaping() {
+        assertThat(normalizer.normalize("&gt; you are an idiot\n\nI disagree &amp; here is why"))
+                .isEqualTo("I disagree & here is why");
+    }
+
+    @Test
+    void codeBlocksBecomeAPlaceholder() {
+        assertThat(normalizer.normalize("look:\n```\nkill -9 1234\n```\ndone")).isEqualTo("look: [code] done");
+        assertThat(normalizer.normalize("run `ls -la` first")).isEqualTo("run ls -la first");
+    }
+
+    @Test
+    void markdownIsUnwrapped() {
+        assertThat(normalizer.normalize("# Title\n\n* **bold** and _italic_ and ~~gone~~\n* >!spoiler!<"))
+                .isEqualTo("Title bold and italic and gone spoiler");
+        assertThat(normalizer.normalize("snake_case_name and 2*3*4")).isEqualTo("snake_case_name and 2*3*4");
+        assertThat(normalizer.normalize("a | b\n---|---\nc | d")).isEqualTo("a b c d");
+    }
+
+    @Test
+    void inlineHtmlIsStripped() {
+        assertThat(normalizer.normalize("<p>Hello <b>world</b></p><script>x()</script>")).isEqualTo("Hello world");
+    }
+
+    @Test
+    void longTextIsCutOnAWordBoundary() {
+        TextNormalizer short20 = new TextNormalizer(20);
+        String out = short20.normalize("alpha beta gamma delta epsilon zeta");
+        assertThat(out.length()).isLessThanOrEqualTo(20);
+        assertThat("alpha beta gamma delta epsilon zeta").startsWith(out);
+        assertThat(out).doesNotEndWith(" ");
+    }
+
+    @Test
+    void hostHandlesBareAndBrokenUrls() {
+        assertThat(TextNormalizer.host("www.Example.com/path").trim()).isEqualTo("example.com");
+        assertThat(TextNormalizer.host("https://[broken").trim()).isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ttu_elite.seraph.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VectorIndexTest {
+
+    private static final int DIM = 32;
+
+    @Test
+    void smallIndexIsAnExactScan() {
+        VectorIndex index = new VectorIndex(DIM);
+        Random rnd = new Random(1);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            float[] v = randomVector(rnd);
+            vectors.add(v);
+            index.add(VectorIndex.quantize(v));
+        }
+
+        assertThat(index.isTrained()).isFalse();
+        for (int i = 0; i < 20; i++) {
+            List<VectorIndex.Hit> hits = index.search(VectorIndex.normalize(vectors.get(i)), 1, 8);
+            assertThat(hits.get(0).ordinal()).isEqualTo(i);
+            assertThat(hits.get(0).similarity()).isGreaterThan(0.98);
+        }
+    }
+
+    @Test
+    void trainsPastThresholdAndKeepsRecall() throws Exception {
+        VectorIndex index = new VectorIndex(DIM);
+        Random rnd = new Random(7);
+        List<float[]> vectors = clustered(rnd, 10_000, 64);
+        for (float[] v : vectors) index.add(VectorIndex.quantize(v));
+        index.awaitTraining();
+
+        assertThat(index.isTrained()).isTrue();
+        assertThat(index.size()).isEqualTo(vectors.size());
+
+        // Recall@10 of the IVF search against an exact scan over the same int8 codes
+        int k = 10;
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = VectorIndex.normalize(perturb(rnd, vectors.get(rnd.nextInt(vectors.size())), 0.05f));
+            Set<Integer> exact = new HashSet<>();
+            for (VectorIndex.Hit h : bruteForce(index, query, k)) exact.add(h.ordinal());
+            for (VectorIndex.Hit h : index.search(query, k, 16)) {
+                if (exact.contains(h.ordinal())) found++;
+            }
+        }
+        assertThat(found / (double) (queries * k)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void vectorsAddedDuringTrainingAreSearchable() throws Exception {
+        VectorIndex index = new VectorIndex(DIM);
+        Random rnd = new Random(3);
+        List<float[]> vectors = clustered(rnd, 20_000, 32);
+
+        // Searches keep running against the old lists while training
+        AtomicBoolean searching = new AtomicBoolean(true);
+        Thread searcher = Thread.ofPlatform().start(() -> {
+            float[] q = VectorIndex.normalize(vectors.get(0));
+            while (searching.get()) index.search(q, 5, 8);
+        });
+
+        for (float[] v : vectors) index.add(VectorIndex.quantize(v));
+        index.awaitTraining();
+        searching.set(false);
+        searcher.join();
+
+        // Probing every list turns the IVF search into an exact scan, so each vector must find itself
+        assertThat(index.isTrained()).isTrue();
+        for (int i = 0; i < vectors.size(); i += 97) {
+            List<VectorIndex.Hit> hits = index.search(VectorIndex.normalize(vectors.get(i)), 1, Integer.MAX_VALUE);
+            assertThat(hits).isNotEmpty();
+            assertThat(hits.get(0).similarity()).isGreaterThan(0.98);
+        }
+    }
+
+    @Test
+    void quantizeIsUnitLengthScaled() {
+        byte[] code = VectorIndex.quantize(new float[]{3f, 4f});
+        assertThat(code).containsExactly((byte) 76, (byte) 102);
+        assertThat(VectorIndex.quantize(new float[]{0f, 0f})).containsExactly((byte) 0, (byte) 0);
+    }
+
+    // --- HELPERS ---
+
+    private static List<VectorIndex.Hit> bruteForce(VectorIndex index, float[] query, int k) {
+        List<VectorIndex.Hit> all = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            byte[] code = index.get(i);
+            double dot = 0.0;
+            for (int d = 0; d < DIM; d++) dot += query[d] * code[d];
+            all.add(new VectorIndex.Hit(i, dot / VectorIndex.QUANT_SCALE));
+        }
+        all.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+        return all.subList(0, k);
+    }
+
+    private static List<float[]> clustered(Random rnd, int n, int clusters) {
+        List<float[]> centers = new ArrayList<>();
+        for (int c = 0; c < clusters; c++) centers.add(randomVector(rnd));
+        List<float[]> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(perturb(rnd, centers.get(rnd.nextInt(clusters)), 0.15f));
+        return out;
+    }
+
+    private static float[] perturb(Random rnd, float[] v, float noise) {
+        float[] out = new float[v.length];
+        for (int d = 0; d < v.length; d++) out[d] = v[d] + (float) rnd.nextGaussian() * noise;
+        return out;
+    }
+
+    private static float[] randomVector(Random rnd) {
+        float[] v = new float[DIM];
+        for (int d = 0; d < DIM; d++) v[d] = (float) rnd.nextGaussian();
+        return VectorIndex.normalize(v);
+    }
+}
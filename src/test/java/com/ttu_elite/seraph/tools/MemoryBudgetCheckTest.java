@@ -0,0 +1,30 @@
+package com.ttu_elite.seraph.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The allocation budget as a test: fails when the peak RSS of the instance at
+ * seraph.membudget.url exceeds seraph.membudget.max-rss-mb while it analyzes
+ * seraph.membudget.profiles fresh users at once. Needs a running server (lowmem,loadtest),
+ * so it only runs when the url is given; see MemoryBudgetCheck.
+ */
+@EnabledIfSystemProperty(named = "seraph.membudget.url", matches = ".+")
+class MemoryBudgetCheckTest {
+
+    @Test
+    void peakRssStaysWithinBudget() throws Exception {
+        String url = System.getProperty("seraph.membudget.url");
+        int profiles = Integer.getInteger("seraph.membudget.profiles", 100);
+        long maxRssMb = Long.getLong("seraph.membudget.max-rss-mb", 1536L);
+
+        MemoryBudgetCheck.Result result = MemoryBudgetCheck.measure(url, profiles, Duration.ofSeconds(600), 200);
+
+        assertThat(result.report().errors()).as("failed requests\n%s", result).isZero();
+        assertThat(result.peakMb()).as("peak RSS in MB\n%s", result).isLessThanOrEqualTo(maxRssMb);
+    }
+}